@@ -1,6 +1,7 @@
 package microbat.evaluation;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -577,22 +578,21 @@ public class SimulatedMicroBat {
 
 	
 	protected List<TraceNode> findAllDominatees(Trace mutationTrace, ClassLocation mutatedLocation){
-		Map<Integer, TraceNode> allDominatees = new HashMap<>();
+		BitSet allDominatees = new BitSet(mutationTrace.size() + 1);
 		
 		for(TraceNode mutatedNode: mutationTrace.getExecutionList()){
 			if(mutatedNode.getClassCanonicalName().equals(mutatedLocation.getClassCanonicalName()) 
 					&& mutatedNode.getLineNumber() == mutatedLocation.getLineNo()){
 				
-				if(allDominatees.get(mutatedNode.getOrder()) == null){
-					Map<Integer, TraceNode> dominatees = mutatedNode.findAllDominatees();
-					allDominatees.putAll(dominatees);
-					allDominatees.put(mutatedNode.getOrder(), mutatedNode);
+				if(!allDominatees.get(mutatedNode.getOrder())){
+					allDominatees.or(mutationTrace.getSlicer().sliceForward(mutatedNode));
+					allDominatees.set(mutatedNode.getOrder());
 				}
 				
 			}
 		}
 		
-		return new ArrayList<>(allDominatees.values());
+		return new ArrayList<>(mutationTrace.getSlicer().toNodeMap(allDominatees).values());
 	}
 	
 	private Map<Integer, TraceNode> findAllWrongNodes(PairList pairList, Trace mutatedTrace){
@@ -1,46 +1,109 @@
 package microbat.evaluation.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import microbat.model.trace.TraceNode;
 
+/**
+ * The matched pairs of two traces. The pairs are indexed by the orders of their mutated and original
+ * nodes, as trace nodes are identified by their orders, so that a pair is found in constant time. The
+ * index is built on the first lookup, so the pairs are only changed through this class, and
+ * {@link #getPairList()} is a read-only view.
+ */
 public class PairList {
 	private List<TraceNodePair> pairList = new ArrayList<>();
+	
+	/* pairs indexed by the orders of their nodes, where the first pair of a node wins, the same as a scan */
+	private TraceNodePair[] mutatedIndex;
+	private TraceNodePair[] originalIndex;
+	private boolean isIndexed;
 
 	public PairList(List<TraceNodePair> pairList) {
 		super();
-		this.pairList = pairList;
+		this.pairList = new ArrayList<>(pairList);
 	}
 
 	public List<TraceNodePair> getPairList() {
-		return pairList;
+		return Collections.unmodifiableList(pairList);
 	}
 
 	public void setPairList(List<TraceNodePair> pairList) {
-		this.pairList = pairList;
+		this.pairList = new ArrayList<>(pairList);
+		this.isIndexed = false;
 	}
 	
 	public void add(TraceNodePair pair){
 		this.pairList.add(pair);
+		if (!isIndexed) {
+			return;
+		}
+		/* the added pair is the last one, it is indexed unless it goes beyond the index */
+		if (isBeyond(mutatedIndex, pair.getMutatedNode()) || isBeyond(originalIndex, pair.getOriginalNode())) {
+			isIndexed = false;
+		} else {
+			index(mutatedIndex, pair.getMutatedNode(), pair);
+			index(originalIndex, pair.getOriginalNode(), pair);
+		}
+	}
+	
+	private boolean isBeyond(TraceNodePair[] index, TraceNode node) {
+		return node != null && node.getOrder() >= index.length;
 	}
 
 	public TraceNodePair findByMutatedNode(TraceNode node) {
-		for(TraceNodePair pair: pairList){
-			if(pair.getMutatedNode().equals(node)){
-				return pair;
-			}
+		if (node == null) {
+			return null;
 		}
-		return null;
+		ensureIndex();
+		return find(mutatedIndex, node);
 	}
 	
 	public TraceNodePair findByOriginalNode(TraceNode node) {
-		for(TraceNodePair pair: pairList){
-			if(pair.getOriginalNode().equals(node)){
-				return pair;
+		if (node == null) {
+			return null;
+		}
+		ensureIndex();
+		return find(originalIndex, node);
+	}
+	
+	private TraceNodePair find(TraceNodePair[] index, TraceNode node) {
+		int order = node.getOrder();
+		if (order < 0 || order >= index.length) {
+			return null;
+		}
+		return index[order];
+	}
+	
+	private void ensureIndex() {
+		if (isIndexed) {
+			return;
+		}
+		int maxMutatedOrder = -1;
+		int maxOriginalOrder = -1;
+		for (TraceNodePair pair : pairList) {
+			if (pair.getMutatedNode() != null) {
+				maxMutatedOrder = Math.max(maxMutatedOrder, pair.getMutatedNode().getOrder());
+			}
+			if (pair.getOriginalNode() != null) {
+				maxOriginalOrder = Math.max(maxOriginalOrder, pair.getOriginalNode().getOrder());
 			}
 		}
-		return null;
+		mutatedIndex = new TraceNodePair[maxMutatedOrder + 1];
+		originalIndex = new TraceNodePair[maxOriginalOrder + 1];
+		for (TraceNodePair pair : pairList) {
+			index(mutatedIndex, pair.getMutatedNode(), pair);
+			index(originalIndex, pair.getOriginalNode(), pair);
+		}
+		isIndexed = true;
+	}
+	
+	private void index(TraceNodePair[] index, TraceNode node, TraceNodePair pair) {
+		/* virtual nodes have negative orders, and are never looked up */
+		if (node != null && node.getOrder() >= 0 && index[node.getOrder()] == null) {
+			index[node.getOrder()] = pair;
+		}
 	}
 	
 	public int size(){
@@ -11,6 +11,8 @@ import microbat.model.trace.TraceNode;
 public class DiffUtil {
 	/**
 	 * compare traces directly seems not working, which may report may false positive for the matching.
+	 * The traces are aligned by their invocations, so that each invocation is aligned independently, see
+	 * {@link TraceAligner#alignByInvocation(Trace, Trace)}.
 	 * 
 	 * @param multisetList
 	 * @param commonTokenList
@@ -18,27 +20,42 @@ public class DiffUtil {
 	 */
 	@Deprecated
 	public static PairList generateMatchedTraceNodeList(Trace mutatedTrace, Trace correctTrace) {
-		
-		TraceNode[] mutatedTraceArray = mutatedTrace.getExecutionList().toArray(new TraceNode[0]);
-		TraceNode[] correctTraceArray = correctTrace.getExecutionList().toArray(new TraceNode[0]);
-		
-		return generateMatchedTraceNodeList(mutatedTraceArray, correctTraceArray, new TraceNodeComprehensiveSimilarityComparator());
+		TraceAligner aligner = new TraceAligner(new TraceNodeComprehensiveSimilarityComparator());
+		return new PairList(aligner.alignByInvocation(mutatedTrace, correctTrace));
 	}
 	
+	/**
+	 * large lists are aligned in linear space by {@link TraceAligner}, small ones on a full score table. The
+	 * pairs of large lists might differ from those of a full score table on ties, not in score.
+	 */
 	public static PairList generateMatchedTraceNodeList(TraceNode[] mutatedTraceArray, TraceNode[] correctTraceArray,
 			TraceNodeSimilarityComparator sc){
+		List<TraceNodePair> pairList = new TraceAligner(sc).align(mutatedTraceArray, correctTraceArray);
+		return new PairList(pairList);
+	}
+	
+	/**
+	 * match mutatedTraceArray[from1, to1) with correctTraceArray[from2, to2) by backtracking their full
+	 * score table.
+	 * 
+	 * @return the matched pairs, in the order of the arrays.
+	 */
+	static List<TraceNodePair> matchOnScoreTable(TraceNode[] mutatedTraceArray, int from1, int to1,
+			TraceNode[] correctTraceArray, int from2, int to2, TraceNodeSimilarityComparator sc) {
 		
 		List<TraceNodePair> pairList = new ArrayList<>();
-		double[][] scoreTable = buildScoreTable(mutatedTraceArray, correctTraceArray, sc);
+		double[][] scoreTable = buildScoreTable(mutatedTraceArray, from1, to1, correctTraceArray, from2, to2, sc);
 
-		for (int i = mutatedTraceArray.length, j = correctTraceArray.length; (i > 0 && j > 0);) {
-			if (mutatedTraceArray[i - 1].hasSameLocation(correctTraceArray[j - 1])) {
+		for (int i = to1 - from1, j = to2 - from2; (i > 0 && j > 0);) {
+			TraceNode mutatedNode = mutatedTraceArray[from1 + i - 1];
+			TraceNode correctNode = correctTraceArray[from2 + j - 1];
+			if (mutatedNode.hasSameLocation(correctNode)) {
 				
-				double sim = sc.compute(mutatedTraceArray[i - 1], correctTraceArray[j - 1]);
+				double sim = sc.compute(mutatedNode, correctNode);
 				double increase = scoreTable[i][j]-scoreTable[i-1][j-1];
 				
 				if(Math.abs(sim - increase) < 0.01){
-					TraceNodePair pair = new TraceNodePair(mutatedTraceArray[i - 1], correctTraceArray[j - 1]);
+					TraceNodePair pair = new TraceNodePair(mutatedNode, correctNode);
 					pairList.add(pair);
 					
 					pair.setExactSame(sim > 0.99);
@@ -66,9 +83,7 @@ public class DiffUtil {
 		}
 
 		reverseOrder(pairList);
-		PairList list = new PairList(pairList);
-		
-		return list;
+		return pairList;
 	}
 	
 	public static void reverseOrder(List<TraceNodePair> pairList){
@@ -82,24 +97,22 @@ public class DiffUtil {
 		
 	}
 	
-	private static double[][] buildScoreTable(TraceNode[] nodeList1, TraceNode[] nodeList2, TraceNodeSimilarityComparator comparator){
-		double[][] similarityTable = new double[nodeList1.length + 1][nodeList2.length + 1];
-		for (int i = 0; i < nodeList1.length + 1; i++)
+	private static double[][] buildScoreTable(TraceNode[] nodeList1, int from1, int to1, TraceNode[] nodeList2,
+			int from2, int to2, TraceNodeSimilarityComparator comparator){
+		int size1 = to1 - from1;
+		int size2 = to2 - from2;
+		double[][] similarityTable = new double[size1 + 1][size2 + 1];
+		for (int i = 0; i < size1 + 1; i++)
 			similarityTable[i][0] = 0;
-		for (int j = 0; j < nodeList2.length + 1; j++)
+		for (int j = 0; j < size2 + 1; j++)
 			similarityTable[0][j] = 0;
 
-		for (int i = 1; i < nodeList1.length + 1; i++){
-			for (int j = 1; j < nodeList2.length + 1; j++) {
-				if (nodeList1[i - 1].hasSameLocation(nodeList2[j - 1])){
-					if(nodeList1[i - 1].getOrder() == 103 && nodeList2[j-1].getOrder()== 95){
-						System.currentTimeMillis();
-					}
-					if(nodeList1[i - 1].getOrder() == 103 && nodeList2[j-1].getOrder()==194){
-						System.currentTimeMillis();
-					}
-					
-					double value = similarityTable[i - 1][j - 1] + comparator.compute(nodeList1[i - 1], nodeList2[j - 1]);
+		for (int i = 1; i < size1 + 1; i++){
+			TraceNode node1 = nodeList1[from1 + i - 1];
+			for (int j = 1; j < size2 + 1; j++) {
+				TraceNode node2 = nodeList2[from2 + j - 1];
+				if (node1.hasSameLocation(node2)){
+					double value = similarityTable[i - 1][j - 1] + comparator.compute(node1, node2);
 					similarityTable[i][j] = getLargestValue(value, similarityTable[i-1][j], similarityTable[i][j-1]);
 				}
 				else {
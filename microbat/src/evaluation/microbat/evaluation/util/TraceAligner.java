@@ -0,0 +1,264 @@
+package microbat.evaluation.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import microbat.evaluation.model.TraceNodePair;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+
+/**
+ * Aligns two lists of trace nodes by the weighted LCS of {@link DiffUtil}, i.e., two nodes can be matched
+ * only if they have the same location, and a matched pair scores their similarity. Instead of a full
+ * score table of n*m cells, large lists are aligned in linear space by Hirschberg's divide and conquer:
+ * the list1 is split in the middle, and the list2 is split where the forward scores of the first half
+ * plus the backward scores of the second half are the largest. Sub-problems which are small enough are
+ * aligned on a full score table, so that the result on small lists is the same as the one of the former
+ * {@link DiffUtil#generateMatchedTraceNodeList(TraceNode[], TraceNode[], TraceNodeSimilarityComparator)}.
+ * <br>
+ * Once the lists are split, the alignment has the same score as the former one, but the pairs might differ
+ * when several alignments have the same score, as the former backtracking of the whole table chose one of
+ * them by the scores of the cells out of the halves. The last best split of the list2 is taken, which is
+ * closer to the former choice, as the backtracking skipped the steps of the list1 first on ties.
+ * <br>
+ * Two traces can also be aligned by their invocations, where only the top level steps are aligned with
+ * each other, and the invocation children of each matched pair of steps are aligned independently.
+ * The independent sub-problems are aligned in parallel. Unlike the former alignment of the whole traces,
+ * the children of a step which is not matched are never aligned, even if the same method is called from
+ * another location.
+ *
+ * @author Yun Lin
+ *
+ */
+public class TraceAligner {
+	/* sub-problems with not more cells than this are aligned on a full score table (8MB of doubles) */
+	static final long DEFAULT_TABLE_THRESHOLD = 1L << 20;
+	/* sub-problems with not more cells than this are not worth forking */
+	private static final long PARALLEL_THRESHOLD = 1L << 16;
+
+	private TraceNodeSimilarityComparator comparator;
+	private ForkJoinPool pool;
+	private long tableThreshold;
+
+	public TraceAligner(TraceNodeSimilarityComparator comparator) {
+		this(comparator, ForkJoinPool.commonPool());
+	}
+
+	public TraceAligner(TraceNodeSimilarityComparator comparator, ForkJoinPool pool) {
+		this(comparator, pool, DEFAULT_TABLE_THRESHOLD);
+	}
+
+	TraceAligner(TraceNodeSimilarityComparator comparator, ForkJoinPool pool, long tableThreshold) {
+		this.comparator = comparator;
+		this.pool = pool;
+		this.tableThreshold = tableThreshold;
+	}
+
+	/**
+	 * @return the matched pairs of nodes, in the order of the lists.
+	 */
+	public List<TraceNodePair> align(TraceNode[] nodeList1, TraceNode[] nodeList2) {
+		AlignTask task = new AlignTask(nodeList1, 0, nodeList1.length, nodeList2, 0, nodeList2.length);
+		if (getCells(nodeList1.length, nodeList2.length) <= PARALLEL_THRESHOLD) {
+			return task.compute();
+		}
+		return pool.invoke(task);
+	}
+
+	/**
+	 * align the top level steps of the two traces, then the invocation children of each matched pair of
+	 * steps, so that no pair crosses the boundary of a matched invocation.
+	 *
+	 * @return the matched pairs of steps, in the order of the traces.
+	 */
+	public List<TraceNodePair> alignByInvocation(Trace trace1, Trace trace2) {
+		return pool.invoke(new InvocationAlignTask(getTopLevelNodes(trace1), getTopLevelNodes(trace2)));
+	}
+
+	private List<TraceNode> getTopLevelNodes(Trace trace) {
+		List<TraceNode> nodes = new ArrayList<>();
+		for (TraceNode node : trace.getExecutionList()) {
+			if (node.getInvocationParent() == null) {
+				nodes.add(node);
+			}
+		}
+		return nodes;
+	}
+
+	private static long getCells(int size1, int size2) {
+		return (long) size1 * size2;
+	}
+
+	/**
+	 * @return the score of aligning nodeList1[from1, to1) with nodeList2[from2, from2 + j) at index j.
+	 */
+	private double[] computeForwardScores(TraceNode[] nodeList1, int from1, int to1, TraceNode[] nodeList2,
+			int from2, int to2) {
+		int size = to2 - from2;
+		double[] prev = new double[size + 1];
+		double[] cur = new double[size + 1];
+		for (int i = from1; i < to1; i++) {
+			TraceNode node1 = nodeList1[i];
+			cur[0] = 0;
+			for (int j = 1; j <= size; j++) {
+				TraceNode node2 = nodeList2[from2 + j - 1];
+				double score = (prev[j] >= cur[j - 1]) ? prev[j] : cur[j - 1];
+				if (node1.hasSameLocation(node2)) {
+					double value = prev[j - 1] + comparator.compute(node1, node2);
+					if (value > score) {
+						score = value;
+					}
+				}
+				cur[j] = score;
+			}
+			double[] tmp = prev;
+			prev = cur;
+			cur = tmp;
+		}
+		return prev;
+	}
+
+	/**
+	 * @return the score of aligning nodeList1[from1, to1) with nodeList2[from2 + j, to2) at index j.
+	 */
+	private double[] computeBackwardScores(TraceNode[] nodeList1, int from1, int to1, TraceNode[] nodeList2,
+			int from2, int to2) {
+		int size = to2 - from2;
+		double[] prev = new double[size + 1];
+		double[] cur = new double[size + 1];
+		for (int i = to1 - 1; i >= from1; i--) {
+			TraceNode node1 = nodeList1[i];
+			cur[size] = 0;
+			for (int j = size - 1; j >= 0; j--) {
+				TraceNode node2 = nodeList2[from2 + j];
+				double score = (prev[j] >= cur[j + 1]) ? prev[j] : cur[j + 1];
+				if (node1.hasSameLocation(node2)) {
+					double value = prev[j + 1] + comparator.compute(node1, node2);
+					if (value > score) {
+						score = value;
+					}
+				}
+				cur[j] = score;
+			}
+			double[] tmp = prev;
+			prev = cur;
+			cur = tmp;
+		}
+		return prev;
+	}
+
+	@SuppressWarnings("serial")
+	private class AlignTask extends RecursiveTask<List<TraceNodePair>> {
+		private TraceNode[] nodeList1;
+		private int from1;
+		private int to1;
+		private TraceNode[] nodeList2;
+		private int from2;
+		private int to2;
+
+		public AlignTask(TraceNode[] nodeList1, int from1, int to1, TraceNode[] nodeList2, int from2, int to2) {
+			this.nodeList1 = nodeList1;
+			this.from1 = from1;
+			this.to1 = to1;
+			this.nodeList2 = nodeList2;
+			this.from2 = from2;
+			this.to2 = to2;
+		}
+
+		@Override
+		protected List<TraceNodePair> compute() {
+			int size1 = to1 - from1;
+			int size2 = to2 - from2;
+			if (size1 == 0 || size2 == 0) {
+				return new ArrayList<>();
+			}
+			if (size1 == 1 || getCells(size1, size2) <= tableThreshold) {
+				return DiffUtil.matchOnScoreTable(nodeList1, from1, to1, nodeList2, from2, to2, comparator);
+			}
+			final int mid1 = from1 + size1 / 2;
+			boolean parallel = getCells(size1, size2) > PARALLEL_THRESHOLD;
+
+			/* the backward scores of the second half are computed along with the forward scores of the first half */
+			RecursiveTask<double[]> backwardTask = new RecursiveTask<double[]>() {
+				@Override
+				protected double[] compute() {
+					return computeBackwardScores(nodeList1, mid1, to1, nodeList2, from2, to2);
+				}
+			};
+			if (parallel) {
+				backwardTask.fork();
+			}
+			double[] forward = computeForwardScores(nodeList1, from1, mid1, nodeList2, from2, to2);
+			double[] backward = parallel ? backwardTask.join() : backwardTask.invoke();
+
+			/* the last best split on ties */
+			int split = 0;
+			double max = -1;
+			for (int j = 0; j <= size2; j++) {
+				double score = forward[j] + backward[j];
+				if (score >= max) {
+					max = score;
+					split = j;
+				}
+			}
+
+			AlignTask firstHalf = new AlignTask(nodeList1, from1, mid1, nodeList2, from2, from2 + split);
+			AlignTask secondHalf = new AlignTask(nodeList1, mid1, to1, nodeList2, from2 + split, to2);
+			List<TraceNodePair> pairs;
+			if (parallel) {
+				secondHalf.fork();
+				pairs = firstHalf.compute();
+				pairs.addAll(secondHalf.join());
+			} else {
+				pairs = firstHalf.compute();
+				pairs.addAll(secondHalf.compute());
+			}
+			return pairs;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private class InvocationAlignTask extends RecursiveTask<List<TraceNodePair>> {
+		private List<TraceNode> nodeList1;
+		private List<TraceNode> nodeList2;
+
+		public InvocationAlignTask(List<TraceNode> nodeList1, List<TraceNode> nodeList2) {
+			this.nodeList1 = nodeList1;
+			this.nodeList2 = nodeList2;
+		}
+
+		@Override
+		protected List<TraceNodePair> compute() {
+			TraceNode[] array1 = nodeList1.toArray(new TraceNode[0]);
+			TraceNode[] array2 = nodeList2.toArray(new TraceNode[0]);
+			List<TraceNodePair> pairs = new AlignTask(array1, 0, array1.length, array2, 0, array2.length).compute();
+
+			/* align the invocation children of each matched pair independently */
+			List<InvocationAlignTask> subTasks = new ArrayList<>(pairs.size());
+			for (TraceNodePair pair : pairs) {
+				List<TraceNode> children1 = pair.getMutatedNode().getInvocationChildren();
+				List<TraceNode> children2 = pair.getOriginalNode().getInvocationChildren();
+				if (children1.isEmpty() || children2.isEmpty()) {
+					subTasks.add(null);
+				} else {
+					InvocationAlignTask subTask = new InvocationAlignTask(children1, children2);
+					subTask.fork();
+					subTasks.add(subTask);
+				}
+			}
+
+			/* the children of a step follow the step, and precede its next sibling in the trace */
+			List<TraceNodePair> result = new ArrayList<>();
+			for (int i = 0; i < pairs.size(); i++) {
+				result.add(pairs.get(i));
+				InvocationAlignTask subTask = subTasks.get(i);
+				if (subTask != null) {
+					result.addAll(subTask.join());
+				}
+			}
+			return result;
+		}
+	}
+}
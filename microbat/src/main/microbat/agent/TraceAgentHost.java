@@ -0,0 +1,225 @@
+package microbat.agent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import microbat.instrumentation.AgentConstants;
+import microbat.instrumentation.AgentHost;
+import sav.common.core.SavException;
+import sav.common.core.utils.CollectionBuilder;
+import sav.common.core.utils.StringUtils;
+import sav.strategies.vm.VMConfiguration;
+import sav.strategies.vm.VMRunner;
+import sav.strategies.vm.interprocess.TcpInputWriter;
+import sav.strategies.vm.interprocess.TcpOutputReader;
+import sav.strategies.vm.interprocess.socket.SocketAgentVmRunner;
+
+/**
+ * A jvm with the trace agent attached, which is kept alive to trace a sequence of runs, see
+ * {@link AgentHost} for the other side. The runs of a host share the same agent params except the ones of
+ * {@link TraceAgentRunner#HOST_RUN_PARAMS}, which are sent with each run.
+ *
+ * @author LLT
+ *
+ */
+public class TraceAgentHost extends SocketAgentVmRunner {
+	private String key;
+	private VMConfiguration hostConfig;
+	private boolean enableSettingHeapSize;
+	private RequestWriter requestWriter;
+	private ResponseReader responseReader;
+	/* the runner of the current run, which the output of the host is printed to */
+	private volatile TraceAgentRunner runner;
+
+	public TraceAgentHost(String agentJar, VMConfiguration config, Map<String, String> agentParams,
+			boolean enableSettingHeapSize) {
+		this(new RequestWriter(), new ResponseReader(), agentJar, config, agentParams, enableSettingHeapSize);
+	}
+
+	private TraceAgentHost(RequestWriter requestWriter, ResponseReader responseReader, String agentJar,
+			VMConfiguration config, Map<String, String> agentParams, boolean enableSettingHeapSize) {
+		super(requestWriter, responseReader, agentJar);
+		this.requestWriter = requestWriter;
+		this.responseReader = responseReader;
+		this.enableSettingHeapSize = enableSettingHeapSize;
+		this.key = getKey(agentJar, config, agentParams, enableSettingHeapSize);
+		for (Entry<String, String> entry : agentParams.entrySet()) {
+			addAgentParam(entry.getKey(), entry.getValue());
+		}
+		hostConfig = new VMConfiguration(config);
+		hostConfig.setWorkingDirectory(config.getWorkingDirectory());
+		hostConfig.setNoVerify(config.isNoVerify());
+		hostConfig.setLaunchClass(AgentHost.class.getName());
+		List<String> hostArgs = new ArrayList<String>();
+		hostArgs.add(config.getLaunchClass());
+		hostConfig.setProgramArgs(hostArgs);
+	}
+
+	/**
+	 * @return the key of the hosts which can run a program of the given configuration and agent params.
+	 */
+	public static String getKey(String agentJar, VMConfiguration config, Map<String, String> agentParams,
+			boolean enableSettingHeapSize) {
+		return StringUtils.join("\n", agentJar, config.getJavaHome(), config.getClasspathStr(),
+				config.getWorkingDirectory(), config.getLaunchClass(), config.isEnableAssertion(),
+				config.isNoVerify(), enableSettingHeapSize, new TreeMap<String, String>(agentParams));
+	}
+
+	public void start() throws SavException {
+		startVm(hostConfig);
+	}
+
+	/**
+	 * runs the program on this host with the given agent params and arguments, the trace is recorded in the
+	 * dump file of the run.
+	 *
+	 * @return the program message, or null if the host has stopped during the run, e.g. the program has
+	 *         exited the jvm, or the run has timed out.
+	 */
+	public synchronized String run(TraceAgentRunner runner, Map<String, String> runParams, List<String> programArgs,
+			long timeout) {
+		this.runner = runner;
+		try {
+			requestWriter.sendRequest(runParams, programArgs);
+			return responseReader.readResponse(this, timeout);
+		} finally {
+			this.runner = null;
+		}
+	}
+
+	@Override
+	protected void buildVmOption(CollectionBuilder<String, ?> builder, VMConfiguration config) {
+		builder.appendIf("-Xmx30g", enableSettingHeapSize);
+		builder.appendIf("-XX:+UseG1GC", enableSettingHeapSize);
+		super.buildVmOption(builder, config);
+	}
+
+	@Override
+	protected void printOut(String line, boolean error) {
+		TraceAgentRunner runner = this.runner;
+		if (runner != null) {
+			runner.printOut(line, error);
+		} else if (error || line.startsWith(AgentConstants.LOG_HEADER)) {
+			System.out.println(line);
+		}
+	}
+
+	public boolean isAlive() {
+		return process != null && isProcessRunning();
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	private static class RequestWriter extends TcpInputWriter {
+		private PrintWriter pw;
+		private Map<String, String> runParams;
+		private List<String> programArgs;
+
+		public RequestWriter() {
+			waiting();
+		}
+
+		public synchronized void sendRequest(Map<String, String> runParams, List<String> programArgs) {
+			if (isClosed()) {
+				throw new IllegalStateException("RequestWriter is closed!");
+			}
+			this.runParams = runParams;
+			this.programArgs = programArgs;
+			ready();
+			write();
+		}
+
+		@Override
+		protected void writeData() {
+			List<String> params = new ArrayList<String>(runParams.size());
+			for (Entry<String, String> entry : runParams.entrySet()) {
+				params.add(StringUtils.join(AgentConstants.AGENT_OPTION_SEPARATOR, entry.getKey(), entry.getValue()));
+			}
+			pw.println(AgentHost.REQUEST_START);
+			pw.println(StringUtils.join(params, AgentConstants.AGENT_PARAMS_SEPARATOR));
+			for (String arg : programArgs) {
+				pw.println(arg);
+			}
+			pw.println(AgentHost.REQUEST_END);
+			runParams = null;
+			programArgs = null;
+		}
+
+		@Override
+		public void setOutputStream(OutputStream outputStream) {
+			this.pw = new PrintWriter(outputStream, true);
+		}
+
+		@Override
+		public void close() {
+			super.close();
+			if (pw != null) {
+				pw.close();
+			}
+		}
+	}
+
+	private static class ResponseReader extends TcpOutputReader {
+		private static final long POLLING_INTERVAL = 100l;
+		private String programMsg;
+
+		public ResponseReader() {
+			waiting();
+		}
+
+		@Override
+		public boolean isMatched(String line) {
+			return AgentHost.RESPONSE_START.equals(line);
+		}
+
+		@Override
+		protected void readData(BufferedReader br) {
+			List<String> lines = new ArrayList<String>();
+			try {
+				String line;
+				while ((line = br.readLine()) != null) {
+					if (AgentHost.RESPONSE_END.equals(line)) {
+						programMsg = StringUtils.join(lines, "\n");
+						notifyAll();
+						return;
+					}
+					lines.add(line);
+				}
+			} catch (IOException e) {
+				// do nothing
+			}
+		}
+
+		public synchronized String readResponse(TraceAgentHost host, long timeout) {
+			long start = System.currentTimeMillis();
+			try {
+				while (programMsg == null) {
+					if (!host.isAlive()) {
+						return null;
+					}
+					if (timeout != VMRunner.NO_TIME_OUT && System.currentTimeMillis() - start > timeout) {
+						System.out.println("destroy trace agent host due to timeout!");
+						host.stop();
+						return null;
+					}
+					wait(POLLING_INTERVAL);
+				}
+				return programMsg;
+			} catch (InterruptedException e) {
+				host.stop();
+				return null;
+			} finally {
+				programMsg = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package microbat.agent;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+
+import sav.common.core.SavException;
+import sav.strategies.vm.VMConfiguration;
+
+/**
+ * The idle {@link TraceAgentHost}s, which are reused by the runs of the same program and agent params, so
+ * that a run does not pay for starting a jvm and instrumenting the classes which have been loaded by the
+ * previous runs. A host is used by one run at a time, and the least recently used idle hosts are stopped
+ * when there are more than {@link #MAX_IDLE_HOSTS} of them.
+ *
+ * @author LLT
+ *
+ */
+public class TraceAgentHostPool {
+	private static final int MAX_IDLE_HOSTS = 4;
+	private static TraceAgentHostPool instance;
+
+	/* the most recently used first */
+	private LinkedList<TraceAgentHost> idleHosts = new LinkedList<TraceAgentHost>();
+
+	public static synchronized TraceAgentHostPool getInstance() {
+		if (instance == null) {
+			instance = new TraceAgentHostPool();
+			final TraceAgentHostPool pool = instance;
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				@Override
+				public void run() {
+					pool.stopAll();
+				}
+			});
+		}
+		return instance;
+	}
+
+	/**
+	 * @return an idle host of the given program and agent params, or a new one if there is none.
+	 */
+	public TraceAgentHost acquire(String agentJar, VMConfiguration config, Map<String, String> agentParams,
+			boolean enableSettingHeapSize) throws SavException {
+		String key = TraceAgentHost.getKey(agentJar, config, agentParams, enableSettingHeapSize);
+		synchronized (this) {
+			for (Iterator<TraceAgentHost> it = idleHosts.iterator(); it.hasNext();) {
+				TraceAgentHost host = it.next();
+				if (!host.isAlive()) {
+					it.remove();
+				} else if (host.getKey().equals(key)) {
+					it.remove();
+					return host;
+				}
+			}
+		}
+		TraceAgentHost host = new TraceAgentHost(agentJar, config, agentParams, enableSettingHeapSize);
+		host.start();
+		return host;
+	}
+
+	public synchronized void release(TraceAgentHost host) {
+		if (!host.isAlive()) {
+			return;
+		}
+		idleHosts.addFirst(host);
+		while (idleHosts.size() > MAX_IDLE_HOSTS) {
+			idleHosts.removeLast().stop();
+		}
+	}
+
+	public synchronized void stopAll() {
+		for (TraceAgentHost host : idleHosts) {
+			host.stop();
+		}
+		idleHosts.clear();
+	}
+}
@@ -2,17 +2,28 @@ package microbat.agent;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.UUID;
 
 import microbat.instrumentation.AgentConstants;
 import microbat.instrumentation.AgentParams;
 import microbat.instrumentation.output.RunningInfo;
-import microbat.instrumentation.output.TraceOutputReader;
+import microbat.instrumentation.output.tcp.TraceStreamListener;
+import microbat.instrumentation.output.tcp.TraceStreamReader;
 import microbat.instrumentation.precheck.PrecheckInfo;
 import microbat.model.trace.Trace;
 import microbat.preference.DatabasePreference;
@@ -28,9 +39,19 @@ import sav.strategies.vm.AgentVmRunner;
 import sav.strategies.vm.VMConfiguration;
 
 public class TraceAgentRunner extends AgentVmRunner {
+	/* the agent params which change from a run to another on the same host */
+	static final List<String> HOST_RUN_PARAMS = Arrays.asList(AgentParams.OPT_DUMP_FILE, AgentParams.OPT_RUN_ID,
+			AgentParams.OPT_TRACE_RECORDER, AgentParams.OPT_EXPECTED_STEP, AgentParams.OPT_LAUNCH_CLASS,
+			AgentParams.OPT_PRECHECK_DUMP_FILE);
+	private static final String SOCKET_RECORDER = "SOCKET";
+	private static final long ACCEPT_POLLING_INTERVAL = 100l;
+	/* the time the agent is given to close the trace stream after the vm timeout */
+	private static final long STREAM_CLOSE_GRACE = 5000l;
+	
 	private boolean allowFilterFileOpt = false;
-	private ServerSocket serverSocket;
+	private TraceStreamListener streamListener;
 	private boolean isPrecheckMode = false;
+	private boolean isSinglePassMode = false;
 	private PrecheckInfo precheckInfo;
 
 	private RunningInfo runningInfo;
@@ -39,6 +60,7 @@ public class TraceAgentRunner extends AgentVmRunner {
 	private String testFailureMessage;
 	private VMConfiguration config;
 	private boolean enableSettingHeapSize = true;
+	private boolean hostMode = false;
 	
 	private List<Trace> traces;
 
@@ -94,6 +116,47 @@ public class TraceAgentRunner extends AgentVmRunner {
 
 	public boolean run(Reader reader) throws SavException {
 		isPrecheckMode = false;
+		isSinglePassMode = false;
+		return runTrace(reader, null);
+	}
+
+	/**
+	 * traces the program without running a precheck first. The agent filters the over long methods once
+	 * their instrumentation exceeds the bytecode limit, stops the program at the step limit like the
+	 * precheck does, and stores the precheck info of the run along with the trace.
+	 * 
+	 * @return false if the run did not complete, e.g. it has timed out.
+	 * @see #getPrecheckInfo()
+	 */
+	public boolean runSinglePass(Reader reader) throws SavException {
+		isPrecheckMode = false;
+		isSinglePassMode = true;
+		File precheckFile = null;
+		try {
+			precheckFile = File.createTempFile("tracePrecheck", ".info");
+			addAgentParam(AgentParams.OPT_SINGLE_PASS, "true");
+			addAgentParam(AgentParams.OPT_PRECHECK_DUMP_FILE, precheckFile.getPath());
+			return runTrace(reader, precheckFile.getPath());
+		} catch (IOException e) {
+			e.printStackTrace();
+			throw new SavRtException(e);
+		} finally {
+			removeAgentParam(AgentParams.OPT_SINGLE_PASS);
+			removeAgentParam(AgentParams.OPT_PRECHECK_DUMP_FILE);
+			if (precheckFile != null) {
+				precheckFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * @param precheckFile the file where the agent stores the precheck info in single pass mode, or null.
+	 */
+	private boolean runTrace(Reader reader, String precheckFile) throws SavException {
+		/* the traces are streamed instead of being dumped to a file, a database is still recorded as selected */
+		if (streamListener != null && (reader == Reader.FILE || reader == Reader.MAPPED_FILE)) {
+			return runWithSocket(precheckFile);
+		}
 		String runId = UUID.randomUUID().toString();
 		StopTimer timer = new StopTimer("Building trace");
 		timer.newPoint("Execution");
@@ -102,6 +165,7 @@ public class TraceAgentRunner extends AgentVmRunner {
 			boolean toDeleteDumpFile = false;
 			switch (reader) {
 			case FILE:
+			case MAPPED_FILE:
 				dumpFile = File.createTempFile("trace", ".exec");
 				dumpFile.deleteOnExit();
 				break;
@@ -112,9 +176,16 @@ public class TraceAgentRunner extends AgentVmRunner {
 			addAgentParam(AgentParams.OPT_TRACE_RECORDER, reader.name()); // why is reader name used for recorder option?
 			addAgentParam(AgentParams.OPT_RUN_ID, runId);
 			addAgentParam(AgentParams.OPT_DUMP_FILE, String.valueOf(dumpFile.getPath()));
-			super.startAndWaitUntilStop(getConfig()); // Trace recording
+			execute(); // Trace recording
 			System.out.println("|");
 			timer.newPoint("Read output result");
+			if (precheckFile != null) {
+				if (new File(precheckFile).length() == 0) {
+					/* the run has timed out, or stopped before the agent could store its result */
+					return false;
+				}
+				precheckInfo = PrecheckInfo.readFromFile(precheckFile);
+			}
 			this.runningInfo = reader.create(runId).read(precheckInfo, dumpFile.getPath());
 			updateTestResult(runningInfo.getProgramMsg());
 			if (toDeleteDumpFile) {
@@ -176,7 +247,7 @@ public class TraceAgentRunner extends AgentVmRunner {
 				dumpFile = FileUtils.getFileCreateIfNotExist(filePath);
 			}
 			addAgentParam(AgentParams.OPT_DUMP_FILE, String.valueOf(dumpFile.getPath()));
-			super.startAndWaitUntilStop(getConfig());
+			execute();
 			System.out.println("|");
 			timer.newPoint("Read output result");
 			runningInfo = RunningInfo.readFromFile(dumpFile);
@@ -192,42 +263,151 @@ public class TraceAgentRunner extends AgentVmRunner {
 		return true;
 	}
 
+	/**
+	 * runs the program on a new jvm, or on a warm one of {@link TraceAgentHostPool} in host mode.
+	 */
+	private void execute() throws SavException {
+		if (!hostMode || getConfig().isDebug()) {
+			super.startAndWaitUntilStop(getConfig());
+			return;
+		}
+		Map<String, String> hostParams = new HashMap<>(getAgentParamsMap());
+		Map<String, String> runParams = new HashMap<>();
+		for (String opt : HOST_RUN_PARAMS) {
+			String value = hostParams.remove(opt);
+			if (value != null) {
+				runParams.put(opt, value);
+			}
+		}
+		List<String> programArgs = new ArrayList<>(getConfig().getProgramArgs());
+		programArgs.addAll(getProgramArgs());
+		TraceAgentHostPool pool = TraceAgentHostPool.getInstance();
+		TraceAgentHost host = pool.acquire(agentJarPath, getConfig(), hostParams, enableSettingHeapSize);
+		/* if the host stops during the run, the trace is still recorded by the shutdown hook of the agent */
+		host.run(this, runParams, programArgs, getTimeout());
+		pool.release(host);
+	}
+
 	public boolean runWithSocket() throws SavException {
 		isPrecheckMode = false;
-		try {
-			int port = VMConfiguration.findFreePort();
-			serverSocket = new ServerSocket(port);
-			addAgentParam(AgentParams.OPT_TCP_PORT, String.valueOf(port));
+		isSinglePassMode = false;
+		return runWithSocket(null);
+	}
+
+	/**
+	 * runs the program on a new jvm with the trace streamed over a socket, the steps are passed to the
+	 * stream listener while the program is running, and the complete traces are received when it stops.
+	 * 
+	 * @return false if the run did not complete, e.g. it has timed out.
+	 */
+	private boolean runWithSocket(String precheckFile) throws SavException {
+		if (hostMode && !getConfig().isDebug()) {
+			/* a warm jvm of the host pool cannot connect to the socket of each run */
+			throw new SavRtException("Traces cannot be streamed in host mode, unset the stream listener or the host mode.");
+		}
+		StopTimer timer = new StopTimer("Building trace");
+		timer.newPoint("Execution");
+		try (ServerSocketChannel server = ServerSocketChannel.open()) {
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			addAgentParam(AgentParams.OPT_TCP_PORT, String.valueOf(server.socket().getLocalPort()));
+			addAgentParam(AgentParams.OPT_TRACE_RECORDER, SOCKET_RECORDER);
+			super.startVm(getConfig());
+			TraceStreamReader reader;
+			Timer watchdog = null;
+			try (final SocketChannel channel = accept(server)) {
+				if (channel == null) {
+					/* the program has stopped before the agent could connect */
+					return false;
+				}
+				if (getTimeout() != NO_TIME_OUT) {
+					/*
+					 * the vm timer only destroys the process, if the agent still holds the connection open, e.g.
+					 * while its shutdown hook is blocked, the read is unblocked by closing the channel.
+					 */
+					watchdog = new Timer("Trace stream watchdog", true);
+					watchdog.schedule(new TimerTask() {
+
+						@Override
+						public void run() {
+							getProcess().destroyForcibly();
+							try {
+								channel.close();
+							} catch (IOException e) {
+								// ignore
+							}
+						}
+					}, getTimeout() + STREAM_CLOSE_GRACE);
+				}
+				reader = new TraceStreamReader(channel);
+				try {
+					if (!reader.read(streamListener)) {
+						return false;
+					}
+				} catch (AsynchronousCloseException e) {
+					/* closed by the watchdog */
+					return false;
+				}
+			} finally {
+				if (watchdog != null) {
+					watchdog.cancel();
+				}
+			}
+			waitUntilStop(getProcess());
+			System.out.println("|");
+			timer.newPoint("Read output result");
+			if (precheckFile != null) {
+				if (new File(precheckFile).length() == 0) {
+					return false;
+				}
+				precheckInfo = PrecheckInfo.readFromFile(precheckFile);
+			}
+			List<Trace> traces = reader.getTraces();
+			if (traces == null) {
+				/* the stream has ended without the traces */
+				return false;
+			}
+			int collected = 0;
+			for (Trace trace : traces) {
+				collected += trace.size();
+			}
+			int expectedSteps = (precheckInfo == null) ? collected : precheckInfo.getStepTotal();
+			runningInfo = new RunningInfo(reader.getProgramMsg(), traces, expectedSteps, collected);
+			updateTestResult(runningInfo.getProgramMsg());
 		} catch (IOException e) {
 			e.printStackTrace();
 			throw new SavRtException(e);
-		}
-		super.startVm(getConfig());
-		// System.out.println(super.getCommandLinesString(config));
-		TraceOutputReader reader = null;
-		try {
-			Socket client = serverSocket.accept();
-			InputStream inputStream = client.getInputStream();
-			reader = new TraceOutputReader(inputStream);
-			String msg = reader.readString();
-			updateTestResult(msg);
-			List<Trace> traces = reader.readTrace();
-			int collected = traces.stream()
-					.mapToInt(trace -> trace.size())
-					.sum();
-			runningInfo = new RunningInfo(msg, traces, precheckInfo.getStepTotal(), collected);
-		} catch (Exception e) {
-			e.printStackTrace();
 		} finally {
-			if (reader != null) {
-				try {
-					reader.close();
-				} catch (IOException e) {
-					e.printStackTrace();
+			removeAgentParam(AgentParams.OPT_TCP_PORT);
+			removeAgentParam(AgentParams.OPT_TRACE_RECORDER);
+		}
+		System.out.println(timer.getResultString());
+		return true;
+	}
+
+	/**
+	 * @return the connection of the agent, or null if the program stops without connecting.
+	 */
+	private SocketChannel accept(ServerSocketChannel server) throws IOException {
+		server.configureBlocking(false);
+		try (Selector selector = Selector.open()) {
+			server.register(selector, SelectionKey.OP_ACCEPT);
+			while (isProcessRunning()) {
+				if (selector.select(ACCEPT_POLLING_INTERVAL) > 0) {
+					selector.selectedKeys().clear();
+					SocketChannel channel = server.accept();
+					if (channel != null) {
+						channel.configureBlocking(true);
+						return channel;
+					}
 				}
 			}
 		}
-		return true;
+		/* the agent might have connected right before the program stops */
+		SocketChannel channel = server.accept();
+		if (channel != null) {
+			channel.configureBlocking(true);
+		}
+		return channel;
 	}
 
 	@Override
@@ -304,7 +484,7 @@ public class TraceAgentRunner extends AgentVmRunner {
 	}
 
 	public PrecheckInfo getPrecheckInfo() {
-		if (!isPrecheckMode) {
+		if (!isPrecheckMode && !isSinglePassMode) {
 			throw new UnsupportedOperationException("TraceAgent has not been run in precheck mode!");
 		}
 		return precheckInfo;
@@ -314,6 +494,29 @@ public class TraceAgentRunner extends AgentVmRunner {
 		this.setConfig(config);
 	}
 
+	/**
+	 * @param hostMode whether the traces are recorded on the warm jvms of {@link TraceAgentHostPool}, which
+	 *            keep the loaded classes instrumented between runs, instead of a new jvm for each run. A
+	 *            precheck always runs on a new jvm, as it reports the classes loaded by the run. Host mode is
+	 *            off by default: the application classes are not reloaded between runs, so a run starts with
+	 *            the static state of the earlier ones and does not trace their static initializers again.
+	 *            Host mode cannot be combined with a stream listener, such runs fail.
+	 */
+	public void setHostMode(boolean hostMode) {
+		this.hostMode = hostMode;
+	}
+
+	/**
+	 * @param streamListener
+	 *            if not null, the runs with a file {@link Reader} stream their traces over a socket instead of
+	 *            dumping them to a file, and the listener receives the steps while the program is running. The
+	 *            runs with a database reader still record their traces into the selected database. The
+	 *            traces are streamed from a new jvm for each run, so streaming fails in host mode.
+	 */
+	public void setStreamListener(TraceStreamListener streamListener) {
+		this.streamListener = streamListener;
+	}
+
 	public boolean isUnknownTestResult() {
 		return unknownTestResult;
 	}
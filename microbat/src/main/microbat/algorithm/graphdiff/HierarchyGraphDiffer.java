@@ -1,7 +1,12 @@
 package microbat.algorithm.graphdiff;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import microbat.model.value.GraphNode;
 
@@ -11,6 +16,12 @@ public class HierarchyGraphDiffer {
 	
 	private List<GraphDiff> commons = new ArrayList<>();
 	
+	/**
+	 * the (before, after) pairs already put in diffs or commons, compared by identity, so that
+	 * a pair reachable along several paths (or along a cycle) is parsed only once.
+	 */
+	private Set<NodePair> parsedPairs = new HashSet<>();
+	
 	/**
 	 * the depth for hierarchical differencing, -1 means compare all the levels.
 	 */
@@ -32,10 +43,11 @@ public class HierarchyGraphDiffer {
 			if(!rootBefore.isTheSameWith(rootAfter)){
 				GraphDiff diff = new GraphDiff(rootBefore, rootAfter);
 				this.diffs.add(diff);
+				this.parsedPairs.add(new NodePair(rootBefore, rootAfter));
 			}
 		}
 		
-		diffChildren(rootBefore, rootAfter, 1);			
+		diffChildren(rootBefore, rootAfter);			
 	}
 	
 	public void diff(GraphNode rootBefore, GraphNode rootAfter, boolean isCompareRoot, Matcher matcher, int depth){
@@ -44,23 +56,29 @@ public class HierarchyGraphDiffer {
 		diff(rootBefore, rootAfter, isCompareRoot);
 	}
 
-	private void diffChildren(GraphNode rootBefore, GraphNode rootAfter, int level) {
-		
-		List<? extends GraphNode> childrenBefore = rootBefore.getChildren();
-		List<? extends GraphNode> childrenAfter = rootAfter.getChildren();
-		List<MatchingGraphPair> pairs = matcher.matchList(childrenBefore, childrenAfter);
-
-		int newLevel = level + 1;
+	/**
+	 * the children are visited in depth-first order, the same as a recursive visit, with an explicit
+	 * stack of the matched pairs of children not visited yet.
+	 */
+	private void diffChildren(GraphNode rootBefore, GraphNode rootAfter) {
+		Deque<Iterator<MatchingGraphPair>> stack = new ArrayDeque<>();
+		stack.push(matchChildren(rootBefore, rootAfter));
 		
-		for(MatchingGraphPair pair: pairs){
+		while(!stack.isEmpty()){
+			Iterator<MatchingGraphPair> pairs = stack.peek();
+			if(!pairs.hasNext()){
+				stack.pop();
+				continue;
+			}
+			
+			MatchingGraphPair pair = pairs.next();
 			GraphNode nodeBefore = pair.getNodeBefore();
 			GraphNode nodeAfter = pair.getNodeAfter();
 			
 			if(nodeBefore != null && nodeAfter != null){
 				GraphDiff diff = new GraphDiff(nodeBefore, nodeAfter);
 				
-				boolean isParsed = isParsed(diff);
-				if(!isParsed){
+				if(this.parsedPairs.add(new NodePair(nodeBefore, nodeAfter))){
 					if(!nodeBefore.isTheSameWith(nodeAfter)){
 						this.diffs.add(diff);
 					}
@@ -68,9 +86,7 @@ public class HierarchyGraphDiffer {
 						this.getCommons().add(diff);
 					}
 					
-					//if(depth != -1 && newLevel <= depth ){
-						diffChildren(nodeBefore, nodeAfter, newLevel);											
-					//}
+					stack.push(matchChildren(nodeBefore, nodeAfter));
 				}
 				
 			}
@@ -82,27 +98,12 @@ public class HierarchyGraphDiffer {
 		
 	}
 	
-	private boolean isParsed(GraphDiff diff) {
-		if(!diff.getNodeBefore().isTheSameWith(diff.getNodeAfter())){
-			for(GraphDiff gd: this.diffs){
-				if(gd.getNodeBefore()==diff.getNodeBefore() &&
-						gd.getNodeAfter()==diff.getNodeAfter()){
-					return true;
-				}
-			}
-		}
-		else{
-			for(GraphDiff common: this.commons){
-				if(common.getNodeBefore()==diff.getNodeBefore() &&
-						common.getNodeAfter()==diff.getNodeAfter()){
-					return true;
-				}
-			}
-		}
-		
-		return false;
+	private Iterator<MatchingGraphPair> matchChildren(GraphNode nodeBefore, GraphNode nodeAfter) {
+		List<? extends GraphNode> childrenBefore = nodeBefore.getChildren();
+		List<? extends GraphNode> childrenAfter = nodeAfter.getChildren();
+		return matcher.matchList(childrenBefore, childrenAfter).iterator();
 	}
-
+	
 	public List<GraphDiff> getDiffs(){
 		return this.diffs;
 	}
@@ -113,6 +114,13 @@ public class HierarchyGraphDiffer {
 
 	public void setCommons(List<GraphDiff> commons) {
 		this.commons = commons;
+		this.parsedPairs.clear();
+		for(GraphDiff diff: this.diffs){
+			this.parsedPairs.add(new NodePair(diff.getNodeBefore(), diff.getNodeAfter()));
+		}
+		for(GraphDiff common: this.commons){
+			this.parsedPairs.add(new NodePair(common.getNodeBefore(), common.getNodeAfter()));
+		}
 	}
 
 	public int getDepth() {
@@ -122,4 +130,31 @@ public class HierarchyGraphDiffer {
 	public void setDepth(int depth) {
 		this.depth = depth;
 	}
+	
+	/**
+	 * a (before, after) pair of nodes, which equals another pair only if they have the same nodes.
+	 */
+	private static class NodePair {
+		private GraphNode nodeBefore;
+		private GraphNode nodeAfter;
+		
+		public NodePair(GraphNode nodeBefore, GraphNode nodeAfter) {
+			this.nodeBefore = nodeBefore;
+			this.nodeAfter = nodeAfter;
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(nodeBefore) + System.identityHashCode(nodeAfter);
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof NodePair)){
+				return false;
+			}
+			NodePair other = (NodePair)obj;
+			return this.nodeBefore == other.nodeBefore && this.nodeAfter == other.nodeAfter;
+		}
+	}
 }
@@ -1,12 +1,17 @@
 package microbat.algorithm.graphdiff;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import microbat.model.value.GraphNode;
 
 public class SimpleMatcher implements Matcher{
-	private List<GraphNode> visitedPool = new ArrayList<>();
+	/**
+	 * the nodes already matched, compared by equals() the same as a list of them would be.
+	 */
+	private Set<GraphNode> visitedPool = new HashSet<>();
 	
 	/**
 	 * find a matchable node in <code>childrenAfter</code>
@@ -64,7 +69,13 @@ public class SimpleMatcher implements Matcher{
 		return this.visitedPool.contains(node);
 	}
 	
+	/**
+	 * a node which does not equal itself, e.g., a value without variable, is never found visited by a list
+	 * of the visited nodes, while a hash set would find it by identity.
+	 */
 	private void setVisited(GraphNode node){
-		this.visitedPool.add(node);
+		if(node.equals(node)){
+			this.visitedPool.add(node);
+		}
 	}
 }
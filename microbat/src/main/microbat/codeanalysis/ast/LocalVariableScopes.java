@@ -1,10 +1,15 @@
 package microbat.codeanalysis.ast;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class LocalVariableScopes {
 	private List<LocalVariableScope> variableScopes = new ArrayList<>();
+	/* the scopes grouped by class and variable name, built on the first lookup */
+	private Map<String, List<LocalVariableScope>> scopeIndex;
+	private int indexedScopeCount;
 
 	public List<LocalVariableScope> getVariableScopes() {
 		return variableScopes;
@@ -12,21 +17,19 @@ public class LocalVariableScopes {
 
 	public void setVariableScopes(List<LocalVariableScope> variableScopes) {
 		this.variableScopes = variableScopes;
+		this.scopeIndex = null;
 	}
 	
 	public LocalVariableScope findScope(String variableName, int appearedLineNum, String fullQualifiedTypeName){
 		LocalVariableScope candScope = null;
 		
+		List<LocalVariableScope> scopes = getScopeIndex().get(getIndexKey(fullQualifiedTypeName, variableName));
+		if(scopes == null){
+			return null;
+		}
 		
-		for(LocalVariableScope scope: variableScopes){
-//			AbstractTypeDeclaration td = (AbstractTypeDeclaration) scope.getCompilationUnit().types().get(0);
-//			String packageName = scope.getCompilationUnit().getPackage().getName().getFullyQualifiedName();
-//			String simpleName = td.getName().getIdentifier();
-//			String typeName = packageName + "." + simpleName;
-			String typeName = scope.getFullNameOfContainingClass();
-			
-			if(typeName.equals(fullQualifiedTypeName) && scope.getVariableName().equals(variableName) &&
-					appearedLineNum >= scope.getStartLine() && appearedLineNum <= scope.getEndLine()){
+		for(LocalVariableScope scope: scopes){
+			if(appearedLineNum >= scope.getStartLine() && appearedLineNum <= scope.getEndLine()){
 				
 				if(candScope == null){
 					candScope = scope;					
@@ -42,8 +45,33 @@ public class LocalVariableScopes {
 		return candScope;
 	}
 
+	/**
+	 * the scopes are kept in their original order in each group, so that the lookup finds the same scope
+	 * as going through all of them.
+	 */
+	private Map<String, List<LocalVariableScope>> getScopeIndex(){
+		if(scopeIndex == null || indexedScopeCount != variableScopes.size()){
+			scopeIndex = new HashMap<>();
+			for(LocalVariableScope scope: variableScopes){
+				String key = getIndexKey(scope.getFullNameOfContainingClass(), scope.getVariableName());
+				List<LocalVariableScope> scopes = scopeIndex.get(key);
+				if(scopes == null){
+					scopes = new ArrayList<>();
+					scopeIndex.put(key, scopes);
+				}
+				scopes.add(scope);
+			}
+			indexedScopeCount = variableScopes.size();
+		}
+		return scopeIndex;
+	}
+	
+	private String getIndexKey(String typeName, String variableName){
+		return typeName + "#" + variableName;
+	}
+
 	public void clear() {
 		this.variableScopes.clear();
-		
+		this.scopeIndex = null;
 	}
 }
@@ -0,0 +1,195 @@
+package microbat.codeanalysis.ast;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.BooleanLiteral;
+import org.eclipse.jdt.core.dom.CharacterLiteral;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.NullLiteral;
+import org.eclipse.jdt.core.dom.ReturnStatement;
+import org.eclipse.jdt.core.dom.StringLiteral;
+import org.eclipse.jdt.core.dom.TypeLiteral;
+
+/**
+ * A line-based summary of the source of a class, i.e., the innermost method declaration and the return
+ * statement of each line. It is built in one pass over the AST of the class, so that the steps of a trace can
+ * be looked up by their line numbers instead of visiting the AST again for each step.
+ * <br>
+ * The index does not refer to the AST, it can be kept when the compilation unit is evicted, or stored on
+ * disk, see {@link SourceLineIndexStore}.
+ *
+ * @author Yun Lin
+ *
+ */
+public class SourceLineIndex implements Serializable {
+	/* changed whenever the stored indexes have to be built again */
+	private static final long serialVersionUID = 2L;
+
+	public static final int NO_METHOD = -1;
+
+	/* the line has no return statement */
+	public static final byte RETURN_NONE = 0;
+	/* return; */
+	public static final byte RETURN_VOID = 1;
+	/* return of a null, string, type, boolean or character literal */
+	public static final byte RETURN_LITERAL = 2;
+	public static final byte RETURN_EXPRESSION = 3;
+
+	private String className;
+	/* the hash of the source which the index is built from, or null if it is unknown */
+	private String sourceKey;
+
+	/* indexed by line number */
+	private int[] lineMethods;
+	private byte[] returnKinds;
+	private String[] returnExpressions;
+
+	/* indexed by method id */
+	private int[] methodStartLines;
+	private int[] methodEndLines;
+
+	private SourceLineIndex(String className, int lineCount, int methodCount) {
+		this.className = className;
+		lineMethods = new int[lineCount];
+		Arrays.fill(lineMethods, NO_METHOD);
+		returnKinds = new byte[lineCount];
+		returnExpressions = new String[lineCount];
+		methodStartLines = new int[methodCount];
+		methodEndLines = new int[methodCount];
+	}
+
+	public static SourceLineIndex build(String className, final CompilationUnit cu) {
+		final List<MethodDeclaration> methods = new ArrayList<>();
+		final List<ReturnStatement> returns = new ArrayList<>();
+		/* in pre-order, so that an inner method or return is visited after the outer one */
+		cu.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(MethodDeclaration md) {
+				methods.add(md);
+				return true;
+			}
+
+			@Override
+			public boolean visit(ReturnStatement rStat) {
+				returns.add(rStat);
+				return true;
+			}
+		});
+
+		/* the end of the unit is out of its range, its last character is taken instead */
+		int lineCount = cu.getLineNumber(Math.max(cu.getStartPosition() + cu.getLength() - 1, 0)) + 1;
+		SourceLineIndex index = new SourceLineIndex(className, Math.max(lineCount, 1), methods.size());
+		for (int id = 0; id < methods.size(); id++) {
+			index.addMethod(id, getStartLine(cu, methods.get(id)), getEndLine(cu, methods.get(id)));
+		}
+		for (ReturnStatement rStat : returns) {
+			index.addReturn(getStartLine(cu, rStat), getEndLine(cu, rStat), rStat.getExpression());
+		}
+		return index;
+	}
+
+	private static int getStartLine(CompilationUnit cu, ASTNode node) {
+		return cu.getLineNumber(node.getStartPosition());
+	}
+
+	private static int getEndLine(CompilationUnit cu, ASTNode node) {
+		return cu.getLineNumber(node.getStartPosition() + node.getLength());
+	}
+
+	/**
+	 * a line belongs to the innermost method containing it, a method sharing the line with a method which is
+	 * not enclosing it does not take the line over.
+	 */
+	private void addMethod(int id, int startLine, int endLine) {
+		methodStartLines[id] = startLine;
+		methodEndLines[id] = endLine;
+		for (int line = Math.max(startLine, 0); line <= endLine && line < lineMethods.length; line++) {
+			int cand = lineMethods[line];
+			if (cand == NO_METHOD || (startLine >= methodStartLines[cand] && endLine <= methodEndLines[cand])) {
+				lineMethods[line] = id;
+			}
+		}
+	}
+
+	/**
+	 * the innermost return statement spanning a line is kept for the line.
+	 */
+	private void addReturn(int startLine, int endLine, Expression expr) {
+		byte kind;
+		if (expr == null) {
+			kind = RETURN_VOID;
+		} else if (expr instanceof NullLiteral || expr instanceof StringLiteral || expr instanceof TypeLiteral
+				|| expr instanceof BooleanLiteral || expr instanceof CharacterLiteral) {
+			kind = RETURN_LITERAL;
+		} else {
+			kind = RETURN_EXPRESSION;
+		}
+		String exprString = (expr == null) ? null : expr.toString();
+		for (int line = Math.max(startLine, 0); line <= endLine && line < returnKinds.length; line++) {
+			returnKinds[line] = kind;
+			returnExpressions[line] = exprString;
+		}
+	}
+
+	private boolean isIndexed(int line) {
+		return line >= 0 && line < lineMethods.length;
+	}
+
+	/**
+	 * @return the id of the innermost method declaration containing the line, which is unique in this
+	 *         class, or {@link #NO_METHOD} if the line is not in a method.
+	 */
+	public int getMethodId(int line) {
+		return isIndexed(line) ? lineMethods[line] : NO_METHOD;
+	}
+
+	public int getMethodStartLine(int methodId) {
+		return methodStartLines[methodId];
+	}
+
+	public int getMethodEndLine(int methodId) {
+		return methodEndLines[methodId];
+	}
+
+	/**
+	 * @return one of {@link #RETURN_NONE}, {@link #RETURN_VOID}, {@link #RETURN_LITERAL} and
+	 *         {@link #RETURN_EXPRESSION}.
+	 */
+	public byte getReturnKind(int line) {
+		return isIndexed(line) ? returnKinds[line] : RETURN_NONE;
+	}
+
+	/**
+	 * @return the returned expression of the return statement on the line, or null if there is none.
+	 */
+	public String getReturnExpression(int line) {
+		return isIndexed(line) ? returnExpressions[line] : null;
+	}
+
+	public String getClassName() {
+		return className;
+	}
+
+	public String getSourceKey() {
+		return sourceKey;
+	}
+
+	public void setSourceKey(String sourceKey) {
+		this.sourceKey = sourceKey;
+	}
+
+	public int getLineCount() {
+		return lineMethods.length;
+	}
+
+	public int getMethodCount() {
+		return methodStartLines.length;
+	}
+}
@@ -0,0 +1,165 @@
+package microbat.codeanalysis.ast;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import microbat.util.JavaUtil;
+import microbat.util.Settings;
+import sav.strategies.dto.AppJavaClassPath;
+
+/**
+ * Keeps the {@link SourceLineIndex} of each class, so that the index of a class is built once. If a store
+ * folder is given, the indexes are also written to the folder, and an index is loaded from there in a later
+ * run as long as the source of its class is not changed, in which case the class is not parsed at all.
+ * <br>
+ * The key of a stored index is the hash of the source which {@link JavaUtil#findCompilationUnitInProject}
+ * parses, i.e., the buffer of the class in the workspace if there is one, otherwise its source file. The
+ * index of a pinned unit (e.g., a mutated class) is not stored, as the unit is not parsed from its source.
+ *
+ * @author Yun Lin
+ *
+ */
+public class SourceLineIndexStore {
+	private static final String INDEX_FILE_EXT = ".idx";
+
+	private Map<String, SourceLineIndex> indexes = new HashMap<>();
+	private File storeFolder;
+
+	/**
+	 * @param folder
+	 *            the folder where the indexes are stored across runs, or null to keep them in memory only.
+	 */
+	public SourceLineIndexStore(String folder) {
+		if (folder != null) {
+			storeFolder = new File(folder);
+			storeFolder.mkdirs();
+		}
+	}
+
+	/**
+	 * @return the index of the given class, or null if its source cannot be found.
+	 */
+	public synchronized SourceLineIndex getIndex(String className, AppJavaClassPath appPath) {
+		if (indexes.containsKey(className)) {
+			return indexes.get(className);
+		}
+		String sourceKey = (storeFolder == null) ? null : getSourceKey(className, appPath);
+		SourceLineIndex index = null;
+		if (sourceKey != null) {
+			index = load(className, sourceKey);
+		}
+		if (index == null) {
+			CompilationUnit cu = JavaUtil.findCompilationUnitInProject(className, appPath);
+			if (cu != null) {
+				index = SourceLineIndex.build(className, cu);
+				if (sourceKey != null) {
+					index.setSourceKey(sourceKey);
+					store(index);
+				}
+			}
+		}
+		indexes.put(className, index);
+		return index;
+	}
+
+	public synchronized void clear() {
+		indexes.clear();
+	}
+
+	/**
+	 * @return the hash of the source which the unit of the class is parsed from, or null if the unit is pinned,
+	 *         or its source cannot be read.
+	 */
+	private String getSourceKey(String className, AppJavaClassPath appPath) {
+		if (Settings.compilationUnitMap.isPinned(className)) {
+			return null;
+		}
+		try {
+			ICompilationUnit icu = JavaUtil.findICompilationUnitInProject(className);
+			if (icu != null) {
+				return hash(icu.getSource().getBytes(StandardCharsets.UTF_8));
+			}
+			for (String sourceFolder : appPath.getAllSourceFolders()) {
+				File file = new File(sourceFolder, className.replace(".", File.separator) + ".java");
+				if (file.exists()) {
+					return hash(Files.readAllBytes(file.toPath()));
+				}
+			}
+		} catch (IllegalStateException | JavaModelException | IOException | NoSuchAlgorithmException e) {
+			// not stored, the index is built from the unit.
+		}
+		return null;
+	}
+
+	private String hash(byte[] source) throws NoSuchAlgorithmException {
+		byte[] hash = MessageDigest.getInstance("SHA-1").digest(source);
+		StringBuilder sb = new StringBuilder();
+		for (byte b : hash) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+
+	private File getIndexFile(String className) {
+		return new File(storeFolder, className + INDEX_FILE_EXT);
+	}
+
+	/**
+	 * @return the stored index, or null if there is none, it is built from another version of the source,
+	 *         or it cannot be read.
+	 */
+	private SourceLineIndex load(String className, String sourceKey) {
+		File file = getIndexFile(className);
+		if (!file.exists()) {
+			return null;
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			SourceLineIndex index = (SourceLineIndex) in.readObject();
+			if (sourceKey.equals(index.getSourceKey())) {
+				return index;
+			}
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			// treated as a miss, the file is replaced once the index is built again.
+		}
+		return null;
+	}
+
+	/**
+	 * writes to a temp file before renaming it, so that a run never reads a partially written index of
+	 * another run sharing the folder.
+	 */
+	private void store(SourceLineIndex index) {
+		File file = getIndexFile(index.getClassName());
+		File tempFile = null;
+		try {
+			tempFile = File.createTempFile(index.getClassName() + INDEX_FILE_EXT, ".tmp", storeFolder);
+			try (ObjectOutputStream out = new ObjectOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeObject(index);
+			}
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			e.printStackTrace();
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+	}
+}
@@ -12,7 +12,7 @@ import org.apache.bcel.util.SyntheticRepository;
 import sav.strategies.dto.AppJavaClassPath;
 
 public class ByteCodeParser{
-	public static JavaClass parse(String className, AppJavaClassPath appClassPath) {
+	public static synchronized JavaClass parse(String className, AppJavaClassPath appClassPath) {
 		String originalSystemClassPath = System.getProperty("java.class.path");
 		String[] paths = originalSystemClassPath.split(File.pathSeparator);
 		
@@ -51,7 +51,7 @@ public class ByteCodeParser{
 		return null;
 	}
 	
-	public static void parse(String className, ByteCodeVisitor visitor, AppJavaClassPath appClassPath){
+	public static synchronized void parse(String className, ByteCodeVisitor visitor, AppJavaClassPath appClassPath){
 		String originalSystemClassPath = System.getProperty("java.class.path");
 		String[] paths = originalSystemClassPath.split(File.pathSeparator);
 		
@@ -22,6 +22,7 @@ import microbat.instrumentation.AgentParams;
 import microbat.instrumentation.AgentParams.LogType;
 import microbat.instrumentation.filter.CodeRangeEntry;
 import microbat.instrumentation.output.RunningInfo;
+import microbat.instrumentation.output.tcp.TraceStreamListener;
 import microbat.instrumentation.precheck.PrecheckInfo;
 import microbat.model.BreakPoint;
 import microbat.model.ClassLocation;
@@ -49,6 +50,7 @@ public class InstrumentationExecutor {
 	private String traceExecFilePath;
 	private TraceAgentRunner agentRunner;
 	private long timeout = VMRunner.NO_TIME_OUT;
+	private boolean singlePass = false;
 	
 	private List<String> includeLibs = Collections.emptyList();
 	private List<String> excludeLibs = Collections.emptyList();
@@ -132,6 +134,10 @@ public class InstrumentationExecutor {
 			agentRunner.getConfig().setDebug(Settings.isRunWtihDebugMode);
 			agentRunner.getConfig().setPort(9000);
 			
+			if (singlePass) {
+				return runSinglePass();
+			}
+			
 			System.out.println("precheck..");
 			agentRunner.precheck(null);
 			PrecheckInfo info = agentRunner.getPrecheckInfo();
@@ -164,6 +170,32 @@ public class InstrumentationExecutor {
 		return null;
 	}
 	
+	/**
+	 * traces the program in one run instead of a precheck run followed by a trace run, the precheck info
+	 * is collected from the trace run.
+	 */
+	private RunningInfo runSinglePass() throws SavException, StepLimitException {
+		long start = System.currentTimeMillis();
+		if (!agentRunner.runSinglePass(DatabasePreference.getReader())) {
+			return null;
+		}
+		PrecheckInfo info = agentRunner.getPrecheckInfo();
+		PreCheckInformation precheckInfomation = new PreCheckInformation(info.getThreadNum(), info.getStepTotal(),
+				info.isOverLong(), new ArrayList<>(info.getVisitedLocs()), info.getExceedingLimitMethods(), info.getLoadedClasses());
+		precheckInfomation.setPassTest(agentRunner.isTestSuccessful());
+		this.setPrecheckInfo(precheckInfomation);
+		System.out.println("the trace length is: " + precheckInfomation.getStepNum());
+		if (info.isOverLong()) {
+			throw new StepLimitException();
+		}
+		RunningInfo result = agentRunner.getRunningInfo();
+		Trace trace = result.getMainTrace();
+		trace.setAppJavaClassPath(appPath);
+		appendMissingInfo(trace, appPath);
+		trace.setConstructTime((int) (System.currentTimeMillis() - start));
+		return result;
+	}
+	
 	public PreCheckInformation runPrecheck(String dumpFile, int stepLimit) {
 		try {
 			/* test stepLimit */
@@ -277,7 +309,7 @@ public class InstrumentationExecutor {
 						List<VarValue> readVars = stepOverPrev.getReadVariables();
 						for(VarValue readVar: readVars) {
 							if(!node.getReadVariables().contains(readVar)) {
-								node.getReadVariables().add(readVar);
+								node.addReadVariable(readVar);
 							}
 						}
 						stepOverPrev = stepOverPrev.getStepOverPrevious();
@@ -411,6 +443,44 @@ public class InstrumentationExecutor {
 		this.timeout = timeout;
 	}
 	
+	/**
+	 * @see TraceAgentRunner#setHostMode(boolean)
+	 */
+	public void setHostMode(boolean hostMode) {
+		agentRunner.setHostMode(hostMode);
+	}
+	
+	/**
+	 * @param singlePass whether {@link #run()} traces the program without running a precheck first, see
+	 *            {@link TraceAgentRunner#runSinglePass(microbat.trace.Reader)}.
+	 */
+	public void setSinglePass(boolean singlePass) {
+		this.singlePass = singlePass;
+	}
+	
+	/**
+	 * @param folder the folder where the instrumented classes are cached across runs, see
+	 *            {@link AgentParams#OPT_INSTRUMENTATION_CACHE}.
+	 */
+	public void setInstrumentationCacheFolder(String folder) {
+		agentRunner.addAgentParam(AgentParams.OPT_INSTRUMENTATION_CACHE, folder);
+	}
+	
+	/**
+	 * @param folder the folder where the control scopes of the traced classes are stored across runs, see
+	 *            {@link microbat.codeanalysis.bytecode.ControlScopeCache}.
+	 */
+	public void setControlScopeCacheFolder(String folder) {
+		agentRunner.addAgentParam(AgentParams.OPT_CONTROL_SCOPE_CACHE, folder);
+	}
+	
+	/**
+	 * @see TraceAgentRunner#setStreamListener(TraceStreamListener)
+	 */
+	public void setTraceStreamListener(TraceStreamListener listener) {
+		agentRunner.setStreamListener(listener);
+	}
+	
 	public String getTraceExecFilePath() {
 		return traceExecFilePath;
 	}
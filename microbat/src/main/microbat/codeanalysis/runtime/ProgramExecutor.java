@@ -19,16 +19,9 @@ import org.apache.bcel.generic.InvokeInstruction;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdi.TimeoutException;
 import org.eclipse.jdt.core.dom.ASTVisitor;
-import org.eclipse.jdt.core.dom.BooleanLiteral;
-import org.eclipse.jdt.core.dom.CharacterLiteral;
 import org.eclipse.jdt.core.dom.CompilationUnit;
-import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
-import org.eclipse.jdt.core.dom.NullLiteral;
-import org.eclipse.jdt.core.dom.ReturnStatement;
 import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
-import org.eclipse.jdt.core.dom.StringLiteral;
-import org.eclipse.jdt.core.dom.TypeLiteral;
 
 import com.sun.jdi.AbsentInformationException;
 import com.sun.jdi.ArrayReference;
@@ -70,6 +63,8 @@ import com.sun.jdi.request.StepRequest;
 
 import microbat.Activator;
 import microbat.codeanalysis.ast.LocalVariableScope;
+import microbat.codeanalysis.ast.SourceLineIndex;
+import microbat.codeanalysis.ast.SourceLineIndexStore;
 import microbat.codeanalysis.ast.VariableScopeParser;
 import microbat.codeanalysis.bytecode.ByteCodeParser;
 import microbat.codeanalysis.bytecode.CFG;
@@ -200,6 +195,8 @@ public class ProgramExecutor extends Executor {
 		long time = t2 - t1;
 		System.out.println("time spent on collecting trace: " + time);
 		this.trace.setConstructTime((int)time);
+		/* steps may have had their variables replaced after a data dependency query */
+		this.trace.resetDefUseIndex();
 	}
 
 	/**
@@ -833,11 +830,11 @@ public class ProgramExecutor extends Executor {
 		 */
 		boolean isThisNodePointEndOfMethod = isPointEndOfMethod(thisNode);
 		if(isThisNodePointEndOfMethod){
-			MethodDeclaration prevMethod = getMethodByAST(prevNode.getBreakPoint());
-			MethodDeclaration thisMethod = getMethodByAST(thisNode.getBreakPoint());
+			int prevMethod = getMethodByAST(prevNode.getBreakPoint());
+			int thisMethod = getMethodByAST(thisNode.getBreakPoint());
 			if(prevNode.getClassCanonicalName().equals(thisNode.getClassCanonicalName())){
-				if(prevMethod!=null && thisMethod!=null) {
-					if(prevMethod.equals(thisMethod)) {
+				if(prevMethod!=SourceLineIndex.NO_METHOD && thisMethod!=SourceLineIndex.NO_METHOD) {
+					if(prevMethod==thisMethod) {
 						return false;
 					}
 				}
@@ -882,25 +879,31 @@ public class ProgramExecutor extends Executor {
 		return false;
 	}
 
-	private Map<BreakPoint, MethodDeclaration> lineMethodMap = new HashMap<>();
-	private MethodDeclaration getMethodByAST(BreakPoint point) {
-		MethodDeclaration method = lineMethodMap.get(point);
-		if(method==null) {
-			CompilationUnit thisCU = 
-					JavaUtil.findCompilationUnitInProject(point.getDeclaringCompilationUnitName(), this.appPath);
-			MethodFinder thisFinder = new MethodFinder(thisCU, point.getLineNumber());
-			thisCU.accept(thisFinder);
-			method = thisFinder.candidate;
-			lineMethodMap.put(point, method);
+	private SourceLineIndexStore sourceIndexes = new SourceLineIndexStore(null);
+	
+	/**
+	 * @param folder the folder where the source line indexes are kept across runs, see {@link SourceLineIndexStore}.
+	 */
+	public void setSourceIndexFolder(String folder) {
+		this.sourceIndexes = new SourceLineIndexStore(folder);
+	}
+	
+	/**
+	 * @return the id of the innermost method declaration containing the point, which is unique in its compilation unit,
+	 * or {@link SourceLineIndex#NO_METHOD} if there is none.
+	 */
+	private int getMethodByAST(BreakPoint point) {
+		SourceLineIndex index = sourceIndexes.getIndex(point.getDeclaringCompilationUnitName(), this.appPath);
+		if(index==null) {
+			return SourceLineIndex.NO_METHOD;
 		}
-		
-		return method;
+		return index.getMethodId(point.getLineNumber());
 	}
 	
 	private boolean isContextDiff(BreakPoint thisPoint, BreakPoint thatPoint) {
-		MethodDeclaration thisMethod = getMethodByAST(thisPoint);
-		MethodDeclaration thatMethod = getMethodByAST(thatPoint);
-		if(thisMethod==null && thatMethod==null) {
+		int thisMethod = getMethodByAST(thisPoint);
+		int thatMethod = getMethodByAST(thatPoint);
+		if(thisMethod==SourceLineIndex.NO_METHOD && thatMethod==SourceLineIndex.NO_METHOD) {
 			return !thisPoint.getClassCanonicalName().equals(thatPoint.getClassCanonicalName());
 		}
 //		else if(thisMethod!=null && thatMethod!=null) {
@@ -1464,73 +1467,6 @@ public class ProgramExecutor extends Executor {
 		return paramList;
 	}
 	
-	class ReturnStatementFinder extends ASTVisitor{
-		CompilationUnit cu;
-		int lineNumber;
-		
-		public ReturnStatementFinder(CompilationUnit cu, int lineNumber){
-			this.cu = cu;
-			this.lineNumber = lineNumber;
-		}
-		
-		ReturnStatement returnStatement;
-		
-		@Override
-		public boolean visit(MethodDeclaration md){
-			int start = cu.getLineNumber(md.getStartPosition());
-			int end = cu.getLineNumber(md.getStartPosition()+md.getLength());
-			if(lineNumber<start || end<lineNumber){
-				return false;
-			}
-			return true;
-		}
-		
-		@Override
-		public boolean visit(ReturnStatement rStat){
-			int start = cu.getLineNumber(rStat.getStartPosition());
-			int end = cu.getLineNumber(rStat.getStartPosition()+rStat.getLength());
-			if(start<=lineNumber && lineNumber<=end){
-				this.returnStatement = rStat;
-				return true;
-			}
-			
-			return false;
-		}
-	}
-
-	class MethodFinder extends ASTVisitor {
-		CompilationUnit cu;
-		int lineNumber;
-
-		MethodDeclaration candidate;
-
-		public MethodFinder(CompilationUnit cu, int lineNumber) {
-			this.cu = cu;
-			this.lineNumber = lineNumber;
-		}
-
-		public boolean visit(MethodDeclaration md) {
-			int startLine = cu.getLineNumber(md.getStartPosition());
-			int endLine = cu.getLineNumber(md.getStartPosition() + md.getLength());
-
-			if (startLine <= lineNumber && endLine >= lineNumber) {
-				if (candidate == null) {
-					candidate = md;
-				} else {
-					int candStartLine = cu.getLineNumber(candidate.getStartPosition());
-					int candEndLine = cu.getLineNumber(candidate.getStartPosition() + candidate.getLength());
-
-					if (startLine >= candStartLine && endLine <= candEndLine) {
-						candidate = md;
-					}
-				}
-			}
-
-			return true;
-		}
-	}
-
-
 	class MethodNameRetriever extends ASTVisitor {
 		MethodDeclaration innerMostMethod = null;
 
@@ -2006,15 +1942,12 @@ public class ProgramExecutor extends Executor {
 			return;
 		}
 		
-		CompilationUnit cu = JavaUtil.findCompilationUnitInProject(node.getDeclaringCompilationUnitName(), appPath);
-		ReturnStatementFinder finder = new ReturnStatementFinder(cu, node.getLineNumber());
-		cu.accept(finder);
-		ReturnStatement rStat = finder.returnStatement;
-		if(rStat!=null){
-			Expression expr = rStat.getExpression();
+		SourceLineIndex index = sourceIndexes.getIndex(node.getDeclaringCompilationUnitName(), appPath);
+		byte returnKind = (index==null) ? SourceLineIndex.RETURN_NONE : index.getReturnKind(node.getLineNumber());
+		if(returnKind!=SourceLineIndex.RETURN_NONE){
 			String vID = VirtualVar.VIRTUAL_PREFIX + node.getOrder();
-			if(expr != null){
-				String exprString = expr.toString();
+			if(returnKind!=SourceLineIndex.RETURN_VOID){
+				String exprString = index.getReturnExpression(node.getLineNumber());
 				String varName = node.getMethodName();
 				if(exprString.contains("(") || exprString.contains("[")){
 					int count = 0;
@@ -2033,9 +1966,7 @@ public class ProgramExecutor extends Executor {
 					}
 				}
 				else{
-					if(expr instanceof NullLiteral || expr instanceof NullLiteral 
-							|| expr instanceof StringLiteral || expr instanceof TypeLiteral 
-							|| expr instanceof BooleanLiteral || expr instanceof CharacterLiteral) {
+					if(returnKind==SourceLineIndex.RETURN_LITERAL) {
 						Variable vVar = new VirtualVar(varName, "return type");
 						VirtualValue virValue = new VirtualValue(false, vVar, -1l);
 						virValue.setVarID(vID);
@@ -26,7 +26,9 @@ import microbat.codeanalysis.runtime.RunningInformation;
 import microbat.codeanalysis.runtime.StepLimitException;
 import microbat.evaluation.junit.TestCaseAnalyzer;
 import microbat.instrumentation.output.RunningInfo;
+import microbat.instrumentation.output.tcp.TraceStreamListener;
 import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
 import microbat.preference.AnalysisScopePreference;
 import microbat.util.JavaUtil;
 import microbat.util.MicroBatUtil;
@@ -105,6 +107,23 @@ public class StartDebugHandler extends AbstractHandler {
 						List<String> excludedClassNames = AnalysisScopePreference.getExcludedLibList();
 						InstrumentationExecutor executor = new InstrumentationExecutor(appClassPath,
 								generateTraceDir(appClassPath), "trace", includedClassNames, excludedClassNames);
+						/* the program is traced right away, instead of running a precheck first */
+						executor.setSinglePass(true);
+						/* show the early steps of a long run before the trace is complete */
+						executor.setTraceStreamListener(new TraceStreamListener() {
+							
+							@Override
+							public void onSteps(final Trace trace, final List<TraceNode> newSteps) {
+								/* the stream waits for the view, so that the preview trace is not changed while it is shown */
+								Display.getDefault().syncExec(new Runnable() {
+									
+									@Override
+									public void run() {
+										MicroBatViews.getTraceView().appendStreamedSteps(trace, newSteps);
+									}
+								});
+							}
+						});
 						final RunningInfo result = executor.run();
 						
 						monitor.worked(80);
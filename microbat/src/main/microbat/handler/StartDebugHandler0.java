@@ -18,6 +18,7 @@ import org.eclipse.jdt.core.dom.IMethodBinding;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.swt.widgets.Display;
 
+import microbat.Activator;
 import microbat.behavior.Behavior;
 import microbat.behavior.BehaviorData;
 import microbat.behavior.BehaviorReader;
@@ -42,6 +43,8 @@ import sav.strategies.dto.AppJavaClassPath;
  * StartDebugHandler0 is a backup 
  */
 public class StartDebugHandler0 extends AbstractHandler {
+	/* under the state location of the plugin, see ProgramExecutor#setSourceIndexFolder(String) */
+	private static final String SOURCE_INDEX_FOLDER = "source_index";
 
 	
 	private void clearOldData(){
@@ -91,6 +94,8 @@ public class StartDebugHandler0 extends AbstractHandler {
 				@Override
 				protected IStatus run(IProgressMonitor monitor) {
 					ProgramExecutor tcExecutor = new ProgramExecutor();
+					tcExecutor.setSourceIndexFolder(Activator.getDefault().getStateLocation()
+							.append(SOURCE_INDEX_FOLDER).toOSString());
 					/** 0. clear some static common variables **/
 					clearOldData();
 					Repository.clearCache();
@@ -36,6 +36,11 @@ public class BreakPointValue extends VarValue {
 		return false;
 	}
 	
+	@Override
+	public int hashCode(){
+		return name.hashCode();
+	}
+	
 	public String getName(){
 		return name;
 	}
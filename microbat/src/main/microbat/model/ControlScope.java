@@ -1,13 +1,18 @@
 package microbat.model;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import microbat.model.trace.TraceNode;
 
 public class ControlScope implements Scope{
 	private List<ClassLocation> rangeList = new ArrayList<>();
 	private boolean isLoop;
+	/* lines of the range list by class, built at the first lookup */
+	private Map<String, BitSet> lineIndex;
 	
 	public ControlScope() {
 		
@@ -29,6 +34,7 @@ public class ControlScope implements Scope{
 
 	public void setRangeList(List<ClassLocation> rangeList) {
 		this.rangeList = rangeList;
+		this.lineIndex = null;
 	}
 
 	public void setLoop(boolean isLoop) {
@@ -37,13 +43,36 @@ public class ControlScope implements Scope{
 
 	@Override
 	public boolean containLocation(ClassLocation location){
-		for(ClassLocation loc: rangeList) {
-			if (loc.getClassCanonicalName().equals(location.getClassCanonicalName()) && loc.getLineNumber()==location.getLineNumber()) {
-				return true;
+		if (location.getLineNumber() < 0) {
+			for(ClassLocation loc: rangeList) {
+				if (loc.getClassCanonicalName().equals(location.getClassCanonicalName()) && loc.getLineNumber()==location.getLineNumber()) {
+					return true;
+				}
 			}
+			return false;
 		}
-		
-		return false;
+		BitSet lines = getLineIndex().get(location.getClassCanonicalName());
+		return lines != null && lines.get(location.getLineNumber());
+	}
+	
+	private Map<String, BitSet> getLineIndex() {
+		Map<String, BitSet> index = lineIndex;
+		if (index == null) {
+			index = new HashMap<>();
+			for (ClassLocation loc : rangeList) {
+				if (loc.getLineNumber() < 0) {
+					continue;
+				}
+				BitSet lines = index.get(loc.getClassCanonicalName());
+				if (lines == null) {
+					lines = new BitSet();
+					index.put(loc.getClassCanonicalName(), lines);
+				}
+				lines.set(loc.getLineNumber());
+			}
+			lineIndex = index;
+		}
+		return index;
 	}
 
 	public boolean containsNodeScope(TraceNode node) {
@@ -57,6 +86,7 @@ public class ControlScope implements Scope{
 
 	public void addLocation(ClassLocation location) {
 		this.rangeList.add(location);
+		this.lineIndex = null;
 		
 	}
 	
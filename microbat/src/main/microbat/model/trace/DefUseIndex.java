@@ -0,0 +1,269 @@
+package microbat.model.trace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import microbat.model.value.VarValue;
+import microbat.model.variable.Variable;
+
+/**
+ * A def-use index over a trace. For each (simple) variable ID, alias (heap) ID and
+ * descendant variable ID, it keeps the sorted orders of the steps writing and reading it,
+ * so that the producer/consumer of a variable can be found by binary search instead of
+ * scanning the whole trace.
+ * <br>
+ * <br>
+ * The matching rules are the same as the ones in {@link Trace#findProducer(VarValue, TraceNode)}, i.e.,
+ * a written (or read) value matches a queried variable if its simple var ID equals the simple
+ * var ID of the variable, or its simple alias ID equals the simple alias ID of the variable, or
+ * one of its descendant values has the (simple) var ID or alias ID of the variable.
+ * <br>
+ * <br>
+ * The variables of lazy steps (see {@link TraceNode#isVariableLoaded()}) are not loaded to build the
+ * index. Such a step is indexed once a query has to look at it, i.e., a producer query loads the steps
+ * between the producer and the queried step, and a consumer query loads the steps after the queried
+ * step, the same steps as scanning the trace would load.
+ *
+ * @author Yun Lin
+ *
+ */
+public class DefUseIndex {
+
+	private Map<String, StepOrderList> writtenVarIndex = new HashMap<>();
+	private Map<String, StepOrderList> writtenAliasIndex = new HashMap<>();
+	private Map<String, StepOrderList> writtenChildIndex = new HashMap<>();
+
+	private Map<String, StepOrderList> readVarIndex = new HashMap<>();
+	private Map<String, StepOrderList> readAliasIndex = new HashMap<>();
+	private Map<String, StepOrderList> readChildIndex = new HashMap<>();
+
+	private List<TraceNode> executionList;
+	/** the positions of the lazy steps whose variables are not indexed yet */
+	private BitSet unindexedSteps = new BitSet();
+	private int indexedSize;
+
+	public DefUseIndex(List<TraceNode> executionList) {
+		this.executionList = executionList;
+		for(int i=0; i<executionList.size(); i++) {
+			TraceNode node = executionList.get(i);
+			if(node.isVariableLoaded()) {
+				index(node);
+			}
+			else {
+				unindexedSteps.set(i);
+			}
+		}
+		this.indexedSize = executionList.size();
+	}
+
+	private void index(TraceNode node) {
+		int order = node.getOrder();
+		for(VarValue writtenVar: node.getWrittenVariables()) {
+			index(writtenVar, order, writtenVarIndex, writtenAliasIndex, writtenChildIndex);
+		}
+		for(VarValue readVar: node.getReadVariables()) {
+			index(readVar, order, readVarIndex, readAliasIndex, readChildIndex);
+		}
+	}
+
+	private void index(VarValue value, int order, Map<String, StepOrderList> varIndex,
+			Map<String, StepOrderList> aliasIndex, Map<String, StepOrderList> childIndex) {
+		String varID = Variable.truncateSimpleID(value.getVarID());
+		String aliasID = Variable.truncateSimpleID(value.getAliasVarID());
+
+		append(varIndex, varID, order);
+		append(aliasIndex, aliasID, order);
+
+		Set<String> descendantIDs = new HashSet<>();
+		collectDescendantIDs(value, descendantIDs);
+		for(String descendantID: descendantIDs) {
+			append(childIndex, descendantID, order);
+		}
+	}
+
+	/**
+	 * keep consistent with {@link VarValue#findVarValue(String)}, which compares the complete
+	 * var ID of descendant values.
+	 */
+	private void collectDescendantIDs(VarValue value, Set<String> visitedIDs) {
+		for(VarValue child: value.getChildren()) {
+			String childID = child.getVarID();
+			if(childID == null || visitedIDs.contains(childID)) {
+				continue;
+			}
+			visitedIDs.add(childID);
+			collectDescendantIDs(child, visitedIDs);
+		}
+	}
+
+	private void append(Map<String, StepOrderList> index, String key, int order) {
+		if(key == null) {
+			return;
+		}
+
+		StepOrderList list = index.get(key);
+		if(list == null) {
+			list = new StepOrderList();
+			index.put(key, list);
+		}
+		list.add(order);
+	}
+
+	/**
+	 * @return the order of the latest step before {@code startOrder} writing the variable, or -1
+	 * if there is no such step.
+	 */
+	public synchronized int findProducerOrder(VarValue varValue, int startOrder) {
+		String varID = Variable.truncateSimpleID(varValue.getVarID());
+		String headID = Variable.truncateSimpleID(varValue.getAliasVarID());
+
+		int producer = findIndexedProducerOrder(varID, headID, startOrder);
+		/* a lazy step after the indexed producer might be the latest producer */
+		int last = Math.min(startOrder-2, indexedSize-1);
+		for(int i = (last >= 0) ? unindexedSteps.previousSetBit(last) : -1;
+				i >= 0 && i+1 > producer; i = unindexedSteps.previousSetBit(i-1)) {
+			index(executionList.get(i));
+			unindexedSteps.clear(i);
+			producer = findIndexedProducerOrder(varID, headID, startOrder);
+		}
+		return producer;
+	}
+
+	private int findIndexedProducerOrder(String varID, String headID, int startOrder) {
+		int producer = -1;
+		producer = Math.max(producer, findLatestBefore(writtenVarIndex, varID, startOrder));
+		producer = Math.max(producer, findLatestBefore(writtenAliasIndex, headID, startOrder));
+		producer = Math.max(producer, findLatestBefore(writtenChildIndex, varID, startOrder));
+		producer = Math.max(producer, findLatestBefore(writtenChildIndex, headID, startOrder));
+
+		return producer;
+	}
+
+	/**
+	 * @return the orders (ascending, without duplicates) of all the steps after {@code startOrder}
+	 * reading the variable.
+	 */
+	public synchronized int[] findConsumerOrders(VarValue varValue, int startOrder) {
+		String varID = Variable.truncateSimpleID(varValue.getVarID());
+		String headID = Variable.truncateSimpleID(varValue.getAliasVarID());
+
+		for(int i = unindexedSteps.nextSetBit(Math.max(startOrder, 0)); i >= 0; i = unindexedSteps.nextSetBit(i+1)) {
+			index(executionList.get(i));
+			unindexedSteps.clear(i);
+		}
+
+		List<int[]> candidates = new ArrayList<>();
+		collectAfter(readVarIndex, varID, startOrder, candidates);
+		collectAfter(readAliasIndex, headID, startOrder, candidates);
+		collectAfter(readChildIndex, varID, startOrder, candidates);
+		collectAfter(readChildIndex, headID, startOrder, candidates);
+
+		if(candidates.isEmpty()) {
+			return new int[0];
+		}
+		else if(candidates.size() == 1) {
+			return candidates.get(0);
+		}
+
+		int total = 0;
+		for(int[] orders: candidates) {
+			total += orders.length;
+		}
+		int[] merged = new int[total];
+		int pos = 0;
+		for(int[] orders: candidates) {
+			System.arraycopy(orders, 0, merged, pos, orders.length);
+			pos += orders.length;
+		}
+		Arrays.sort(merged);
+
+		int distinct = 0;
+		for(int i=0; i<merged.length; i++) {
+			if(distinct == 0 || merged[distinct-1] != merged[i]) {
+				merged[distinct++] = merged[i];
+			}
+		}
+		return Arrays.copyOf(merged, distinct);
+	}
+
+	private int findLatestBefore(Map<String, StepOrderList> index, String key, int startOrder) {
+		if(key == null) {
+			return -1;
+		}
+		StepOrderList list = index.get(key);
+		if(list == null) {
+			return -1;
+		}
+		return list.findLatestBefore(startOrder);
+	}
+
+	private void collectAfter(Map<String, StepOrderList> index, String key, int startOrder, List<int[]> candidates) {
+		if(key == null) {
+			return;
+		}
+		StepOrderList list = index.get(key);
+		if(list == null) {
+			return;
+		}
+		int[] orders = list.findAllAfter(startOrder);
+		if(orders.length > 0) {
+			candidates.add(orders);
+		}
+	}
+
+	/**
+	 * @return the number of trace steps covered by this index.
+	 */
+	public int getIndexedSize() {
+		return indexedSize;
+	}
+
+	/**
+	 * A growable array of sorted step orders. The steps are mostly indexed in the order of
+	 * execution, only the lazy steps indexed by a query are inserted before the last order.
+	 */
+	static class StepOrderList {
+		private int[] orders = new int[4];
+		private int size = 0;
+
+		void add(int order) {
+			int insertPoint = size;
+			if(size > 0 && orders[size-1] >= order) {
+				int index = Arrays.binarySearch(orders, 0, size, order);
+				/** a step may read/write the same variable more than once */
+				if(index >= 0) {
+					return;
+				}
+				insertPoint = -(index + 1);
+			}
+			if(size == orders.length) {
+				orders = Arrays.copyOf(orders, size * 2);
+			}
+			System.arraycopy(orders, insertPoint, orders, insertPoint+1, size-insertPoint);
+			orders[insertPoint] = order;
+			size++;
+		}
+
+		int findLatestBefore(int startOrder) {
+			int index = Arrays.binarySearch(orders, 0, size, startOrder);
+			int insertPoint = (index >= 0) ? index : -(index + 1);
+			return (insertPoint > 0) ? orders[insertPoint-1] : -1;
+		}
+
+		int[] findAllAfter(int startOrder) {
+			int index = Arrays.binarySearch(orders, 0, size, startOrder);
+			int from = (index >= 0) ? index + 1 : -(index + 1);
+			return Arrays.copyOfRange(orders, from, size);
+		}
+
+		int size() {
+			return size;
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package microbat.model.trace;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import microbat.model.value.VarValue;
+
+/**
+ * A dynamic slicer over a trace. The slices are computed with an explicit worklist and a {@link BitSet}
+ * of visited step orders, so that a long dependency chain does not overflow the stack, and the direct
+ * data dependencies of each step are computed only once, i.e., they are cached until the def-use index
+ * of the trace is rebuilt.
+ * <br>
+ * <br>
+ * The backward slice of a step is the same as {@link TraceNode#findAllDominators()}, i.e., its data
+ * dominators, transitively, and its control dominator. The forward slice of a step is the same as
+ * {@link TraceNode#findAllDominatees()}, i.e., its data and control dominatees, transitively.
+ *
+ * @author Yun Lin
+ *
+ */
+public class DynamicSlicer {
+	private static final int[] NO_ORDERS = new int[0];
+
+	private Trace trace;
+	/* the index the cached dependencies are computed on */
+	private DefUseIndex defUseIndex;
+	/* the orders of the direct data dominators/dominatees of each step, indexed by step order */
+	private int[][] dataDominatorOrders;
+	private int[][] dataDominateeOrders;
+
+	public DynamicSlicer(Trace trace) {
+		this.trace = trace;
+	}
+
+	/**
+	 * @return the orders of the steps in the backward slice of the given step.
+	 */
+	public BitSet sliceBackward(TraceNode node) {
+		BitSet visited = new BitSet(node.getOrder());
+		int[] worklist = new int[16];
+		int size = 0;
+		worklist[size++] = node.getOrder();
+		while (size > 0) {
+			int order = worklist[--size];
+			for (int dominator : getDataDominatorOrders(order)) {
+				if (!visited.get(dominator)) {
+					visited.set(dominator);
+					worklist = push(worklist, size++, dominator);
+				}
+			}
+		}
+		TraceNode controlDominator = node.getControlDominator();
+		if (controlDominator != null) {
+			visited.set(controlDominator.getOrder());
+		}
+		return visited;
+	}
+
+	/**
+	 * @return the orders of the steps in the forward slice of the given step.
+	 */
+	public BitSet sliceForward(TraceNode node) {
+		BitSet visited = new BitSet(trace.size() + 1);
+		int[] worklist = new int[16];
+		int size = 0;
+		worklist[size++] = node.getOrder();
+		while (size > 0) {
+			int order = worklist[--size];
+			for (int dominatee : getDataDominateeOrders(order)) {
+				if (!visited.get(dominatee)) {
+					visited.set(dominatee);
+					worklist = push(worklist, size++, dominatee);
+				}
+			}
+			for (TraceNode controlDominatee : trace.getTraceNode(order).getControlDominatees()) {
+				int dominatee = controlDominatee.getOrder();
+				if (!visited.get(dominatee)) {
+					visited.set(dominatee);
+					worklist = push(worklist, size++, dominatee);
+				}
+			}
+		}
+		return visited;
+	}
+
+	public Map<Integer, TraceNode> findAllDominators(TraceNode node) {
+		return toNodeMap(sliceBackward(node));
+	}
+
+	public Map<Integer, TraceNode> findAllDominatees(TraceNode node) {
+		return toNodeMap(sliceForward(node));
+	}
+
+	/**
+	 * @return the steps of the given orders, keyed by their orders.
+	 */
+	public Map<Integer, TraceNode> toNodeMap(BitSet orders) {
+		Map<Integer, TraceNode> nodes = new HashMap<>();
+		for (int order = orders.nextSetBit(0); order >= 0; order = orders.nextSetBit(order + 1)) {
+			nodes.put(order, trace.getTraceNode(order));
+		}
+		return nodes;
+	}
+
+	/**
+	 * @return the sorted orders of the steps defining the variables read by the given step.
+	 */
+	public int[] getDataDominatorOrders(int order) {
+		ensureCache();
+		int[] orders = dataDominatorOrders[order];
+		if (orders == null) {
+			TraceNode node = trace.getTraceNode(order);
+			List<VarValue> readVars = node.getReadVariables();
+			orders = new int[readVars.size()];
+			int size = 0;
+			for (VarValue readVar : readVars) {
+				TraceNode dominator = trace.findDataDependency(node, readVar);
+				if (dominator != null) {
+					orders[size++] = dominator.getOrder();
+				}
+			}
+			orders = toSortedSet(orders, size);
+			dataDominatorOrders[order] = orders;
+		}
+		return orders;
+	}
+
+	/**
+	 * @return the sorted orders of the steps reading the variables written by the given step.
+	 */
+	public int[] getDataDominateeOrders(int order) {
+		ensureCache();
+		int[] orders = dataDominateeOrders[order];
+		if (orders == null) {
+			TraceNode node = trace.getTraceNode(order);
+			orders = NO_ORDERS;
+			int size = 0;
+			for (VarValue writtenVar : node.getWrittenVariables()) {
+				for (TraceNode dominatee : trace.findDataDependentee(node, writtenVar)) {
+					if (size == orders.length) {
+						orders = Arrays.copyOf(orders, Math.max(4, size * 2));
+					}
+					orders[size++] = dominatee.getOrder();
+				}
+			}
+			orders = toSortedSet(orders, size);
+			dataDominateeOrders[order] = orders;
+		}
+		return orders;
+	}
+
+	private void ensureCache() {
+		DefUseIndex index = trace.getDefUseIndex();
+		if (index != defUseIndex) {
+			defUseIndex = index;
+			dataDominatorOrders = new int[trace.size() + 1][];
+			dataDominateeOrders = new int[trace.size() + 1][];
+		}
+	}
+
+	private static int[] toSortedSet(int[] orders, int size) {
+		if (size == 0) {
+			return NO_ORDERS;
+		}
+		Arrays.sort(orders, 0, size);
+		int unique = 1;
+		for (int i = 1; i < size; i++) {
+			if (orders[i] != orders[unique - 1]) {
+				orders[unique++] = orders[i];
+			}
+		}
+		return (unique == orders.length) ? orders : Arrays.copyOf(orders, unique);
+	}
+
+	private static int[] push(int[] worklist, int size, int order) {
+		if (size == worklist.length) {
+			worklist = Arrays.copyOf(worklist, size * 2);
+		}
+		worklist[size] = order;
+		return worklist;
+	}
+}
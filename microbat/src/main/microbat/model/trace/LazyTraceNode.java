@@ -9,6 +9,7 @@ import sav.common.core.Pair;
 
 public class LazyTraceNode extends TraceNode{
 	private Function<TraceNode, Pair<List<VarValue>, List<VarValue>>> supplier;
+	private boolean isVariableLoaded;
 	public LazyTraceNode(
 			BreakPoint breakPoint, 
 			BreakPointValue programState, 
@@ -19,9 +20,14 @@ public class LazyTraceNode extends TraceNode{
 		this.supplier = supplier;
 	}
 	
+	@Override
+	public boolean isVariableLoaded() {
+		return isVariableLoaded || !this.readVariables.isEmpty() || !this.writtenVariables.isEmpty();
+	}
+	
 	@Override
 	public List<VarValue> getReadVariables() {
-		if (this.readVariables.isEmpty()) {
+		if (!this.isVariableLoaded()) {
 			this.populateRWVars();
 		}
 		return readVariables;
@@ -29,13 +35,14 @@ public class LazyTraceNode extends TraceNode{
 
 	@Override
 	public List<VarValue> getWrittenVariables() {
-		if (this.writtenVariables.isEmpty()) {
+		if (!this.isVariableLoaded()) {
 			this.populateRWVars();
 		}
 		return writtenVariables;
 	}
 	
 	private void populateRWVars() {
+		isVariableLoaded = true;
 		Pair<List<VarValue>, List<VarValue>> pair = supplier.apply(this);
 		this.setReadVariables(pair.first());
 		this.setWrittenVariables(pair.second());
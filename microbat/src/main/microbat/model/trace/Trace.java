@@ -67,6 +67,17 @@ public class Trace {
 	@Deprecated
 	private Map<String, StepVariableRelationEntry> stepVariableTable = new HashMap<>();
 	
+	/**
+	 * indexing the steps reading/writing each variable, see {@link #findProducer(VarValue, TraceNode)}
+	 * and {@link #findDataDependentee(TraceNode, VarValue)}.
+	 */
+	private DefUseIndex defUseIndex;
+	
+	/**
+	 * computing the slices of steps, see {@link DynamicSlicer}.
+	 */
+	private DynamicSlicer slicer;
+	
 	/**
 	 * the time used to construct the trace, which is used for evaluation.
 	 */
@@ -87,6 +98,7 @@ public class Trace {
 
 	public void setExecutionList(List<TraceNode> exectionList) {
 		this.executionList = exectionList;
+		this.defUseIndex = null;
 	}
 	
 	public void addTraceNode(TraceNode node){
@@ -239,12 +251,11 @@ public class Trace {
 		return exp;
 	}
 
+	/**
+	 * The state of each step is compared independently, so the steps are compared in parallel.
+	 */
 	public void conductStateDiff() {
-		for(int i=0; i<this.executionList.size(); i++){
-			TraceNode node = this.executionList.get(i);
-			node.conductStateDiff();
-		}
-		
+		this.executionList.parallelStream().forEach(node -> node.conductStateDiff());
 	}
 	
 	/**
@@ -264,34 +275,41 @@ public class Trace {
 	private List<TraceNode> findConsumer(VarValue writtenVar, TraceNode startNode) {
 		List<TraceNode> consumers = new ArrayList<TraceNode>();
 		
-		String varID = Variable.truncateSimpleID(writtenVar.getVarID());
-		String headID = Variable.truncateSimpleID(writtenVar.getAliasVarID());
-		
-		for(int i=startNode.getOrder()+1; i>=this.getExecutionList().size(); i++) {
-			TraceNode node = this.getTraceNode(i);
-			for(VarValue readVar: node.getReadVariables()) {
-				
-				String rVarID = Variable.truncateSimpleID(readVar.getVarID());
-				String rHeadID = Variable.truncateSimpleID(readVar.getAliasVarID());
-				
-				if(rVarID != null && rVarID.equals(varID)) {
-					consumers.add(node);						
-				}
-				
-				if(rHeadID != null && rHeadID.equals(headID)) {
-					consumers.add(node);
-				}
-				
-				VarValue childValue = readVar.findVarValue(varID, headID);
-				if(childValue != null) {
-					consumers.add(node);
-				}
-				
-			}
+		int[] consumerOrders = getDefUseIndex().findConsumerOrders(writtenVar, startNode.getOrder());
+		for(int order: consumerOrders) {
+			consumers.add(this.getTraceNode(order));
 		}
 		
 		return consumers;
 	}
+	
+	/**
+	 * The def-use index is built lazily on the first data dependency query, and rebuilt
+	 * if steps have been added since then. Adding a variable to a step resets the index,
+	 * replacing the variable lists of steps needs an explicit {@link #resetDefUseIndex()}.
+	 * @return
+	 */
+	public DefUseIndex getDefUseIndex() {
+		if(defUseIndex == null || defUseIndex.getIndexedSize() != this.executionList.size()) {
+			defUseIndex = new DefUseIndex(this.executionList);
+		}
+		return defUseIndex;
+	}
+	
+	public void resetDefUseIndex() {
+		this.defUseIndex = null;
+	}
+	
+	/**
+	 * The slicer caches the direct data dependencies of steps, as long as the def-use index is not rebuilt.
+	 * @return
+	 */
+	public DynamicSlicer getSlicer() {
+		if(slicer == null) {
+			slicer = new DynamicSlicer(this);
+		}
+		return slicer;
+	}
 
 	public List<TraceNode> findNextReadingTraceNodes(VarValue value, int startOrder){
 		String varID = value.getAliasVarID();
@@ -913,34 +931,12 @@ public class Trace {
 	}
 	
 	public TraceNode findProducer(VarValue varValue, TraceNode startNode) {
-		
-		String varID = Variable.truncateSimpleID(varValue.getVarID());
-		String headID = Variable.truncateSimpleID(varValue.getAliasVarID());
-		
-		for(int i=startNode.getOrder()-1; i>=1; i--) {
-			TraceNode node = this.getTraceNode(i);
-			for(VarValue writtenValue: node.getWrittenVariables()) {
-				
-				String wVarID = Variable.truncateSimpleID(writtenValue.getVarID());
-				String wHeadID = Variable.truncateSimpleID(writtenValue.getAliasVarID());
-				
-				if(wVarID != null && wVarID.equals(varID)) {
-					return node;						
-				}
-				
-				if(wHeadID != null && wHeadID.equals(headID)) {
-					return node;
-				}
-				
-				VarValue childValue = writtenValue.findVarValue(varID, headID);
-				if(childValue != null) {
-					return node;
-				}
-				
-			}
+		int producerOrder = getDefUseIndex().findProducerOrder(varValue, startNode.getOrder());
+		if(producerOrder < 1) {
+			return null;
 		}
 		
-		return null;
+		return this.getTraceNode(producerOrder);
 	}
 
 	public int getConstructTime() {
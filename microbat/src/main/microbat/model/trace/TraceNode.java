@@ -113,7 +113,7 @@ public class TraceNode{
 	// TODO: change all this.access to this.get()
 	public List<VarValue> findMarkedReadVariable(){
 		List<VarValue> markedReadVars = new ArrayList<>();
-		for(VarValue readVarValue: this.readVariables){
+		for(VarValue readVarValue: this.getReadVariables()){
 			if(Settings.interestedVariables.contains(readVarValue)){
 				markedReadVars.add(readVarValue);
 			}
@@ -521,6 +521,14 @@ public class TraceNode{
 		this.isException = isException;
 	}
 	
+	/**
+	 * @return whether the read/written variables are in memory, steps read lazily from a
+	 * database or a trace file load them on their first access.
+	 */
+	public boolean isVariableLoaded() {
+		return true;
+	}
+	
 	public List<VarValue> getReadVariables() {
 		return readVariables;
 	}
@@ -531,6 +539,9 @@ public class TraceNode{
 	
 	public void addReadVariable(VarValue var){
 		this.readVariables.add(var);
+		if(this.trace != null) {
+			this.trace.resetDefUseIndex();
+		}
 	}
 	
 	public List<VarValue> getWrittenVariables() {
@@ -543,6 +554,9 @@ public class TraceNode{
 	
 	public void addWrittenVariable(VarValue var){
 		this.writtenVariables.add(var);
+		if(this.trace != null) {
+			this.trace.resetDefUseIndex();
+		}
 	}
 
 	public Double getSuspicousScore(AttributionVar var) {
@@ -601,58 +615,18 @@ public class TraceNode{
 		this.suspicousScoreMap = suspicousScoreMap;
 	}
 
+	/**
+	 * @return the backward slice of this step, see {@link DynamicSlicer#sliceBackward(TraceNode)}.
+	 */
 	public Map<Integer, TraceNode> findAllDominators() {
-		Map<Integer, TraceNode> dominators = new HashMap<>();
-		
-		findDominators(this, dominators);
-		
-		return dominators;
-	}
-
-	private void findDominators(TraceNode node, Map<Integer, TraceNode> dominators) {
-		for(TraceNode dominator: node.getDataDominators().keySet()){
-			if(!dominators.containsKey(dominator.getOrder())){
-				dominators.put(dominator.getOrder(), dominator);		
-				findDominators(dominator, dominators);				
-			}
-		}
-		
-		if(this.controlDominator != null){
-			dominators.put(this.controlDominator.getOrder(), this.controlDominator);
-		}
-		
+		return this.trace.getSlicer().findAllDominators(this);
 	}
 	
+	/**
+	 * @return the forward slice of this step, see {@link DynamicSlicer#sliceForward(TraceNode)}.
+	 */
 	public Map<Integer, TraceNode> findAllDominatees() {
-		Map<Integer, TraceNode> dominatees = new HashMap<>();
-		
-		findDominatees(this, dominatees);
-		
-		return dominatees;
-	}
-
-	private void findDominatees(TraceNode node, Map<Integer, TraceNode> dominatees) {
-		for(TraceNode dominatee: node.getDataDominatee().keySet()){
-			if(!dominatees.containsKey(dominatee.getOrder())){
-				if(dominatee.getOrder() == 1){
-					System.currentTimeMillis();
-				}
-				
-				dominatees.put(dominatee.getOrder(), dominatee);		
-				findDominatees(dominatee, dominatees);				
-			}
-		}
-		
-		for(TraceNode controlDominatee: node.getControlDominatees()){
-			if(!dominatees.containsKey(controlDominatee.getOrder())){
-				if(controlDominatee.getOrder() == 1){
-					System.currentTimeMillis();
-				}
-				
-				dominatees.put(controlDominatee.getOrder(), controlDominatee);
-				findDominatees(controlDominatee, dominatees);				
-			}
-		}
+		return this.trace.getSlicer().findAllDominatees(this);
 	}
 	
 	public void setControlDominator(TraceNode controlDominator){
@@ -779,8 +753,8 @@ public class TraceNode{
 //			}
 //		}
 		
-		if(this.controlDominator != null){
-			TraceNode controlDominator = this.controlDominator;
+		if(this.getControlDominator() != null){
+			TraceNode controlDominator = this.getControlDominator();
 			while(controlDominator != null){
 				if(controlDominator.isLoopCondition()  && controlDominator.isLoopContainsNodeScope(this)){
 					return controlDominator;
@@ -896,9 +870,9 @@ public class TraceNode{
 		
 //		Collections.sort(abstractChildren, new TraceNodeOrderComparator());
 		
-		abstractChildren.addAll(this.invocationChildren);
+		abstractChildren.addAll(this.getInvocationChildren());
 		clearLoopParentsInMethodParent(abstractChildren);
-		for(TraceNode loopChild: this.loopChildren){
+		for(TraceNode loopChild: this.getLoopChildren()){
 			if(!abstractChildren.contains(loopChild)){
 				abstractChildren.add(loopChild);
 			}
@@ -930,7 +904,7 @@ public class TraceNode{
 		}
 		
 		for(TraceNode lParent: loopParents){
-			if(this.invocationChildren.contains(lParent)){
+			if(this.getInvocationChildren().contains(lParent)){
 				return true;
 			}
 		}
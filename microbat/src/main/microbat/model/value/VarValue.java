@@ -112,6 +112,9 @@ public abstract class VarValue implements GraphNode, Serializable {
 	
 	@Override
 	public int hashCode(){
+		if(variable == null){
+			return 0;
+		}
 		return variable.getVarID().hashCode();
 	}
 	
@@ -442,6 +445,13 @@ public abstract class VarValue implements GraphNode, Serializable {
 		return stringValue;
 	}
 	
+	/**
+	 * @return the recorded string value, null if it is not recorded.
+	 */
+	public String getRawStringValue() {
+		return stringValue;
+	}
+	
 	public String getStringValue(){
 		if(stringValue==null) {
 			return "null";
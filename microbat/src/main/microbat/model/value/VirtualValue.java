@@ -14,6 +14,10 @@ public class VirtualValue extends VarValue {
 		this.uniqueId = uniqueID;
 	}
 	
+	public VirtualValue(boolean isRoot, Variable variable) {
+		this(isRoot, variable, 0);
+	}
+	
 	@Override
 	public boolean isTheSameWith(GraphNode node) {
 		if(node instanceof VirtualValue){
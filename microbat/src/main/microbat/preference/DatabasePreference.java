@@ -38,6 +38,7 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
 	public static final String IS_STARTDB = "startdb";
 	public static final String DBMS = "dbms";
 	public static final String DBPATH = "dbPath`";
+	public static final String IS_MAPPED_FILE = "mappedTraceFile";
 
 	private StringFieldEditor hostField;
 	private IntegerFieldEditor portField;
@@ -47,6 +48,7 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
 	private Combo dataBaseDropDown;
 	private Button startWithSQL;
 	private DirectoryFieldEditor sqliteDBPath;
+	private Button mappedTraceFile;
 
 	@Override
 	public void init(IWorkbench workbench) {
@@ -78,6 +80,8 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
 		SWTFactory.createLabel(contents, "Sqlite Configuration:", 3);
 		Group sqliteGroup = SWTFactory.createGroup(contents, "", 4);
 		sqliteDBPath = new DirectoryFieldEditor(DBPATH, "Database path", sqliteGroup);
+		mappedTraceFile = SWTFactory.createCheckbox(contents,
+				"Keep traces in a memory-mapped file, whose steps are loaded on access (without SQL)", 1);
 		setDefaultValue();
 		return contents;
 	}
@@ -86,6 +90,8 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
 		IPreferenceStore pref = Activator.getDefault().getPreferenceStore();
 		if (pref.getBoolean(IS_STARTDB)) {
 			return pref.getInt(DBMS) == 1 ? Reader.MYSQL : Reader.SQLITE3;
+		} else if (pref.getBoolean(IS_MAPPED_FILE)) {
+			return Reader.MAPPED_FILE;
 		} else {
 			return Reader.FILE;
 		}
@@ -113,6 +119,7 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
 		startWithSQL.setSelection(pref.getBoolean(IS_STARTDB));
 		dataBaseDropDown.select(pref.getInt(DBMS));
 		sqliteDBPath.setStringValue(pref.getString(DBPATH));
+		mappedTraceFile.setSelection(pref.getBoolean(IS_MAPPED_FILE));
 	}
 
 	@Override
@@ -133,6 +140,7 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
 		preferences.putBoolean(IS_STARTDB, startWithSQL.getSelection());
 		preferences.putInt(DBMS, dataBaseDropDown.getSelectionIndex());
 		preferences.put(DBPATH, sqliteDBPath.getStringValue());
+		preferences.putBoolean(IS_MAPPED_FILE, mappedTraceFile.getSelection());
 		try {
 			preferences.flush();
 		} catch (BackingStoreException e) {
@@ -148,6 +156,7 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
 		pref.putValue(IS_STARTDB, String.valueOf(startWithSQL.getSelection()));
 		pref.putValue(DBMS, String.valueOf(dataBaseDropDown.getSelectionIndex()));
 		pref.putValue(DBPATH, String.valueOf(sqliteDBPath.getStringValue()));
+		pref.putValue(IS_MAPPED_FILE, String.valueOf(mappedTraceFile.getSelection()));
 
 		DBSettings.updateFromPreference();
 		return true;
@@ -1,10 +1,10 @@
 package microbat.recommendation;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import microbat.model.Cause;
 import microbat.model.trace.PathInstance;
@@ -204,18 +204,15 @@ public class StepRecommender {
 		TraceNode latestWrongNode = trace.getLatestWrongNode();
 		
 		if(latestWrongNode != null){
-			Map<Integer, TraceNode> dominatorMap = latestWrongNode.findAllDominators();
-			List<TraceNode> dominators = new ArrayList<>(dominatorMap.values());
-			Collections.sort(dominators, new TraceNodeOrderComparator());
-			
-			Iterator<TraceNode> iter = dominators.iterator();
-			while(iter.hasNext()){
-				TraceNode dominator = iter.next();
-				boolean shouldRemove = dominator.getOrder() < currentNode.getOrder() || 
-						dominator.getOrder() > earliestVisitedUnclearNode.getOrder() ||
-						dominator.getAbstractionLevel() > earliestVisitedUnclearNode.getAbstractionLevel();
-				if(shouldRemove){
-					iter.remove();
+			/* the orders of the slice are iterated in ascending order, within the range in between */
+			BitSet dominatorOrders = trace.getSlicer().sliceBackward(latestWrongNode);
+			List<TraceNode> dominators = new ArrayList<>();
+			for(int order = dominatorOrders.nextSetBit(currentNode.getOrder()); 
+					order >= 0 && order <= earliestVisitedUnclearNode.getOrder(); 
+					order = dominatorOrders.nextSetBit(order + 1)){
+				TraceNode dominator = trace.getTraceNode(order);
+				if(dominator.getAbstractionLevel() <= earliestVisitedUnclearNode.getAbstractionLevel()){
+					dominators.add(dominator);
 				}
 			}
 			
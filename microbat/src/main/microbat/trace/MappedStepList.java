@@ -0,0 +1,85 @@
+package microbat.trace;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import microbat.instrumentation.output.MappedTraceFile;
+import microbat.instrumentation.output.MappedTraceFile.StepRecord;
+import microbat.instrumentation.output.MappedTraceFile.TraceEntry;
+import microbat.model.trace.TraceNode;
+
+/**
+ * The execution list of a trace in a {@link MappedTraceFile}. A step is created when it is accessed
+ * for the first time, and kept afterwards so that the debugging state of the step (e.g., its check time)
+ * is preserved. The created steps are kept in chunks which are allocated on demand, so that the heap
+ * use grows with the accessed steps rather than with the length of the trace.
+ *
+ * @author Yun Lin
+ *
+ */
+public class MappedStepList extends AbstractList<TraceNode> implements RandomAccess {
+	private static final int CHUNK_SHIFT = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+	private MappedTraceFile file;
+	private TraceEntry entry;
+	private TraceNode[][] chunks;
+
+	public MappedStepList(MappedTraceFile file, TraceEntry entry) {
+		this.file = file;
+		this.entry = entry;
+		this.chunks = new TraceNode[(entry.getStepNum() + CHUNK_SIZE - 1) >>> CHUNK_SHIFT][];
+	}
+
+	@Override
+	public synchronized TraceNode get(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		TraceNode[] chunk = chunks[index >>> CHUNK_SHIFT];
+		if (chunk == null) {
+			chunk = new TraceNode[CHUNK_SIZE];
+			chunks[index >>> CHUNK_SHIFT] = chunk;
+		}
+		TraceNode node = chunk[index & (CHUNK_SIZE - 1)];
+		if (node == null) {
+			int order = index + 1;
+			node = new MappedTraceNode(getStepRecord(order), order, entry.getTrace(), this);
+			chunk[index & (CHUNK_SIZE - 1)] = node;
+		}
+		return node;
+	}
+
+	@Override
+	public int size() {
+		return entry.getStepNum();
+	}
+
+	/**
+	 * @return the step of the given order, or null if the order is {@link MappedTraceFile#NO_STEP}.
+	 */
+	TraceNode getStep(int order) {
+		if (order == MappedTraceFile.NO_STEP) {
+			return null;
+		}
+		return get(order - 1);
+	}
+
+	List<TraceNode> getSteps(int[] orders) {
+		List<TraceNode> steps = new ArrayList<>(orders.length);
+		for (int order : orders) {
+			steps.add(get(order - 1));
+		}
+		return steps;
+	}
+
+	StepRecord getStepRecord(int order) {
+		return file.getStepRecord(entry, order);
+	}
+
+	public MappedTraceFile getFile() {
+		return file;
+	}
+}
@@ -0,0 +1,272 @@
+package microbat.trace;
+
+import java.io.IOException;
+import java.util.List;
+
+import microbat.instrumentation.output.MappedTraceFile.StepDetail;
+import microbat.instrumentation.output.MappedTraceFile.StepRecord;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import microbat.model.value.VarValue;
+import sav.common.core.SavRtException;
+
+/**
+ * A step of a {@link MappedStepList}. Only its location, timestamp and exception flag are read when it
+ * is created. Similar to {@link microbat.model.trace.LazyTraceNode}, its relations to other steps,
+ * its details (bytecode and child steps) and its read/written variables are read from the trace file
+ * when they are accessed for the first time.
+ *
+ * @author Yun Lin
+ *
+ */
+public class MappedTraceNode extends TraceNode {
+	private MappedStepList steps;
+	private boolean isRelationLoaded;
+	private boolean isDetailLoaded;
+	private boolean isVariableLoaded;
+
+	public MappedTraceNode(StepRecord record, int order, Trace trace, MappedStepList steps) {
+		super(record.getLocation(), null, order, trace, null);
+		this.steps = steps;
+		setTimestamp(record.getTimestamp());
+		setException(record.isException());
+	}
+
+	private synchronized void loadRelations() {
+		if (isRelationLoaded) {
+			return;
+		}
+		isRelationLoaded = true;
+		StepRecord record = steps.getStepRecord(getOrder());
+		super.setControlDominator(steps.getStep(record.getControlDominator()));
+		super.setStepInNext(steps.getStep(record.getStepInNext()));
+		super.setStepInPrevious(steps.getStep(record.getStepInPrevious()));
+		super.setStepOverNext(steps.getStep(record.getStepOverNext()));
+		super.setStepOverPrevious(steps.getStep(record.getStepOverPrevious()));
+		super.setInvocationParent(steps.getStep(record.getInvocationParent()));
+		super.setLoopParent(steps.getStep(record.getLoopParent()));
+	}
+
+	private synchronized void loadDetail() {
+		if (isDetailLoaded) {
+			return;
+		}
+		isDetailLoaded = true;
+		StepDetail detail;
+		try {
+			detail = steps.getStepRecord(getOrder()).readDetail();
+		} catch (IOException e) {
+			throw new SavRtException(e);
+		}
+		super.setBytecode(detail.getBytecode());
+		super.setInvocationChildren(steps.getSteps(detail.getInvocationChildren()));
+		super.setControlDominatees(steps.getSteps(detail.getControlDominatees()));
+		super.setLoopChildren(steps.getSteps(detail.getLoopChildren()));
+	}
+
+	private synchronized void loadVariables() {
+		if (isVariableLoaded) {
+			return;
+		}
+		isVariableLoaded = true;
+		List<List<VarValue>> vars;
+		try {
+			vars = steps.getStepRecord(getOrder()).readVariables();
+		} catch (IOException e) {
+			throw new SavRtException(e);
+		}
+		super.setReadVariables(vars.get(0));
+		super.setWrittenVariables(vars.get(1));
+	}
+
+	@Override
+	public TraceNode getControlDominator() {
+		loadRelations();
+		return super.getControlDominator();
+	}
+
+	@Override
+	public void setControlDominator(TraceNode controlDominator) {
+		loadRelations();
+		super.setControlDominator(controlDominator);
+	}
+
+	@Override
+	public TraceNode getStepInNext() {
+		loadRelations();
+		return super.getStepInNext();
+	}
+
+	@Override
+	public void setStepInNext(TraceNode stepInNext) {
+		loadRelations();
+		super.setStepInNext(stepInNext);
+	}
+
+	@Override
+	public TraceNode getStepInPrevious() {
+		loadRelations();
+		return super.getStepInPrevious();
+	}
+
+	@Override
+	public void setStepInPrevious(TraceNode stepInPrevious) {
+		loadRelations();
+		super.setStepInPrevious(stepInPrevious);
+	}
+
+	@Override
+	public TraceNode getStepOverNext() {
+		loadRelations();
+		return super.getStepOverNext();
+	}
+
+	@Override
+	public void setStepOverNext(TraceNode stepOverNext) {
+		loadRelations();
+		super.setStepOverNext(stepOverNext);
+	}
+
+	@Override
+	public TraceNode getStepOverPrevious() {
+		loadRelations();
+		return super.getStepOverPrevious();
+	}
+
+	@Override
+	public void setStepOverPrevious(TraceNode stepOverPrevious) {
+		loadRelations();
+		super.setStepOverPrevious(stepOverPrevious);
+	}
+
+	@Override
+	public TraceNode getInvocationParent() {
+		loadRelations();
+		return super.getInvocationParent();
+	}
+
+	@Override
+	public void setInvocationParent(TraceNode invocationParent) {
+		loadRelations();
+		super.setInvocationParent(invocationParent);
+	}
+
+	@Override
+	public TraceNode getLoopParent() {
+		loadRelations();
+		return super.getLoopParent();
+	}
+
+	@Override
+	public void setLoopParent(TraceNode loopParent) {
+		loadRelations();
+		super.setLoopParent(loopParent);
+	}
+
+	@Override
+	public String getBytecode() {
+		loadDetail();
+		return super.getBytecode();
+	}
+
+	@Override
+	public void setBytecode(String bytecode) {
+		loadDetail();
+		super.setBytecode(bytecode);
+	}
+
+	@Override
+	public List<TraceNode> getInvocationChildren() {
+		loadDetail();
+		return super.getInvocationChildren();
+	}
+
+	@Override
+	public void setInvocationChildren(List<TraceNode> invocationChildren) {
+		loadDetail();
+		super.setInvocationChildren(invocationChildren);
+	}
+
+	@Override
+	public void addInvocationChild(TraceNode node) {
+		loadDetail();
+		super.addInvocationChild(node);
+	}
+
+	@Override
+	public List<TraceNode> getControlDominatees() {
+		loadDetail();
+		return super.getControlDominatees();
+	}
+
+	@Override
+	public void setControlDominatees(List<TraceNode> controlDominatees) {
+		loadDetail();
+		super.setControlDominatees(controlDominatees);
+	}
+
+	@Override
+	public void addControlDominatee(TraceNode dominatee) {
+		loadDetail();
+		super.addControlDominatee(dominatee);
+	}
+
+	@Override
+	public List<TraceNode> getLoopChildren() {
+		loadDetail();
+		return super.getLoopChildren();
+	}
+
+	@Override
+	public void setLoopChildren(List<TraceNode> loopChildren) {
+		loadDetail();
+		super.setLoopChildren(loopChildren);
+	}
+
+	@Override
+	public void addLoopChild(TraceNode loopChild) {
+		loadDetail();
+		super.addLoopChild(loopChild);
+	}
+
+	@Override
+	public synchronized boolean isVariableLoaded() {
+		return isVariableLoaded;
+	}
+
+	@Override
+	public List<VarValue> getReadVariables() {
+		loadVariables();
+		return super.getReadVariables();
+	}
+
+	@Override
+	public void setReadVariables(List<VarValue> readVariables) {
+		loadVariables();
+		super.setReadVariables(readVariables);
+	}
+
+	@Override
+	public void addReadVariable(VarValue var) {
+		loadVariables();
+		super.addReadVariable(var);
+	}
+
+	@Override
+	public List<VarValue> getWrittenVariables() {
+		loadVariables();
+		return super.getWrittenVariables();
+	}
+
+	@Override
+	public void setWrittenVariables(List<VarValue> writtenVariables) {
+		loadVariables();
+		super.setWrittenVariables(writtenVariables);
+	}
+
+	@Override
+	public void addWrittenVariable(VarValue var) {
+		loadVariables();
+		super.addWrittenVariable(var);
+	}
+}
@@ -0,0 +1,42 @@
+package microbat.trace;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import microbat.instrumentation.output.MappedTraceFile;
+import microbat.instrumentation.output.MappedTraceFile.TraceEntry;
+import microbat.instrumentation.output.RunningInfo;
+import microbat.instrumentation.precheck.PrecheckInfo;
+import microbat.model.trace.Trace;
+import sav.common.core.SavRtException;
+
+/**
+ * Open a trace file written by {@link microbat.instrumentation.output.MappedTraceWriter}. Only the
+ * trace table of the file is read here, the steps are created on access by {@link MappedStepList}.
+ * The file itself is closed once it is mapped, and the mapping is kept as long as its traces are in use.
+ *
+ * @author Yun Lin
+ *
+ */
+public class MappedTraceReader implements TraceReader {
+
+	@Override
+	public RunningInfo read(PrecheckInfo precheckInfo, String dumpFile) {
+		MappedTraceFile file = new MappedTraceFile(dumpFile);
+		try {
+			file.open();
+		} catch (IOException e) {
+			file.close();
+			throw new SavRtException(e);
+		}
+		List<Trace> traces = new ArrayList<>(file.getTraceEntries().size());
+		for (TraceEntry entry : file.getTraceEntries()) {
+			Trace trace = entry.getTrace();
+			trace.setExecutionList(new MappedStepList(file, entry));
+			traces.add(trace);
+		}
+		return new RunningInfo(file.getProgramMsg(), traces, file.getExpectedSteps(), file.getCollectedSteps());
+	}
+
+}
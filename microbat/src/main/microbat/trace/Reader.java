@@ -14,6 +14,12 @@ public enum Reader {
 			return new FileTraceReader();
 		}
 	},
+	MAPPED_FILE {
+		@Override
+		public TraceReader create(String runId) {
+			return new MappedTraceReader();
+		}
+	},
 	SQLITE3 {
 		@Override
 		public TraceReader create(String runId) {
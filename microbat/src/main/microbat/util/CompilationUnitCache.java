@@ -0,0 +1,196 @@
+package microbat.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * A bounded cache of parsed {@link CompilationUnit}s, which replaces the unbounded maps that kept the AST of
+ * every touched class alive for the whole session.
+ * <br>
+ * The parsed units are kept in LRU order, and the least recently used ones are evicted once there are more
+ * than {@link #maxSize} of them or their total weight, i.e., the length of their sources, exceeds
+ * {@link #maxWeight}. An evicted unit is still reachable through a soft reference until the gc needs the
+ * memory, after that, it is parsed again on demand by the caller.
+ * <br>
+ * The units given by {@link #put(String, CompilationUnit)} are pinned instead, as they might not be parsed
+ * again from the source, e.g., the units of the mutated classes.
+ *
+ * @author Yun Lin
+ *
+ */
+public class CompilationUnitCache {
+	public static final int DEFAULT_MAX_SIZE = 500;
+	/* in characters of source */
+	public static final long DEFAULT_MAX_WEIGHT = 20l * 1024 * 1024;
+	private static final int ENTRY_WEIGHT = 1024;
+
+	private final int maxSize;
+	private final long maxWeight;
+	private Map<String, CompilationUnit> pinnedUnits = new HashMap<>();
+	/* in access order */
+	private LinkedHashMap<String, Entry> units = new LinkedHashMap<>(16, 0.75f, true);
+	private long weight;
+	private Map<String, SoftUnit> evictedUnits = new HashMap<>();
+	private ReferenceQueue<CompilationUnit> clearedUnits = new ReferenceQueue<>();
+
+	private long hitCount;
+	private long softHitCount;
+	private long missCount;
+	private long evictionCount;
+
+	public CompilationUnitCache() {
+		this(DEFAULT_MAX_SIZE, DEFAULT_MAX_WEIGHT);
+	}
+
+	public CompilationUnitCache(int maxSize, long maxWeight) {
+		this.maxSize = maxSize;
+		this.maxWeight = maxWeight;
+	}
+
+	/**
+	 * @return the cached unit of the given key, or null if it has to be parsed again.
+	 */
+	public synchronized CompilationUnit get(String key) {
+		CompilationUnit unit = pinnedUnits.get(key);
+		if (unit == null) {
+			Entry entry = units.get(key);
+			unit = (entry == null) ? null : entry.unit;
+		}
+		if (unit != null) {
+			hitCount++;
+			return unit;
+		}
+		purgeClearedUnits();
+		SoftUnit softUnit = evictedUnits.remove(key);
+		unit = (softUnit == null) ? null : softUnit.get();
+		if (unit != null) {
+			softHitCount++;
+			cache(key, unit);
+			return unit;
+		}
+		missCount++;
+		return null;
+	}
+
+	/**
+	 * caches a unit which has been parsed from its source, it might be evicted later.
+	 */
+	public synchronized void cache(String key, CompilationUnit unit) {
+		if (unit == null) {
+			return;
+		}
+		remove(key);
+		Entry entry = new Entry(unit);
+		units.put(key, entry);
+		weight += entry.weight;
+		evict();
+	}
+
+	/**
+	 * pins the given unit until it is removed.
+	 */
+	public synchronized void put(String key, CompilationUnit unit) {
+		remove(key);
+		pinnedUnits.put(key, unit);
+	}
+
+	/**
+	 * @return whether the unit of the given key is pinned, i.e., it might not be parsed from its source.
+	 */
+	public synchronized boolean isPinned(String key) {
+		return pinnedUnits.containsKey(key);
+	}
+
+	public synchronized void remove(String key) {
+		pinnedUnits.remove(key);
+		Entry entry = units.remove(key);
+		if (entry != null) {
+			weight -= entry.weight;
+		}
+		evictedUnits.remove(key);
+	}
+
+	public synchronized void clear() {
+		pinnedUnits.clear();
+		units.clear();
+		weight = 0;
+		evictedUnits.clear();
+		purgeClearedUnits();
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<String, Entry>> it = units.entrySet().iterator();
+		/* the latest unit is kept even if it is heavier than the limit */
+		while ((units.size() > maxSize || weight > maxWeight) && units.size() > 1) {
+			Map.Entry<String, Entry> eldest = it.next();
+			it.remove();
+			weight -= eldest.getValue().weight;
+			evictedUnits.put(eldest.getKey(), new SoftUnit(eldest.getKey(), eldest.getValue().unit, clearedUnits));
+			evictionCount++;
+		}
+	}
+
+	private void purgeClearedUnits() {
+		SoftUnit cleared;
+		while ((cleared = (SoftUnit) clearedUnits.poll()) != null) {
+			if (evictedUnits.get(cleared.key) == cleared) {
+				evictedUnits.remove(cleared.key);
+			}
+		}
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return the number of hits of the evicted units which have not been collected by the gc yet.
+	 */
+	public synchronized long getSoftHitCount() {
+		return softHitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	public synchronized int size() {
+		return pinnedUnits.size() + units.size();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "CompilationUnitCache [size=" + size() + ", weight=" + weight + ", hits=" + hitCount
+				+ ", softHits=" + softHitCount + ", misses=" + missCount + ", evictions=" + evictionCount + "]";
+	}
+
+	private static class Entry {
+		private CompilationUnit unit;
+		/* taken when the unit is cached, as the unit might be changed later */
+		private long weight;
+
+		public Entry(CompilationUnit unit) {
+			this.unit = unit;
+			this.weight = ENTRY_WEIGHT + unit.getLength();
+		}
+	}
+
+	private static class SoftUnit extends SoftReference<CompilationUnit> {
+		private String key;
+
+		public SoftUnit(String key, CompilationUnit unit, ReferenceQueue<CompilationUnit> queue) {
+			super(unit, queue);
+			this.key = key;
+		}
+	}
+}
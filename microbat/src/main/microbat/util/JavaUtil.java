@@ -8,7 +8,6 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -392,7 +391,7 @@ public class JavaUtil {
 					
 				}
 				
-				Settings.compilationUnitMap.put(qualifiedName, cu);
+				Settings.compilationUnitMap.cache(qualifiedName, cu);
 				return cu;
 			}
 			catch(IllegalStateException e){
@@ -690,7 +689,7 @@ public class JavaUtil {
 		return sig;
 	}
 
-	public static HashMap<String, CompilationUnit> sourceFile2CUMap = new HashMap<>();
+	public static CompilationUnitCache sourceFile2CUMap = new CompilationUnitCache();
 	
 	public static CompilationUnit findCompiltionUnitBySourcePath(String javaFilePath, 
 			String declaringCompilationUnitName) {
@@ -714,7 +713,7 @@ public class JavaUtil {
 				parser.setResolveBindings(true);
 				
 				CompilationUnit cu = (CompilationUnit)parser.createAST(null);
-				sourceFile2CUMap.put(javaFilePath, cu);
+				sourceFile2CUMap.cache(javaFilePath, cu);
 				
 				return cu;
 				
@@ -1,11 +1,12 @@
 package microbat.util;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Stack;
 
 import org.eclipse.jdt.core.ICompilationUnit;
-import org.eclipse.jdt.core.dom.CompilationUnit;
 
 import microbat.Activator;
 import microbat.handler.CheckingState;
@@ -114,10 +115,11 @@ public class Settings {
 	public static Stack<CheckingState> checkingStateStack = new Stack<>();
 	
 	/**
-	 * The following two map is used to trade space for time.
+	 * The following two map is used to trade space for time. They are synchronized as mutants are evaluated
+	 * in parallel. The parsed compilation units are bounded, as an AST is much heavier than its handle.
 	 */
-	public static HashMap<String, CompilationUnit> compilationUnitMap = new HashMap<>();
-	public static HashMap<String, ICompilationUnit> iCompilationUnitMap = new HashMap<>();
+	public static CompilationUnitCache compilationUnitMap = new CompilationUnitCache();
+	public static Map<String, ICompilationUnit> iCompilationUnitMap = Collections.synchronizedMap(new HashMap<String, ICompilationUnit>());
 	public static boolean enableLoopInference = true;
 	public static boolean supportConcurrentTrace;
 	
@@ -0,0 +1,92 @@
+package microbat.views;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+
+/**
+ * Serves the abstraction hierarchy of a trace to a {@link TreeViewer} created with {@code SWT.VIRTUAL}, so
+ * that only the visible rows are created. The hierarchy is computed once per input, see
+ * {@link TraceAbstractionTree}.
+ *
+ * @author Yun Lin
+ *
+ */
+public class LazyTraceContentProvider implements ILazyTreeContentProvider {
+	private TreeViewer viewer;
+	private TraceAbstractionTree tree;
+
+	public LazyTraceContentProvider(TreeViewer viewer) {
+		this.viewer = viewer;
+	}
+
+	@Override
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		if (newInput instanceof Trace) {
+			tree = new TraceAbstractionTree((Trace) newInput);
+		} else {
+			tree = null;
+		}
+	}
+
+	@Override
+	public void updateElement(Object parent, int index) {
+		if (tree == null) {
+			return;
+		}
+		TraceNode child = tree.getChild(parent, index);
+		viewer.replace(parent, index, child);
+		viewer.setChildCount(child, tree.getChildCount(child));
+	}
+
+	@Override
+	public void updateChildCount(Object element, int currentChildCount) {
+		int count = (tree == null) ? 0 : tree.getChildCount(element);
+		if (count != currentChildCount) {
+			viewer.setChildCount(element, count);
+		}
+	}
+
+	@Override
+	public Object getParent(Object element) {
+		if (tree == null || !(element instanceof TraceNode)) {
+			return null;
+		}
+		return tree.getParent((TraceNode) element);
+	}
+
+	/**
+	 * shows the steps which have been appended to the input trace, without rebuilding the tree.
+	 */
+	public void append(List<TraceNode> steps) {
+		if (tree == null) {
+			return;
+		}
+		Set<Object> parents = new LinkedHashSet<>();
+		for (TraceNode step : steps) {
+			parents.add(tree.append(step));
+		}
+		for (Object parent : parents) {
+			viewer.setChildCount(parent, tree.getChildCount(parent));
+		}
+	}
+
+	/**
+	 * @return the hierarchy of the current input, or null if there is none.
+	 */
+	public TraceAbstractionTree getTree() {
+		return tree;
+	}
+
+	@Override
+	public void dispose() {
+		tree = null;
+	}
+}
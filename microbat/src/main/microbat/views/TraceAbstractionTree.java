@@ -0,0 +1,175 @@
+package microbat.views;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+
+/**
+ * The abstraction hierarchy of a trace, i.e., {@link Trace#getTopAbstractionLevelNodes()} and
+ * {@link TraceNode#getAbstractChildren()} of each step. It is computed in one pass over the trace and kept
+ * as arrays of step orders, so that the rows of a large trace can be served to a virtual tree without
+ * walking the trace each time a row is shown or expanded.
+ *
+ * @author Yun Lin
+ *
+ */
+public class TraceAbstractionTree {
+	private static final int[] NO_CHILDREN = new int[0];
+	private static final int NO_PARENT = 0;
+
+	private Trace trace;
+	private int[] topOrders = NO_CHILDREN;
+	private int topCount;
+	/* indexed by order - 1 */
+	private int[][] children;
+	private int[] childCounts;
+	private int[] parents;
+
+	public TraceAbstractionTree(Trace trace) {
+		this.trace = trace;
+		int size = trace.size();
+		children = new int[size][];
+		childCounts = new int[size];
+		parents = new int[size];
+		build();
+	}
+
+	private void build() {
+		List<TraceNode> executionList = trace.getExecutionList();
+		int size = executionList.size();
+		BitSet invocationChildren = new BitSet(size + 1);
+		BitSet added = new BitSet(size + 1);
+		int[] buffer = new int[16];
+		for (TraceNode node : executionList) {
+			if (node.getAbstractionParent() == null) {
+				addTop(node.getOrder());
+			}
+			List<TraceNode> invocationList = node.getInvocationChildren();
+			List<TraceNode> loopList = node.getLoopChildren();
+			if (invocationList.isEmpty() && loopList.isEmpty()) {
+				continue;
+			}
+			for (TraceNode child : invocationList) {
+				invocationChildren.set(child.getOrder());
+			}
+			int count = 0;
+			for (TraceNode child : invocationList) {
+				if (!isIndirectlyLoopContained(child, invocationChildren)) {
+					buffer = add(buffer, count++, child.getOrder());
+					added.set(child.getOrder());
+				}
+			}
+			for (TraceNode child : loopList) {
+				if (!added.get(child.getOrder())) {
+					buffer = add(buffer, count++, child.getOrder());
+					added.set(child.getOrder());
+				}
+			}
+			int[] childOrders = Arrays.copyOf(buffer, count);
+			int idx = node.getOrder() - 1;
+			children[idx] = childOrders;
+			childCounts[idx] = count;
+			for (int childOrder : childOrders) {
+				if (parents[childOrder - 1] == NO_PARENT) {
+					parents[childOrder - 1] = node.getOrder();
+				}
+			}
+			invocationChildren.clear();
+			added.clear();
+		}
+	}
+
+	/**
+	 * same as the check of {@link TraceNode#getAbstractChildren()}, a child is shown under one of its loop
+	 * parents instead of the method if the loop parent is also called by the method.
+	 */
+	private boolean isIndirectlyLoopContained(TraceNode node, BitSet invocationChildren) {
+		TraceNode loopParent = node.getLoopParent();
+		while (loopParent != null) {
+			if (invocationChildren.get(loopParent.getOrder())) {
+				return true;
+			}
+			loopParent = loopParent.getLoopParent();
+		}
+		return false;
+	}
+
+	/**
+	 * adds a step which has been appended to the trace after this tree is built, e.g. a step streamed
+	 * while the program is running.
+	 *
+	 * @return the parent element of the step, i.e., its abstraction parent, or the trace if it is on the
+	 *         top level.
+	 */
+	public Object append(TraceNode step) {
+		int order = step.getOrder();
+		if (order > children.length) {
+			int capacity = Math.max(order, children.length * 2);
+			children = Arrays.copyOf(children, capacity);
+			childCounts = Arrays.copyOf(childCounts, capacity);
+			parents = Arrays.copyOf(parents, capacity);
+		}
+		TraceNode parent = step.getAbstractionParent();
+		if (parent == null) {
+			addTop(order);
+			return trace;
+		}
+		int idx = parent.getOrder() - 1;
+		int[] childOrders = (children[idx] == null) ? NO_CHILDREN : children[idx];
+		children[idx] = add(childOrders, childCounts[idx]++, order);
+		parents[order - 1] = parent.getOrder();
+		return parent;
+	}
+
+	private void addTop(int order) {
+		topOrders = add(topOrders, topCount++, order);
+	}
+
+	private static int[] add(int[] orders, int idx, int order) {
+		if (idx >= orders.length) {
+			orders = Arrays.copyOf(orders, Math.max(4, orders.length * 2));
+		}
+		orders[idx] = order;
+		return orders;
+	}
+
+	/**
+	 * @param element
+	 *            the trace, or a step of the trace.
+	 */
+	public int getChildCount(Object element) {
+		if (element instanceof TraceNode) {
+			int idx = ((TraceNode) element).getOrder() - 1;
+			return idx < childCounts.length ? childCounts[idx] : 0;
+		}
+		return (element == trace) ? topCount : 0;
+	}
+
+	public TraceNode getChild(Object element, int index) {
+		int order;
+		if (element instanceof TraceNode) {
+			order = children[((TraceNode) element).getOrder() - 1][index];
+		} else {
+			order = topOrders[index];
+		}
+		return trace.getTraceNode(order);
+	}
+
+	/**
+	 * @return the step under which the given step is shown, or the trace if it is on the top level.
+	 */
+	public Object getParent(TraceNode step) {
+		int parentOrder = parents[step.getOrder() - 1];
+		if (parentOrder == NO_PARENT) {
+			return trace;
+		}
+		return trace.getTraceNode(parentOrder);
+	}
+
+	public Trace getTrace() {
+		return trace;
+	}
+}
@@ -25,11 +25,9 @@ import org.eclipse.jface.viewers.ILabelProviderListener;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.IStructuredSelection;
-import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
 import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TreeViewer;
-import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.KeyAdapter;
 import org.eclipse.swt.events.KeyEvent;
@@ -169,11 +167,7 @@ public class TraceView extends ViewPart {
 	public void jumpToNode(Trace trace, int order, boolean refreshProgramState) {
 		TraceNode node = trace.getExecutionList().get(order - 1);
 
-		List<TraceNode> path = new ArrayList<>();
-		while (node != null) {
-			path.add(node);
-			node = node.getAbstractionParent();
-		}
+		List<TraceNode> path = getPathInTree(listViewer, node);
 
 		/** keep the original expanded list */
 		Object[] expandedElements = listViewer.getExpandedElements();
@@ -257,9 +251,10 @@ public class TraceView extends ViewPart {
 
 		createSearchBox(parent);
 
-		listViewer = new TreeViewer(parent, SWT.V_SCROLL | SWT.H_SCROLL | SWT.BORDER);
+		listViewer = new TreeViewer(parent, SWT.V_SCROLL | SWT.H_SCROLL | SWT.BORDER | SWT.VIRTUAL);
 		listViewer.getTree().setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true, 2, 1));
-		listViewer.setContentProvider(new TraceContentProvider());
+		listViewer.setUseHashlookup(true);
+		listViewer.setContentProvider(new LazyTraceContentProvider(listViewer));
 		listViewer.setLabelProvider(new TraceLabelProvider());
 
 		// Trace trace = Activator.getDefault().getCurrentTrace();
@@ -417,6 +412,30 @@ public class TraceView extends ViewPart {
 		};
 		return action;
 	}
+
+	/**
+	 * @return the given step and the steps which it is shown under in the tree of the viewer.
+	 */
+	protected static List<TraceNode> getPathInTree(TreeViewer viewer, TraceNode node) {
+		TraceAbstractionTree tree = null;
+		if (viewer.getContentProvider() instanceof LazyTraceContentProvider) {
+			tree = ((LazyTraceContentProvider) viewer.getContentProvider()).getTree();
+		}
+		if (tree != null && tree.getTrace() != node.getTrace()) {
+			tree = null;
+		}
+		List<TraceNode> path = new ArrayList<>();
+		while (node != null) {
+			path.add(node);
+			if (tree == null) {
+				node = node.getAbstractionParent();
+			} else {
+				Object parent = tree.getParent(node);
+				node = (parent instanceof TraceNode) ? (TraceNode) parent : null;
+			}
+		}
+		return path;
+	}
 	
 	protected MenuManager menuMgr = new MenuManager("#PopupMenu");
 	protected void appendMenuForTraceStep() {
@@ -452,6 +471,23 @@ public class TraceView extends ViewPart {
 		listViewer.refresh();
 	}
 
+	/**
+	 * shows the steps of the main thread streamed while the program is running. The new steps are added to
+	 * the tree in place, instead of setting its input again for each batch.
+	 */
+	public void appendStreamedSteps(Trace previewTrace, List<TraceNode> newSteps) {
+		if (!previewTrace.isMain()) {
+			return;
+		}
+		if (this.trace != previewTrace) {
+			setMainTrace(previewTrace);
+			setTraceList(null);
+			updateData();
+			return;
+		}
+		((LazyTraceContentProvider) listViewer.getContentProvider()).append(newSteps);
+	}
+
 	@Override
 	public void setFocus() {
 
@@ -473,58 +509,6 @@ public class TraceView extends ViewPart {
 		this.traceList = traceList;
 	}
 
-	class TraceContentProvider implements ITreeContentProvider {
-
-		public void dispose() {
-
-		}
-
-		public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
-
-		}
-
-		@Override
-		public Object[] getChildren(Object parentElement) {
-			if (parentElement instanceof Trace) {
-				Trace trace = (Trace) parentElement;
-				// List<TraceNode> nodeList = trace.getExectionList();
-				// List<TraceNode> nodeList = trace.getTopMethodLevelNodes();
-				// List<TraceNode> nodeList = trace.getTopLoopLevelNodes();
-				List<TraceNode> nodeList = trace.getTopAbstractionLevelNodes();
-				return nodeList.toArray(new TraceNode[0]);
-			} else if (parentElement instanceof TraceNode) {
-				TraceNode parentNode = (TraceNode) parentElement;
-				// List<TraceNode> nodeList = parentNode.getInvocationChildren();
-				// List<TraceNode> nodeList = parentNode.getLoopChildren();
-				List<TraceNode> nodeList = parentNode.getAbstractChildren();
-				return nodeList.toArray(new TraceNode[0]);
-			}
-			return null;
-		}
-
-		@Override
-		public Object getParent(Object element) {
-			return null;
-		}
-
-		@Override
-		public boolean hasChildren(Object element) {
-			if (element instanceof TraceNode) {
-				TraceNode node = (TraceNode) element;
-				// return !node.getInvocationChildren().isEmpty();
-				// return !node.getLoopChildren().isEmpty();
-				return !node.getAbstractChildren().isEmpty();
-			}
-			return false;
-		}
-
-		@Override
-		public Object[] getElements(Object inputElement) {
-			return getChildren(inputElement);
-		}
-
-	}
-
 	class TraceLabelProvider implements ILabelProvider {
 
 		public void addListener(ILabelProviderListener listener) {
@@ -0,0 +1,234 @@
+package microbat.algorithm.graphdiff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import microbat.model.value.GraphNode;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.VarValue;
+import microbat.model.variable.LocalVar;
+
+/**
+ * Compare {@link HierarchyGraphDiffer} with the former recursive differ, which looked up the parsed pairs
+ * and the visited nodes of {@link SimpleMatcher} in lists.
+ */
+public class HierarchyGraphDifferTest {
+	private static final int GRAPHS = 500;
+	private static final String[] NAMES = { "a", "b", "c" };
+	private static final String[] TYPES = { "int", "long" };
+	private static final String[] VALUES = { "0", "1" };
+
+	/**
+	 * the graphs have shared children and cycles, and the values of different variables might have the same
+	 * variable id, i.e., they are equal for the visited nodes of the matcher.
+	 */
+	@Test
+	public void testRandomGraphs() {
+		for (int seed = 0; seed < GRAPHS; seed++) {
+			Random random = new Random(seed);
+			List<VarValue> before = generateGraph(random);
+			List<VarValue> after = random.nextBoolean() ? mutate(before, random) : generateGraph(random);
+			boolean isCompareRoot = random.nextBoolean();
+			assertSameDiff("seed " + seed, before.get(0), after.get(0), isCompareRoot);
+		}
+	}
+
+	/**
+	 * a value without variable does not equal any value, even itself, so that the former list of visited
+	 * nodes never contains it. It is only put where it has no counterpart, as it cannot be matched.
+	 */
+	@Test
+	public void testValueWithoutVariable() {
+		VarValue unknown = new PrimitiveValue("1", false, null);
+		VarValue rootBefore = newValue("root", "0", "root");
+		VarValue parent1 = newValue("p1", "0", "p1");
+		VarValue parent2 = newValue("p2", "0", "p2");
+		rootBefore.addChild(parent1);
+		rootBefore.addChild(parent2);
+		parent1.addChild(unknown);
+		parent1.addChild(unknown);
+		parent2.addChild(unknown);
+
+		VarValue rootAfter = newValue("root", "0", "root");
+		rootAfter.addChild(newValue("p1", "0", "p1"));
+		rootAfter.addChild(newValue("p2", "1", "p2"));
+		assertSameDiff("removed", rootBefore, rootAfter, true);
+		assertSameDiff("added", rootAfter, rootBefore, false);
+	}
+
+	private void assertSameDiff(String msg, GraphNode rootBefore, GraphNode rootAfter, boolean isCompareRoot) {
+		FormerHierarchyGraphDiffer formerDiffer = new FormerHierarchyGraphDiffer();
+		formerDiffer.diff(rootBefore, rootAfter, isCompareRoot);
+		HierarchyGraphDiffer differ = new HierarchyGraphDiffer();
+		differ.diff(rootBefore, rootAfter, isCompareRoot);
+		assertSameDiffs(msg + ", diffs", formerDiffer.getDiffs(), differ.getDiffs());
+		assertSameDiffs(msg + ", commons", formerDiffer.getCommons(), differ.getCommons());
+	}
+
+	private void assertSameDiffs(String msg, List<GraphDiff> expected, List<GraphDiff> actual) {
+		assertEquals(msg, expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertSame(msg, expected.get(i).getNodeBefore(), actual.get(i).getNodeBefore());
+			assertSame(msg, expected.get(i).getNodeAfter(), actual.get(i).getNodeAfter());
+		}
+	}
+
+	private List<VarValue> generateGraph(Random random) {
+		int size = 1 + random.nextInt(30);
+		List<VarValue> nodes = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			nodes.add(newValue(random));
+		}
+		for (VarValue node : nodes) {
+			int children = random.nextInt(5);
+			for (int i = 0; i < children; i++) {
+				node.addChild(nodes.get(random.nextInt(size)));
+			}
+		}
+		return nodes;
+	}
+
+	/**
+	 * @return a copy of the given graph, with some values and children changed.
+	 */
+	private List<VarValue> mutate(List<VarValue> graph, Random random) {
+		List<VarValue> nodes = new ArrayList<>();
+		for (VarValue node : graph) {
+			if (random.nextInt(5) == 0) {
+				nodes.add(newValue(random));
+			} else {
+				LocalVar var = (LocalVar) node.getVariable();
+				nodes.add(newValue(var.getName(), var.getType(), node.getStringValue(), var.getVarID()));
+			}
+		}
+		for (int i = 0; i < graph.size(); i++) {
+			for (VarValue child : graph.get(i).getChildren()) {
+				if (random.nextInt(5) != 0) {
+					nodes.get(i).addChild(nodes.get(graph.indexOf(child)));
+				}
+			}
+			if (random.nextInt(5) == 0) {
+				nodes.get(i).addChild(nodes.get(random.nextInt(nodes.size())));
+			}
+		}
+		return nodes;
+	}
+
+	private VarValue newValue(Random random) {
+		return newValue(NAMES[random.nextInt(NAMES.length)], TYPES[random.nextInt(TYPES.length)],
+				VALUES[random.nextInt(VALUES.length)], "id" + random.nextInt(10));
+	}
+
+	private VarValue newValue(String name, String value, String varID) {
+		return newValue(name, "int", value, varID);
+	}
+
+	private VarValue newValue(String name, String type, String value, String varID) {
+		LocalVar var = new LocalVar(name, type, "com.A", 1);
+		var.setVarID(varID);
+		return new PrimitiveValue(value, false, var);
+	}
+
+	/**
+	 * the former differ, which visits the children recursively.
+	 */
+	private static class FormerHierarchyGraphDiffer {
+		private Matcher matcher = new FormerSimpleMatcher();
+		private List<GraphDiff> diffs = new ArrayList<>();
+		private List<GraphDiff> commons = new ArrayList<>();
+
+		public void diff(GraphNode rootBefore, GraphNode rootAfter, boolean isCompareRoot) {
+			if (isCompareRoot) {
+				if (!rootBefore.isTheSameWith(rootAfter)) {
+					GraphDiff diff = new GraphDiff(rootBefore, rootAfter);
+					this.diffs.add(diff);
+				}
+			}
+			diffChildren(rootBefore, rootAfter);
+		}
+
+		private void diffChildren(GraphNode rootBefore, GraphNode rootAfter) {
+			List<? extends GraphNode> childrenBefore = rootBefore.getChildren();
+			List<? extends GraphNode> childrenAfter = rootAfter.getChildren();
+			List<MatchingGraphPair> pairs = matcher.matchList(childrenBefore, childrenAfter);
+			for (MatchingGraphPair pair : pairs) {
+				GraphNode nodeBefore = pair.getNodeBefore();
+				GraphNode nodeAfter = pair.getNodeAfter();
+				if (nodeBefore != null && nodeAfter != null) {
+					GraphDiff diff = new GraphDiff(nodeBefore, nodeAfter);
+					if (!isParsed(diff)) {
+						if (!nodeBefore.isTheSameWith(nodeAfter)) {
+							this.diffs.add(diff);
+						} else {
+							this.commons.add(diff);
+						}
+						diffChildren(nodeBefore, nodeAfter);
+					}
+				} else {
+					GraphDiff diff = new GraphDiff(nodeBefore, nodeAfter);
+					this.diffs.add(diff);
+				}
+			}
+		}
+
+		private boolean isParsed(GraphDiff diff) {
+			List<GraphDiff> parsed = diff.getNodeBefore().isTheSameWith(diff.getNodeAfter()) ? commons : diffs;
+			for (GraphDiff gd : parsed) {
+				if (gd.getNodeBefore() == diff.getNodeBefore() && gd.getNodeAfter() == diff.getNodeAfter()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public List<GraphDiff> getDiffs() {
+			return diffs;
+		}
+
+		public List<GraphDiff> getCommons() {
+			return commons;
+		}
+	}
+
+	/**
+	 * the former matcher, which keeps the visited nodes in a list.
+	 */
+	private static class FormerSimpleMatcher implements Matcher {
+		private List<GraphNode> visitedPool = new ArrayList<>();
+
+		@Override
+		public List<MatchingGraphPair> matchList(List<? extends GraphNode> childrenBefore,
+				List<? extends GraphNode> childrenAfter) {
+			List<MatchingGraphPair> pairs = new ArrayList<>();
+			for (GraphNode childBefore : childrenBefore) {
+				if (!visitedPool.contains(childBefore)) {
+					GraphNode node = null;
+					for (GraphNode childAfter : childrenAfter) {
+						if (!visitedPool.contains(childAfter) && childBefore.match(childAfter)) {
+							node = childAfter;
+							break;
+						}
+					}
+					visitedPool.add(childBefore);
+					if (node != null) {
+						visitedPool.add(node);
+					}
+					pairs.add(new MatchingGraphPair(childBefore, node));
+				}
+			}
+			for (GraphNode childAfter : childrenAfter) {
+				if (!visitedPool.contains(childAfter)) {
+					visitedPool.add(childAfter);
+					pairs.add(new MatchingGraphPair(null, childAfter));
+				}
+			}
+			return pairs;
+		}
+	}
+}
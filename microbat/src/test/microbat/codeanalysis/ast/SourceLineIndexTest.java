@@ -0,0 +1,213 @@
+package microbat.codeanalysis.ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.BooleanLiteral;
+import org.eclipse.jdt.core.dom.CharacterLiteral;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.NullLiteral;
+import org.eclipse.jdt.core.dom.ReturnStatement;
+import org.eclipse.jdt.core.dom.StringLiteral;
+import org.eclipse.jdt.core.dom.TypeLiteral;
+import org.junit.Test;
+
+/**
+ * Compare the lookups of {@link SourceLineIndex} with the former visitors of ProgramExecutor, which visited the
+ * AST of the class for each step.
+ */
+public class SourceLineIndexTest {
+	private static final String SOURCE =
+			"package com;\n" +
+			"\n" +
+			"public class Outer {\n" +
+			"	private int field = 1;\n" +
+			"\n" +
+			"	public int foo(int a) {\n" +
+			"		if (a > 0) {\n" +
+			"			return a + 1;\n" +
+			"		}\n" +
+			"		Runnable r = new Runnable() {\n" +
+			"			public void run() {\n" +
+			"				System.out.println(\"run\");\n" +
+			"				return;\n" +
+			"			}\n" +
+			"		};\n" +
+			"		r.run();\n" +
+			"		return bar(new Object() {\n" +
+			"			public String toString() {\n" +
+			"				return \"inner\";\n" +
+			"			}\n" +
+			"		});\n" +
+			"	}\n" +
+			"\n" +
+			"	int bar(Object o) { return o.hashCode(); }\n" +
+			"\n" +
+			"	static class Nested {\n" +
+			"		boolean isEmpty() {\n" +
+			"			return\n" +
+			"				true;\n" +
+			"		}\n" +
+			"\n" +
+			"		class Inner {\n" +
+			"			Class type() { return Inner.class; }\n" +
+			"			Object one() { Object o = new Object() { public int hashCode() { return 1; } }; return o; }\n" +
+			"		}\n" +
+			"	}\n" +
+			"\n" +
+			"	char letter(boolean b) {\n" +
+			"		class Local {\n" +
+			"			Object get() {\n" +
+			"				return null;\n" +
+			"			}\n" +
+			"		}\n" +
+			"		if (b) return 'a'; else return 'b';\n" +
+			"	}\n" +
+			"}\n" +
+			"\n" +
+			"class Other {\n" +
+			"	void empty() {}\n" +
+			"}\n";
+
+	@Test
+	public void testNestedAndAnonymousClasses() {
+		CompilationUnit cu = parse(SOURCE);
+		SourceLineIndex index = SourceLineIndex.build("com.Outer", cu);
+		int lineCount = cu.getLineNumber(SOURCE.length() - 1) + 2;
+		/* the method ids of the index are compared by the declarations they stand for */
+		Map<MethodDeclaration, Integer> methodIds = new HashMap<>();
+		for (int line = 0; line <= lineCount; line++) {
+			MethodFinder methodFinder = new MethodFinder(cu, line);
+			cu.accept(methodFinder);
+			int methodId = index.getMethodId(line);
+			if (methodFinder.candidate == null) {
+				assertEquals("line " + line, SourceLineIndex.NO_METHOD, methodId);
+			} else {
+				Integer expectedId = methodIds.get(methodFinder.candidate);
+				if (expectedId == null) {
+					assertFalse("line " + line, methodIds.containsValue(methodId));
+					methodIds.put(methodFinder.candidate, methodId);
+				} else {
+					assertEquals("line " + line, expectedId.intValue(), methodId);
+				}
+				MethodDeclaration md = methodFinder.candidate;
+				assertEquals(cu.getLineNumber(md.getStartPosition()), index.getMethodStartLine(methodId));
+				assertEquals(cu.getLineNumber(md.getStartPosition() + md.getLength()), index.getMethodEndLine(methodId));
+			}
+
+			ReturnStatementFinder returnFinder = new ReturnStatementFinder(cu, line);
+			cu.accept(returnFinder);
+			assertEquals("line " + line, getReturnKind(returnFinder.returnStatement), index.getReturnKind(line));
+			Expression expr = (returnFinder.returnStatement == null) ? null
+					: returnFinder.returnStatement.getExpression();
+			assertEquals("line " + line, (expr == null) ? null : expr.toString(), index.getReturnExpression(line));
+		}
+		/* run(), toString(), hashCode() and get() are looked up in the anonymous and local classes */
+		assertEquals(10, methodIds.size());
+		assertEquals(SourceLineIndex.RETURN_LITERAL, index.getReturnKind(19));
+		assertEquals(SourceLineIndex.RETURN_EXPRESSION, index.getReturnKind(34));
+		assertEquals(SourceLineIndex.RETURN_LITERAL, index.getReturnKind(44));
+	}
+
+	private CompilationUnit parse(String source) {
+		ASTParser parser = ASTParser.newParser(AST.JLS8);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setSource(source.toCharArray());
+		return (CompilationUnit) parser.createAST(null);
+	}
+
+	private byte getReturnKind(ReturnStatement rStat) {
+		if (rStat == null) {
+			return SourceLineIndex.RETURN_NONE;
+		}
+		Expression expr = rStat.getExpression();
+		if (expr == null) {
+			return SourceLineIndex.RETURN_VOID;
+		}
+		if (expr instanceof NullLiteral || expr instanceof StringLiteral || expr instanceof TypeLiteral
+				|| expr instanceof BooleanLiteral || expr instanceof CharacterLiteral) {
+			return SourceLineIndex.RETURN_LITERAL;
+		}
+		return SourceLineIndex.RETURN_EXPRESSION;
+	}
+
+	/**
+	 * the former lookup of the return statement of a line.
+	 */
+	class ReturnStatementFinder extends ASTVisitor{
+		CompilationUnit cu;
+		int lineNumber;
+
+		public ReturnStatementFinder(CompilationUnit cu, int lineNumber){
+			this.cu = cu;
+			this.lineNumber = lineNumber;
+		}
+
+		ReturnStatement returnStatement;
+
+		@Override
+		public boolean visit(MethodDeclaration md){
+			int start = cu.getLineNumber(md.getStartPosition());
+			int end = cu.getLineNumber(md.getStartPosition()+md.getLength());
+			if(lineNumber<start || end<lineNumber){
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		public boolean visit(ReturnStatement rStat){
+			int start = cu.getLineNumber(rStat.getStartPosition());
+			int end = cu.getLineNumber(rStat.getStartPosition()+rStat.getLength());
+			if(start<=lineNumber && lineNumber<=end){
+				this.returnStatement = rStat;
+				return true;
+			}
+
+			return false;
+		}
+	}
+
+	/**
+	 * the former lookup of the method declaration of a line.
+	 */
+	class MethodFinder extends ASTVisitor {
+		CompilationUnit cu;
+		int lineNumber;
+
+		MethodDeclaration candidate;
+
+		public MethodFinder(CompilationUnit cu, int lineNumber) {
+			this.cu = cu;
+			this.lineNumber = lineNumber;
+		}
+
+		public boolean visit(MethodDeclaration md) {
+			int startLine = cu.getLineNumber(md.getStartPosition());
+			int endLine = cu.getLineNumber(md.getStartPosition() + md.getLength());
+
+			if (startLine <= lineNumber && endLine >= lineNumber) {
+				if (candidate == null) {
+					candidate = md;
+				} else {
+					int candStartLine = cu.getLineNumber(candidate.getStartPosition());
+					int candEndLine = cu.getLineNumber(candidate.getStartPosition() + candidate.getLength());
+
+					if (startLine >= candStartLine && endLine <= candEndLine) {
+						candidate = md;
+					}
+				}
+			}
+
+			return true;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package microbat.evaluation.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import microbat.evaluation.TraceNodePairReverseOrderComparator;
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+
+public class PairListTest {
+	private static final int PAIR_LISTS = 200;
+	private Trace mutatedTrace = createTrace("mutated", 10);
+	private Trace correctTrace = createTrace("correct", 10);
+
+	@Test
+	public void testFind() {
+		TraceNodePair pair1 = newPair(2, 3);
+		TraceNodePair pair2 = newPair(4, 4);
+		/* the first pair of a node wins, the same as a scan */
+		TraceNodePair pair3 = newPair(2, 5);
+		PairList pairList = new PairList(Arrays.asList(pair1, pair2, pair3));
+		assertSame(pair1, pairList.findByMutatedNode(mutatedTrace.getTraceNode(2)));
+		assertSame(pair2, pairList.findByMutatedNode(mutatedTrace.getTraceNode(4)));
+		assertSame(pair3, pairList.findByOriginalNode(correctTrace.getTraceNode(5)));
+		assertNull(pairList.findByMutatedNode(mutatedTrace.getTraceNode(10)));
+		assertNull(pairList.findByOriginalNode(null));
+	}
+
+	@Test
+	public void testAddAfterLookup() {
+		PairList pairList = new PairList(Arrays.asList(newPair(5, 5)));
+		assertNull(pairList.findByMutatedNode(mutatedTrace.getTraceNode(3)));
+
+		/* within the index */
+		TraceNodePair pair = newPair(3, 4);
+		pairList.add(pair);
+		assertSame(pair, pairList.findByMutatedNode(mutatedTrace.getTraceNode(3)));
+		assertSame(pair, pairList.findByOriginalNode(correctTrace.getTraceNode(4)));
+		pairList.add(newPair(3, 2));
+		assertSame(pair, pairList.findByMutatedNode(mutatedTrace.getTraceNode(3)));
+
+		/* beyond the index */
+		TraceNodePair lastPair = newPair(9, 1);
+		pairList.add(lastPair);
+		assertSame(lastPair, pairList.findByMutatedNode(mutatedTrace.getTraceNode(9)));
+		assertSame(lastPair, pairList.findByOriginalNode(correctTrace.getTraceNode(1)));
+		assertEquals(4, pairList.size());
+	}
+
+	/**
+	 * the pairs are only changed through the pair list, so that its index is never stale.
+	 */
+	@Test
+	public void testPairsChangedThroughPairList() {
+		List<TraceNodePair> pairs = new ArrayList<>(Arrays.asList(newPair(1, 1)));
+		PairList pairList = new PairList(pairs);
+		assertNull(pairList.findByMutatedNode(mutatedTrace.getTraceNode(2)));
+		pairs.set(0, newPair(2, 2));
+		assertNull(pairList.findByMutatedNode(mutatedTrace.getTraceNode(2)));
+		try {
+			pairList.getPairList().set(0, newPair(2, 2));
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+
+		TraceNodePair pair = newPair(2, 2);
+		pairList.setPairList(Arrays.asList(pair));
+		assertSame(pair, pairList.findByMutatedNode(mutatedTrace.getTraceNode(2)));
+		assertNull(pairList.findByMutatedNode(mutatedTrace.getTraceNode(1)));
+	}
+
+	/**
+	 * pairs in the reverse order of steps, as created by SimulatedMicroBat.matchTraceNodePair, where some
+	 * steps are not matched, are found the same as a scan of the pairs.
+	 */
+	@Test
+	public void testSameAsScan() {
+		for (int seed = 0; seed < PAIR_LISTS; seed++) {
+			Random random = new Random(seed);
+			int size = 1 + random.nextInt(100);
+			Trace mutated = createTrace("mutated", size);
+			Trace correct = createTrace("correct", size);
+			List<TraceNodePair> pairs = new ArrayList<>();
+			for (int i = 1; i <= size; i++) {
+				if (random.nextInt(5) != 0) {
+					TraceNode correctNode = correct.getTraceNode(1 + random.nextInt(size));
+					pairs.add(new TraceNodePair(mutated.getTraceNode(i), correctNode));
+				}
+			}
+			Collections.sort(pairs, new TraceNodePairReverseOrderComparator());
+			PairList pairList = new PairList(pairs);
+			String msg = "seed " + seed;
+			for (int i = 1; i <= size; i++) {
+				assertSame(msg, scanByMutatedNode(pairs, mutated.getTraceNode(i)),
+						pairList.findByMutatedNode(mutated.getTraceNode(i)));
+				assertSame(msg, scanByOriginalNode(pairs, correct.getTraceNode(i)),
+						pairList.findByOriginalNode(correct.getTraceNode(i)));
+			}
+		}
+	}
+
+	/**
+	 * the former lookups of {@link PairList}, which scanned the pairs.
+	 */
+	private TraceNodePair scanByMutatedNode(List<TraceNodePair> pairs, TraceNode node) {
+		for (TraceNodePair pair : pairs) {
+			if (pair.getMutatedNode().equals(node)) {
+				return pair;
+			}
+		}
+		return null;
+	}
+
+	private TraceNodePair scanByOriginalNode(List<TraceNodePair> pairs, TraceNode node) {
+		for (TraceNodePair pair : pairs) {
+			if (pair.getOriginalNode().equals(node)) {
+				return pair;
+			}
+		}
+		return null;
+	}
+
+	private TraceNodePair newPair(int mutatedOrder, int correctOrder) {
+		return new TraceNodePair(mutatedTrace.getTraceNode(mutatedOrder), correctTrace.getTraceNode(correctOrder));
+	}
+
+	private static Trace createTrace(String id, int size) {
+		Trace trace = new Trace(id);
+		for (int i = 1; i <= size; i++) {
+			BreakPoint point = new BreakPoint("sample.Sample", "sample.Sample", "run()V", i);
+			trace.addTraceNode(new TraceNode(point, null, i, trace, null));
+		}
+		return trace;
+	}
+}
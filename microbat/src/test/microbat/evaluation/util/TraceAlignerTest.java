@@ -0,0 +1,265 @@
+package microbat.evaluation.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import microbat.evaluation.model.TraceNodePair;
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+
+/**
+ * Compare {@link TraceAligner} with the former matcher of {@link DiffUtil}, which backtracked the full score
+ * table of the two lists, on random lists with few locations, i.e., with many ties.
+ */
+public class TraceAlignerTest {
+	private static final int PAIRS = 300;
+	/* small enough to split the random lists several times */
+	private static final long TABLE_THRESHOLD = 16;
+
+	private Map<TraceNode, Integer> values = new IdentityHashMap<>();
+	/* a matched pair of steps with the same value is more similar */
+	private TraceNodeSimilarityComparator comparator = new TraceNodeSimilarityComparator() {
+		@Override
+		public double compute(TraceNode traceNode1, TraceNode traceNode2) {
+			return values.get(traceNode1).equals(values.get(traceNode2)) ? 1 : 0.5;
+		}
+	};
+
+	/**
+	 * lists within the table threshold are matched on the full score table, the same as before.
+	 */
+	@Test
+	public void testSameAsScoreTable() {
+		for (int seed = 0; seed < PAIRS; seed++) {
+			Random random = new Random(seed);
+			TraceNode[] list1 = generateList(random, 1 + random.nextInt(60));
+			TraceNode[] list2 = generateList(random, 1 + random.nextInt(60));
+			List<TraceNodePair> expected = formerMatch(list1, list2);
+			List<TraceNodePair> pairs = DiffUtil.generateMatchedTraceNodeList(list1, list2, comparator).getPairList();
+			assertSamePairs("seed " + seed, expected, pairs);
+		}
+	}
+
+	/**
+	 * the lists split by Hirschberg's divide and conquer have the same score as the former matching, while
+	 * the pairs might differ among the alignments of the same score.
+	 */
+	@Test
+	public void testSameScoreWhenSplit() {
+		TraceAligner aligner = new TraceAligner(comparator, ForkJoinPool.commonPool(), TABLE_THRESHOLD);
+		for (int seed = 0; seed < PAIRS; seed++) {
+			Random random = new Random(seed);
+			TraceNode[] list1 = generateList(random, 1 + random.nextInt(60));
+			TraceNode[] list2 = generateList(random, 1 + random.nextInt(60));
+			String msg = "seed " + seed;
+			List<TraceNodePair> expected = formerMatch(list1, list2);
+			List<TraceNodePair> pairs = aligner.align(list1, list2);
+			assertAligned(msg, list1, list2, pairs);
+			assertEquals(msg, getScore(expected), getScore(pairs), 1e-6);
+		}
+	}
+
+	/**
+	 * the invocation children of two matched steps are aligned with each other only, and the children of a
+	 * step which is not matched are not aligned at all.
+	 */
+	@Test
+	public void testAlignByInvocation() {
+		Trace trace1 = new Trace("1");
+		Trace trace2 = new Trace("2");
+		TraceNode call1 = newStep(trace1, null, 1, 0);
+		TraceNode callee1 = newStep(trace1, call1, 10, 0);
+		TraceNode otherCall1 = newStep(trace1, null, 2, 0);
+		newStep(trace1, otherCall1, 20, 0);
+		TraceNode last1 = newStep(trace1, null, 3, 0);
+
+		TraceNode call2 = newStep(trace2, null, 1, 1);
+		TraceNode callee2 = newStep(trace2, call2, 10, 0);
+		/* the same callee is called from another line */
+		TraceNode otherCall2 = newStep(trace2, null, 4, 0);
+		newStep(trace2, otherCall2, 20, 0);
+		TraceNode last2 = newStep(trace2, null, 3, 0);
+
+		List<TraceNodePair> pairs = new TraceAligner(comparator).alignByInvocation(trace1, trace2);
+		assertEquals(3, pairs.size());
+		assertPair(call1, call2, pairs.get(0));
+		assertPair(callee1, callee2, pairs.get(1));
+		assertPair(last1, last2, pairs.get(2));
+		/* the former matcher aligns the whole traces, including the children of the calls which do not match */
+		assertEquals(4, formerMatch(toArray(trace1), toArray(trace2)).size());
+	}
+
+	@Test
+	public void testRandomTracesByInvocation() {
+		for (int seed = 0; seed < PAIRS; seed++) {
+			Random random = new Random(seed);
+			Trace trace1 = generateTrace(random);
+			Trace trace2 = generateTrace(random);
+			String msg = "seed " + seed;
+			TraceAligner aligner = new TraceAligner(comparator, ForkJoinPool.commonPool(), TABLE_THRESHOLD);
+			List<TraceNodePair> pairs = aligner.alignByInvocation(trace1, trace2);
+			assertAligned(msg, toArray(trace1), toArray(trace2), pairs);
+			Set<String> matchedOrders = new HashSet<>();
+			for (TraceNodePair pair : pairs) {
+				matchedOrders.add(pair.getMutatedNode().getOrder() + "-" + pair.getOriginalNode().getOrder());
+			}
+			for (TraceNodePair pair : pairs) {
+				TraceNode parent1 = pair.getMutatedNode().getInvocationParent();
+				TraceNode parent2 = pair.getOriginalNode().getInvocationParent();
+				if (parent1 == null || parent2 == null) {
+					assertTrue(msg, parent1 == null && parent2 == null);
+				} else {
+					assertTrue(msg, matchedOrders.contains(parent1.getOrder() + "-" + parent2.getOrder()));
+				}
+			}
+			assertTrue(msg, getScore(pairs) <= getScore(formerMatch(toArray(trace1), toArray(trace2))) + 1e-6);
+		}
+	}
+
+	private void assertPair(TraceNode node1, TraceNode node2, TraceNodePair pair) {
+		assertSame(node1, pair.getMutatedNode());
+		assertSame(node2, pair.getOriginalNode());
+	}
+
+	private void assertSamePairs(String msg, List<TraceNodePair> expected, List<TraceNodePair> pairs) {
+		assertEquals(msg, expected.size(), pairs.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertSame(msg, expected.get(i).getMutatedNode(), pairs.get(i).getMutatedNode());
+			assertSame(msg, expected.get(i).getOriginalNode(), pairs.get(i).getOriginalNode());
+			assertEquals(msg, expected.get(i).isExactSame(), pairs.get(i).isExactSame());
+		}
+	}
+
+	/**
+	 * the pairs have the same location, and are in the order of both lists.
+	 */
+	private void assertAligned(String msg, TraceNode[] list1, TraceNode[] list2, List<TraceNodePair> pairs) {
+		Map<TraceNode, Integer> index1 = getIndexes(list1);
+		Map<TraceNode, Integer> index2 = getIndexes(list2);
+		int last1 = -1;
+		int last2 = -1;
+		for (TraceNodePair pair : pairs) {
+			assertTrue(msg, pair.getMutatedNode().hasSameLocation(pair.getOriginalNode()));
+			int idx1 = index1.get(pair.getMutatedNode());
+			int idx2 = index2.get(pair.getOriginalNode());
+			assertTrue(msg, idx1 > last1 && idx2 > last2);
+			assertEquals(msg, comparator.compute(pair.getMutatedNode(), pair.getOriginalNode()) > 0.99,
+					pair.isExactSame());
+			last1 = idx1;
+			last2 = idx2;
+		}
+	}
+
+	private Map<TraceNode, Integer> getIndexes(TraceNode[] list) {
+		Map<TraceNode, Integer> indexes = new IdentityHashMap<>();
+		for (int i = 0; i < list.length; i++) {
+			indexes.put(list[i], i);
+		}
+		return indexes;
+	}
+
+	private double getScore(List<TraceNodePair> pairs) {
+		double score = 0;
+		for (TraceNodePair pair : pairs) {
+			score += comparator.compute(pair.getMutatedNode(), pair.getOriginalNode());
+		}
+		return score;
+	}
+
+	private TraceNode[] generateList(Random random, int size) {
+		Trace trace = new Trace("list");
+		for (int i = 0; i < size; i++) {
+			newStep(trace, null, 1 + random.nextInt(4), random.nextInt(2));
+		}
+		return toArray(trace);
+	}
+
+	/**
+	 * @return a trace of steps on a few lines, where each step might call a method of a few steps.
+	 */
+	private Trace generateTrace(Random random) {
+		Trace trace = new Trace("trace");
+		generateInvocation(random, trace, null, 0);
+		return trace;
+	}
+
+	private void generateInvocation(Random random, Trace trace, TraceNode caller, int depth) {
+		int steps = 1 + random.nextInt(8);
+		for (int i = 0; i < steps; i++) {
+			TraceNode step = newStep(trace, caller, 10 * depth + 1 + random.nextInt(3), random.nextInt(2));
+			if (depth < 3 && random.nextInt(3) == 0) {
+				generateInvocation(random, trace, step, depth + 1);
+			}
+		}
+	}
+
+	private TraceNode newStep(Trace trace, TraceNode caller, int line, int value) {
+		int order = trace.size() + 1;
+		TraceNode step = new TraceNode(new BreakPoint("com.A", "com.A#m()V", line), null, order, trace, null);
+		trace.addTraceNode(step);
+		if (caller != null) {
+			step.setInvocationParent(caller);
+			caller.addInvocationChild(step);
+		}
+		values.put(step, value);
+		return step;
+	}
+
+	private TraceNode[] toArray(Trace trace) {
+		return trace.getExecutionList().toArray(new TraceNode[0]);
+	}
+
+	/**
+	 * the former matching of DiffUtil, which backtracks the full score table of the lists.
+	 */
+	private List<TraceNodePair> formerMatch(TraceNode[] list1, TraceNode[] list2) {
+		double[][] scoreTable = new double[list1.length + 1][list2.length + 1];
+		for (int i = 1; i < list1.length + 1; i++) {
+			for (int j = 1; j < list2.length + 1; j++) {
+				if (list1[i - 1].hasSameLocation(list2[j - 1])) {
+					double value = scoreTable[i - 1][j - 1] + comparator.compute(list1[i - 1], list2[j - 1]);
+					scoreTable[i][j] = DiffUtil.getLargestValue(value, scoreTable[i - 1][j], scoreTable[i][j - 1]);
+				} else {
+					scoreTable[i][j] = (scoreTable[i - 1][j] >= scoreTable[i][j - 1]) ? scoreTable[i - 1][j]
+							: scoreTable[i][j - 1];
+				}
+			}
+		}
+
+		List<TraceNodePair> pairs = new ArrayList<>();
+		for (int i = list1.length, j = list2.length; (i > 0 && j > 0);) {
+			if (list1[i - 1].hasSameLocation(list2[j - 1])) {
+				double sim = comparator.compute(list1[i - 1], list2[j - 1]);
+				double increase = scoreTable[i][j] - scoreTable[i - 1][j - 1];
+				if (Math.abs(sim - increase) < 0.01) {
+					TraceNodePair pair = new TraceNodePair(list1[i - 1], list2[j - 1]);
+					pair.setExactSame(sim > 0.99);
+					pairs.add(pair);
+					i--;
+					j--;
+					continue;
+				}
+			}
+			if (scoreTable[i - 1][j] >= scoreTable[i][j - 1]) {
+				i--;
+			} else {
+				j--;
+			}
+		}
+		DiffUtil.reverseOrder(pairs);
+		return pairs;
+	}
+}
@@ -0,0 +1,166 @@
+package microbat.model.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import microbat.model.BreakPoint;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.VarValue;
+import microbat.model.variable.LocalVar;
+import sav.common.core.Pair;
+
+/**
+ * The def-use index of a trace must follow the variables attached to existing steps, like the return
+ * values ProgramExecutor adds to former steps without adding a step.
+ */
+public class DefUseIndexTest {
+
+	@Test
+	public void testVariableAddedToExistingStep() {
+		Trace trace = new Trace("t");
+		TraceNode writer = newNode(trace, 1);
+		TraceNode reader = newNode(trace, 2);
+		reader.addReadVariable(newVar("x"));
+		assertNull(trace.findProducer(newVar("x"), reader));
+
+		writer.addWrittenVariable(newVar("x"));
+		assertEquals(writer, trace.findProducer(newVar("x"), reader));
+		assertEquals(Arrays.asList(reader), trace.findDataDependentee(writer, newVar("x")));
+
+		TraceNode other = newNode(trace, 3);
+		assertTrue(trace.findDataDependentee(writer, newVar("x")).size() == 1);
+		other.addReadVariable(newVar("x"));
+		assertEquals(Arrays.asList(reader, other), trace.findDataDependentee(writer, newVar("x")));
+	}
+
+	@Test
+	public void testReplacedVariables() {
+		Trace trace = new Trace("t");
+		TraceNode writer = newNode(trace, 1);
+		TraceNode reader = newNode(trace, 2);
+		writer.addWrittenVariable(newVar("x"));
+		reader.addReadVariable(newVar("x"));
+		assertEquals(writer, trace.findProducer(newVar("x"), reader));
+
+		writer.setWrittenVariables(Arrays.<VarValue>asList(newVar("y")));
+		trace.resetDefUseIndex();
+		assertNull(trace.findProducer(newVar("x"), reader));
+	}
+
+	/**
+	 * the variables of lazy steps are loaded by the queries only, from the queried step back to the
+	 * producer, or after the queried step for the consumers.
+	 */
+	@Test
+	public void testLazySteps() {
+		Trace trace = new Trace("t");
+		Set<Integer> loadedOrders = new TreeSet<>();
+		Map<Integer, Pair<List<VarValue>, List<VarValue>>> vars = new HashMap<>();
+		vars.put(3, Pair.of(new ArrayList<VarValue>(), asList(newVar("x"))));
+		vars.put(5, Pair.of(new ArrayList<VarValue>(), asList(newVar("y"))));
+		vars.put(8, Pair.of(asList(newVar("x")), new ArrayList<VarValue>()));
+		vars.put(9, Pair.of(asList(newVar("x"), newVar("y")), new ArrayList<VarValue>()));
+		for (int order = 1; order <= 10; order++) {
+			newLazyNode(trace, order, vars, loadedOrders);
+		}
+		trace.getDefUseIndex();
+		assertTrue(loadedOrders.isEmpty());
+
+		assertEquals(trace.getTraceNode(3), trace.findProducer(newVar("x"), trace.getTraceNode(8)));
+		assertEquals(Arrays.asList(3, 4, 5, 6, 7), new ArrayList<>(loadedOrders));
+		assertEquals(Arrays.asList(trace.getTraceNode(8), trace.getTraceNode(9)),
+				trace.findDataDependentee(trace.getTraceNode(3), newVar("x")));
+		assertEquals(Arrays.asList(3, 4, 5, 6, 7, 8, 9, 10), new ArrayList<>(loadedOrders));
+		assertEquals(trace.getTraceNode(5), trace.findProducer(newVar("y"), trace.getTraceNode(9)));
+		assertNull(trace.findProducer(newVar("x"), trace.getTraceNode(3)));
+		assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), new ArrayList<>(loadedOrders));
+	}
+
+	/**
+	 * the queries on lazy steps, which are indexed in any order, have the same results as on loaded steps.
+	 */
+	@Test
+	public void testRandomLazySteps() {
+		String[] names = { "a", "b", "c", "d" };
+		for (int seed = 0; seed < 200; seed++) {
+			Random random = new Random(seed);
+			int size = 1 + random.nextInt(50);
+			Map<Integer, Pair<List<VarValue>, List<VarValue>>> vars = new HashMap<>();
+			Trace loadedTrace = new Trace("loaded");
+			for (int order = 1; order <= size; order++) {
+				TraceNode node = newNode(loadedTrace, order);
+				List<VarValue> readVars = new ArrayList<>();
+				List<VarValue> writtenVars = new ArrayList<>();
+				for (int i = random.nextInt(3); i > 0; i--) {
+					String name = names[random.nextInt(names.length)];
+					(random.nextBoolean() ? readVars : writtenVars).add(newVar(name));
+				}
+				node.setReadVariables(readVars);
+				node.setWrittenVariables(writtenVars);
+				vars.put(order, Pair.of(readVars, writtenVars));
+			}
+			Trace lazyTrace = new Trace("lazy");
+			for (int order = 1; order <= size; order++) {
+				newLazyNode(lazyTrace, order, vars, new TreeSet<Integer>());
+			}
+			for (int i = 0; i < 20; i++) {
+				int order = 1 + random.nextInt(size);
+				VarValue var = newVar(names[random.nextInt(names.length)]);
+				String msg = "seed " + seed + ", order " + order;
+				TraceNode producer = loadedTrace.findProducer(var, loadedTrace.getTraceNode(order));
+				TraceNode lazyProducer = lazyTrace.findProducer(var, lazyTrace.getTraceNode(order));
+				assertEquals(msg, (producer == null) ? -1 : producer.getOrder(),
+						(lazyProducer == null) ? -1 : lazyProducer.getOrder());
+				assertEquals(msg, toOrders(loadedTrace.findDataDependentee(loadedTrace.getTraceNode(order), var)),
+						toOrders(lazyTrace.findDataDependentee(lazyTrace.getTraceNode(order), var)));
+			}
+		}
+	}
+
+	private List<Integer> toOrders(List<TraceNode> nodes) {
+		List<Integer> orders = new ArrayList<>();
+		for (TraceNode node : nodes) {
+			orders.add(node.getOrder());
+		}
+		return orders;
+	}
+
+	private List<VarValue> asList(VarValue... values) {
+		return new ArrayList<>(Arrays.asList(values));
+	}
+
+	private void newLazyNode(Trace trace, final int order,
+			final Map<Integer, Pair<List<VarValue>, List<VarValue>>> vars, final Set<Integer> loadedOrders) {
+		TraceNode node = new LazyTraceNode(new BreakPoint("com.A", "com.A#m()V", order), null, order, trace,
+				step -> {
+					loadedOrders.add(step.getOrder());
+					Pair<List<VarValue>, List<VarValue>> pair = vars.get(step.getOrder());
+					return (pair == null) ? Pair.of(new ArrayList<VarValue>(), new ArrayList<VarValue>()) : pair;
+				});
+		trace.addTraceNode(node);
+	}
+
+	private TraceNode newNode(Trace trace, int order) {
+		TraceNode node = new TraceNode(new BreakPoint("com.A", "com.A#m()V", order), null, order, trace, null);
+		trace.addTraceNode(node);
+		return node;
+	}
+
+	private VarValue newVar(String name) {
+		LocalVar var = new LocalVar(name, "int", "com.A", 1);
+		var.setVarID(name);
+		return new PrimitiveValue("1", true, var);
+	}
+}
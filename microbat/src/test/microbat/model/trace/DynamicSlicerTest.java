@@ -0,0 +1,145 @@
+package microbat.model.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import microbat.model.BreakPoint;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.VarValue;
+import microbat.model.variable.LocalVar;
+
+/**
+ * Compare the slices of {@link DynamicSlicer} with the former recursion of TraceNode#findAllDominators() and
+ * TraceNode#findAllDominatees(), which visited the data dependencies of a step again on each query.
+ */
+public class DynamicSlicerTest {
+	private static final int VARIABLES = 8;
+
+	@Test
+	public void testRandomTraces() {
+		for (long seed = 0; seed < 200; seed++) {
+			Trace trace = generate(seed, 300, 0.3);
+			Random random = new Random(seed);
+			for (int i = 0; i < 20; i++) {
+				TraceNode node = trace.getTraceNode(1 + random.nextInt(trace.size()));
+				String msg = "seed " + seed + ", step " + node.getOrder();
+				assertEquals(msg, findDominatees(node).keySet(), trace.getSlicer().findAllDominatees(node).keySet());
+
+				Map<Integer, TraceNode> dominators = trace.getSlicer().findAllDominators(node);
+				assertEquals(msg, findDominators(node, false).keySet(), dominators.keySet());
+				/* the former traversal might skip the data dominators of the control dominator of the step */
+				assertTrue(msg, dominators.keySet().containsAll(findDominators(node, true).keySet()));
+			}
+		}
+	}
+
+	@Test
+	public void testLongDependencyChain() {
+		int steps = 50000;
+		Trace trace = new Trace("chain");
+		for (int order = 1; order <= steps; order++) {
+			TraceNode node = newNode(trace, order);
+			if (order > 1) {
+				node.addReadVariable(newVar(order % 2));
+			}
+			node.addWrittenVariable(newVar((order + 1) % 2));
+		}
+		assertEquals(steps - 1, trace.getSlicer().sliceBackward(trace.getTraceNode(steps)).cardinality());
+	}
+
+	/**
+	 * a random trace, where each step reads and writes a few of the variables, and is control dependent on
+	 * one of the former steps with the given rate.
+	 */
+	private Trace generate(long seed, int steps, double controlRate) {
+		Random random = new Random(seed);
+		Trace trace = new Trace("t" + seed);
+		for (int order = 1; order <= steps; order++) {
+			TraceNode node = newNode(trace, order);
+			for (int i = random.nextInt(3); i > 0; i--) {
+				node.addReadVariable(newVar(random.nextInt(VARIABLES)));
+			}
+			for (int i = random.nextInt(3); i > 0; i--) {
+				node.addWrittenVariable(newVar(random.nextInt(VARIABLES)));
+			}
+			if (order > 1 && random.nextDouble() < controlRate) {
+				TraceNode controlDominator = trace.getTraceNode(1 + random.nextInt(order - 1));
+				node.setControlDominator(controlDominator);
+				controlDominator.addControlDominatee(node);
+			}
+		}
+		return trace;
+	}
+
+	private TraceNode newNode(Trace trace, int order) {
+		TraceNode node = new TraceNode(new BreakPoint("com.A", "com.A#m()V", order), null, order, trace, null);
+		trace.addTraceNode(node);
+		return node;
+	}
+
+	private VarValue newVar(int idx) {
+		LocalVar var = new LocalVar("v" + idx, "int", "com.A", 1);
+		var.setVarID("v" + idx);
+		return new PrimitiveValue(String.valueOf(idx), true, var);
+	}
+
+	/**
+	 * the former backward traversal, with the control dominator of the start step added at each level if
+	 * {@code isFormerOrder}, otherwise once the data dominators are collected.
+	 */
+	private Map<Integer, TraceNode> findDominators(TraceNode start, boolean isFormerOrder) {
+		Map<Integer, TraceNode> dominators = new HashMap<>();
+		findDominators(start, start, dominators, isFormerOrder);
+		TraceNode controlDominator = start.getControlDominator();
+		if (controlDominator != null) {
+			dominators.put(controlDominator.getOrder(), controlDominator);
+		}
+		return dominators;
+	}
+
+	private void findDominators(TraceNode start, TraceNode node, Map<Integer, TraceNode> dominators,
+			boolean isFormerOrder) {
+		for (TraceNode dominator : node.getDataDominators().keySet()) {
+			if (!dominators.containsKey(dominator.getOrder())) {
+				dominators.put(dominator.getOrder(), dominator);
+				findDominators(start, dominator, dominators, isFormerOrder);
+			}
+		}
+
+		TraceNode controlDominator = start.getControlDominator();
+		if (isFormerOrder && controlDominator != null) {
+			dominators.put(controlDominator.getOrder(), controlDominator);
+		}
+	}
+
+	/**
+	 * the former forward traversal.
+	 */
+	private Map<Integer, TraceNode> findDominatees(TraceNode start) {
+		Map<Integer, TraceNode> dominatees = new HashMap<>();
+		findDominatees(start, dominatees);
+		return dominatees;
+	}
+
+	private void findDominatees(TraceNode node, Map<Integer, TraceNode> dominatees) {
+		for (TraceNode dominatee : node.getDataDominatee().keySet()) {
+			if (!dominatees.containsKey(dominatee.getOrder())) {
+				dominatees.put(dominatee.getOrder(), dominatee);
+				findDominatees(dominatee, dominatees);
+			}
+		}
+
+		for (TraceNode controlDominatee : node.getControlDominatees()) {
+			if (!dominatees.containsKey(controlDominatee.getOrder())) {
+				dominatees.put(controlDominatee.getOrder(), controlDominatee);
+				findDominatees(controlDominatee, dominatees);
+			}
+		}
+	}
+}
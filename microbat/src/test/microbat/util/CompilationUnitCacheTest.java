@@ -0,0 +1,130 @@
+package microbat.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.junit.Test;
+
+/**
+ * The evicted units are kept by strong references in the tests, so that their soft references are never
+ * cleared by the gc.
+ */
+public class CompilationUnitCacheTest {
+	/* the weight of a unit without source */
+	private static final long ENTRY_WEIGHT = 1024;
+	private AST ast = AST.newAST(AST.JLS8);
+
+	@Test
+	public void testSizeEviction() {
+		CompilationUnitCache cache = new CompilationUnitCache(2, Long.MAX_VALUE);
+		CompilationUnit a = newUnit(0);
+		CompilationUnit b = newUnit(0);
+		CompilationUnit c = newUnit(0);
+		cache.cache("a", a);
+		cache.cache("b", b);
+		/* a is used, b becomes the least recently used unit */
+		assertSame(a, cache.get("a"));
+		cache.cache("c", c);
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+
+		assertSame(a, cache.get("a"));
+		assertSame(c, cache.get("c"));
+		assertEquals(3, cache.getHitCount());
+		assertEquals(0, cache.getSoftHitCount());
+		/* b is taken back from its soft reference, which evicts a */
+		assertSame(b, cache.get("b"));
+		assertEquals(1, cache.getSoftHitCount());
+		assertEquals(2, cache.size());
+		assertEquals(2, cache.getEvictionCount());
+		assertSame(b, cache.get("b"));
+		assertEquals(4, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	@Test
+	public void testWeightEviction() {
+		CompilationUnitCache cache = new CompilationUnitCache(100, 3 * ENTRY_WEIGHT + 1000);
+		CompilationUnit a = newUnit(500);
+		CompilationUnit b = newUnit(400);
+		CompilationUnit c = newUnit(200);
+		cache.cache("a", a);
+		cache.cache("b", b);
+		assertEquals(0, cache.getEvictionCount());
+		/* 1100 characters of source, a is evicted */
+		cache.cache("c", c);
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertSame(b, cache.get("b"));
+		assertSame(c, cache.get("c"));
+		assertEquals(2, cache.getHitCount());
+
+		/* the latest unit is kept even if it exceeds the limit on its own */
+		CompilationUnit heavy = newUnit(5000);
+		cache.cache("heavy", heavy);
+		assertEquals(1, cache.size());
+		assertEquals(3, cache.getEvictionCount());
+		assertSame(heavy, cache.get("heavy"));
+
+		/* a removed unit is not taken back from its soft reference */
+		cache.remove("heavy");
+		assertNull(cache.get("heavy"));
+		assertEquals(1, cache.getMissCount());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testPinnedUnitsNotEvicted() {
+		CompilationUnitCache cache = new CompilationUnitCache(1, ENTRY_WEIGHT);
+		CompilationUnit pinned = newUnit(10000);
+		cache.put("pinned", pinned);
+		assertTrue(cache.isPinned("pinned"));
+		for (int i = 0; i < 10; i++) {
+			cache.cache("unit" + i, newUnit(100));
+		}
+		assertEquals(9, cache.getEvictionCount());
+		assertEquals(2, cache.size());
+		assertSame(pinned, cache.get("pinned"));
+		assertEquals(1, cache.getHitCount());
+
+		/* a pinned unit which is cached again from its source is not pinned anymore */
+		cache.cache("pinned", pinned);
+		assertFalse(cache.isPinned("pinned"));
+		assertEquals(10, cache.getEvictionCount());
+		assertEquals(1, cache.size());
+
+		cache.put("pinned", pinned);
+		cache.clear();
+		assertFalse(cache.isPinned("pinned"));
+		assertNull(cache.get("pinned"));
+		assertNull(cache.get("unit0"));
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void testMiss() {
+		CompilationUnitCache cache = new CompilationUnitCache();
+		assertNull(cache.get("a"));
+		/* null units are not cached */
+		cache.cache("a", null);
+		assertNull(cache.get("a"));
+		assertEquals(2, cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.getSoftHitCount());
+		assertEquals(0, cache.size());
+	}
+
+	/**
+	 * @return a unit whose weight is that of a source of the given length.
+	 */
+	private CompilationUnit newUnit(int sourceLength) {
+		CompilationUnit unit = ast.newCompilationUnit();
+		unit.setSourceRange(0, sourceLength);
+		return unit;
+	}
+}
@@ -0,0 +1,177 @@
+package microbat.views;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+
+/**
+ * Compare {@link TraceAbstractionTree} with {@link Trace#getTopAbstractionLevelNodes()} and
+ * {@link TraceNode#getAbstractChildren()}, which the trace views used to walk on each expansion, on random
+ * traces of nested invocations and loops.
+ */
+public class TraceAbstractionTreeTest {
+	private static final int TRACES = 300;
+
+	@Test
+	public void testNestedInvocationAndLoop() {
+		/*
+		 * 1 call
+		 *   2 loop head (in the callee)
+		 *     3 step, 4 call
+		 *       5 step (in the second callee)
+		 *     6 step
+		 *   7 step
+		 * 8 step
+		 */
+		TraceGenerator generator = new TraceGenerator(0, 0);
+		TraceNode call = generator.newStep(null, null);
+		TraceNode loopHead = generator.newStep(call, null);
+		generator.newStep(call, loopHead);
+		TraceNode innerCall = generator.newStep(call, loopHead);
+		generator.newStep(innerCall, null);
+		generator.newStep(call, loopHead);
+		generator.newStep(call, null);
+		generator.newStep(null, null);
+		Trace trace = generator.trace;
+		TraceAbstractionTree tree = new TraceAbstractionTree(trace);
+		assertSameTree(trace, tree);
+
+		assertEquals(2, tree.getChildCount(trace));
+		assertSame(loopHead, tree.getChild(call, 0));
+		assertEquals(2, tree.getChildCount(call));
+		assertEquals(3, tree.getChildCount(loopHead));
+		assertSame(loopHead, tree.getParent(trace.getTraceNode(3)));
+		assertSame(innerCall, tree.getParent(trace.getTraceNode(5)));
+		assertSame(call, tree.getParent(trace.getTraceNode(7)));
+		assertSame(trace, tree.getParent(trace.getTraceNode(8)));
+	}
+
+	@Test
+	public void testRandomTraces() {
+		for (int seed = 0; seed < TRACES; seed++) {
+			TraceGenerator generator = new TraceGenerator(seed, 0);
+			generator.generate();
+			assertSameTree(generator.trace, new TraceAbstractionTree(generator.trace));
+		}
+	}
+
+	/**
+	 * the steps after the tree is built are appended one by one, like the steps streamed while the program is
+	 * running.
+	 */
+	@Test
+	public void testAppend() {
+		for (int seed = 0; seed < TRACES; seed++) {
+			TraceGenerator generator = new TraceGenerator(seed, 1 + seed % 20);
+			generator.generate();
+			assertSameTree(generator.trace, generator.tree);
+		}
+	}
+
+	private void assertSameTree(Trace trace, TraceAbstractionTree tree) {
+		String msg = trace.getId();
+		assertEquals(msg, toOrders(trace.getTopAbstractionLevelNodes()), getChildOrders(tree, trace));
+		for (TraceNode node : trace.getExecutionList()) {
+			assertEquals(msg + ", order " + node.getOrder(), toOrders(node.getAbstractChildren()),
+					getChildOrders(tree, node));
+			TraceNode abstractionParent = node.getAbstractionParent();
+			Object parent = tree.getParent(node);
+			if (abstractionParent == null) {
+				assertSame(msg, trace, parent);
+			} else {
+				assertSame(msg + ", order " + node.getOrder(), abstractionParent, parent);
+				assertTrue(msg, abstractionParent.getAbstractChildren().contains(node));
+			}
+		}
+	}
+
+	private List<Integer> getChildOrders(TraceAbstractionTree tree, Object element) {
+		List<TraceNode> children = new ArrayList<>();
+		for (int i = 0; i < tree.getChildCount(element); i++) {
+			children.add(tree.getChild(element, i));
+		}
+		return toOrders(children);
+	}
+
+	private List<Integer> toOrders(List<TraceNode> nodes) {
+		List<Integer> orders = new ArrayList<>();
+		for (TraceNode node : nodes) {
+			orders.add(node.getOrder());
+		}
+		return orders;
+	}
+
+	/**
+	 * Generates the steps of a random program in execution order, a step is linked to its invocation and
+	 * loop parents once it is executed. The steps of a callee are the invocation children of the call,
+	 * including the steps in its loops, and the steps of a loop body are the loop children of the loop head
+	 * of the same method.
+	 */
+	private static class TraceGenerator {
+		private static final int MAX_STEPS = 200;
+		private static final int MAX_DEPTH = 5;
+		private Random random;
+		private Trace trace;
+		/* the number of steps before the tree is built, the next steps are appended */
+		private int buildSize;
+		private TraceAbstractionTree tree;
+
+		public TraceGenerator(long seed, int buildSize) {
+			this.random = new Random(seed);
+			this.trace = new Trace("seed " + seed);
+			this.buildSize = buildSize;
+		}
+
+		public void generate() {
+			while (trace.size() < 20) {
+				generateBody(null, null, 0);
+			}
+		}
+
+		private void generateBody(TraceNode invocationParent, TraceNode loopParent, int depth) {
+			int statements = 1 + random.nextInt(4);
+			for (int i = 0; i < statements && trace.size() < MAX_STEPS; i++) {
+				int kind = (depth < MAX_DEPTH) ? random.nextInt(4) : 0;
+				TraceNode step = newStep(invocationParent, loopParent);
+				if (kind == 2) {
+					generateBody(step, null, depth + 1);
+				} else if (kind == 3) {
+					int iterations = 1 + random.nextInt(3);
+					for (int j = 0; j < iterations; j++) {
+						generateBody(invocationParent, step, depth + 1);
+					}
+				}
+			}
+		}
+
+		public TraceNode newStep(TraceNode invocationParent, TraceNode loopParent) {
+			int order = trace.size() + 1;
+			TraceNode step = new TraceNode(new BreakPoint("com.A", "com.A#m()V", order), null, order, trace, null);
+			trace.addTraceNode(step);
+			if (invocationParent != null) {
+				step.setInvocationParent(invocationParent);
+				invocationParent.addInvocationChild(step);
+			}
+			if (loopParent != null) {
+				step.setLoopParent(loopParent);
+				loopParent.addLoopChild(step);
+			}
+			if (tree != null) {
+				tree.append(step);
+			} else if (order == buildSize) {
+				tree = new TraceAbstractionTree(trace);
+			}
+			return step;
+		}
+	}
+}
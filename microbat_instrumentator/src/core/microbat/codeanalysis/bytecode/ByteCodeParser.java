@@ -1,6 +1,9 @@
 package microbat.codeanalysis.bytecode;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,26 +17,10 @@ import sav.strategies.dto.AppJavaClassPath;
 public class ByteCodeParser{
 	public static void parse(String className, ByteCodeMethodFinder visitor, AppJavaClassPath appClassPath){
 		String originalSystemClassPath = System.getProperty("java.class.path");
-		String[] paths = originalSystemClassPath.split(File.pathSeparator);
 		
 		try{
-			List<String> pathList = new ArrayList<>();
-			for(String path: paths){
-				pathList.add(path);
-			}
-			
-			StringBuffer buffer = new StringBuffer(originalSystemClassPath);
-			for(String classPath: appClassPath.getClasspaths()){
-				if(!pathList.contains(classPath)){
-					buffer.append(File.pathSeparator + classPath);				
-				}
-			}
-			buffer.append(File.pathSeparator);
-			String jdkPath = appClassPath.getJavaHome() + File.separator + "jre" + 
-					File.separator + "lib" + File.separator + "rt.jar";
-			buffer.append(jdkPath);
-			System.setProperty("java.class.path", buffer.toString());
-			String s = System.getProperty("java.class.path");
+			String s = getClassPath(originalSystemClassPath, appClassPath);
+			System.setProperty("java.class.path", s);
 			
 			ClassPath0 classPath = new ClassPath0(s);
 			Repository.setRepository(SyntheticRepository.getInstance(classPath));
@@ -50,4 +37,49 @@ public class ByteCodeParser{
 		}
 		
 	}
+	
+	/**
+	 * @return the class path which {@link #parse(String, ByteCodeMethodFinder, AppJavaClassPath)} looks up 
+	 * classes from.
+	 */
+	public static ClassPath0 createClassPath(AppJavaClassPath appClassPath) {
+		return new ClassPath0(getClassPath(System.getProperty("java.class.path"), appClassPath));
+	}
+	
+	/**
+	 * @return the content of the class file of the given class, or null if it cannot be found.
+	 */
+	public static byte[] getClassBytes(ClassPath0 classPath, String className) {
+		try (InputStream in = classPath.getInputStream(className.replace('.', '/'), ".class")) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int len;
+			while ((len = in.read(buffer)) != -1) {
+				out.write(buffer, 0, len);
+			}
+			return out.toByteArray();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+	
+	private static String getClassPath(String systemClassPath, AppJavaClassPath appClassPath) {
+		String[] paths = systemClassPath.split(File.pathSeparator);
+		List<String> pathList = new ArrayList<>();
+		for(String path: paths){
+			pathList.add(path);
+		}
+		
+		StringBuffer buffer = new StringBuffer(systemClassPath);
+		for(String classPath: appClassPath.getClasspaths()){
+			if(!pathList.contains(classPath)){
+				buffer.append(File.pathSeparator + classPath);				
+			}
+		}
+		buffer.append(File.pathSeparator);
+		String jdkPath = appClassPath.getJavaHome() + File.separator + "jre" + 
+				File.separator + "lib" + File.separator + "rt.jar";
+		buffer.append(jdkPath);
+		return buffer.toString();
+	}
 }
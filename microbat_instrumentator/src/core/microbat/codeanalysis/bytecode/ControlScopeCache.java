@@ -0,0 +1,243 @@
+package microbat.codeanalysis.bytecode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A cache of the control scopes of the lines of a class, as computed from the control dominance of the
+ * CFGs of its methods. The scopes of a class are keyed by the hash of its class file, so that they are
+ * reused as long as the class is not changed.
+ * <br>
+ * The recently used classes are kept in memory (LRU), and, if a store folder is set, all of them are
+ * stored in the folder, one file for each class version, so that they are shared across runs.
+ *
+ * @author Yun Lin
+ *
+ */
+public class ControlScopeCache {
+	private static final int FILE_VERSION = 1;
+	private static final int DEFAULT_CAPACITY = 2000;
+	private static ControlScopeCache instance = new ControlScopeCache(DEFAULT_CAPACITY);
+
+	private Map<String, ClassScopes> classes;
+	private File storeFolder;
+
+	public ControlScopeCache(final int capacity) {
+		this.classes = new LinkedHashMap<String, ClassScopes>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<String, ClassScopes> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	public static ControlScopeCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @param folder the folder to store the scopes, or null if they are kept in memory only.
+	 */
+	public synchronized void setStoreFolder(String folder) {
+		if (folder == null) {
+			storeFolder = null;
+		} else {
+			storeFolder = new File(folder);
+			storeFolder.mkdirs();
+		}
+	}
+
+	/**
+	 * drops the scopes kept in memory, the stored ones are kept.
+	 */
+	public synchronized void clear() {
+		classes.clear();
+	}
+
+	/**
+	 * @return the cached scopes of the given version of the class, which are empty if the class has not
+	 * been cached before, or null if the content of the class is unknown.
+	 */
+	public synchronized ClassScopes get(String className, byte[] classBytes) {
+		if (classBytes == null) {
+			return null;
+		}
+		String key = hash(classBytes);
+		ClassScopes scopes = classes.get(key);
+		if (scopes == null) {
+			scopes = load(className, key);
+			if (scopes == null) {
+				scopes = new ClassScopes(className, key);
+			}
+			classes.put(key, scopes);
+		}
+		return scopes;
+	}
+
+	/**
+	 * store the new scopes added to the given class.
+	 */
+	public synchronized void update(ClassScopes scopes) {
+		classes.put(scopes.key, scopes);
+		if (scopes.isDirty && storeFolder != null) {
+			save(scopes);
+		}
+		scopes.isDirty = false;
+	}
+
+	private ClassScopes load(String className, String key) {
+		if (storeFolder == null) {
+			return null;
+		}
+		File file = new File(storeFolder, key);
+		if (!file.exists()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != FILE_VERSION || !className.equals(in.readUTF())) {
+				return null;
+			}
+			ClassScopes scopes = new ClassScopes(className, key);
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				String methodSign = in.readUTF();
+				int line = in.readInt();
+				boolean isConditional = in.readBoolean();
+				boolean isBranch = in.readBoolean();
+				int[] controlledLines = new int[in.readInt()];
+				for (int j = 0; j < controlledLines.length; j++) {
+					controlledLines[j] = in.readInt();
+				}
+				scopes.scopes.put(getLineKey(methodSign, line),
+						new LineScope(methodSign, line, isConditional, isBranch, controlledLines));
+			}
+			return scopes;
+		} catch (IOException e) {
+			/* a broken or partly written file, the scopes are computed again */
+			return null;
+		}
+	}
+
+	private void save(ClassScopes scopes) {
+		File file = new File(storeFolder, scopes.key);
+		/* write to a temporary file first, as the same class might be stored by concurrent runs */
+		File tmp = new File(storeFolder, scopes.key + "." + Thread.currentThread().getId() + "."
+				+ System.nanoTime() + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+				out.writeInt(FILE_VERSION);
+				out.writeUTF(scopes.className);
+				out.writeInt(scopes.scopes.size());
+				for (LineScope scope : scopes.scopes.values()) {
+					out.writeUTF(scope.methodSign);
+					out.writeInt(scope.line);
+					out.writeBoolean(scope.isConditional);
+					out.writeBoolean(scope.isBranch);
+					out.writeInt(scope.controlledLines.length);
+					for (int line : scope.controlledLines) {
+						out.writeInt(line);
+					}
+				}
+			}
+			file.delete();
+			if (!tmp.renameTo(file)) {
+				tmp.delete();
+			}
+		} catch (IOException e) {
+			/* the cache is only an optimization */
+			tmp.delete();
+		}
+	}
+
+	private static String getLineKey(String methodSign, int line) {
+		return methodSign + ":" + line;
+	}
+
+	private static String hash(byte[] bytes) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+			StringBuilder sb = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * The control scopes of the lines of a version of a class.
+	 */
+	public static class ClassScopes {
+		private String className;
+		private String key;
+		private Map<String, LineScope> scopes = new HashMap<>();
+		private boolean isDirty;
+
+		ClassScopes(String className, String key) {
+			this.className = className;
+			this.key = key;
+		}
+
+		public LineScope get(String methodSign, int line) {
+			return scopes.get(getLineKey(methodSign, line));
+		}
+
+		public void put(LineScope scope) {
+			scopes.put(getLineKey(scope.methodSign, scope.line), scope);
+			isDirty = true;
+		}
+
+		public String getClassName() {
+			return className;
+		}
+	}
+
+	/**
+	 * The control scope of a line, i.e., the lines control dependent on the line, and whether the line is
+	 * a condition or a branch in the CFG.
+	 */
+	public static class LineScope {
+		private String methodSign;
+		private int line;
+		private boolean isConditional;
+		private boolean isBranch;
+		private int[] controlledLines;
+
+		public LineScope(String methodSign, int line, boolean isConditional, boolean isBranch,
+				int[] controlledLines) {
+			this.methodSign = methodSign;
+			this.line = line;
+			this.isConditional = isConditional;
+			this.isBranch = isBranch;
+			this.controlledLines = controlledLines;
+		}
+
+		public boolean isConditional() {
+			return isConditional;
+		}
+
+		public boolean isBranch() {
+			return isBranch;
+		}
+
+		public int[] getControlledLines() {
+			return controlledLines;
+		}
+	}
+}
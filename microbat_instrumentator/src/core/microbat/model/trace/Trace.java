@@ -1,7 +1,10 @@
 package microbat.model.trace;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -14,6 +17,10 @@ import microbat.codeanalysis.bytecode.ByteCodeParser;
 import microbat.codeanalysis.bytecode.CFG;
 import microbat.codeanalysis.bytecode.CFGConstructor;
 import microbat.codeanalysis.bytecode.CFGNode;
+import microbat.codeanalysis.bytecode.ClassPath0;
+import microbat.codeanalysis.bytecode.ControlScopeCache;
+import microbat.codeanalysis.bytecode.ControlScopeCache.ClassScopes;
+import microbat.codeanalysis.bytecode.ControlScopeCache.LineScope;
 import microbat.codeanalysis.bytecode.MethodFinderByLine;
 import microbat.model.BreakPoint;
 import microbat.model.ClassLocation;
@@ -87,6 +94,59 @@ public class Trace {
 		this.executionList.add(node);
 	}
 	
+	/**
+	 * the segment file to spill the variables of completed steps during recording, null if
+	 * the whole trace is kept in the heap.
+	 */
+	private TraceSegmentStore segmentStore;
+	/**
+	 * the number of latest steps which are always kept in the heap.
+	 */
+	private int spillingWindow;
+	/**
+	 * the steps whose order is not larger than this value have been spilled.
+	 */
+	private int spilledOrder = 0;
+	
+	public void enableSpilling(TraceSegmentStore segmentStore, int spillingWindow) {
+		this.segmentStore = segmentStore;
+		this.spillingWindow = spillingWindow;
+	}
+	
+	/**
+	 * Once there are more than 2 * {@code spillingWindow} steps in the heap, the variables of the 
+	 * oldest steps are flushed into the segment file in a chunk, leaving the latest {@code spillingWindow} 
+	 * steps in the heap.
+	 */
+	public void spillCompletedSteps() {
+		if (segmentStore == null || size() - spilledOrder < 2 * spillingWindow) {
+			return;
+		}
+		
+		int endOrder = size() - spillingWindow;
+		List<TraceNode> nodes = new ArrayList<>(endOrder - spilledOrder);
+		for (int order = spilledOrder + 1; order <= endOrder; order++) {
+			nodes.add(getTraceNode(order));
+		}
+		segmentStore.spill(nodes);
+		spilledOrder = endOrder;
+	}
+	
+	public boolean isSpilling() {
+		return segmentStore != null;
+	}
+	
+	public TraceSegmentStore getSegmentStore() {
+		return segmentStore;
+	}
+	
+	public void disposeSegmentStore() {
+		if (segmentStore != null) {
+			segmentStore.dispose();
+			segmentStore = null;
+		}
+	}
+	
 	public int size(){
 		return this.executionList.size();
 	}
@@ -112,24 +172,42 @@ public class Trace {
 		}
 	}
 	
-	private ControlScope parseControlScope(BreakPoint breakPoint, CFG cfg) {
+	private LineScope parseControlScope(BreakPoint breakPoint, CFG cfg) {
+		boolean isConditional = false;
+		boolean isBranch = false;
 		List<ClassLocation> ranges = new ArrayList<>(1);
 		List<InstructionHandle> correspondingList = findCorrepondingIns(breakPoint, cfg, cfg.getMethod());
 		
 		for(InstructionHandle ins: correspondingList){
 			CFGNode cfgNode = cfg.findNode(ins);
-			if(!breakPoint.isConditional()){
-				breakPoint.setConditional(cfgNode.isConditional());				
-			}
-			
-			if(!breakPoint.isBranch()){
-				breakPoint.setBranch(cfgNode.isBranch());				
-			}
+			isConditional |= cfgNode.isConditional();
+			isBranch |= cfgNode.isBranch();
 			
 			List<ClassLocation> controlScope0 = findControlledLines(cfgNode.getControlDependentees(), cfg.getMethod(), breakPoint);
 			ranges.addAll(controlScope0);
 		}
 		
+		int[] controlledLines = new int[ranges.size()];
+		for (int i = 0; i < controlledLines.length; i++) {
+			controlledLines[i] = ranges.get(i).getLineNumber();
+		}
+		return new LineScope(breakPoint.getMethodSign(), breakPoint.getLineNumber(), isConditional, isBranch,
+				controlledLines);
+	}
+	
+	private ControlScope createControlScope(BreakPoint breakPoint, LineScope lineScope) {
+		if(!breakPoint.isConditional()){
+			breakPoint.setConditional(lineScope.isConditional());
+		}
+		if(!breakPoint.isBranch()){
+			breakPoint.setBranch(lineScope.isBranch());
+		}
+		
+		int[] controlledLines = lineScope.getControlledLines();
+		List<ClassLocation> ranges = new ArrayList<>(controlledLines.length + 1);
+		for (int line : controlledLines) {
+			ranges.add(new ClassLocation(breakPoint.getClassCanonicalName(), breakPoint.getMethodSign(), line));
+		}
 		ClassLocation own = new ClassLocation(breakPoint.getClassCanonicalName(), breakPoint.getMethodSign(), breakPoint.getLineNumber());
 		if(!ranges.contains(own)){
 			ranges.add(own);
@@ -168,18 +246,33 @@ public class Trace {
 	}
 
 	public void constructControlDomianceRelation() {
-		TraceNode controlDominator = null;
 		fillInControlScope();
-		for(TraceNode node: this.executionList){
+		constructControlDomianceRelation(this.executionList);
+	}
+
+	/**
+	 * Given the control scopes of the steps, a step is dominated by the latest branch step (or the latest
+	 * effective control dominator) whose scope contains the step or one of its invocation parents. If the
+	 * latest one does not, its dominator chain is checked.
+	 * <br>
+	 * The invocation parents of the current step are kept in a stack of {@link InvocationFrame}s, each
+	 * frame remembering whether its parent (or an outer parent) is in a scope which has been checked. Thus,
+	 * the invocation parents of a step are not collected and checked again for every step of the same frame.
+	 */
+	void constructControlDomianceRelation(List<TraceNode> executionList) {
+		TraceNode controlDominator = null;
+		InvocationFrameStack frames = new InvocationFrameStack();
+		for(TraceNode node: executionList){
 			if(controlDominator != null){
+				InvocationFrame frame = frames.getFrame(node.getInvocationParent());
 				
-				if(isContainedInScope(node, controlDominator.getControlScope())){
+				if(isContainedInScope(node, frame, controlDominator.getControlScope())){
 					controlDominator.addControlDominatee(node);
 					node.setControlDominator(controlDominator);
 				}
 				/** which means the {@code controlDominator} is no longer effective now */
 				else{
-					controlDominator = findContainingControlDominator(node, controlDominator);
+					controlDominator = findContainingControlDominator(node, frame, controlDominator);
 					
 					if(controlDominator != null){
 						controlDominator.addControlDominatee(node);
@@ -194,6 +287,10 @@ public class Trace {
 		}
 	}
 
+	/**
+	 * The control scopes of the lines are looked up in {@link ControlScopeCache} first, only the methods
+	 * having a line not in the cache are parsed.
+	 */
 	private void fillInControlScope() {
 		Map<BreakPoint, List<TraceNode>> breakpointMap = new HashMap<>();
 		for (TraceNode node : executionList) {
@@ -205,18 +302,33 @@ public class Trace {
 			CollectionUtils.getListInitIfEmpty(methodSignMap, bkp.getMethodSign()).add(bkp);
 			CollectionUtils.getSetInitIfEmpty(classMethodMap, bkp.getClassCanonicalName()).add(bkp.getMethodSign());
 		}
+		if (classMethodMap.isEmpty()) {
+			return;
+		}
+		ControlScopeCache cache = ControlScopeCache.getInstance();
+		ClassPath0 classPath = ByteCodeParser.createClassPath(appJavaClassPath);
 		for (String classCanonicalName : classMethodMap.keySet()) {
+			ClassScopes classScopes = cache.get(classCanonicalName,
+					ByteCodeParser.getClassBytes(classPath, classCanonicalName));
+			boolean isParsed = false;
 			for (String methodSig : classMethodMap.get(classCanonicalName)) {
 				List<BreakPoint> bkpList = methodSignMap.get(methodSig);
-				BreakPoint breakPoint = bkpList.get(0);
-				MethodFinderByLine finder = new MethodFinderByLine(breakPoint);
-				ByteCodeParser.parse(breakPoint.getClassCanonicalName(), finder, appJavaClassPath);
-				Method method = finder.getMethod();
-				CFGConstructor cfgConstructor = new CFGConstructor();
-				CFG cfg = cfgConstructor.buildCFGWithControlDomiance(method.getCode());
-				cfg.setMethod(method);
+				Map<BreakPoint, LineScope> lineScopes = new HashMap<>();
+				for (BreakPoint bkp : bkpList) {
+					LineScope lineScope = classScopes == null ? null : classScopes.get(methodSig, bkp.getLineNumber());
+					if (lineScope == null) {
+						lineScopes = parseControlScopes(bkpList);
+						isParsed = true;
+						break;
+					}
+					lineScopes.put(bkp, lineScope);
+				}
 				for (BreakPoint bkp : bkpList) {
-					ControlScope scope = parseControlScope(bkp, cfg);		
+					LineScope lineScope = lineScopes.get(bkp);
+					if (isParsed && classScopes != null) {
+						classScopes.put(lineScope);
+					}
+					ControlScope scope = createControlScope(bkp, lineScope);		
 					for (TraceNode node : breakpointMap.get(bkp)) {
 						node.getBreakPoint().setConditional(scope.isCondition());
 						node.getBreakPoint().setBranch(scope.isBranch());
@@ -224,14 +336,35 @@ public class Trace {
 					}
 				}
 			}
-			Repository.clearCache();
+			if (isParsed) {
+				Repository.clearCache();
+				if (classScopes != null) {
+					cache.update(classScopes);
+				}
+			}
 		}
 	}
+	
+	private Map<BreakPoint, LineScope> parseControlScopes(List<BreakPoint> bkpList) {
+		BreakPoint breakPoint = bkpList.get(0);
+		MethodFinderByLine finder = new MethodFinderByLine(breakPoint);
+		ByteCodeParser.parse(breakPoint.getClassCanonicalName(), finder, appJavaClassPath);
+		Method method = finder.getMethod();
+		CFGConstructor cfgConstructor = new CFGConstructor();
+		CFG cfg = cfgConstructor.buildCFGWithControlDomiance(method.getCode());
+		cfg.setMethod(method);
+		Map<BreakPoint, LineScope> lineScopes = new HashMap<>();
+		for (BreakPoint bkp : bkpList) {
+			lineScopes.put(bkp, parseControlScope(bkp, cfg));
+		}
+		return lineScopes;
+	}
 
-	private TraceNode findContainingControlDominator(TraceNode node, TraceNode controlDominator) {
+	private TraceNode findContainingControlDominator(TraceNode node, InvocationFrame frame,
+			TraceNode controlDominator) {
 		TraceNode superControlDominator = controlDominator.getControlDominator();
 		while(superControlDominator != null){
-			if(isContainedInScope(node, superControlDominator.getControlScope())){
+			if(isContainedInScope(node, frame, superControlDominator.getControlScope())){
 				return superControlDominator;
 			}
 			superControlDominator = superControlDominator.getControlDominator();
@@ -243,26 +376,105 @@ public class Trace {
 	/**
 	 * I will consider the invocation parents of {@code node} as well
 	 * @param node
+	 * @param frame the invocation frame of {@code node}
 	 * @param conditionScope
 	 * @return
 	 */
-	private boolean isContainedInScope(TraceNode node, Scope conditionScope) {
+	private boolean isContainedInScope(TraceNode node, InvocationFrame frame, Scope conditionScope) {
 		if(conditionScope==null){
 			return false;
 		}
 		
-		List<TraceNode> testingSet = new ArrayList<>();
-		testingSet.add(node);
-		List<TraceNode> invocationParents = node.findAllInvocationParents();
-		testingSet.addAll(invocationParents);
+		if(conditionScope.containsNodeScope(node)){
+			return true;
+		}
+		
+		return frame != null && frame.isContainedInScope(conditionScope);
+	}
+	
+	/**
+	 * The steps invoked by the same invocation parent. 
+	 */
+	private static class InvocationFrame {
+		private TraceNode invocationParent;
+		private InvocationFrame outer;
+		/* whether the invocation parent or one of its own invocation parents is in the scope */
+		private Map<Scope, Boolean> containedScopes = new IdentityHashMap<>();
+		
+		InvocationFrame(TraceNode invocationParent, InvocationFrame outer) {
+			this.invocationParent = invocationParent;
+			this.outer = outer;
+		}
 		
-		for(TraceNode n: testingSet){
-			if(conditionScope.containsNodeScope(n)){
-				return true;
+		boolean isContainedInScope(Scope scope) {
+			/** 
+			 * look for the innermost frame whose result is known, the frames are not checked 
+			 * recursively as the invocation can be very deep. 
+			 */
+			List<InvocationFrame> unknownFrames = new ArrayList<>();
+			boolean contained = false;
+			for (InvocationFrame frame = this; frame != null; frame = frame.outer) {
+				Boolean known = frame.containedScopes.get(scope);
+				if (known != null) {
+					contained = known;
+					break;
+				}
+				unknownFrames.add(frame);
+				if (scope.containsNodeScope(frame.invocationParent)) {
+					contained = true;
+					break;
+				}
+			}
+			for (InvocationFrame frame : unknownFrames) {
+				frame.containedScopes.put(scope, contained);
 			}
+			return contained;
 		}
+	}
+	
+	/**
+	 * The invocation frames of the current step, the innermost frame on the top.
+	 */
+	private static class InvocationFrameStack {
+		private ArrayDeque<InvocationFrame> stack = new ArrayDeque<>();
 		
-		return false;
+		InvocationFrame getFrame(TraceNode invocationParent) {
+			if (invocationParent == null) {
+				stack.clear();
+				return null;
+			}
+			TraceNode outerParent = invocationParent.getInvocationParent();
+			while (!stack.isEmpty()) {
+				InvocationFrame top = stack.peek();
+				if (top.invocationParent == invocationParent) {
+					return top;
+				}
+				/* a new invocation in the top frame */
+				if (top.invocationParent == outerParent) {
+					InvocationFrame frame = new InvocationFrame(invocationParent, top);
+					stack.push(frame);
+					return frame;
+				}
+				stack.pop();
+			}
+			/* the first invocation, or the steps are not in the order of execution */
+			return rebuild(invocationParent);
+		}
+
+		private InvocationFrame rebuild(TraceNode invocationParent) {
+			Set<TraceNode> visited = new HashSet<>();
+			List<TraceNode> chain = new ArrayList<>();
+			for (TraceNode parent = invocationParent; parent != null && visited.add(parent); 
+					parent = parent.getInvocationParent()) {
+				chain.add(parent);
+			}
+			InvocationFrame frame = null;
+			for (int i = chain.size() - 1; i >= 0; i--) {
+				frame = new InvocationFrame(chain.get(i), frame);
+				stack.push(frame);
+			}
+			return frame;
+		}
 	}
 
 //	public Map<String, StepVariableRelationEntry> getStepVariableTable() {
@@ -316,34 +528,33 @@ public class Trace {
 			}
 		}
 		else if(accessType.equals(Variable.READ)){
-			TraceNode node1 = variableDefs.get(varID, currentNode, defStepSelection);
-			TraceNode node2 = variableDefs.get(aliasVarID, currentNode, defStepSelection);
+			int order1 = variableDefs.get(varID, currentNode, defStepSelection);
+			int order2 = variableDefs.get(aliasVarID, currentNode, defStepSelection);
 			
 			int order = 0;
 			if(var instanceof LocalVar){
-				if(node1!=null && node2==null){
-					order = node1.getOrder();
+				if(order1!=0 && order2==0){
+					order = order1;
 				}
-				else if(node1==null && node2!=null){
-					order = node2.getOrder();
+				else if(order1==0 && order2!=0){
+					order = order2;
 				}
-				else if(node1!=null && node2!=null){
+				else if(order1!=0 && order2!=0){
+					TraceNode node2 = getTraceNode(order2);
 					if(node2.getInvocationParent()==null && currentNode.getInvocationParent()==null){
-						order = (node1.getOrder()>node2.getOrder())?node1.getOrder():node2.getOrder();						
+						order = Math.max(order1, order2);
 					}
 					else if(node2.getInvocationParent()!=null && currentNode.getInvocationParent()!=null
 							&& node2.getInvocationParent().equals(currentNode.getInvocationParent())){
-						order = (node1.getOrder()>node2.getOrder())?node1.getOrder():node2.getOrder();
+						order = Math.max(order1, order2);
 					}
 					else{
-						order = node1.getOrder();
+						order = order1;
 					}
 				}
 			}
 			else{
-				if(node1!=null){
-					order = node1.getOrder();
-				}
+				order = order1;
 			}
 			
 			definingOrder = String.valueOf(order);
@@ -45,6 +45,17 @@ public class TraceNode{
 	private transient Map<String, VarValue> readVariableMap = new HashMap<>();
 	private transient Map<String, VarValue> writtenVariableMap = new HashMap<>();
 	
+	/**
+	 * the segment file keeping the read/written variables of this step, if this step has been
+	 * spilled during recording. See {@link TraceSegmentStore}.
+	 */
+	private transient TraceSegmentStore segmentStore;
+	private transient boolean isVariableSpilled;
+	/**
+	 * whether the read/written variables have been changed since they are stored in {@link #segmentStore}.
+	 */
+	private transient boolean isVariableModified;
+	
 //	private List<VarValue> hiddenReadVariables = new ArrayList<>();
 //	private List<VarValue> hiddenWrittenVariables = new ArrayList<>();
 	
@@ -457,6 +468,7 @@ public class TraceNode{
 	}
 	
 	public boolean containReadVariable(VarValue readVar){
+		loadSpilledVariables();
 		if(!readVariableMap.isEmpty()){
 			return this.readVariableMap.containsKey(readVar.getVarID());			
 		}
@@ -466,6 +478,7 @@ public class TraceNode{
 	}
 
 	public Collection<VarValue> getReadVariables() {
+		loadSpilledVariables();
 		if(this.readVariables==null || this.readVariables.size() < this.readVariableMap.size()){
 			this.readVariables = new ArrayList<>(this.readVariableMap.values());
 		}
@@ -473,6 +486,7 @@ public class TraceNode{
 	}
 	
 	public Collection<VarValue> getWrittenVariables() {
+		loadSpilledVariables();
 		if(this.writtenVariables==null || this.writtenVariables.size() < this.writtenVariableMap.size()){
 			this.writtenVariables = new ArrayList<>(writtenVariableMap.values());			
 		}
@@ -481,7 +495,9 @@ public class TraceNode{
 	}
 
 	public void setReadVariables(List<VarValue> readVariables) {
+		loadSpilledVariables();
 		this.readVariables = readVariables;
+		this.isVariableModified = true;
 	}
 	
 	public void addReadVariable(VarValue var){
@@ -494,6 +510,7 @@ public class TraceNode{
 //		}
 		
 		this.readVariableMap.put(var.getVarID(), var);
+		this.isVariableModified = true;
 	}
 	
 	public void addWrittenVariable(VarValue var){
@@ -506,6 +523,70 @@ public class TraceNode{
 //		}
 		
 		this.writtenVariableMap.put(var.getVarID(), var);
+		this.isVariableModified = true;
+	}
+	
+	/**
+	 * called by {@link TraceSegmentStore} once the read/written variables of this step have been
+	 * written into the segment file, so that they can be released from the heap.
+	 */
+	void releaseSpilledVariables(TraceSegmentStore store) {
+		this.segmentStore = store;
+		this.isVariableSpilled = true;
+		this.isVariableModified = false;
+		this.readVariables = new ArrayList<>(0);
+		this.writtenVariables = new ArrayList<>(0);
+		this.readVariableMap = new HashMap<>();
+		this.writtenVariableMap = new HashMap<>();
+	}
+	
+	/**
+	 * Release the read/written variables of a step which has been spilled before and loaded back
+	 * afterwards. If the variables have been changed after loading, they are stored again.
+	 */
+	public void releaseVariables() {
+		if (segmentStore == null || isVariableSpilled) {
+			return;
+		}
+		
+		if (isVariableModified) {
+			List<TraceNode> nodes = new ArrayList<>(1);
+			nodes.add(this);
+			segmentStore.spill(nodes);
+		}
+		else {
+			releaseSpilledVariables(segmentStore);
+		}
+	}
+	
+	/**
+	 * Variables added after spilling (e.g., the returned values of an invocation) are kept in the
+	 * variable maps, and they are merged with the ones loaded from the segment file. 
+	 */
+	private void loadSpilledVariables() {
+		if (!isVariableSpilled) {
+			return;
+		}
+		isVariableSpilled = false;
+		List<List<VarValue>> vars = segmentStore.load(order);
+		
+		this.readVariableMap = mergeSpilledVariables(vars.get(0), this.readVariableMap);
+		this.writtenVariableMap = mergeSpilledVariables(vars.get(1), this.writtenVariableMap);
+		this.readVariables = new ArrayList<>(this.readVariableMap.values());
+		this.writtenVariables = new ArrayList<>(this.writtenVariableMap.values());
+	}
+
+	private Map<String, VarValue> mergeSpilledVariables(List<VarValue> spilledVars, Map<String, VarValue> addedVars) {
+		Map<String, VarValue> varMap = new HashMap<>();
+		for (VarValue var : spilledVars) {
+			varMap.put(var.getVarID(), var);
+		}
+		varMap.putAll(addedVars);
+		return varMap;
+	}
+	
+	public boolean isVariableSpilled() {
+		return isVariableSpilled;
 	}
 	
 	private VarValue find(List<VarValue> variables, VarValue var) {
@@ -521,7 +602,9 @@ public class TraceNode{
 	
 
 	public void setWrittenVariables(List<VarValue> writtenVariables) {
+		loadSpilledVariables();
 		this.writtenVariables = writtenVariables;
+		this.isVariableModified = true;
 	}
 	
 	
@@ -0,0 +1,156 @@
+package microbat.model.trace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import microbat.instrumentation.output.VarValueCodec;
+import microbat.model.value.VarValue;
+import sav.common.core.SavRtException;
+
+/**
+ * An append-only segment file keeping the read/written variables of the steps which
+ * have been spilled out of the heap during recording. Steps are flushed in chunks, each step
+ * is stored as a separate record so that it can be loaded back individually by its order.
+ * <br>
+ * A step may be stored more than once (e.g., if its variables are modified after being loaded back),
+ * in which case the latest record takes effect.
+ *
+ * @author Yun Lin
+ *
+ */
+public class TraceSegmentStore {
+	private String folder;
+	private String prefix;
+	private String filePath;
+	private RandomAccessFile file;
+	/**
+	 * the offset and length of the record of each step, indexed by step order.
+	 */
+	private long[] offsets = new long[1024];
+	private int[] lengths = new int[1024];
+
+	/**
+	 * @param folder
+	 *            the folder of the segment file.
+	 * @param prefix
+	 *            the prefix of the name of the segment file, which is made unique once the first steps
+	 *            are spilled, as the runs of several jvms may share the folder.
+	 */
+	public TraceSegmentStore(String folder, String prefix) {
+		this.folder = folder;
+		this.prefix = prefix;
+	}
+
+	/**
+	 * write the variables of the given steps as one chunk at the end of the segment file, and release
+	 * them from the steps.
+	 */
+	public synchronized void spill(List<TraceNode> nodes) {
+		if (nodes.isEmpty()) {
+			return;
+		}
+		try {
+			RandomAccessFile file = getFile();
+			long chunkOffset = file.length();
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bos);
+			for (TraceNode node : nodes) {
+				byte[] bytes = toBytes(node);
+				ensureCapacity(node.getOrder());
+				offsets[node.getOrder()] = chunkOffset + out.size();
+				lengths[node.getOrder()] = bytes.length;
+				out.write(bytes);
+			}
+			out.flush();
+			file.seek(chunkOffset);
+			file.write(bos.toByteArray());
+		} catch (IOException e) {
+			throw new SavRtException(e);
+		}
+		for (TraceNode node : nodes) {
+			node.releaseSpilledVariables(this);
+		}
+	}
+
+	private byte[] toBytes(TraceNode node) throws IOException {
+		List<Collection<VarValue>> record = new ArrayList<>(2);
+		record.add(node.getReadVariables());
+		record.add(node.getWrittenVariables());
+		return VarValueCodec.encode(record);
+	}
+
+	/**
+	 * @return the read variables (at index 0) and written variables (at index 1) of the step.
+	 */
+	public synchronized List<List<VarValue>> load(int order) {
+		if (!contains(order)) {
+			throw new SavRtException("Step " + order + " is not stored in " + filePath);
+		}
+		try {
+			byte[] bytes = new byte[lengths[order]];
+			RandomAccessFile file = getFile();
+			file.seek(offsets[order]);
+			file.readFully(bytes);
+			return VarValueCodec.decode(bytes);
+		} catch (IOException e) {
+			throw new SavRtException(e);
+		}
+	}
+
+	public synchronized boolean contains(int order) {
+		return order < lengths.length && lengths[order] > 0;
+	}
+
+	private void ensureCapacity(int order) {
+		if (order >= offsets.length) {
+			int newCapacity = Math.max(order + 1, offsets.length * 2);
+			offsets = Arrays.copyOf(offsets, newCapacity);
+			lengths = Arrays.copyOf(lengths, newCapacity);
+		}
+	}
+
+	private RandomAccessFile getFile() throws IOException {
+		if (file == null) {
+			File dir = new File(folder);
+			dir.mkdirs();
+			File segmentFile = File.createTempFile(prefix, ".seg", dir);
+			segmentFile.deleteOnExit();
+			filePath = segmentFile.getPath();
+			file = new RandomAccessFile(segmentFile, "rw");
+		}
+		return file;
+	}
+
+	/**
+	 * close and delete the segment file.
+	 */
+	public synchronized void dispose() {
+		if (file != null) {
+			try {
+				file.close();
+			} catch (IOException e) {
+				// ignore
+			}
+			file = null;
+		}
+		if (filePath != null) {
+			new File(filePath).delete();
+		}
+		offsets = new long[0];
+		lengths = new int[0];
+	}
+
+	/**
+	 * @return the path of the segment file, or null if no step has been spilled.
+	 */
+	public String getFilePath() {
+		return filePath;
+	}
+}
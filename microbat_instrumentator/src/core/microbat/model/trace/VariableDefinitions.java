@@ -1,10 +1,7 @@
 package microbat.model.trace;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class VariableDefinitions {
@@ -12,50 +9,71 @@ public class VariableDefinitions {
 	public static final int USE_LAST = 2;
 	
 	/**
-	 * the trace node list for each variable is ordered.
+	 * the orders of the steps defining each variable, which are ordered.
 	 */
-	private Map<String, List<TraceNode>> nodeDefiningVariableMap = new HashMap<>();
-
+	private Map<String, DefiningSteps> nodeDefiningVariableMap = new HashMap<>();
+	
 	public void put(String varID, TraceNode currentNode) {
-		List<TraceNode> list = nodeDefiningVariableMap.get(varID);
-		if(list==null){
-			list = new ArrayList<>();
-		}
-		
-		if(!list.contains(currentNode)){
-			list.add(currentNode);
+		DefiningSteps steps = nodeDefiningVariableMap.get(varID);
+		if(steps==null){
+			steps = new DefiningSteps();
+			nodeDefiningVariableMap.put(varID, steps);
 		}
-		nodeDefiningVariableMap.put(varID, list);
-		
-		Collections.sort(list, new Comparator<TraceNode>(){
-
-			@Override
-			public int compare(TraceNode o1, TraceNode o2) {
-				return o1.getOrder() - o2.getOrder();
-			}
-		});
+		steps.add(currentNode.getOrder());
 	}
 
-	public TraceNode get(String varID, TraceNode currentNode, int defStepSelection) {
-		List<TraceNode> list = nodeDefiningVariableMap.get(varID);
-		if(list==null || list.isEmpty()){
-			return null;			
+	/**
+	 * @return the order of the step defining the variable, or 0 if there is none.
+	 */
+	public int get(String varID, TraceNode currentNode, int defStepSelection) {
+		DefiningSteps steps = nodeDefiningVariableMap.get(varID);
+		if(steps==null || steps.size==0){
+			return 0;
 		}
 		
 		if(defStepSelection==VariableDefinitions.USE_FIRST){
-			return list.get(0);
+			return steps.orders[0];
 		}
+		return steps.findLastBefore(currentNode.getOrder());
+	}
+	
+	/**
+	 * the sorted orders of the steps defining a variable. As steps are mostly added in the order of
+	 * execution, an order is usually appended at the end.
+	 */
+	private static class DefiningSteps {
+		private int[] orders = new int[4];
+		private int size;
 		
-		TraceNode prev = null;
-		for(TraceNode node: list){
-			if(node.getOrder() < currentNode.getOrder()){
-				prev = node;
+		void add(int order) {
+			int idx;
+			if (size == 0 || orders[size - 1] < order) {
+				idx = size;
+			} else {
+				idx = Arrays.binarySearch(orders, 0, size, order);
+				if (idx >= 0) {
+					return;
+				}
+				idx = -(idx + 1);
 			}
-			else{
-				return prev;
+			if (size == orders.length) {
+				orders = Arrays.copyOf(orders, size + (size >> 1));
 			}
+			System.arraycopy(orders, idx, orders, idx + 1, size - idx);
+			orders[idx] = order;
+			size++;
 		}
 		
-		return prev;
+		/**
+		 * @return the latest order before the given order, or 0 if there is none. 
+		 */
+		int findLastBefore(int order) {
+			int idx = Arrays.binarySearch(orders, 0, size, order);
+			/* the insertion point if not found */
+			if (idx < 0) {
+				idx = -(idx + 1);
+			}
+			return idx == 0 ? 0 : orders[idx - 1];
+		}
 	}
 }
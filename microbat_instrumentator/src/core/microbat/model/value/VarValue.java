@@ -284,6 +284,13 @@ public abstract class VarValue implements GraphNode, Serializable {
 		return stringValue;
 	}
 	
+	/**
+	 * @return the recorded string value, null if it is not recorded.
+	 */
+	public String getRawStringValue() {
+		return stringValue;
+	}
+	
 	public String getStringValue(){
 		if(stringValue==null) {
 			return "null";
@@ -0,0 +1,133 @@
+package microbat.sql;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A writer thread which executes the rows submitted to a bounded queue, so that the rows can be
+ * prepared (e.g., serializing variables) while the previous ones are being written to the database.
+ * When the queue is full, {@link #submit(BatchInserter, List)} blocks until the writer catches up, which
+ * bounds the memory used by the prepared rows.
+ * <br>
+ * If the writer fails, the remaining submitted rows are skipped and the failure is thrown to the
+ * submitting thread at its next call. The writer thread always ends with {@link #finish(Throwable)}.
+ *
+ * @author LLT
+ *
+ */
+public class BackgroundDbWriter implements Runnable {
+	private static final Task END = new Task(null, null);
+
+	private BlockingQueue<Task> queue;
+	private Thread thread;
+	private volatile SQLException failure;
+
+	public BackgroundDbWriter(int queueCapacity) {
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+	}
+
+	public void start() {
+		thread = new Thread(this, "microbat-db-writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void submit(BatchInserter inserter, List<Object[]> rows) throws SQLException {
+		put(new Task(inserter, rows));
+	}
+
+	/**
+	 * let the writer flush the rows added to the inserter so far.
+	 */
+	public void submitFlush(BatchInserter inserter) throws SQLException {
+		put(new Task(inserter, null));
+	}
+
+	/**
+	 * wait until all the submitted rows are written, and the writer thread ends even if it has failed.
+	 * 
+	 * @param pending
+	 *            the exception thrown by the submitting thread, if any, the failure of the writer is then
+	 *            added to it as a suppressed exception instead of being thrown.
+	 */
+	public void finish(Throwable pending) throws SQLException {
+		try {
+			queue.put(END);
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			SQLException interrupted = new SQLException(e);
+			if (pending == null) {
+				throw interrupted;
+			}
+			pending.addSuppressed(interrupted);
+			return;
+		}
+		if (failure == null || failure == pending) {
+			return;
+		}
+		if (pending == null) {
+			throw failure;
+		}
+		pending.addSuppressed(failure);
+	}
+
+	private void put(Task task) throws SQLException {
+		checkFailure();
+		try {
+			queue.put(task);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException(e);
+		}
+	}
+
+	private void checkFailure() throws SQLException {
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	@Override
+	public void run() {
+		while (true) {
+			Task task;
+			try {
+				task = queue.take();
+			} catch (InterruptedException e) {
+				failure = new SQLException(e);
+				return;
+			}
+			if (task == END) {
+				return;
+			}
+			if (failure != null) {
+				/* keep draining the queue so that the submitting thread is not blocked */
+				continue;
+			}
+			try {
+				if (task.rows == null) {
+					task.inserter.flush();
+				} else {
+					task.inserter.addRows(task.rows);
+				}
+			} catch (SQLException e) {
+				failure = e;
+			} catch (RuntimeException e) {
+				failure = new SQLException(e);
+			}
+		}
+	}
+
+	private static class Task {
+		private BatchInserter inserter;
+		private List<Object[]> rows;
+
+		Task(BatchInserter inserter, List<Object[]> rows) {
+			this.inserter = inserter;
+			this.rows = rows;
+		}
+	}
+}
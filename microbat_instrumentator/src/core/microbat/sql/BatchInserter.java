@@ -0,0 +1,153 @@
+package microbat.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Insert rows of a table by multi-row INSERT statements ({@code INSERT INTO t (..) VALUES (..), (..), ..}),
+ * which are added to a JDBC batch and executed every {@code batchSize} rows. The remaining rows which do
+ * not fill a multi-row statement are inserted by a single-row statement when the inserter is flushed.
+ * <br>
+ * An inserter is not thread-safe, it is supposed to be used by one writer thread.
+ *
+ * @author LLT
+ *
+ */
+public class BatchInserter implements AutoCloseable {
+	/* the default (and lowest) limit of host parameters in a sqlite statement */
+	private static final int MAX_VARIABLE_NUMBER = 999;
+	private static final int MAX_ROWS_PER_STATEMENT = 100;
+
+	private Connection conn;
+	private String table;
+	private String[] columns;
+	private int rowsPerStatement;
+	private int batchSize;
+
+	private PreparedStatement multiRowPs;
+	private PreparedStatement singleRowPs;
+	private List<Object[]> pendingRows = new ArrayList<>();
+	private int batchedRows = 0;
+
+	public BatchInserter(Connection conn, String table, String[] columns, int batchSize) {
+		this.conn = conn;
+		this.table = table;
+		this.columns = columns;
+		this.rowsPerStatement = Math.max(1, Math.min(MAX_ROWS_PER_STATEMENT, MAX_VARIABLE_NUMBER / columns.length));
+		this.batchSize = Math.max(batchSize, rowsPerStatement);
+	}
+
+	public void addRow(Object... values) throws SQLException {
+		if (values.length != columns.length) {
+			throw new SQLException(String.format("Expect %d values for table %s, get %d", columns.length, table,
+					values.length));
+		}
+		pendingRows.add(values);
+		if (pendingRows.size() == rowsPerStatement) {
+			PreparedStatement ps = getMultiRowStatement();
+			int idx = 1;
+			for (Object[] row : pendingRows) {
+				idx = bind(ps, idx, row);
+			}
+			ps.addBatch();
+			pendingRows.clear();
+			batchedRows += rowsPerStatement;
+			if (batchedRows >= batchSize) {
+				ps.executeBatch();
+				batchedRows = 0;
+			}
+		}
+	}
+
+	public void addRows(List<Object[]> rows) throws SQLException {
+		for (Object[] row : rows) {
+			addRow(row);
+		}
+	}
+
+	/**
+	 * execute all the rows added so far.
+	 */
+	public void flush() throws SQLException {
+		if (batchedRows > 0) {
+			multiRowPs.executeBatch();
+			batchedRows = 0;
+		}
+		if (!pendingRows.isEmpty()) {
+			PreparedStatement ps = getSingleRowStatement();
+			for (Object[] row : pendingRows) {
+				bind(ps, 1, row);
+				ps.addBatch();
+			}
+			ps.executeBatch();
+			pendingRows.clear();
+		}
+	}
+
+	private int bind(PreparedStatement ps, int idx, Object[] row) throws SQLException {
+		for (Object value : row) {
+			if (value == null) {
+				ps.setNull(idx++, Types.NULL);
+			} else {
+				ps.setObject(idx++, value);
+			}
+		}
+		return idx;
+	}
+
+	private PreparedStatement getMultiRowStatement() throws SQLException {
+		if (multiRowPs == null) {
+			multiRowPs = conn.prepareStatement(generateSql(rowsPerStatement));
+		}
+		return multiRowPs;
+	}
+
+	private PreparedStatement getSingleRowStatement() throws SQLException {
+		if (singleRowPs == null) {
+			singleRowPs = conn.prepareStatement(generateSql(1));
+		}
+		return singleRowPs;
+	}
+
+	String generateSql(int rowNum) {
+		StringBuilder sb = new StringBuilder("INSERT INTO ").append(table).append(" (");
+		for (int i = 0; i < columns.length; i++) {
+			if (i > 0) {
+				sb.append(",");
+			}
+			sb.append(columns[i]);
+		}
+		sb.append(") VALUES ");
+		for (int r = 0; r < rowNum; r++) {
+			if (r > 0) {
+				sb.append(",");
+			}
+			sb.append("(");
+			for (int i = 0; i < columns.length; i++) {
+				sb.append(i > 0 ? ",?" : "?");
+			}
+			sb.append(")");
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public void close() {
+		closeQuietly(multiRowPs);
+		closeQuietly(singleRowPs);
+	}
+
+	private void closeQuietly(PreparedStatement ps) {
+		if (ps != null) {
+			try {
+				ps.close();
+			} catch (SQLException e) {
+				// ignore
+			}
+		}
+	}
+}
@@ -0,0 +1,43 @@
+/**
+ * 
+ */
+package microbat.sql;
+
+import java.io.IOException;
+import java.util.List;
+
+import microbat.instrumentation.Agent;
+import microbat.instrumentation.AgentLogger;
+import microbat.instrumentation.AgentParams;
+import microbat.instrumentation.output.MappedTraceWriter;
+import microbat.model.trace.Trace;
+
+/**
+ * Store the traces in the random-access layout of {@link microbat.instrumentation.output.MappedTraceFile},
+ * which can be opened without loading its steps.
+ * 
+ * @author Yun Lin
+ *
+ */
+public class MappedFileRecorder implements TraceRecorder {
+	
+	private AgentParams agentParams;
+	
+	public MappedFileRecorder(AgentParams agentParams) {
+		this.agentParams = agentParams;
+	}
+
+	@Override
+	public void store(List<Trace> traceList) {
+		int collectedSteps = traceList.get(0).getExecutionList().size();
+		int expectedSteps = agentParams.getExpectedSteps();
+		try {
+			new MappedTraceWriter(agentParams.getDumpFile()).write(Agent.getProgramMsg(), traceList, expectedSteps,
+					collectedSteps);
+			AgentLogger.debug("Stored " + collectedSteps + " steps to " + agentParams.getDumpFile());
+		} catch (IOException e) {
+			AgentLogger.error(e);
+		}
+	}
+
+}
@@ -10,14 +10,18 @@ import microbat.instrumentation.AgentParams;
  *
  */
 public enum Recorder {
-	FILE,SQLITE3,MYSQL;
+	FILE,MAPPED_FILE,SQLITE3,MYSQL,SOCKET;
 	
 	public static TraceRecorder create(AgentParams params) {
 		switch (params.getTraceRecorderName()) {
 		case "FILE":
 			return new FileRecorder(params);
+		case "MAPPED_FILE":
+			return new MappedFileRecorder(params);
 		case "SQLITE3":
 			return new SqliteRecorder(params.getDumpFile(), params.getRunId());
+		case "SOCKET":
+			return new SocketRecorder(params);
 //		case "MYSQL":
 //			return new MysqlRecorder(params.getRunId());
 		default:
@@ -6,13 +6,14 @@ package microbat.sql;
 import java.util.List;
 
 import microbat.instrumentation.Agent;
+import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.AgentParams;
-import microbat.instrumentation.output.TraceOutputWriter;
-import microbat.instrumentation.output.tcp.TcpConnector;
+import microbat.instrumentation.output.tcp.TraceStreamWriter;
 import microbat.model.trace.Trace;
 
 /**
- * 
+ * Sends the complete traces to the runner over the stream which the steps have been pushed to while the
+ * program was running, see {@link TraceStreamWriter}.
  *
  */
 public class SocketRecorder implements TraceRecorder{
@@ -25,18 +26,15 @@ public class SocketRecorder implements TraceRecorder{
 	 */
 	@Override
 	public void store(List<Trace> traceList) {
-		TcpConnector tcpConnector = new TcpConnector(agentParams.getTcpPort());
-		TraceOutputWriter traceWriter;
 		try {
-			traceWriter = tcpConnector.connect();
-			traceWriter.writeString(Agent.getProgramMsg());
-			traceWriter.writeTrace(traceList);
-			traceWriter.flush();
-			Thread.sleep(10000l);
+			TraceStreamWriter stream = TraceStreamWriter.getInstance();
+			if (stream == null) {
+				stream = TraceStreamWriter.connect(agentParams.getTcpPort());
+			}
+			stream.finish(Agent.getProgramMsg(), traceList);
 		} catch (Exception e) {
-			e.printStackTrace();
+			AgentLogger.error(e);
 		}
-		tcpConnector.close();
 	}
 
 }
@@ -2,21 +2,17 @@ package microbat.sql;
 
 import java.sql.Connection;
 import java.sql.Date;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
-
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 
 import microbat.handler.xml.VarValueXmlWriter;
 import microbat.instrumentation.AgentParams;
 import microbat.model.BreakPoint;
-import microbat.model.trace.StepVariableRelationEntry;
 import microbat.model.trace.Trace;
 import microbat.model.trace.TraceNode;
 import microbat.model.value.VarValue;
@@ -30,6 +26,16 @@ public class SqliteRecorder extends SqliteServer implements TraceRecorder {
 
 	public static final int READ = 1;
 	public static final int WRITE = 2;
+	/* number of step batches which can be prepared ahead of the writer */
+	private static final int QUEUE_CAPACITY = 4;
+	private static final String[] RUN_COLUMNS = { "run_id", "project_name", "project_version", "launch_method",
+			"thread_status", "launch_class" };
+	private static final String[] TRACE_COLUMNS = { "trace_id", "run_id", "thread_id", "thread_name", "isMain",
+			"generated_time" };
+	private static final String[] LOCATION_COLUMNS = { "location_id", "trace_id", "class_name", "line_number",
+			"is_conditional", "is_return" };
+	private static final String[] STEP_COLUMNS = { "trace_id", "step_order", "control_dominator", "step_in",
+			"step_over", "invocation_parent", "loop_parent", "location_id", "read_vars", "written_vars", "time" };
 	private String runId;
 
 	/**
@@ -45,10 +51,34 @@ public class SqliteRecorder extends SqliteServer implements TraceRecorder {
 		List<AutoCloseable> closables = new ArrayList<AutoCloseable>();
 		try {
 			conn = getConnection();
+			startBulkLoad(conn);
 			conn.setAutoCommit(false);
-			insertRun(conn, closables);
-			for (Trace trace : traces) {
-				insertTrace(trace, runId, conn, closables);
+			BatchInserter runInserter = new BatchInserter(conn, "run", RUN_COLUMNS, BATCH_SIZE);
+			BatchInserter traceInserter = new BatchInserter(conn, "Trace", TRACE_COLUMNS, BATCH_SIZE);
+			BatchInserter locationInserter = new BatchInserter(conn, "location", LOCATION_COLUMNS, BATCH_SIZE);
+			BatchInserter stepInserter = new BatchInserter(conn, "Step", STEP_COLUMNS, BATCH_SIZE);
+			closables.add(runInserter);
+			closables.add(traceInserter);
+			closables.add(locationInserter);
+			closables.add(stepInserter);
+			
+			BackgroundDbWriter writer = new BackgroundDbWriter(QUEUE_CAPACITY);
+			writer.start();
+			Throwable pending = null;
+			try {
+				insertRun(writer, runInserter);
+				for (Trace trace : traces) {
+					insertTrace(trace, runId, writer, traceInserter, locationInserter, stepInserter);
+				}
+				writer.submitFlush(runInserter);
+				writer.submitFlush(traceInserter);
+				writer.submitFlush(locationInserter);
+				writer.submitFlush(stepInserter);
+			} catch (SQLException | RuntimeException | Error e) {
+				pending = e;
+				throw e;
+			} finally {
+				writer.finish(pending);
 			}
 			conn.commit();
 		} catch (SQLException e) {
@@ -58,78 +88,72 @@ public class SqliteRecorder extends SqliteServer implements TraceRecorder {
 			closeDb(conn, closables);
 		}
 	}
-
-	public void insertRun(Connection conn, List<AutoCloseable> closables) throws SQLException {
-		PreparedStatement ps;
-		String sql = "INSERT INTO run (run_id,project_name,project_version,launch_method,thread_status,launch_class) "
-				+ "VALUES (?, ?, ?,?,?,?)";
-		ps = conn.prepareStatement(sql);
-		closables.add(ps);
-		int idx = 1;
+	
+	/**
+	 * WAL journal and no fsync while loading, the trace is stored in one transaction which is committed
+	 * at the end anyway. These are settings of the connection, which is closed once the trace is stored.
+	 */
+	private void startBulkLoad(Connection conn) throws SQLException {
+		Statement stmt = conn.createStatement();
+		try {
+			stmt.execute("PRAGMA journal_mode=WAL");
+			stmt.execute("PRAGMA synchronous=OFF");
+			stmt.execute("PRAGMA temp_store=MEMORY");
+		} finally {
+			stmt.close();
+		}
+	}
+	
+	private void insertRun(BackgroundDbWriter writer, BatchInserter runInserter) throws SQLException {
 		// TODO add the other attributes
-		ps.setString(idx++, this.runId);
-		ps.setString(idx++, "");
-		ps.setString(idx++, "");
-		ps.setString(idx++, "");
-		ps.setString(idx++, "");
-		ps.setString(idx++, "");
-		ps.execute();
+		writer.submit(runInserter, rows(new Object[] { this.runId, "", "", "", "", "" }));
 	}
 
-	/**
-	 * 
-	 * 	 
-	 */
-	public String insertTrace(Trace trace, String runId, Connection conn, List<AutoCloseable> closables)
-			throws SQLException {
-		PreparedStatement ps;
-		String sql = "INSERT INTO Trace (trace_id, run_id,thread_id,thread_name,isMain,generated_time) "
-				+ "VALUES (?, ?, ?, ?,?,?)";
-		ps = conn.prepareStatement(sql);
-		closables.add(ps);
-		int idx = 1;
+	private String insertTrace(Trace trace, String runId, BackgroundDbWriter writer, BatchInserter traceInserter,
+			BatchInserter locationInserter, BatchInserter stepInserter) throws SQLException {
 		String traceId = getUUID();
-		ps.setString(idx++, traceId);
-		ps.setString(idx++, runId);
-		ps.setString(idx++, String.valueOf(trace.getThreadId()));
-		ps.setString(idx++, trace.getThreadName());
-		ps.setBoolean(idx++, trace.isMain());
-		ps.setTimestamp(idx++, new Timestamp(System.currentTimeMillis()));
-		ps.execute();
-		insertSteps(traceId, trace.getExecutionList(), conn, closables);
-		insertStepVariableRelation(trace, traceId, conn, closables);
+		writer.submit(traceInserter, rows(new Object[] { traceId, runId, String.valueOf(trace.getThreadId()),
+				trace.getThreadName(), trace.isMain(), new Timestamp(System.currentTimeMillis()) }));
+		insertLocation(traceId, trace.getExecutionList(), writer, locationInserter);
+		insertSteps(traceId, trace.getExecutionList(), writer, stepInserter);
+		insertStepVariableRelation(trace, traceId);
 		return traceId;
 	}
 
-	private void insertSteps(String traceId, List<TraceNode> exectionList, Connection conn, List<AutoCloseable> closables)
-			throws SQLException {
-		String sql = "INSERT INTO Step (trace_id, step_order, control_dominator, step_in, step_over, invocation_parent, loop_parent,"
-				+ "location_id, read_vars, written_vars, time) VALUES (?,?,?,?,?,?,?,?,?,?,?)";
-		PreparedStatement ps = conn.prepareStatement(sql);
-		closables.add(ps);
-		insertLocation(traceId, exectionList, conn, closables);
+	/**
+	 * the rows of steps (with their variables serialized as xml) are prepared in this thread and written by
+	 * the writer thread batch by batch.
+	 */
+	private void insertSteps(String traceId, List<TraceNode> exectionList, BackgroundDbWriter writer,
+			BatchInserter stepInserter) throws SQLException {
+		List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
 		for (int i = 0; i < exectionList.size(); i++) {
 			TraceNode node = exectionList.get(i);
-			int idx = 1;
-			ps.setString(idx++, traceId);
-			ps.setInt(idx++, node.getOrder());
-			setNodeOrder(ps, idx++, node.getControlDominator());
-			setNodeOrder(ps, idx++, node.getStepInNext());
-			setNodeOrder(ps, idx++, node.getStepOverNext());
-			setNodeOrder(ps, idx++, node.getInvocationParent());
-			setNodeOrder(ps, idx++, node.getLoopParent());
-			ps.setString(idx++, node.getDeclaringCompilationUnitName() + "_" + node.getLineNumber());
-			ps.setString(idx++, generateXmlContent(node.getReadVariables()));
-			ps.setString(idx++, generateXmlContent(node.getWrittenVariables()));
-			ps.setDate(idx, new Date(node.getTimestamp()));
-			ps.addBatch();
+			rows.add(new Object[] { 
+					traceId, 
+					node.getOrder(), 
+					getNodeOrder(node.getControlDominator()),
+					getNodeOrder(node.getStepInNext()), 
+					getNodeOrder(node.getStepOverNext()),
+					getNodeOrder(node.getInvocationParent()), 
+					getNodeOrder(node.getLoopParent()),
+					node.getDeclaringCompilationUnitName() + "_" + node.getLineNumber(),
+					generateXmlContent(node.getReadVariables()), 
+					generateXmlContent(node.getWrittenVariables()),
+					new Date(node.getTimestamp()) });
+			node.releaseVariables();
+			if (rows.size() == BATCH_SIZE) {
+				writer.submit(stepInserter, rows);
+				rows = new ArrayList<>(BATCH_SIZE);
+			}
+		}
+		if (!rows.isEmpty()) {
+			writer.submit(stepInserter, rows);
 		}
-		ps.executeBatch();
 	}
 
 	// TODO value_string is not true instance
-	private void insertStepVariableRelation(Trace trace, String traceId, Connection conn, List<AutoCloseable> closables)
-			throws SQLException {
+	private void insertStepVariableRelation(Trace trace, String traceId) {
 		// String sql = "INSERT INTO StepVariableRelation
 		// (var_id,step_order,rw,value_string,trace_id) VALUES (?, ?, ?, ?,?)";
 		// PreparedStatement ps = conn.prepareStatement(sql);
@@ -165,32 +189,20 @@ public class SqliteRecorder extends SqliteServer implements TraceRecorder {
 		// }
 	}
 
-	private void insertLocation(String traceId, List<TraceNode> nodes, Connection conn, List<AutoCloseable> closables)
-			throws SQLException {
-		String sql = "INSERT INTO location (location_id,trace_id, class_name, line_number, is_conditional, is_return) "
-				+ "VALUES (?,?, ?, ?, ?, ?)";
-		PreparedStatement ps = conn.prepareStatement(sql);
-		closables.add(ps);
+	private void insertLocation(String traceId, List<TraceNode> nodes, BackgroundDbWriter writer,
+			BatchInserter locationInserter) throws SQLException {
 		HashSet<BreakPoint> set = getLoactionSet(nodes);
-		List<String> ids = new ArrayList<>();
+		List<Object[]> rows = new ArrayList<>(set.size());
 		for (BreakPoint location : set) {
-			int idx = 1;
-			String locationId = getUUID();
-			ps.setString(idx++, location.getDeclaringCompilationUnitName() + "_" + location.getLineNumber());
-			ps.setString(idx++, traceId);
-			ps.setString(idx++, location.getDeclaringCompilationUnitName());
-			ps.setInt(idx++, location.getLineNumber());
-			ps.setBoolean(idx++, location.isConditional());
-			ps.setBoolean(idx++, location.isReturnStatement());
-			ids.add(locationId);
-			ps.addBatch();
-		}
-
-		ps.executeBatch();
-
-		if (ids.size() != set.size()) {
-			throw new SQLException("Number of locations is incorrect!");
+			rows.add(new Object[] { 
+					location.getDeclaringCompilationUnitName() + "_" + location.getLineNumber(), 
+					traceId,
+					location.getDeclaringCompilationUnitName(), 
+					location.getLineNumber(), 
+					location.isConditional(),
+					location.isReturnStatement() });
 		}
+		writer.submit(locationInserter, rows);
 		// insertControlScope(traceId, result, conn, closables);
 		// insertLoopScope(traceId, result, conn, closables);
 	}
@@ -210,12 +222,14 @@ public class SqliteRecorder extends SqliteServer implements TraceRecorder {
 		return VarValueXmlWriter.generateXmlContent(varValues);
 	}
 
-	private void setNodeOrder(PreparedStatement ps, int idx, TraceNode node) throws SQLException {
-		if (node != null) {
-			ps.setInt(idx, node.getOrder());
-		} else {
-			ps.setNull(idx, java.sql.Types.INTEGER);
-		}
+	private Integer getNodeOrder(TraceNode node) {
+		return node == null ? null : node.getOrder();
+	}
+	
+	private static List<Object[]> rows(Object[] row) {
+		List<Object[]> rows = new ArrayList<>(1);
+		rows.add(row);
+		return rows;
 	}
 
 }
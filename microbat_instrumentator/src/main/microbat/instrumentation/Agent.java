@@ -27,6 +27,7 @@ public abstract class Agent {
 	private volatile static Boolean shutdowned = false;
 	private static int numberOfThread = 1;
 	private static Instrumentation instrumentation;
+	private static volatile boolean hostMode = false;
 	
 	
 	public abstract void startup0(long vmStartupTime, long agentPreStartup);
@@ -46,6 +47,12 @@ public abstract class Agent {
 
 	public abstract boolean isInstrumentationActive0();
 	
+	/**
+	 * prepares the agent for a new run of the host jvm, see {@link AgentHost}. The agents which need a new
+	 * jvm for each run throw an {@link UnsupportedOperationException}.
+	 */
+	public abstract void startHostRun0();
+	
 //	public Agent(CommandLine cmd, Instrumentation inst) {
 //		instrumentation = inst;
 //		if (cmd.getBoolean(CoverageAgentParams.OPT_IS_COUNT_COVERAGE, false)) {
@@ -82,6 +89,9 @@ public abstract class Agent {
 	 */
 	public static void _exitProgram(String programMsg) {
 		if(Thread.currentThread().getName().equals("main")) {
+			if (hostMode && shutdowned) {
+				return; // the run has already been stopped, e.g. the trace is over long.
+			}
 			ExecutionTracer.getMainThreadStore().lock();
 			Agent.programMsg = programMsg;
 			
@@ -116,6 +126,9 @@ public abstract class Agent {
 			
 			stop();
 			ExecutionTracer.getMainThreadStore().unLock();
+			if (hostMode) {
+				throw new ProgramExit(); // unwind the program, the host jvm is kept for the next run.
+			}
 			Runtime.getRuntime().exit(1); // force program to exit to avoid getting stuck by background running threads.
 		}
 		else {
@@ -141,10 +154,13 @@ public abstract class Agent {
 			try {
 				if (!shutdowned) {
 					Agent agent = AgentFactory.createAgent(AgentFactory.cmd, instrumentation);
-					instrumentation.removeTransformer(agent.getTransformer0());
-					Class<?>[] retransformableClasses = getRetransformableClasses(instrumentation);
-					if (retransformableClasses != null) {
-						instrumentation.retransformClasses(retransformableClasses);
+					/* in host mode, the loaded classes stay instrumented for the next runs */
+					if (!hostMode) {
+						instrumentation.removeTransformer(agent.getTransformer0());
+						Class<?>[] retransformableClasses = getRetransformableClasses(instrumentation);
+						if (retransformableClasses != null) {
+							instrumentation.retransformClasses(retransformableClasses);
+						}
 					}
 					agent.shutdown();
 				}
@@ -156,6 +172,45 @@ public abstract class Agent {
 		}
 	}
 	
+	/**
+	 * In host mode, the jvm is kept alive between runs, see {@link AgentHost}. The agent is stopped
+	 * until the first run starts.
+	 * <br>
+	 * Only the state of the agent is reset between runs. The application classes are not reloaded, so
+	 * their static fields keep the values of the earlier runs and their static initializers are not run,
+	 * nor traced, again.
+	 */
+	public static void startHostMode() {
+		hostMode = true;
+		shutdowned = true;
+	}
+	
+	public static boolean isHostMode() {
+		return hostMode;
+	}
+	
+	/**
+	 * starts a new run of the host jvm with the given agent params.
+	 */
+	public static synchronized void startHostRun(CommandLine cmd) {
+		AgentFactory.cmd = cmd;
+		Agent agent = AgentFactory.createAgent(cmd, instrumentation);
+		agent.startHostRun0();
+		programMsg = "";
+		numberOfThread = 1;
+		shutdowned = false;
+	}
+	
+	/**
+	 * stops the current run of the host jvm if the program has not exited through {@link #_exitProgram(String)}.
+	 * 
+	 * @return the program message of the run.
+	 */
+	public static String finishHostRun() {
+		stop();
+		return programMsg;
+	}
+	
 	private static Class<?>[] getRetransformableClasses(Instrumentation inst) {
 		AgentLogger.debug("Collect classes to reset instrumentation....");
 		List<Class<?>> candidates = new ArrayList<Class<?>>();
@@ -229,4 +284,11 @@ public abstract class Agent {
 //	public static IAgent getAgent() {
 //		return agent;
 //	}
+	
+	/**
+	 * thrown in host mode to unwind the program once its run is stopped, instead of exiting the jvm.
+	 */
+	public static class ProgramExit extends Error {
+		private static final long serialVersionUID = 1L;
+	}
 }
@@ -0,0 +1,91 @@
+package microbat.instrumentation;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * @author LLT
+ *
+ * The main class of a jvm which is kept alive to trace a sequence of runs, instead of starting a new jvm
+ * for each run. The agent is attached once, and the classes loaded in a run stay instrumented for the next
+ * runs. The host connects to the runner at the port of {@link AgentParams#OPT_HOST_PORT}, then for each
+ * request: overrides the agent params with the ones of the run (dump file, run id...), resets the tracer,
+ * invokes the main method of the launch class with the arguments of the run, and replies with the program
+ * message once the trace is recorded. The host exits when the runner closes the connection.
+ *
+ * A request:
+ * 	{@link #REQUEST_START}
+ * 	the agent params of the run, in the format of the agent args
+ * 	the program arguments, one per line
+ * 	{@link #REQUEST_END}
+ *
+ * A response:
+ * 	{@link #RESPONSE_START}
+ * 	the program message
+ * 	{@link #RESPONSE_END}
+ */
+public class AgentHost {
+	public static final String REQUEST_START = "@@AgentHostRequestStart@@";
+	public static final String REQUEST_END = "@@AgentHostRequestEnd@@";
+	public static final String RESPONSE_START = "@@AgentHostResponseStart@@";
+	public static final String RESPONSE_END = "@@AgentHostResponseEnd@@";
+
+	/**
+	 * @param args the launch class of the runs.
+	 */
+	public static void main(String[] args) throws Exception {
+		String launchClass = args[0];
+		CommandLine hostCmd = AgentFactory.cmd;
+		int port = hostCmd.getInt(AgentParams.OPT_HOST_PORT, AgentConstants.UNSPECIFIED_INT_VALUE);
+		Socket socket = new Socket("localhost", port);
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+			PrintWriter writer = new PrintWriter(socket.getOutputStream(), true);
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!REQUEST_START.equals(line)) {
+					continue;
+				}
+				CommandLine runCmd = hostCmd.override(CommandLine.parse(reader.readLine()));
+				List<String> programArgs = new ArrayList<>();
+				while (!REQUEST_END.equals(line = reader.readLine())) {
+					if (line == null) {
+						return;
+					}
+					programArgs.add(line);
+				}
+				String programMsg = run(runCmd, launchClass, programArgs);
+				writer.println(RESPONSE_START);
+				writer.println(programMsg);
+				writer.println(RESPONSE_END);
+			}
+		} finally {
+			socket.close();
+			Runtime.getRuntime().exit(0); // do not wait for the background threads of the runs.
+		}
+	}
+
+	private static String run(CommandLine runCmd, String launchClass, List<String> programArgs) {
+		Agent.startHostRun(runCmd);
+		try {
+			/* the host may be loaded by the bootstrap classloader, but the launch class is on the app classpath */
+			Class<?> mainClass = ClassLoader.getSystemClassLoader().loadClass(launchClass);
+			Method main = mainClass.getMethod("main", String[].class);
+			main.invoke(null, (Object) programArgs.toArray(new String[programArgs.size()]));
+		} catch (InvocationTargetException e) {
+			if (!(e.getCause() instanceof Agent.ProgramExit)) {
+				AgentLogger.error(e.getCause());
+			}
+		} catch (Throwable e) {
+			AgentLogger.error(e);
+		}
+		return Agent.finishHostRun();
+	}
+}
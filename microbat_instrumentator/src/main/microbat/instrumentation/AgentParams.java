@@ -2,9 +2,11 @@ package microbat.instrumentation;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import microbat.instrumentation.filter.CodeRangeEntry;
 import microbat.instrumentation.instr.instruction.info.EntryPoint;
@@ -30,6 +32,8 @@ public class AgentParams extends CommonParams {
 	public static final String OPT_JAVA_HOME = "java_home";
 	public static final String OPT_DUMP_FILE = "dump_file_path";
 	public static final String OPT_TCP_PORT = "tcp_port";
+	/* the port of the runner which a host jvm receives its runs from, see AgentHost */
+	public static final String OPT_HOST_PORT = "port";
 	public static final String OPT_INCLUDES = "includes";
 	public static final String OPT_EXCLUDES = "excludes";
 	public static final String OPT_VARIABLE_LAYER = "varLayer";
@@ -43,6 +47,11 @@ public class AgentParams extends CommonParams {
 	public static final String OPT_CODE_RANGE = "code_range";
 	public static final String OPT_TRACE_RECORDER = "trace_recorder";
 	public static final String OPT_RUN_ID = "run_id";
+	public static final String OPT_SPILLING_WINDOW = "spilling_window";
+	public static final String OPT_CONTROL_SCOPE_CACHE = "control_scope_cache";
+	public static final String OPT_INSTRUMENTATION_CACHE = "instr_cache";
+	public static final String OPT_SINGLE_PASS = "single_pass";
+	public static final String OPT_PRECHECK_DUMP_FILE = "precheck_dump_file";
 	
 	private boolean precheck;
 	private EntryPoint entryPoint;
@@ -63,6 +72,11 @@ public class AgentParams extends CommonParams {
 	private List<CodeRangeEntry> codeRanges;
 	private String recorderName;
 	private String runId;
+	private int spillingWindow;
+	private String controlScopeCacheFolder;
+	private String instrumentationCacheFolder;
+	private boolean singlePass;
+	private String precheckDumpFile;
 	
 	public AgentParams(CommandLine cmd) {
 		super(cmd);
@@ -93,12 +107,23 @@ public class AgentParams extends CommonParams {
 		
 		stepLimit = cmd.getInt(OPT_STEP_LIMIT, AgentConstants.UNSPECIFIED_INT_VALUE);
 		expectedSteps = cmd.getInt(OPT_EXPECTED_STEP, AgentConstants.UNSPECIFIED_INT_VALUE);
+		singlePass = cmd.getBoolean(OPT_SINGLE_PASS, false);
 		overlongMethods = cmd.getStringSet(OPT_OVER_LONG_METHODS);
+		if (singlePass) {
+			/* the over long methods are detected while the classes are instrumented concurrently */
+			Set<String> detectedMethods = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+			detectedMethods.addAll(overlongMethods);
+			overlongMethods = detectedMethods;
+		}
 		requireMethodSplit = cmd.getBoolean(OPT_REQUIRE_METHOD_SPLITTING, false);
 		avoidProxyToString = cmd.getBoolean(OPT_AVOID_TO_STRING_OF_PROXY_OBJ, false);
 		codeRanges = CodeRangeEntry.parse(cmd.getStringList(OPT_CODE_RANGE));
 		recorderName = cmd.getString(OPT_TRACE_RECORDER);
 		runId = cmd.getString(OPT_RUN_ID);
+		spillingWindow = cmd.getInt(OPT_SPILLING_WINDOW, AgentConstants.UNSPECIFIED_INT_VALUE);
+		controlScopeCacheFolder = cmd.getString(OPT_CONTROL_SCOPE_CACHE);
+		instrumentationCacheFolder = cmd.getString(OPT_INSTRUMENTATION_CACHE);
+		precheckDumpFile = cmd.getString(OPT_PRECHECK_DUMP_FILE);
 	}
 
 	public static AgentParams initFrom(CommandLine cmd) {
@@ -202,6 +227,45 @@ public class AgentParams extends CommonParams {
 		return this.runId;
 	}
 	
+	/**
+	 * @return the number of latest steps kept in the heap when recording in streaming mode, or 
+	 * {@link AgentConstants#UNSPECIFIED_INT_VALUE} if the whole trace is kept in the heap.
+	 */
+	public int getSpillingWindow() {
+		return spillingWindow;
+	}
+	
+	/**
+	 * @return the folder where the control scopes of the traced classes are cached across runs, or null
+	 * if they are cached in memory only.
+	 */
+	public String getControlScopeCacheFolder() {
+		return controlScopeCacheFolder;
+	}
+	
+	/**
+	 * @return the folder where the instrumented classes are cached across runs, or null if the classes are
+	 * instrumented in every run.
+	 */
+	public String getInstrumentationCacheFolder() {
+		return instrumentationCacheFolder;
+	}
+	
+	/**
+	 * @return whether the program is traced without a precheck run, in which case the over long methods are
+	 * detected while the classes are instrumented, and the precheck info is collected from the trace run.
+	 */
+	public boolean isSinglePass() {
+		return singlePass;
+	}
+	
+	/**
+	 * @return the file where the precheck info of a single pass run is stored.
+	 */
+	public String getPrecheckDumpFile() {
+		return precheckDumpFile;
+	}
+	
 	public AppJavaClassPath initAppClassPath() {
 		return initAppClassPath(getLaunchClass(), getJavaHome(), getClassPaths(), getWorkingDirectory());
 	}
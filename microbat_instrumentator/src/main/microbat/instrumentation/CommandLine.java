@@ -27,6 +27,16 @@ public class CommandLine {
 		return cmd;
 	}
 
+	/**
+	 * @return a copy of this command line where the options of the given one are overridden.
+	 */
+	public CommandLine override(CommandLine cmd) {
+		CommandLine result = new CommandLine();
+		result.argMap.putAll(argMap);
+		result.argMap.putAll(cmd.argMap);
+		return result;
+	}
+
 	public boolean getBoolean(String option, boolean defaultValue) {
 		String strVal = getString(option);
 		if (strVal != null) {
@@ -32,6 +32,9 @@ public class Premain {
 		installBootstrap(inst);
 		CommandLine cmd = CommandLine.parse(agentArgs);
 		AgentFactory.cmd = cmd;
+		if (cmd.getString(AgentParams.OPT_HOST_PORT) != null) {
+			Agent.startHostMode();
+		}
 		
 		Class<?>[] retransformableClasses = getRetransformableClasses(inst);
 		
@@ -1,15 +1,26 @@
 package microbat.instrumentation;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.instrument.Instrumentation;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
+import microbat.codeanalysis.bytecode.ControlScopeCache;
 import microbat.instrumentation.filter.CodeRangeUserFilter;
 import microbat.instrumentation.filter.GlobalFilterChecker;
 import microbat.instrumentation.filter.OverLongMethodFilter;
+import microbat.instrumentation.instr.TraceInstrumenter;
 import microbat.instrumentation.instr.TraceTransformer;
+import microbat.instrumentation.output.tcp.TraceStreamWriter;
+import microbat.instrumentation.precheck.PrecheckInfo;
+import microbat.instrumentation.precheck.TraceInfo;
 import microbat.instrumentation.runtime.ExecutionTracer;
 import microbat.instrumentation.runtime.IExecutionTracer;
+import microbat.model.BreakPoint;
+import microbat.model.ClassLocation;
 import microbat.model.trace.Trace;
 import microbat.model.trace.TraceNode;
 import microbat.model.value.VarValue;
@@ -36,6 +47,7 @@ public class TraceAgent extends Agent {
 		if (!agentParams.isRequireMethodSplit()) {
 			agentParams.getUserFilters().register(new OverLongMethodFilter(agentParams.getOverlongMethods()));
 		}
+		TraceInstrumenter.clearDetectedOverlongMethods();
 
 		if (!agentParams.getCodeRanges().isEmpty()) {
 			agentParams.getUserFilters().register(new CodeRangeUserFilter(agentParams.getCodeRanges()));
@@ -43,6 +55,33 @@ public class TraceAgent extends Agent {
 
 		ExecutionTracer.setExpectedSteps(agentParams.getExpectedSteps());
 		ExecutionTracer.avoidProxyToString = agentParams.isAvoidProxyToString();
+		ExecutionTracer.setSpillingWindow(agentParams.getSpillingWindow(), getSegmentFolder());
+		ControlScopeCache.getInstance().setStoreFolder(agentParams.getControlScopeCacheFolder());
+		startStreaming();
+	}
+
+	/**
+	 * if a tcp port is given, the steps are pushed to the runner while the program is running.
+	 */
+	private void startStreaming() {
+		if (agentParams.getTcpPort() == AgentConstants.UNSPECIFIED_INT_VALUE) {
+			return;
+		}
+		try {
+			ExecutionTracer.setStepStream(TraceStreamWriter.connect(agentParams.getTcpPort()));
+		} catch (IOException e) {
+			AgentLogger.error(e);
+		}
+	}
+	
+	private String getSegmentFolder() {
+		if (agentParams.getDumpFile() != null) {
+			File parent = new File(agentParams.getDumpFile()).getAbsoluteFile().getParentFile();
+			if (parent != null) {
+				return parent.getAbsolutePath();
+			}
+		}
+		return System.getProperty("java.io.tmpdir");
 	}
 
 	public void shutdown() throws Exception {
@@ -68,12 +107,46 @@ public class TraceAgent extends Agent {
 			constructTrace(trace);
 			traceList.add(trace);
 		}
+		if (agentParams.isSinglePass()) {
+			savePrecheckInfo(traceList);
+		}
 
 //		timer.newPoint("Saving trace");
-		Recorder.create(agentParams).store(traceList);
+		try {
+			Recorder.create(agentParams).store(traceList);
+		} finally {
+			for (Trace trace : traceList) {
+				trace.disposeSegmentStore();
+			}
+		}
 //		AgentLogger.debug(timer.getResultString());
 	}
 
+	/**
+	 * in single pass mode, the precheck info is collected from the trace run instead of a precheck run.
+	 */
+	void savePrecheckInfo(List<Trace> traceList) {
+		TraceInfo info = new TraceInfo(ExecutionTracer.stepLimit);
+		for (Trace trace : traceList) {
+			for (TraceNode node : trace.getExecutionList()) {
+				BreakPoint point = node.getBreakPoint();
+				info.addStep(new ClassLocation(point.getClassCanonicalName(), point.getMethodSign(),
+						point.getLineNumber()));
+			}
+		}
+		PrecheckInfo precheckInfo = new PrecheckInfo(traceList.size(), info);
+		precheckInfo.setOverLong(ExecutionTracer.isOverLong());
+		Set<String> overlongMethods = new LinkedHashSet<>(agentParams.getOverlongMethods());
+		overlongMethods.addAll(TraceInstrumenter.getDetectedOverlongMethods());
+		precheckInfo.setExceedingLimitMethods(new ArrayList<>(overlongMethods));
+		precheckInfo.setProgramMsg(Agent.getProgramMsg());
+		precheckInfo.setLoadedClasses(new ArrayList<String>());
+		AgentLogger.debug(precheckInfo.toString());
+		if (agentParams.getPrecheckDumpFile() != null) {
+			precheckInfo.saveToFile(agentParams.getPrecheckDumpFile(), false);
+		}
+	}
+
 	//FIXME this method can be handled in an asynchronized way
 	public void constructTrace(Trace trace) {
 		GlobalFilterChecker.addFilterInfo(trace);
@@ -171,14 +244,36 @@ public class TraceAgent extends Agent {
 					}
 				}
 			}
+			
+			releaseVariables(trace, currentNode.getStepInPrevious());
+			releaseVariables(trace, previousStepOver);
 
 		}
 	}
 
+	/**
+	 * in streaming mode, keep the variables of a processed step out of the heap again.
+	 */
+	private void releaseVariables(Trace trace, TraceNode node) {
+		if (trace.isSpilling() && node != null) {
+			node.releaseVariables();
+		}
+	}
+
 	public AgentParams getAgentParams() {
 		return agentParams;
 	}
 
+	@Override
+	public void startHostRun0() {
+		ExecutionTracer.reset();
+		ExecutionTracer.appJavaClassPath.setLaunchClass(agentParams.getLaunchClass());
+		ExecutionTracer.setExpectedSteps(agentParams.getExpectedSteps());
+		/* the segments are stored next to the dump file of the run */
+		ExecutionTracer.setSpillingWindow(agentParams.getSpillingWindow(), getSegmentFolder());
+		startStreaming();
+	}
+
 	@Override
 	public void startTest(String junitClass, String junitMethod) {
 		ExecutionTracer._start();
@@ -12,6 +12,7 @@ import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
 import microbat.instrumentation.cfgcoverage.runtime.AgentRuntimeData;
 import microbat.instrumentation.cfgcoverage.runtime.CoverageTracer;
+import microbat.instrumentation.cfgcoverage.runtime.ExecutionPath;
 import microbat.instrumentation.cfgcoverage.runtime.MethodExecutionData;
 import sav.common.core.utils.CollectionUtils;
 
@@ -20,19 +21,20 @@ public class CFGCoverageHandler implements ICoverageTracerHandler {
 	@Override
 	public CoverageOutput getCoverageOutput() {
 		CoverageSFlowGraph coverageGraph = AgentRuntimeData.coverageFlowGraph;
-		Map<List<Integer>, List<Integer>> pathMap = new HashMap<>(); // path to tcs
+		Map<ExecutionPath, List<Integer>> pathMap = new HashMap<>(); // path to tcs
 		for (Entry<Integer, List<MethodExecutionData>> entry : CoverageTracer.methodExecsOnASingleTcMap.entrySet()) {
 			for (MethodExecutionData methodExecData : entry.getValue()) {
-				CollectionUtils.getListInitIfEmpty(pathMap, methodExecData.getExecPathId()).add(entry.getKey());
+				CollectionUtils.getListInitIfEmpty(pathMap, methodExecData.getExecPath()).add(entry.getKey());
 				methodExecData.calculateBranchFitnessMap(coverageGraph);
 			}
 		}
 		List<CoveragePath> coveredPaths = new ArrayList<>(pathMap.size());
-		for (Entry<List<Integer>, List<Integer>> entry : pathMap.entrySet()) {
+		for (Entry<ExecutionPath, List<Integer>> entry : pathMap.entrySet()) {
 			CoveragePath path = new CoveragePath();
 			path.setCoveredTcs(entry.getValue());
-			List<CoverageSFNode> nodes = new ArrayList<>();
-			for (int nodeId : entry.getKey()) {
+			int[] nodeIds = entry.getKey().toArray();
+			List<CoverageSFNode> nodes = new ArrayList<>(nodeIds.length);
+			for (int nodeId : nodeIds) {
 				nodes.add(coverageGraph.getNodeList().get(nodeId));
 			}
 			path.setPath(nodes);
@@ -127,6 +127,14 @@ public class CoverageAgent extends Agent {
 		// do nothing for now.
 	}
 
+	/**
+	 * the coverage graph is collected over all the test cases of one jvm.
+	 */
+	@Override
+	public void startHostRun0() {
+		throw new UnsupportedOperationException("coverage agent does not support host mode!");
+	}
+
 	@Override
 	public boolean isInstrumentationActive0() {
 		return true;
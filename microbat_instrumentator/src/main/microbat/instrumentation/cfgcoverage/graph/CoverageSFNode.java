@@ -2,16 +2,17 @@ package microbat.instrumentation.cfgcoverage.graph;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import microbat.codeanalysis.bytecode.CFGNode;
 import microbat.instrumentation.cfgcoverage.graph.CFGInstance.UniqueNodeId;
-import microbat.instrumentation.utils.CollectionUtils;
 
 /**
  * @author lyly
@@ -30,11 +31,12 @@ public class CoverageSFNode implements IGraphNode<CoverageSFNode> {
 	private List<CoverageSFNode> branchTargets = new ArrayList<>(2);
 	private List<CoverageSFNode> parents = new ArrayList<>(2);
 	
-	private volatile List<String> coveredTestcases = new ArrayList<>();
+	/* indexes of covered testcases in CoverageSFlowGraph.coveredTestcases */
+	private volatile BitSet coveredTcIdxies = new BitSet();
 	/* for block node */
 	private List<Integer> content; // for a block node which contain all nodes in block from start to end.
 	/* for conditional node */
-	private volatile Map<CoverageSFNode, List<String>> coveredTestcasesOnBranches = new HashMap<CoverageSFNode, List<String>>();
+	private volatile Map<CoverageSFNode, BitSet> coveredTcIdxiesOnBranches = new HashMap<CoverageSFNode, BitSet>();
 
 	public CoverageSFNode(int cvgIdx, CoverageSFlowGraph graph) {
 		this.graph = graph;
@@ -91,20 +93,36 @@ public class CoverageSFNode implements IGraphNode<CoverageSFNode> {
 		return null; 
 	}
 	
-	public boolean isCovered() {
-		return !CollectionUtils.isEmpty(coveredTestcases);
+	public synchronized boolean isCovered() {
+		return !coveredTcIdxies.isEmpty();
 	}
 	
-	public List<CoverageSFNode> getCoveredBranches() {
-		return new ArrayList<>(coveredTestcasesOnBranches.keySet());
+	public synchronized List<CoverageSFNode> getCoveredBranches() {
+		return new ArrayList<>(coveredTcIdxiesOnBranches.keySet());
 	}
 
-	public List<String> getCoveredTestcases() {
-		return coveredTestcases;
+	/**
+	 * @return names of the covered testcases, resolved from the testcase indexes of the graph.
+	 */
+	public synchronized List<String> getCoveredTestcases() {
+		return toTestcases(coveredTcIdxies);
+	}
+	
+	public BitSet getCoveredTcIdxies() {
+		return coveredTcIdxies;
 	}
 
-	public void setCoveredTestcases(List<String> coveredTestcases) {
-		this.coveredTestcases = coveredTestcases;
+	public void setCoveredTcIdxies(BitSet coveredTcIdxies) {
+		this.coveredTcIdxies = coveredTcIdxies;
+	}
+	
+	private List<String> toTestcases(BitSet tcIdxies) {
+		List<String> allTestcases = graph.getCoveredTestcases();
+		List<String> testcases = new ArrayList<>(tcIdxies.cardinality());
+		for (int i = tcIdxies.nextSetBit(0); i >= 0; i = tcIdxies.nextSetBit(i + 1)) {
+			testcases.add(allTestcases.get(i));
+		}
+		return testcases;
 	}
 
 	public List<CoverageSFNode> getBranchTargets() {
@@ -193,33 +211,44 @@ public class CoverageSFNode implements IGraphNode<CoverageSFNode> {
 		CONDITION_NODE, BLOCK_NODE, INVOKE_NODE, ALIAS_NODE
 	}
 
-	public void addCoveredTestcase(String testcase) {
-		if (!coveredTestcases.contains(testcase)) {
-			coveredTestcases.add(testcase);
-		}
+	/**
+	 * @param testIdx
+	 *            index of the testcase in CoverageSFlowGraph.coveredTestcases.
+	 */
+	public synchronized void addCoveredTestcase(int testIdx) {
+		coveredTcIdxies.set(testIdx);
 	}
 
-	public void markCoveredBranch(CoverageSFNode branch, String testcase) {
-		List<String> tcs = coveredTestcasesOnBranches.get(branch);
-		if (tcs == null) {
-			tcs = new ArrayList<>();
-			coveredTestcasesOnBranches.put(branch, tcs);
-		}
-		if (!tcs.contains(testcase)) {
-			tcs.add(testcase);
+	public synchronized void markCoveredBranch(CoverageSFNode branch, int testIdx) {
+		BitSet tcIdxies = coveredTcIdxiesOnBranches.get(branch);
+		if (tcIdxies == null) {
+			tcIdxies = new BitSet();
+			coveredTcIdxiesOnBranches.put(branch, tcIdxies);
 		}
+		tcIdxies.set(testIdx);
 	}
 	
 	public void setEndIdx(int endIdx) {
 		this.endIdx = endIdx;
 	}
 
-	public Map<CoverageSFNode, List<String>> getCoveredTestcasesOnBranches() {
-		return coveredTestcasesOnBranches;
+	/**
+	 * @return names of the testcases covering each branch, resolved from the testcase indexes of the graph.
+	 */
+	public synchronized Map<CoverageSFNode, List<String>> getCoveredTestcasesOnBranches() {
+		Map<CoverageSFNode, List<String>> map = new HashMap<>();
+		for (Entry<CoverageSFNode, BitSet> entry : coveredTcIdxiesOnBranches.entrySet()) {
+			map.put(entry.getKey(), toTestcases(entry.getValue()));
+		}
+		return map;
+	}
+	
+	public Map<CoverageSFNode, BitSet> getCoveredTcIdxiesOnBranches() {
+		return coveredTcIdxiesOnBranches;
 	}
 
-	public void setCoveredTestcasesOnBranches(Map<CoverageSFNode, List<String>> coveredTestcasesOnBranches) {
-		this.coveredTestcasesOnBranches = coveredTestcasesOnBranches;
+	public void setCoveredTcIdxiesOnBranches(Map<CoverageSFNode, BitSet> coveredTcIdxiesOnBranches) {
+		this.coveredTcIdxiesOnBranches = coveredTcIdxiesOnBranches;
 	}
 
 	public boolean isAliasNode() {
@@ -314,9 +343,9 @@ public class CoverageSFNode implements IGraphNode<CoverageSFNode> {
 		return type == Type.CONDITION_NODE;
 	}
 
-	public void clearCoverageInfo() {
-		coveredTestcases.clear();
-		coveredTestcasesOnBranches.clear();
+	public synchronized void clearCoverageInfo() {
+		coveredTcIdxies.clear();
+		coveredTcIdxiesOnBranches.clear();
 	}
 
 	public void setGraph(CoverageSFlowGraph graph) {
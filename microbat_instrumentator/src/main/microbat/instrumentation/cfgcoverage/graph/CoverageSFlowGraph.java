@@ -1,6 +1,7 @@
 package microbat.instrumentation.cfgcoverage.graph;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -151,16 +152,32 @@ public class CoverageSFlowGraph implements IGraph<CoverageSFNode> {
 	}
 	
 	public void addCoverageInfo(CoverageSFlowGraph otherCoverage) {
-		this.coveredTestcases.addAll(otherCoverage.coveredTestcases);
+		/* testcases of the other graph are mapped to their index in this graph, new ones are appended */
+		Map<String, Integer> tcIdxMap = new HashMap<>();
+		for (int i = 0; i < coveredTestcases.size(); i++) {
+			tcIdxMap.put(coveredTestcases.get(i), i);
+		}
+		int[] otherTcIdxies = new int[otherCoverage.coveredTestcases.size()];
+		for (int i = 0; i < otherTcIdxies.length; i++) {
+			String testcase = otherCoverage.coveredTestcases.get(i);
+			Integer tcIdx = tcIdxMap.get(testcase);
+			if (tcIdx == null) {
+				tcIdx = addCoveredTestcase(testcase);
+				tcIdxMap.put(testcase, tcIdx);
+			}
+			otherTcIdxies[i] = tcIdx;
+		}
 		for (CoverageSFNode nodeCoverage : this.nodeList) {
 			CoverageSFNode otherNodeCoverage = otherCoverage.nodeList.get(nodeCoverage.getCvgIdx());
-			for (String testcase : otherNodeCoverage.getCoveredTestcases()) {
-				nodeCoverage.addCoveredTestcase(testcase);
+			BitSet tcIdxies = otherNodeCoverage.getCoveredTcIdxies();
+			for (int i = tcIdxies.nextSetBit(0); i >= 0; i = tcIdxies.nextSetBit(i + 1)) {
+				nodeCoverage.addCoveredTestcase(otherTcIdxies[i]);
 			}
-			for (Entry<CoverageSFNode, List<String>> entry : otherNodeCoverage.getCoveredTestcasesOnBranches()
-					.entrySet()) {
-				for (String testcase : entry.getValue()) {
-					nodeCoverage.markCoveredBranch(nodeList.get(entry.getKey().getCvgIdx()), testcase);
+			for (Entry<CoverageSFNode, BitSet> entry : otherNodeCoverage.getCoveredTcIdxiesOnBranches().entrySet()) {
+				CoverageSFNode branch = nodeList.get(entry.getKey().getCvgIdx());
+				BitSet branchTcIdxies = entry.getValue();
+				for (int i = branchTcIdxies.nextSetBit(0); i >= 0; i = branchTcIdxies.nextSetBit(i + 1)) {
+					nodeCoverage.markCoveredBranch(branch, otherTcIdxies[i]);
 				}
 			}
 		}
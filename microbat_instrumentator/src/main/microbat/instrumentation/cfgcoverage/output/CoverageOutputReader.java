@@ -3,6 +3,7 @@ package microbat.instrumentation.cfgcoverage.output;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,6 +13,7 @@ import microbat.instrumentation.cfgcoverage.graph.CoveragePath;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode.Type;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
+import microbat.instrumentation.cfgcoverage.runtime.ExecutionPath;
 import microbat.instrumentation.cfgcoverage.runtime.MethodExecutionData;
 import microbat.instrumentation.output.ByteConverter;
 import microbat.instrumentation.output.OutputReader;
@@ -69,9 +71,20 @@ public class CoverageOutputReader extends OutputReader{
 		if (size == -1) {
 			return null;
 		}
-		List<CoverageSFNode> list = new ArrayList<CoverageSFNode>(size);
+		int[] encoded = new int[size];
 		for (int i = 0; i < size; i++) {
-			list.add(allNodes.get(readVarInt()));
+			int value = readVarInt();
+			if ((value & 1) == 1) {
+				encoded[i] = -(value >>> 1);
+				encoded[++i] = readVarInt();
+			} else {
+				encoded[i] = value >>> 1;
+			}
+		}
+		int[] nodeIdxies = ExecutionPath.fromEncoded(encoded).toArray();
+		List<CoverageSFNode> list = new ArrayList<CoverageSFNode>(nodeIdxies.length);
+		for (int nodeIdx : nodeIdxies) {
+			list.add(allNodes.get(nodeIdx));
 		}
 		return list;
 	}
@@ -109,17 +122,17 @@ public class CoverageOutputReader extends OutputReader{
 			node.addBranch(nodeList.get(branchCvgNodeIdx));
 		}
 		/* covered testcases on node */
-		node.setCoveredTestcases(readListString());
+		node.setCoveredTcIdxies(readBitSet());
 		/* read covered testcases on branch */
 		/* covered testcases on branches */
-		Map<CoverageSFNode, List<String>> coveredTcsOnBranches = node.getCoveredTestcasesOnBranches();
+		Map<CoverageSFNode, BitSet> coveredTcsOnBranches = node.getCoveredTcIdxiesOnBranches();
 		size = readVarInt();
 		for (int i = 0; i < size; i++) {
 			int toNodeIdx = readVarInt();
-			List<String> coveredTcs = readListString();
+			BitSet coveredTcs = readBitSet();
 			coveredTcsOnBranches.put(nodeList.get(toNodeIdx), coveredTcs);
 		}
-		node.setCoveredTestcasesOnBranches(coveredTcsOnBranches);
+		node.setCoveredTcIdxiesOnBranches(coveredTcsOnBranches);
 		return node;
 	}
 	
@@ -2,12 +2,15 @@ package microbat.instrumentation.cfgcoverage.output;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import microbat.instrumentation.cfgcoverage.graph.CoveragePath;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
+import microbat.instrumentation.cfgcoverage.runtime.ExecutionPath;
 import microbat.instrumentation.cfgcoverage.runtime.MethodExecutionData;
 import microbat.instrumentation.output.OutputWriter;
 import sav.common.core.utils.CollectionUtils;
@@ -47,10 +50,28 @@ public class CoverageOutputWriter extends OutputWriter {
 		}
 	}
 	
+	/**
+	 * the path is written run-length encoded, see {@link ExecutionPath}, in which a node index is written as
+	 * (idx << 1), and a repeat as (loopSize << 1 | 1) followed by the number of repeats.
+	 */
 	private void writeListCoverageNode(List<CoverageSFNode> list) throws IOException {
-		writeSize(list);
-		for (CoverageSFNode value : CollectionUtils.nullToEmpty(list)) {
-			writeVarInt(value.getCvgIdx());
+		if (list == null) {
+			writeVarInt(-1);
+			return;
+		}
+		ExecutionPath path = new ExecutionPath();
+		for (CoverageSFNode value : list) {
+			path.append(value.getCvgIdx());
+		}
+		int[] encoded = path.getEncoded();
+		writeVarInt(encoded.length);
+		for (int i = 0; i < encoded.length; i++) {
+			if (encoded[i] < 0) {
+				writeVarInt((-encoded[i] << 1) | 1);
+				writeVarInt(encoded[++i]);
+			} else {
+				writeVarInt(encoded[i] << 1);
+			}
 		}
 	}
 	
@@ -79,25 +100,15 @@ public class CoverageOutputWriter extends OutputWriter {
 		for (CoverageSFNode branch : CollectionUtils.nullToEmpty(node.getBranchTargets())) {
 			writeVarInt(branch.getCvgIdx());
 		}
-		synchronized (node.getCoveredTestcases()) {
-			/* covered testcases on node */
-			boolean hasNull = false;
-			for (String id : node.getCoveredTestcases()) {
-				if (id == null) {
-					hasNull = true;
-				}
-			}
-			if (hasNull) {
-				System.out.println(String.format("WARNING-hasNull: [%s] [%s] [%s]", node.getCoveredTestcases(),
-						node, node.getCoveredTestcasesOnBranches()));
-			}
-			writeListString(node.getCoveredTestcases());
+		synchronized (node) {
+			/* covered testcases on node, as indexes of the covered testcases of the graph */
+			writeBitSet(node.getCoveredTcIdxies());
 			/* covered testcases on branches */
-			writeVarInt(node.getCoveredTestcasesOnBranches().keySet().size());
-			for (CoverageSFNode branch : node.getCoveredTestcasesOnBranches().keySet()) {
-				writeVarInt(branch.getCvgIdx());
-				List<String> coveredTcs = node.getCoveredTestcasesOnBranches().get(branch);
-				writeListString(coveredTcs);
+			Map<CoverageSFNode, BitSet> coveredTcsOnBranches = node.getCoveredTcIdxiesOnBranches();
+			writeVarInt(coveredTcsOnBranches.size());
+			for (Entry<CoverageSFNode, BitSet> entry : coveredTcsOnBranches.entrySet()) {
+				writeVarInt(entry.getKey().getCvgIdx());
+				writeBitSet(entry.getValue());
 			}
 		}
 	}
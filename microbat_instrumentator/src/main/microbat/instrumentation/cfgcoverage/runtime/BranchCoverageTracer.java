@@ -5,10 +5,12 @@ import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
 
 public class BranchCoverageTracer extends EmptyCoverageTracer implements ICoverageTracer {
 	private String testcase;
+	private int testIdx;
 	private CoverageSFNode currentNode;
 	private volatile boolean canceled = false;
 	
 	public BranchCoverageTracer(int currentTcIdx) {
+		this.testIdx = currentTcIdx;
 		this.testcase = AgentRuntimeData.coverageFlowGraph.getCoveredTestcases().get(currentTcIdx);
 	}
 	
@@ -22,7 +24,7 @@ public class BranchCoverageTracer extends EmptyCoverageTracer implements ICovera
 		} else {
 			CoverageSFNode branch = currentNode.getCorrespondingBranch(methodId, nodeIdx);
 			if (branch != null) {
-				currentNode.markCoveredBranch(branch, testcase);
+				currentNode.markCoveredBranch(branch, testIdx);
 				currentNode = branch;
 			} else {
 				AgentLogger.debug(String.format("cannot find branch %s:%d of node %d [testcase=%s]", methodId, nodeIdx,
@@ -30,7 +32,7 @@ public class BranchCoverageTracer extends EmptyCoverageTracer implements ICovera
 				return;
 			}
 		}
-		currentNode.addCoveredTestcase(testcase);
+		currentNode.addCoveredTestcase(testIdx);
 	}
 
 	public synchronized static ICoverageTracer _getTracer(String methodId) {
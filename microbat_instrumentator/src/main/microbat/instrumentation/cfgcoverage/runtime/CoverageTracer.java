@@ -46,7 +46,7 @@ public class CoverageTracer implements ICoverageTracer, ITracer {
 		} else {
 			CoverageSFNode branch = currentNode.getCorrespondingBranch(methodId, nodeIdx);
 			if (branch != null) {
-				currentNode.markCoveredBranch(branch, testcase);
+				currentNode.markCoveredBranch(branch, testIdx);
 				currentNode = branch;
 			} else {
 				if (!currentNode.isAliasNode()) {
@@ -57,7 +57,7 @@ public class CoverageTracer implements ICoverageTracer, ITracer {
 			}
 		}
 		methodExecData.appendExecPath(currentNode);
-		currentNode.addCoveredTestcase(testcase);
+		currentNode.addCoveredTestcase(testIdx);
 	}
 	
 	
@@ -0,0 +1,197 @@
+package microbat.instrumentation.cfgcoverage.runtime;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The sequence of coverage nodes (CoverageSFNode.cvgIdx) of an execution, kept in a primitive int buffer in
+ * which the iterations of a loop are run-length encoded.
+ * <br>
+ * The path is encoded while it is recorded: when a node is reached again within the last
+ * {@link #MAX_LOOP_SIZE} recorded nodes, the nodes since then are taken as the body of a loop, and as long as
+ * the following nodes repeat the body, only the number of repeats is counted. The encoded path is a list of
+ * node indexes (>= 0), in which a repeat is written as two values [-loopSize, repeats], meaning the loopSize
+ * nodes before it are repeated another [repeats] times. An inner loop is encoded, the outer loop containing
+ * it is not.
+ *
+ * @author lyly
+ *
+ */
+public class ExecutionPath implements Serializable {
+	private static final long serialVersionUID = -2417226102338620453L;
+	private static final int MAX_LOOP_SIZE = 64;
+
+	private transient int[] items;
+	private transient int size;
+	/* the first node after the last repeat, a loop body is only looked up from here */
+	private transient int tailStart;
+	/* the loop being repeated, loopStart = -1 if there is none */
+	private transient int loopStart = -1;
+	private transient int loopSize;
+	private transient int matched;
+	private transient int repeats;
+
+	public ExecutionPath() {
+		items = new int[16];
+	}
+
+	private ExecutionPath(int[] encoded) {
+		items = encoded;
+		size = encoded.length;
+		tailStart = size;
+	}
+
+	/**
+	 * @param encoded
+	 *            an encoded path, see {@link #getEncoded()}.
+	 */
+	public static ExecutionPath fromEncoded(int[] encoded) {
+		return new ExecutionPath(encoded);
+	}
+
+	public void append(int nodeIdx) {
+		if (loopStart >= 0) {
+			if (items[loopStart + matched] == nodeIdx) {
+				if (++matched == loopSize) {
+					matched = 0;
+					repeats++;
+				}
+				return;
+			}
+			closeLoop();
+		}
+		for (int i = size - 1; i >= tailStart && (size - i) <= MAX_LOOP_SIZE; i--) {
+			if (items[i] == nodeIdx) {
+				loopStart = i;
+				loopSize = size - i;
+				matched = 1;
+				repeats = 0;
+				if (matched == loopSize) {
+					matched = 0;
+					repeats = 1;
+				}
+				return;
+			}
+		}
+		add(nodeIdx);
+	}
+
+	private void closeLoop() {
+		int start = loopStart;
+		loopStart = -1;
+		if (repeats > 0) {
+			add(-loopSize);
+			add(repeats);
+			tailStart = size;
+		}
+		/* the nodes of an incomplete repeat */
+		for (int i = 0; i < matched; i++) {
+			add(items[start + i]);
+		}
+		matched = 0;
+		repeats = 0;
+	}
+
+	private void add(int value) {
+		if (size == items.length) {
+			items = Arrays.copyOf(items, Math.max(16, size * 2));
+		}
+		items[size++] = value;
+	}
+
+	/**
+	 * @return the encoded path, including the loop being repeated.
+	 */
+	public int[] getEncoded() {
+		int[] encoded = Arrays.copyOf(items, size + 2 + matched);
+		int n = size;
+		if (loopStart >= 0) {
+			if (repeats > 0) {
+				encoded[n++] = -loopSize;
+				encoded[n++] = repeats;
+			}
+			for (int i = 0; i < matched; i++) {
+				encoded[n++] = items[loopStart + i];
+			}
+		}
+		return (n == encoded.length) ? encoded : Arrays.copyOf(encoded, n);
+	}
+
+	/**
+	 * @return the decoded path.
+	 */
+	public int[] toArray() {
+		int[] encoded = getEncoded();
+		int length = 0;
+		for (int i = 0; i < encoded.length; i++) {
+			if (encoded[i] < 0) {
+				length += (-encoded[i]) * encoded[++i];
+			} else {
+				length++;
+			}
+		}
+		int[] path = new int[length];
+		int n = 0;
+		for (int i = 0; i < encoded.length; i++) {
+			if (encoded[i] < 0) {
+				int loopLength = -encoded[i];
+				int loopRepeats = encoded[++i];
+				for (int j = 0; j < loopRepeats; j++) {
+					System.arraycopy(path, n - loopLength, path, n, loopLength);
+					n += loopLength;
+				}
+			} else {
+				path[n++] = encoded[i];
+			}
+		}
+		return path;
+	}
+
+	public List<Integer> toList() {
+		int[] path = toArray();
+		List<Integer> list = new ArrayList<>(path.length);
+		for (int nodeIdx : path) {
+			list.add(nodeIdx);
+		}
+		return list;
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(getEncoded());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		return Arrays.equals(getEncoded(), ((ExecutionPath) obj).getEncoded());
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(getEncoded());
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeObject(getEncoded());
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		items = (int[]) in.readObject();
+		size = items.length;
+		tailStart = size;
+		loopStart = -1;
+	}
+}
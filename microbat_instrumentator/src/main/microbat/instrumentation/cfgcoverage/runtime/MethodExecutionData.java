@@ -1,7 +1,6 @@
 package microbat.instrumentation.cfgcoverage.runtime;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,21 +12,21 @@ import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
 import microbat.model.BreakPointValue;
 
 public class MethodExecutionData implements Serializable {
-	private static final long serialVersionUID = 2224373310288325990L;
+	private static final long serialVersionUID = 2224373310288325991L;
 	private int testIdx;
 	private BreakPointValue methodInputValue;
-	private List<Integer> execPath; // coverageSFNode.idx
+	private ExecutionPath execPath; // coverageSFNode.idx
 	private transient Map<Integer, Double> conditionVariationMap; // variation is always (b - a)
 	private Map<String, Double> branchFitnessMap;
 
 	public MethodExecutionData(int testIdx) {
 		this.testIdx = testIdx;
 		conditionVariationMap = new HashMap<>();
-		execPath = new ArrayList<>();
+		execPath = new ExecutionPath();
 	}
 	
 	public void appendExecPath(CoverageSFNode node) {
-		execPath.add(node.getCvgIdx());
+		execPath.append(node.getCvgIdx());
 	}
 	
 	public void addConditionVariation(int coverageSFNodeId, double condVariation) {
@@ -59,6 +58,10 @@ public class MethodExecutionData implements Serializable {
 	}
 	
 	public List<Integer> getExecPathId() {
+		return execPath.toList();
+	}
+	
+	public ExecutionPath getExecPath() {
 		return execPath;
 	}
 	
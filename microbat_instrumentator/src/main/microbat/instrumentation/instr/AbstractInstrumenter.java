@@ -31,6 +31,7 @@ import microbat.instrumentation.AgentLogger;
 public abstract class AbstractInstrumenter {
 	protected static final String CLASS_NAME = "$className"; // local var
 	protected static final String METHOD_SIGNATURE = "$methodSignature"; // local var
+	protected static final String METHOD_ID = "$methodId"; // local var
 	
 	protected BasicTypeSupporter basicTypeSupporter = new BasicTypeSupporter();
 
@@ -59,6 +60,11 @@ public abstract class AbstractInstrumenter {
 		return varGen;
 	}
 	
+	protected LocalVariableGen createMethodIdVariable(MethodGen methodGen) {
+		InstructionList list = methodGen.getInstructionList();
+		return methodGen.addLocalVariable(METHOD_ID, Type.INT, list.getStart(), list.getEnd());
+	}
+	
 	protected InstructionHandle insertInsnHandler(InstructionList insnList, InstructionList newInsns,
 			InstructionHandle insnHandler) {
 		updateTarget(insnHandler, newInsns.getStart(), insnHandler);
@@ -6,6 +6,7 @@ import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.security.ProtectionDomain;
 
+import microbat.instrumentation.Agent;
 import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.runtime.ExecutionTracer;
 import microbat.instrumentation.runtime.IExecutionTracer;
@@ -16,7 +17,8 @@ public abstract class AbstractTransformer implements ClassFileTransformer {
 	@Override
 	public final byte[] transform(ClassLoader loader, String classFName, Class<?> classBeingRedefined,
 			ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
-		if (ExecutionTracer.isShutdown()) {
+		/* in host mode, the classes loaded after a run is stopped are still instrumented for the next runs */
+		if (ExecutionTracer.isShutdown() && !Agent.isHostMode()) {
 			return null;
 		}
 		IExecutionTracer tracer = ExecutionTracer.getCurrentThreadStore();
@@ -9,6 +9,7 @@ import org.apache.bcel.generic.ASTORE;
 import org.apache.bcel.generic.ATHROW;
 import org.apache.bcel.generic.ClassGen;
 import org.apache.bcel.generic.ConstantPoolGen;
+import org.apache.bcel.generic.ILOAD;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
 import org.apache.bcel.generic.LocalVariableGen;
@@ -38,28 +39,23 @@ public class ClassLoaderInstrumenter extends TraceInstrumenter {
 		InstructionHandle tryStart = insnList.getStart();
 		InstructionHandle tryEnd = insnList.getEnd();
 		
-		LocalVariableGen classNameVar = createLocalVariable(CLASS_NAME, methodGen, constPool);
-		LocalVariableGen methodSigVar = createLocalVariable(METHOD_SIGNATURE, methodGen, constPool);
+		LocalVariableGen methodIdVar = createMethodIdVariable(methodGen);
 		LocalVariableGen tracerVar = methodGen.addLocalVariable(TRACER_VAR_NAME, Type.getType(IExecutionTracer.class),
 				insnList.getStart(), insnList.getEnd());
-		injectCodeTracerHitLine(insnList, constPool, tracerVar, ENTER_MARKER, insnList.getStart(), classNameVar,
-				methodSigVar, false, 0, 0, null);
+		injectCodeTracerHitLine(insnList, constPool, tracerVar, ENTER_MARKER, insnList.getStart(), methodIdVar, false, 0, 0, null);
 		List<InstructionHandle> returnInsns = extractReturnInstructions(insnList);
 		for (InstructionHandle returnInsnHandler : returnInsns) {
-			injectCodeTracerHitLine(insnList, constPool, tracerVar, EXIT_MARKER, returnInsnHandler, classNameVar,
-					methodSigVar, false, 0, 0, null);
+			injectCodeTracerHitLine(insnList, constPool, tracerVar, EXIT_MARKER, returnInsnHandler, methodIdVar, false, 0, 0, null);
 		}
 		
-		injectCodeInitTracer(methodGen, constPool, -1, -1, isAppClass, classNameVar,
-				methodSigVar, isMainMethod, tracerVar);
+		injectCodeInitTracer(methodGen, constPool, -1, -1, isAppClass, methodIdVar, isMainMethod, tracerVar);
 		
-		injectTryCatch(methodGen, tryStart, tryEnd, constPool, tracerVar, classNameVar, methodSigVar);
+		injectTryCatch(methodGen, tryStart, tryEnd, constPool, tracerVar, methodIdVar);
 		return true;
 	}
 	
 	private void injectTryCatch(MethodGen methodGen, InstructionHandle tryStart, InstructionHandle tryEnd,
-			ConstantPoolGen constPool, LocalVariableGen tracerVar, LocalVariableGen classNameVar,
-			LocalVariableGen methodSigVar) {
+			ConstantPoolGen constPool, LocalVariableGen tracerVar, LocalVariableGen methodIdVar) {
 		
 		InstructionList list = methodGen.getInstructionList();
 		LocalVariableGen exVar = methodGen.addLocalVariable("$ex", Type.THROWABLE, list.getStart(), list.getEnd());
@@ -69,8 +65,7 @@ public class ClassLoaderInstrumenter extends TraceInstrumenter {
 		newInsns.append(new ASTORE(exVar.getIndex()));
 		newInsns.append(new ALOAD(tracerVar.getIndex()));
 		newInsns.append(new PUSH(constPool, EXIT_MARKER));
-		newInsns.append(new ALOAD(classNameVar.getIndex()));
-		newInsns.append(new ALOAD(methodSigVar.getIndex()));
+		newInsns.append(new ILOAD(methodIdVar.getIndex()));
 		appendTracerMethodInvoke(newInsns, tracerMethod, constPool);
 		
 		newInsns.append(new ALOAD(exVar.getIndex()));
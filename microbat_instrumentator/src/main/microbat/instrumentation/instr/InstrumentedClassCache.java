@@ -0,0 +1,203 @@
+package microbat.instrumentation.instr;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+import microbat.instrumentation.AgentParams;
+import microbat.instrumentation.instr.instruction.info.EntryPoint;
+
+/**
+ * An on-disk cache of the classes instrumented by {@link TraceTransformer}, so that the classes of a build
+ * are only instrumented once across runs. An instrumented class is keyed by the hash of its original class
+ * file, whether it is an app class, the agent params which the instrumentation depends on, and the version
+ * of the agent, i.e., the hash of the agent jar.
+ * <br>
+ * The classes which are not instrumented are not cached, as they are usually rejected before being parsed.
+ * In single pass mode, the over long methods detected on instrumenting a class are stored with it, so that
+ * they are still reported when the class is taken from the cache.
+ *
+ * @author Yun Lin
+ *
+ */
+public class InstrumentedClassCache {
+	private static final int FILE_VERSION = 2;
+	private static String agentVersion;
+	private static boolean isAgentVersionResolved;
+
+	private File storeFolder;
+	private String paramsKey;
+
+	/**
+	 * @return whether the version of the agent is known, otherwise, the classes instrumented by another
+	 *         version of the agent could not be distinguished.
+	 */
+	public static boolean isAvailable() {
+		return getAgentVersion() != null;
+	}
+
+	public InstrumentedClassCache(String folder, AgentParams params) {
+		storeFolder = new File(folder);
+		storeFolder.mkdirs();
+		paramsKey = getParamsKey(params);
+	}
+
+	/**
+	 * @return the agent params which the instrumentation depends on.
+	 */
+	private static String getParamsKey(AgentParams params) {
+		StringBuilder sb = new StringBuilder();
+		EntryPoint entryPoint = params.getEntryPoint();
+		if (entryPoint != null) {
+			sb.append(entryPoint.getClassName()).append(".").append(entryPoint.getMethodName())
+				.append(entryPoint.getMethodSignature());
+		}
+		sb.append("\n").append(params.getIncludesExpression())
+			.append("\n").append(params.getExcludesExpression())
+			.append("\n").append(params.getVariableLayer())
+			.append("\n").append(params.isRequireMethodSplit())
+			.append("\n").append(params.isSinglePass())
+			.append("\n").append(new TreeSet<String>(params.getOverlongMethods()))
+			.append("\n").append(params.getCodeRanges());
+		return sb.toString();
+	}
+
+	public String getKey(String classFName, boolean isAppClass, byte[] classfileBuffer) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			digest.update(getAgentVersion().getBytes(StandardCharsets.UTF_8));
+			digest.update(paramsKey.getBytes(StandardCharsets.UTF_8));
+			digest.update(classFName.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) (isAppClass ? 1 : 0));
+			digest.update(classfileBuffer);
+			return toHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return the instrumented class of the given key, or null if it has not been cached.
+	 */
+	public CachedClass get(String key) {
+		File file = new File(storeFolder, key);
+		if (!file.exists()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != FILE_VERSION) {
+				return null;
+			}
+			List<String> overlongMethods = new ArrayList<>();
+			for (int i = in.readInt(); i > 0; i--) {
+				overlongMethods.add(in.readUTF());
+			}
+			byte[] data = new byte[in.readInt()];
+			in.readFully(data);
+			return new CachedClass(data, overlongMethods);
+		} catch (IOException e) {
+			/* a broken or partly written file, the class is instrumented again */
+			return null;
+		}
+	}
+
+	/**
+	 * @param overlongMethods the over long methods detected on instrumenting the class.
+	 */
+	public void put(String key, byte[] data, Collection<String> overlongMethods) {
+		File file = new File(storeFolder, key);
+		/* write to a temporary file first, as the same class might be stored by concurrent runs */
+		File tmp = new File(storeFolder, key + "." + Thread.currentThread().getId() + "." + System.nanoTime()
+				+ ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+				out.writeInt(FILE_VERSION);
+				out.writeInt(overlongMethods.size());
+				for (String method : overlongMethods) {
+					out.writeUTF(method);
+				}
+				out.writeInt(data.length);
+				out.write(data);
+			}
+			file.delete();
+			if (!tmp.renameTo(file)) {
+				tmp.delete();
+			}
+		} catch (IOException e) {
+			/* the cache is only an optimization */
+			tmp.delete();
+		}
+	}
+
+	/**
+	 * @return the hash of the jar of the agent, or of the instrumenter class if the agent is not run from a
+	 *         jar, or null if it can not be read.
+	 */
+	private static synchronized String getAgentVersion() {
+		if (!isAgentVersionResolved) {
+			isAgentVersionResolved = true;
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-1");
+				URL url = TraceInstrumenter.class.getResource(TraceInstrumenter.class.getSimpleName() + ".class");
+				if ("jar".equals(url.getProtocol())) {
+					String jarPath = url.getPath().substring(0, url.getPath().indexOf("!/"));
+					url = new URL(jarPath);
+				}
+				try (InputStream in = new BufferedInputStream(url.openStream())) {
+					byte[] buffer = new byte[8192];
+					int read;
+					while ((read = in.read(buffer)) != -1) {
+						digest.update(buffer, 0, read);
+					}
+				}
+				agentVersion = toHex(digest.digest());
+			} catch (Exception e) {
+				agentVersion = null;
+			}
+		}
+		return agentVersion;
+	}
+
+	private static String toHex(byte[] digest) {
+		StringBuilder sb = new StringBuilder(digest.length * 2);
+		for (byte b : digest) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * An instrumented class and the over long methods detected on instrumenting it.
+	 */
+	public static class CachedClass {
+		private byte[] data;
+		private List<String> overlongMethods;
+
+		CachedClass(byte[] data, List<String> overlongMethods) {
+			this.data = data;
+			this.overlongMethods = overlongMethods;
+		}
+
+		public byte[] getData() {
+			return data;
+		}
+
+		public List<String> getOverlongMethods() {
+			return overlongMethods;
+		}
+	}
+}
@@ -68,7 +68,7 @@ public class ThreadInstrumenter extends AbstractInstrumenter {
 	private boolean instrumentStartMethod(ClassGen classGen, ConstantPoolGen constPool, MethodGen methodGen,
 			Method startMethod) {
 		InstructionList newInsns = new InstructionList();
-		int index = constPool.addInterfaceMethodref(Agent.class.getName().replace(".", "/"), "_onStartThread", "()V");
+		int index = constPool.addMethodref(Agent.class.getName().replace(".", "/"), "_onStartThread", "()V");
 		newInsns.append(new INVOKESTATIC(index));
 		InstructionList instructionList = methodGen.getInstructionList();
 		InstructionHandle startInsn = instructionList.getStart();
@@ -1,8 +1,11 @@
 package microbat.instrumentation.instr;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
@@ -27,10 +30,12 @@ import org.apache.bcel.generic.FieldInstruction;
 import org.apache.bcel.generic.GETFIELD;
 import org.apache.bcel.generic.GETSTATIC;
 import org.apache.bcel.generic.IINC;
+import org.apache.bcel.generic.ILOAD;
 import org.apache.bcel.generic.INVOKEINTERFACE;
 import org.apache.bcel.generic.INVOKESPECIAL;
 import org.apache.bcel.generic.INVOKESTATIC;
 import org.apache.bcel.generic.INVOKEVIRTUAL;
+import org.apache.bcel.generic.ISTORE;
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
@@ -62,17 +67,26 @@ import microbat.instrumentation.instr.instruction.info.LineInstructionInfo;
 import microbat.instrumentation.instr.instruction.info.LocalVarInstructionInfo;
 import microbat.instrumentation.instr.instruction.info.RWInstructionInfo;
 import microbat.instrumentation.runtime.IExecutionTracer;
+import microbat.instrumentation.runtime.MethodRegistry;
 import microbat.instrumentation.runtime.TraceUtils;
 import microbat.instrumentation.utils.MicrobatUtils;
 
 public class TraceInstrumenter extends AbstractInstrumenter {
 	protected static final String TRACER_VAR_NAME = "$tracer"; // local var
 	private static final String TEMP_VAR_NAME = "$tempVar"; // local var
+	/*
+	 * the over long methods detected in single pass mode by class name, kept here as the agent is recreated
+	 * on shutdown, and cleared when the agent starts up
+	 */
+	private static final ConcurrentHashMap<String, Set<String>> detectedOverlongMethods = new ConcurrentHashMap<>();
 	
 	private int tempVarIdx = 0;
 	private EntryPoint entryPoint;
 	private Set<String> requireSplittingMethods = Collections.emptySet();
 	private UserFilters userFilters;
+	/* in single pass mode, the over long methods which are detected on instrumenting */
+	private Set<String> overlongMethods;
+	private boolean detectOverlongMethods;
 	
 	TraceInstrumenter() {
 	}
@@ -83,6 +97,8 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 			this.requireSplittingMethods = params.getOverlongMethods();
 		}
 		this.userFilters = params.getUserFilters();
+		this.overlongMethods = params.getOverlongMethods();
+		this.detectOverlongMethods = params.isSinglePass();
 	}
 
 	@Override
@@ -95,6 +111,7 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 		if (!userFilters.isInstrumentable(className)) {
 			return null;
 		}
+		boolean overlongMethodDetected = false;
 		for (Method method : jc.getMethods()) {
 			if (method.isNative() || method.isAbstract() || method.getCode() == null) {
 				continue; // Only instrument methods with code in them!
@@ -116,6 +133,7 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 						method, isAppClass, isMainMethod, isEntry);
 				if (generatedMethods != null) {
 					if (doesBytecodeExceedLimit(generatedMethods)) {
+						overlongMethodDetected |= detectOverlongMethod(classGen, method);
 						AgentLogger.info(String.format("Warning: %s exceeds bytecode limit!",
 								MicrobatUtils.getMicrobatMethodFullName(classGen.getClassName(), method)));
 					} else {
@@ -139,12 +157,20 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 				String message = e.getMessage();
 				if (e.getMessage() != null && e.getMessage().contains("offset too large")) {
 					message = "offset too large";
+					overlongMethodDetected |= detectOverlongMethod(classGen, method);
 				}
 				AgentLogger.info(String.format("Warning: %s [%s]",
 						MicrobatUtils.getMicrobatMethodFullName(classGen.getClassName(), method), message));
 				AgentLogger.error(e);
 			}
 		}
+		if (overlongMethodDetected) {
+			/*
+			 * the class is not defined yet, so instead of retransforming it later, it is instrumented again with
+			 * the over long methods filtered, or split if required, as if they were reported by a precheck.
+			 */
+			return instrument(classFName, className, jc);
+		}
 		if (newJC != null) {
 			byte[] data = newJC.getBytes();
 			return data;
@@ -152,6 +178,65 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 		return null;
 	}
 	
+	/**
+	 * @return whether the method is newly detected as over long in single pass mode.
+	 */
+	private boolean detectOverlongMethod(ClassGen classGen, Method method) {
+		if (!detectOverlongMethods) {
+			return false;
+		}
+		String methodFullName = MicrobatUtils.getMicrobatMethodFullName(classGen.getClassName(), method);
+		getDetectedOverlongMethods0(classGen.getClassName()).add(methodFullName);
+		return overlongMethods.add(methodFullName);
+	}
+	
+	/**
+	 * in single pass mode, registers the over long methods of a class which is not instrumented again, i.e.
+	 * the ones detected when its instrumented bytes were cached, so that they are still reported.
+	 */
+	public void registerOverlongMethods(String className, Collection<String> methods) {
+		if (!detectOverlongMethods || methods.isEmpty()) {
+			return;
+		}
+		getDetectedOverlongMethods0(className).addAll(methods);
+		overlongMethods.addAll(methods);
+	}
+	
+	private static Set<String> getDetectedOverlongMethods0(String className) {
+		Set<String> methods = detectedOverlongMethods.get(className);
+		if (methods == null) {
+			methods = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+			Set<String> existing = detectedOverlongMethods.putIfAbsent(className, methods);
+			if (existing != null) {
+				methods = existing;
+			}
+		}
+		return methods;
+	}
+	
+	public static void clearDetectedOverlongMethods() {
+		detectedOverlongMethods.clear();
+	}
+	
+	public static Set<String> getDetectedOverlongMethods() {
+		Set<String> methods = new LinkedHashSet<>();
+		for (Set<String> classMethods : detectedOverlongMethods.values()) {
+			methods.addAll(classMethods);
+		}
+		return methods;
+	}
+	
+	/**
+	 * @return the over long methods detected in the given class in single pass mode.
+	 */
+	public static Set<String> getDetectedOverlongMethods(String className) {
+		Set<String> methods = detectedOverlongMethods.get(className);
+		if (methods == null) {
+			return Collections.emptySet();
+		}
+		return methods;
+	}
+	
 	private boolean isThread(JavaClass jc) {
 		try {
 			for(JavaClass interf: jc.getAllInterfaces()) {
@@ -234,8 +319,7 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 		if (startLine == Integer.MAX_VALUE) {
 			startLine = AgentConstants.UNKNOWN_LINE;
 		}
-		LocalVariableGen classNameVar = createLocalVariable(CLASS_NAME, methodGen, constPool);
-		LocalVariableGen methodSigVar = createLocalVariable(METHOD_SIGNATURE, methodGen, constPool);
+		LocalVariableGen methodIdVar = createMethodIdVariable(methodGen);
 		LocalVariableGen tracerVar = methodGen.addLocalVariable(TRACER_VAR_NAME, Type.getType(IExecutionTracer.class),
 				insnList.getStart(), insnList.getEnd());
 		
@@ -245,23 +329,23 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 			List<RWInstructionInfo> rwInsns = lineInfo.getRWInstructions();
 //			if (lineInfo.hasNoInstrumentation()) {
 			injectCodeTracerHitLine(insnList, constPool, tracerVar, lineInfo.getLine(), lineInfo.getLineNumberInsn(),
-					classNameVar, methodSigVar, lineInfo.hasExceptionTarget(), lineInfo.getReadWriteInsnTotal(false),
+					methodIdVar, lineInfo.hasExceptionTarget(), lineInfo.getReadWriteInsnTotal(false),
 					lineInfo.getReadWriteInsnTotal(true), lineInfo);
 //			}
 			for (RWInstructionInfo rwInsnInfo : rwInsns) {
 				InstructionList newInsns = null;
 				if (rwInsnInfo instanceof FieldInstructionInfo) {
-					newInsns = getInjectCodeTracerRWriteField(constPool, tracerVar, (FieldInstructionInfo) rwInsnInfo, classNameVar, methodSigVar);
+					newInsns = getInjectCodeTracerRWriteField(constPool, tracerVar, (FieldInstructionInfo) rwInsnInfo, methodIdVar);
 				} else if (rwInsnInfo instanceof ArrayInstructionInfo) {
 					newInsns = getInjectCodeTracerRWriteArray(methodGen, constPool, tracerVar,
-							(ArrayInstructionInfo) rwInsnInfo, classNameVar, methodSigVar);
+							(ArrayInstructionInfo) rwInsnInfo, methodIdVar);
 				} else if (rwInsnInfo instanceof LocalVarInstructionInfo) {
 					if (rwInsnInfo.getInstruction() instanceof IINC) {
 						newInsns = getInjectCodeTracerIINC(constPool, tracerVar,
-								(LocalVarInstructionInfo) rwInsnInfo, classNameVar, methodSigVar);
+								(LocalVarInstructionInfo) rwInsnInfo, methodIdVar);
 					} else {
 						newInsns = getInjectCodeTracerRWLocalVar(constPool, tracerVar,
-								(LocalVarInstructionInfo) rwInsnInfo, classNameVar, methodSigVar);
+								(LocalVarInstructionInfo) rwInsnInfo, methodIdVar);
 					}
 				}
 				if ((newInsns != null) && (newInsns.getLength() > 0)) {
@@ -286,43 +370,49 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 			InstructionFactory instructionFactory = new InstructionFactory(classGen, constPool);
 			for (InstructionHandle insn : lineInfo.getInvokeInstructions()) {
 				injectCodeTracerInvokeMethod(methodGen, insnList, constPool, instructionFactory, tracerVar, insn, line,
-						classNameVar, methodSigVar, isAppClass);
+						methodIdVar, isAppClass);
 			}
 			/* instrument Return instructions */
 			for (InstructionHandle insn : lineInfo.getReturnInsns()) {
-				injectCodeTracerReturn(insnList, constPool, tracerVar, insn, line, classNameVar, methodSigVar);
+				injectCodeTracerReturn(insnList, constPool, tracerVar, insn, line, methodIdVar);
 			}
 
 			/**
 			 * instrument exit instructions
 			 */
 			for (InstructionHandle exitInsHandle : lineInfo.getExitInsns()) {
-				injectCodeTracerExit(exitInsHandle, insnList, constPool, tracerVar, line, classNameVar, methodSigVar, isMainMethod, isEntry);
+				injectCodeTracerExit(exitInsHandle, insnList, constPool, tracerVar, line, methodIdVar, methodGen,
+						isMainMethod, isEntry);
 			}
 
 			lineInfo.dispose();
 		}
-		injectCodeInitTracer(methodGen, constPool, startLine, endLine, isAppClass, classNameVar,
-				methodSigVar, isMainMethod, tracerVar);
+		injectCodeInitTracer(methodGen, constPool, startLine, endLine, isAppClass, methodIdVar, isMainMethod, tracerVar);
 		return true;
 	}
 
+	/**
+	 * @return className#methodName(desc), the key of the method in {@link MethodRegistry}.
+	 */
+	private String getMethodSignature(MethodGen methodGen) {
+		String className = methodGen.getClassName().replace("/", ".");
+		return className + "#" + methodGen.getName() + methodGen.getSignature();
+	}
+
 	private void injectCodeTracerExit(InstructionHandle exitInsHandle, InstructionList insnList, 
-			ConstantPoolGen constPool, LocalVariableGen tracerVar, int line, LocalVariableGen classNameVar, 
-			LocalVariableGen methodSigVar, boolean isMainMethod, boolean isEntry) {
+			ConstantPoolGen constPool, LocalVariableGen tracerVar, int line, LocalVariableGen methodIdVar,
+			MethodGen methodGen, boolean isMainMethod, boolean isEntry) {
 		InstructionList newInsns = new InstructionList();
 		
 		newInsns.append(new ALOAD(tracerVar.getIndex()));
 		newInsns.append(new PUSH(constPool, line));
-		newInsns.append(new ALOAD(classNameVar.getIndex()));
-		newInsns.append(new ALOAD(methodSigVar.getIndex()));
+		newInsns.append(new ILOAD(methodIdVar.getIndex()));
 		appendTracerMethodInvoke(newInsns, TracerMethods.HIT_METHOD_END, constPool);
 		
 		if (isMainMethod || isEntry) {
-			int index = constPool.addInterfaceMethodref(Agent.class.getName().replace(".", "/"), "_exitProgram",
+			int index = constPool.addMethodref(Agent.class.getName().replace(".", "/"), "_exitProgram",
 					"(Ljava/lang/String;)V");
-			newInsns.append(new ALOAD(classNameVar.getIndex()));
-			newInsns.append(new ALOAD(methodSigVar.getIndex()));
+			newInsns.append(new PUSH(constPool, getMethodSignature(methodGen)));
 			newInsns.append(new INVOKESTATIC(index));
 		}
 		
@@ -331,14 +421,13 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 	}
 
 	private void injectCodeTracerReturn(InstructionList insnList, ConstantPoolGen constPool, LocalVariableGen tracerVar,
-			InstructionHandle insnHandler, int line, LocalVariableGen classNameVar, LocalVariableGen methodSigVar) {
+			InstructionHandle insnHandler, int line, LocalVariableGen methodIdVar) {
 		InstructionList newInsns = new InstructionList();
 		ReturnInstruction insn = (ReturnInstruction) insnHandler.getInstruction();
 		if (insn instanceof RETURN) {
 			newInsns.append(new ALOAD(tracerVar.getIndex()));
 			newInsns.append(new PUSH(constPool, line));
-			newInsns.append(new ALOAD(classNameVar.getIndex()));
-			newInsns.append(new ALOAD(methodSigVar.getIndex()));
+			newInsns.append(new ILOAD(methodIdVar.getIndex()));
 			appendTracerMethodInvoke(newInsns, TracerMethods.HIT_VOID_RETURN, constPool);
 		} else {
 			Type type = insn.getType();
@@ -369,8 +458,7 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 			newInsns.append(new PUSH(constPool, line)); 
 			// val*, tracer, val*, returnGeneralType, line
 			
-			newInsns.append(new ALOAD(classNameVar.getIndex()));
-			newInsns.append(new ALOAD(methodSigVar.getIndex()));
+			newInsns.append(new ILOAD(methodIdVar.getIndex()));
 			appendTracerMethodInvoke(newInsns, TracerMethods.HIT_RETURN, constPool);
 			// val
 		}
@@ -380,7 +468,7 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 
 	private void injectCodeTracerInvokeMethod(MethodGen methodGen, InstructionList insnList, ConstantPoolGen constPool,
 			InstructionFactory instructionFactory, LocalVariableGen tracerVar, InstructionHandle insnHandler,
-			int line, LocalVariableGen classNameVar, LocalVariableGen methodSigVar, boolean isAppClass) {
+			int line, LocalVariableGen methodIdVar, boolean isAppClass) {
 		InvokeInstruction insn = (InvokeInstruction) insnHandler.getInstruction();
 		String className = insn.getClassName(constPool);
 
@@ -463,8 +551,7 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 		// (objectRef), invokeType, methodName, params, paramTypesCode, returnTypeSign
 		
 		newInsns.append(new PUSH(constPool, line));
-		newInsns.append(new ALOAD(classNameVar.getIndex()));
-		newInsns.append(new ALOAD(methodSigVar.getIndex()));
+		newInsns.append(new ILOAD(methodIdVar.getIndex()));
 		appendTracerMethodInvoke(newInsns, tracerMethod, constPool);
 		
 		/* on stack: (objectRef) */
@@ -491,13 +578,13 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 		newInsns.dispose();
 		/* after_invoke */
 		if (isAppClass) {
-			injectCodeAfterInvoke(insnList, constPool, tracerVar, insnHandler, line, classNameVar, methodSigVar,
+			injectCodeAfterInvoke(insnList, constPool, tracerVar, insnHandler, line, methodIdVar,
 					isInvokeStatic, returnType, mSig);
 		}
 	}
 
 	private void injectCodeAfterInvoke(InstructionList insnList, ConstantPoolGen constPool, LocalVariableGen tracerVar,
-			InstructionHandle insnHandler, int line, LocalVariableGen classNameVar, LocalVariableGen methodSigVar,
+			InstructionHandle insnHandler, int line, LocalVariableGen methodIdVar,
 			boolean isInvokeStatic, Type returnType, String mSig) {
 		InstructionList newInsns;
 		/* on stack: [objectRef]/[], returnValue */
@@ -558,8 +645,7 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 		}
 		newInsns.append(new PUSH(constPool, mSig));
 		newInsns.append(new PUSH(constPool, line));
-		newInsns.append(new ALOAD(classNameVar.getIndex()));
-		newInsns.append(new ALOAD(methodSigVar.getIndex()));
+		newInsns.append(new ILOAD(methodIdVar.getIndex()));
 		newInsns.append(new PUSH(constPool, revisit));
 		appendTracerMethodInvoke(newInsns, TracerMethods.AFTER_INVOKE, constPool);
 		appendInstruction(insnList, newInsns, insnHandler);
@@ -567,22 +653,22 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 	}
 
 	private InstructionList getInjectCodeTracerRWriteField(ConstantPoolGen constPool, LocalVariableGen tracerVar,
-			FieldInstructionInfo info, LocalVariableGen classNameVar, LocalVariableGen methodSigVar) {
+			FieldInstructionInfo info, LocalVariableGen methodIdVar) {
 		FieldInstruction insn = (FieldInstruction) info.getInstruction();
 		if (insn instanceof PUTFIELD) {
-			return getInjectCodePutField(constPool, tracerVar, info, classNameVar, methodSigVar);
+			return getInjectCodePutField(constPool, tracerVar, info, methodIdVar);
 		} else if (insn instanceof PUTSTATIC) {
-			return getInjectCodePutStatic(constPool, tracerVar, info, classNameVar, methodSigVar);
+			return getInjectCodePutStatic(constPool, tracerVar, info, methodIdVar);
 		} else if (insn instanceof GETFIELD) {
-			return getInjectCodeGetField(constPool, tracerVar, info, classNameVar, methodSigVar);
+			return getInjectCodeGetField(constPool, tracerVar, info, methodIdVar);
 		} else if (insn instanceof GETSTATIC) {
-			return getInjectCodeGetStatic(constPool, tracerVar, info, classNameVar, methodSigVar);
+			return getInjectCodeGetStatic(constPool, tracerVar, info, methodIdVar);
 		}
 		return null;
 	}
 
 	private InstructionList getInjectCodePutField(ConstantPoolGen constPool, LocalVariableGen tracerVar,
-			FieldInstructionInfo info, LocalVariableGen classNameVar, LocalVariableGen methodSigVar) {
+			FieldInstructionInfo info, LocalVariableGen methodIdVar) {
 		InstructionList newInsns = new InstructionList();
 		/*
 		 * on stack: obj, value
@@ -630,10 +716,6 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 			newInsns.append(new DUP_X2()); // [obj, val*], obj, tracer, obj, val*, obj
 			newInsns.append(new POP()); // [obj, val*], obj, tracer, obj, val*
 		}
-		Type fieldType = info.getFieldBcType();
-		if (fieldType instanceof BasicType) {
-			newInsns.append(new INVOKESTATIC(basicTypeSupporter.getValueOfMethodIdx((BasicType) fieldType, constPool)));
-		}
 		newInsns.append(new PUSH(constPool, info.getFieldName())); 
 		// [obj || (obj, val) || (obj, val*, obj)], tracer, obj, val, fieldName
 		
@@ -643,9 +725,8 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 		newInsns.append(new PUSH(constPool, info.getLine())); 
 		// [obj || (obj, val) || (obj, val*, obj)], tracer, obj, val, fieldName, fieldTypeSignature, line
 		
-		newInsns.append(new ALOAD(classNameVar.getIndex()));
-		newInsns.append(new ALOAD(methodSigVar.getIndex()));
-		appendTracerMethodInvoke(newInsns, TracerMethods.WRITE_FIELD, constPool); 
+		newInsns.append(new ILOAD(methodIdVar.getIndex()));
+		appendTracerMethodInvoke(newInsns, getTracerMethod(TracerMethods.WRITE_FIELD, info.getFieldBcType()), constPool); 
 		// record -> [obj || (obj, val) || (obj, val*, obj)]
 		
 		if (info.isNextToAconstNull()) {
@@ -659,11 +740,10 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 	/**
 	 * ex: ldc "strABC" (java.lang.String) putstatic
 	 * microbat/instrumentation/trace/testdata/RefVar.staticStr:java.lang.String
-	 * @param methodSigVar 
-	 * @param classNameVar 
+	 * @param methodIdVar 
 	 */
 	private InstructionList getInjectCodePutStatic(ConstantPoolGen constPool, LocalVariableGen tracerVar,
-			FieldInstructionInfo info, LocalVariableGen classNameVar, LocalVariableGen methodSigVar) {
+			FieldInstructionInfo info, LocalVariableGen methodIdVar) {
 		InstructionList newInsns = new InstructionList();
 		if (info.isNextToAconstNull()) {
 			newInsns.append(new ALOAD(tracerVar.getIndex())); // tracer
@@ -678,10 +758,6 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 			newInsns.append(new DUP_X2()); // tracer, val*, tracer
 			newInsns.append(new POP()); // tracer, val*
 		}
-		Type fieldType = info.getFieldBcType();
-		if (fieldType instanceof BasicType) {
-			newInsns.append(new INVOKESTATIC(basicTypeSupporter.getValueOfMethodIdx((BasicType) fieldType, constPool)));
-		}
 		newInsns.append(new PUSH(constPool, info.getRefType())); 
 		// tracer, val*, refType
 		newInsns.append(new PUSH(constPool, info.getFieldName())); 
@@ -690,9 +766,8 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 		// tracer, val*, refType, fieldName, fieldType
 		newInsns.append(new PUSH(constPool, info.getLine())); 
 		// tracer, val*, refType, fieldName, fieldType, line
-		newInsns.append(new ALOAD(classNameVar.getIndex()));
-		newInsns.append(new ALOAD(methodSigVar.getIndex()));
-		appendTracerMethodInvoke(newInsns, TracerMethods.WRITE_STATIC_FIELD, constPool);
+		newInsns.append(new ILOAD(methodIdVar.getIndex()));
+		appendTracerMethodInvoke(newInsns, getTracerMethod(TracerMethods.WRITE_STATIC_FIELD, info.getFieldBcType()), constPool);
 		return newInsns;
 	}
 
@@ -709,7 +784,7 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 	}
 
 	private InstructionList getInjectCodeGetField(ConstantPoolGen constPool, LocalVariableGen tracerVar,
-			FieldInstructionInfo info, LocalVariableGen classNameVar, LocalVariableGen methodSigVar) {
+			FieldInstructionInfo info, LocalVariableGen methodIdVar) {
 		InstructionList newInsns = new InstructionList();
 
 		// stack: obj (refValue)
@@ -740,16 +815,11 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 			newInsns.append(new DUP_X2()); // [val*], obj, tracer, obj, val*, obj
 			newInsns.append(new POP()); // [val*, obj], tracer, obj, val*
 		}
-		Type fieldType = info.getFieldBcType();
-		if (fieldType instanceof BasicType) {
-			newInsns.append(new INVOKESTATIC(basicTypeSupporter.getValueOfMethodIdx((BasicType) fieldType, constPool)));
-		}
 		newInsns.append(new PUSH(constPool, info.getFieldName())); // [val*, obj], tracer, obj, val, fieldName
 		newInsns.append(new PUSH(constPool, info.getFieldType())); // [val*, obj], tracer, obj, val, fieldName, fieldTypeSignature
 		newInsns.append(new PUSH(constPool, info.getLine())); // [val*, obj], tracer, obj, val, fieldName, fieldTypeSignature, line
-		newInsns.append(new ALOAD(classNameVar.getIndex()));
-		newInsns.append(new ALOAD(methodSigVar.getIndex()));
-		appendTracerMethodInvoke(newInsns, TracerMethods.READ_FIELD, constPool); 
+		newInsns.append(new ILOAD(methodIdVar.getIndex()));
+		appendTracerMethodInvoke(newInsns, getTracerMethod(TracerMethods.READ_FIELD, info.getFieldBcType()), constPool); 
 		// record -> [val] or [val*, obj]
 		if (info.isComputationalType2()) {
 			newInsns.append(new POP());
@@ -758,7 +828,7 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 	}
 
 	private InstructionList getInjectCodeGetStatic(ConstantPoolGen constPool, LocalVariableGen tracerVar,
-			FieldInstructionInfo info, LocalVariableGen classNameVar, LocalVariableGen methodSigVar) {
+			FieldInstructionInfo info, LocalVariableGen methodIdVar) {
 		InstructionList newInsns = new InstructionList();
 		GETSTATIC insn = (GETSTATIC) info.getInstruction();
 		newInsns.append(insn); // val
@@ -775,10 +845,6 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 			newInsns.append(new DUP_X2()); // [val*], tracer, val*, tracer
 			newInsns.append(new POP()); // [val*], tracer, val*
 		}
-		Type fieldType = info.getFieldBcType();
-		if (fieldType instanceof BasicType) {
-			newInsns.append(new INVOKESTATIC(basicTypeSupporter.getValueOfMethodIdx((BasicType) fieldType, constPool)));
-		}
 		newInsns.append(new PUSH(constPool, info.getRefType())); 
 		// tracer, val*, refType
 		newInsns.append(new PUSH(constPool, info.getFieldName()));
@@ -787,14 +853,13 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 		// tracer, val*, refType, fieldName, fieldType
 		newInsns.append(new PUSH(constPool, info.getLine())); 
 		// tracer, val*, refType, fieldName, fieldType, line
-		newInsns.append(new ALOAD(classNameVar.getIndex()));
-		newInsns.append(new ALOAD(methodSigVar.getIndex()));
-		appendTracerMethodInvoke(newInsns, TracerMethods.READ_STATIC_FIELD, constPool);
+		newInsns.append(new ILOAD(methodIdVar.getIndex()));
+		appendTracerMethodInvoke(newInsns, getTracerMethod(TracerMethods.READ_STATIC_FIELD, info.getFieldBcType()), constPool);
 		return newInsns;
 	}
 
 	private InstructionList getInjectCodeTracerRWLocalVar(ConstantPoolGen constPool, LocalVariableGen tracerVar,
-			LocalVarInstructionInfo insnInfo, LocalVariableGen classNameVar, LocalVariableGen methodSigVar) {
+			LocalVarInstructionInfo insnInfo, LocalVariableGen methodIdVar) {
 		LocalVariableInstruction insn = insnInfo.getInstruction();
 		// ignore reference to self
 //		if (insn.getIndex() == 0) {
@@ -828,10 +893,6 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 				newInsns.append(new POP()); // [value*], $tracer, value*
 			}
 		}
-		if (type instanceof BasicType) {
-			newInsns.append(new INVOKESTATIC(basicTypeSupporter.getValueOfMethodIdx((BasicType) type, constPool)));
-		}
-		
 		newInsns.append(new PUSH(constPool, insnInfo.getVarName())); 
 		// [value(*)], $tracer, value, varName
 		
@@ -850,14 +911,35 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 		newInsns.append(new PUSH(constPool, insnInfo.getVarScopeEndLine())); 
 		// [value(*)], $tracer, value, varName, bcLocalVarIdx, varScopeStartLine, varScopeEndLine
 		
-		newInsns.append(new ALOAD(classNameVar.getIndex()));
-		newInsns.append(new ALOAD(methodSigVar.getIndex()));
-		appendTracerMethodInvoke(newInsns, tracerMethod, constPool);
+		newInsns.append(new ILOAD(methodIdVar.getIndex()));
+		appendTracerMethodInvoke(newInsns, getTracerMethod(tracerMethod, type), constPool);
 		return newInsns;
 	}
 	
+	/**
+	 * a primitive value is passed to the primitive-typed variant of the tracer method (e.g.,
+	 * _readLocalVarInt for _readLocalVar), which takes the value as it is on the operand stack, so it does
+	 * not need to be boxed.
+	 */
+	private TracerMethods getTracerMethod(TracerMethods method, Type type) {
+		if (!(type instanceof BasicType)) {
+			return method;
+		}
+		String suffix;
+		if (Type.LONG.equals(type)) {
+			suffix = "LONG";
+		} else if (Type.FLOAT.equals(type)) {
+			suffix = "FLOAT";
+		} else if (Type.DOUBLE.equals(type)) {
+			suffix = "DOUBLE";
+		} else {
+			suffix = "INT";
+		}
+		return TracerMethods.valueOf(method.name() + "_" + suffix);
+	}
+	
 	private InstructionList getInjectCodeTracerIINC(ConstantPoolGen constPool, LocalVariableGen tracerVar,
-			LocalVarInstructionInfo insnInfo, LocalVariableGen classNameVar, LocalVariableGen methodSigVar) {
+			LocalVarInstructionInfo insnInfo, LocalVariableGen methodIdVar) {
 		IINC insn = (IINC) insnInfo.getInstruction();
 		// ignore reference to self
 		if (insn.getIndex() == 0) {
@@ -897,15 +979,14 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 		newInsns.append(new PUSH(constPool, insnInfo.getVarScopeEndLine())); 
 		// $tracer, value, valueAfter, varName, bcLocalVarIdx, varScopeStartLine, varScopeEndLine
 		
-		newInsns.append(new ALOAD(classNameVar.getIndex()));
-		newInsns.append(new ALOAD(methodSigVar.getIndex()));
+		newInsns.append(new ILOAD(methodIdVar.getIndex()));
 		appendTracerMethodInvoke(newInsns, TracerMethods.IINC_LOCAL_VAR, constPool);
 		
 		return newInsns;
 	}
 
 	private InstructionList getInjectCodeTracerRWriteArray(MethodGen methodGen, ConstantPoolGen constPool,
-			LocalVariableGen tracerVar, ArrayInstructionInfo info, LocalVariableGen classNameVar, LocalVariableGen methodSigVar) {
+			LocalVariableGen tracerVar, ArrayInstructionInfo info, LocalVariableGen methodIdVar) {
 		InstructionHandle insnHandler = info.getInstructionHandler();
 		ArrayInstruction insn = info.getInstruction();
 		InstructionList newInsns = new InstructionList();
@@ -949,8 +1030,7 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 		newInsns.append(new PUSH(constPool, info.getLine())); 
 		// tracer, arrRef, idx, val, eleType, line
 		
-		newInsns.append(new ALOAD(classNameVar.getIndex()));
-		newInsns.append(new ALOAD(methodSigVar.getIndex()));
+		newInsns.append(new ILOAD(methodIdVar.getIndex()));
 		appendTracerMethodInvoke(newInsns, tracerMethod, constPool);
 		/* restore element value for use */
 		newInsns.append(InstructionFactory.createLoad(info.getElementType(), arrEleTempVar.getIndex())); // val
@@ -966,14 +1046,12 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 	}
 
 	protected void injectCodeTracerHitLine(InstructionList insnList, ConstantPoolGen constPool,
-			LocalVariableGen tracerVar, int line, InstructionHandle lineNumberInsn, LocalVariableGen classNameVar,
-			LocalVariableGen methodSigVar, boolean isExceptionTarget, int readVars, int writtenVars, LineInstructionInfo lineInfo) {
+			LocalVariableGen tracerVar, int line, InstructionHandle lineNumberInsn, LocalVariableGen methodIdVar, boolean isExceptionTarget, int readVars, int writtenVars, LineInstructionInfo lineInfo) {
 		TracerMethods tracerMethod = isExceptionTarget ? TracerMethods.HIT_EXEPTION_TARGET : TracerMethods.HIT_LINE;
 		InstructionList newInsns = new InstructionList();
 		newInsns.append(new ALOAD(tracerVar.getIndex()));
 		newInsns.append(new PUSH(constPool, line));
-		newInsns.append(new ALOAD(classNameVar.getIndex()));
-		newInsns.append(new ALOAD(methodSigVar.getIndex()));
+		newInsns.append(new ILOAD(methodIdVar.getIndex()));
 		if (!isExceptionTarget) {
 			newInsns.append(new PUSH(constPool, readVars));
 			newInsns.append(new PUSH(constPool, writtenVars));
@@ -996,7 +1074,7 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 	}
 
 	protected LocalVariableGen injectCodeInitTracer(MethodGen methodGen, ConstantPoolGen constPool, int methodStartLine,
-			int methodEndLine, boolean isAppClass, LocalVariableGen classNameVar, LocalVariableGen methodSigVar,
+			int methodEndLine, boolean isAppClass, LocalVariableGen methodIdVar,
 			boolean startTracing, LocalVariableGen tracerVar) {
 		InstructionList insnList = methodGen.getInstructionList();
 		InstructionHandle startInsn = insnList.getStart();
@@ -1008,34 +1086,29 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 		if (startTracing) {
 			appendTracerMethodInvoke(newInsns, TracerMethods.START, constPool);
 		}
-		/* store classNameVar */
-		String className = methodGen.getClassName();
-		className = className.replace("/", ".");
+		/* store methodIdVar, the id is looked up by the method signature, see MethodRegistry */
+		String className = methodGen.getClassName().replace("/", ".");
+		String mSig = getMethodSignature(methodGen);
+		MethodRegistry.register(className, mSig);
 		newInsns.append(new PUSH(constPool, className));
-		newInsns.append(new ASTORE(classNameVar.getIndex()));
-		
-		/* store methodSignVar */
-		String sig = methodGen.getSignature();
-		String methodName = methodGen.getName();
-		String mSig = className + "#" + methodName + sig;
 		newInsns.append(new PUSH(constPool, mSig));
-		newInsns.append(new ASTORE(methodSigVar.getIndex())); 
+		appendTracerMethodInvoke(newInsns, TracerMethods.GET_METHOD_ID, constPool);
+		newInsns.append(new ISTORE(methodIdVar.getIndex()));
 		
 		/* invoke _getTracer()  */
 		newInsns.append(new PUSH(constPool, isAppClass)); // startTracing
-		newInsns.append(new ALOAD(classNameVar.getIndex())); // startTracing, className
-		newInsns.append(new ALOAD(methodSigVar.getIndex())); // startTracing, className, String methodSig
-		newInsns.append(new PUSH(constPool, methodStartLine));	// startTracing, className, String methodSig, int methodStartLine	
-		newInsns.append(new PUSH(constPool, methodEndLine)); // startTracing, className, String methodSig, int methodStartLine, methodEndLine
+		newInsns.append(new ILOAD(methodIdVar.getIndex())); // startTracing, int methodId
+		newInsns.append(new PUSH(constPool, methodStartLine));	// startTracing, int methodId, int methodStartLine	
+		newInsns.append(new PUSH(constPool, methodEndLine)); // startTracing, int methodId, int methodStartLine, methodEndLine
 		
 		String[] argList = getArgumentNames(methodGen);
 		newInsns.append(new PUSH(constPool, TraceUtils.encodeArgNames(argList)));
 		newInsns.append(new PUSH(constPool, TraceUtils.encodeArgTypes(methodGen.getArgumentTypes())));
-		// startTracing, className, String methodSig, int methodStartLine, argTypes
+		// startTracing, int methodId, int methodStartLine, methodEndLine, argNames, argTypes
 		
 		LocalVariableGen argObjsVar = createMethodParamTypesObjectArrayVar(methodGen, constPool, startInsn, newInsns, nextTempVarName());
 		newInsns.append(new ALOAD(argObjsVar.getIndex()));
-		// className, String methodSig, int methodStartLine, methodEndLine, argNames, argTypes, argObjs
+		// startTracing, int methodId, int methodStartLine, methodEndLine, argNames, argTypes, argObjs
 		
 		appendTracerMethodInvoke(newInsns, TracerMethods.GET_TRACER, constPool);
 		InstructionHandle tracerStartPos = newInsns.append(new ASTORE(tracerVar.getIndex()));
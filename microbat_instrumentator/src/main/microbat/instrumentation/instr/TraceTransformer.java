@@ -6,6 +6,7 @@ import java.security.ProtectionDomain;
 
 import microbat.instrumentation.AgentParams;
 import microbat.instrumentation.filter.GlobalFilterChecker;
+import microbat.instrumentation.instr.InstrumentedClassCache.CachedClass;
 
 /**
  * 
@@ -14,9 +15,13 @@ import microbat.instrumentation.filter.GlobalFilterChecker;
  */
 public class TraceTransformer extends AbstractTransformer implements ClassFileTransformer {
 	private TraceInstrumenter instrumenter;
+	private InstrumentedClassCache cache;
 	
 	public TraceTransformer(AgentParams params) {
 		instrumenter = new TraceInstrumenter(params);
+		if (params.getInstrumentationCacheFolder() != null && InstrumentedClassCache.isAvailable()) {
+			cache = new InstrumentedClassCache(params.getInstrumentationCacheFolder(), params);
+		}
 	}
 	
 	@Override
@@ -37,11 +42,34 @@ public class TraceTransformer extends AbstractTransformer implements ClassFileTr
 		
 		/* do instrumentation */
 		try {
-			return instrumenter.instrument(classFName, classfileBuffer);
+			return instrument(classFName, classfileBuffer);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 		return null;
 	}
+	
+	/**
+	 * instruments a class which has passed the filters, or takes it from the cache if it has been instrumented
+	 * by an earlier run.
+	 */
+	public byte[] instrument(String classFName, byte[] classfileBuffer) throws Exception {
+		if (cache == null) {
+			return instrumenter.instrument(classFName, classfileBuffer);
+		}
+		String className = classFName.replace("/", ".");
+		String key = cache.getKey(classFName, GlobalFilterChecker.isAppClass(classFName), classfileBuffer);
+		CachedClass cachedClass = cache.get(key);
+		if (cachedClass != null) {
+			/* the over long methods are only detected on instrumenting */
+			instrumenter.registerOverlongMethods(className, cachedClass.getOverlongMethods());
+			return cachedClass.getData();
+		}
+		byte[] data = instrumenter.instrument(classFName, classfileBuffer);
+		if (data != null) {
+			cache.put(key, data, TraceInstrumenter.getDetectedOverlongMethods(className));
+		}
+		return data;
+	}
 
 }
@@ -6,25 +6,51 @@ package microbat.instrumentation.instr;
  *
  */
 public enum TracerMethods {
-	AFTER_INVOKE(true, "microbat/instrumentation/runtime/IExecutionTracer", "_afterInvoke", "(Ljava/lang/Object;Ljava/lang/Object;Ljava/lang/String;ILjava/lang/String;Ljava/lang/String;Z)V", 8),
-	GET_TRACER(false, "microbat/instrumentation/runtime/ExecutionTracer", "_getTracer", "(ZLjava/lang/String;Ljava/lang/String;IILjava/lang/String;Ljava/lang/String;[Ljava/lang/Object;)Lmicrobat/instrumentation/runtime/IExecutionTracer;", 9),
-	HIT_EXEPTION_TARGET(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitExeptionTarget", "(ILjava/lang/String;Ljava/lang/String;)V", 4),
-	HIT_INVOKE(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitInvoke", "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;[Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;ILjava/lang/String;Ljava/lang/String;)V", 10),
-	HIT_INVOKE_STATIC(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitInvokeStatic", "(Ljava/lang/String;Ljava/lang/String;[Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;ILjava/lang/String;Ljava/lang/String;)V", 9),
-	HIT_LINE(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitLine", "(ILjava/lang/String;Ljava/lang/String;IILjava/lang/String;)V", 7),
-	HIT_METHOD_END(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitMethodEnd", "(ILjava/lang/String;Ljava/lang/String;)V", 4),
-	HIT_RETURN(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitReturn", "(Ljava/lang/Object;Ljava/lang/String;ILjava/lang/String;Ljava/lang/String;)V", 6),
-	HIT_VOID_RETURN(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitVoidReturn", "(ILjava/lang/String;Ljava/lang/String;)V", 4),
-	IINC_LOCAL_VAR(true, "microbat/instrumentation/runtime/IExecutionTracer", "_iincLocalVar", "(Ljava/lang/Object;Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;IIIILjava/lang/String;Ljava/lang/String;)V", 11),
-	READ_ARRAY_ELEMENT_VAR(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readArrayElementVar", "(Ljava/lang/Object;ILjava/lang/Object;Ljava/lang/String;ILjava/lang/String;Ljava/lang/String;)V", 8),
-	READ_FIELD(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readField", "(Ljava/lang/Object;Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;ILjava/lang/String;Ljava/lang/String;)V", 8),
-	READ_LOCAL_VAR(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readLocalVar", "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;IIIILjava/lang/String;Ljava/lang/String;)V", 10),
-	READ_STATIC_FIELD(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readStaticField", "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;ILjava/lang/String;Ljava/lang/String;)V", 8),
+	AFTER_INVOKE(true, "microbat/instrumentation/runtime/IExecutionTracer", "_afterInvoke", "(Ljava/lang/Object;Ljava/lang/Object;Ljava/lang/String;IIZ)V", 7),
+	GET_METHOD_ID(false, "microbat/instrumentation/runtime/MethodRegistry", "_getMethodId", "(Ljava/lang/String;Ljava/lang/String;)I", 2),
+	GET_TRACER(false, "microbat/instrumentation/runtime/ExecutionTracer", "_getTracer", "(ZIIILjava/lang/String;Ljava/lang/String;[Ljava/lang/Object;)Lmicrobat/instrumentation/runtime/IExecutionTracer;", 8),
+	HIT_EXEPTION_TARGET(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitExeptionTarget", "(II)V", 3),
+	HIT_INVOKE(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitInvoke", "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;[Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;II)V", 9),
+	HIT_INVOKE_STATIC(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitInvokeStatic", "(Ljava/lang/String;Ljava/lang/String;[Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;II)V", 8),
+	HIT_LINE(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitLine", "(IIIILjava/lang/String;)V", 6),
+	HIT_METHOD_END(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitMethodEnd", "(II)V", 3),
+	HIT_RETURN(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitReturn", "(Ljava/lang/Object;Ljava/lang/String;II)V", 5),
+	HIT_VOID_RETURN(true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitVoidReturn", "(II)V", 3),
+	IINC_LOCAL_VAR(true, "microbat/instrumentation/runtime/IExecutionTracer", "_iincLocalVar", "(Ljava/lang/Object;Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;IIIII)V", 10),
+	READ_ARRAY_ELEMENT_VAR(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readArrayElementVar", "(Ljava/lang/Object;ILjava/lang/Object;Ljava/lang/String;II)V", 7),
+	READ_FIELD(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readField", "(Ljava/lang/Object;Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;II)V", 7),
+	READ_LOCAL_VAR(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readLocalVar", "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;IIIII)V", 9),
+	READ_STATIC_FIELD(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readStaticField", "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;II)V", 7),
 	START(false, "microbat/instrumentation/runtime/ExecutionTracer", "_start", "()V", 1),
-	WRITE_ARRAY_ELEMENT_VAR(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeArrayElementVar", "(Ljava/lang/Object;ILjava/lang/Object;Ljava/lang/String;ILjava/lang/String;Ljava/lang/String;)V", 8),
-	WRITE_FIELD(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeField", "(Ljava/lang/Object;Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;ILjava/lang/String;Ljava/lang/String;)V", 8),
-	WRITE_LOCAL_VAR(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeLocalVar", "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;IIIILjava/lang/String;Ljava/lang/String;)V", 10),
-	WRITE_STATIC_FIELD(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeStaticField", "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;ILjava/lang/String;Ljava/lang/String;)V", 8),
+	WRITE_ARRAY_ELEMENT_VAR(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeArrayElementVar", "(Ljava/lang/Object;ILjava/lang/Object;Ljava/lang/String;II)V", 7),
+	WRITE_FIELD(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeField", "(Ljava/lang/Object;Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;II)V", 7),
+	WRITE_LOCAL_VAR(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeLocalVar", "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;IIIII)V", 9),
+	WRITE_STATIC_FIELD(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeStaticField", "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;II)V", 7),
+	/* primitive-typed variants, their argNo counts the two slots of a long/double value */
+	READ_LOCAL_VAR_INT(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readLocalVarInt", "(ILjava/lang/String;Ljava/lang/String;IIIII)V", 9),
+	WRITE_LOCAL_VAR_INT(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeLocalVarInt", "(ILjava/lang/String;Ljava/lang/String;IIIII)V", 9),
+	READ_FIELD_INT(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readFieldInt", "(Ljava/lang/Object;ILjava/lang/String;Ljava/lang/String;II)V", 7),
+	WRITE_FIELD_INT(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeFieldInt", "(Ljava/lang/Object;ILjava/lang/String;Ljava/lang/String;II)V", 7),
+	READ_STATIC_FIELD_INT(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readStaticFieldInt", "(ILjava/lang/String;Ljava/lang/String;Ljava/lang/String;II)V", 7),
+	WRITE_STATIC_FIELD_INT(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeStaticFieldInt", "(ILjava/lang/String;Ljava/lang/String;Ljava/lang/String;II)V", 7),
+	READ_LOCAL_VAR_LONG(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readLocalVarLong", "(JLjava/lang/String;Ljava/lang/String;IIIII)V", 10),
+	WRITE_LOCAL_VAR_LONG(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeLocalVarLong", "(JLjava/lang/String;Ljava/lang/String;IIIII)V", 10),
+	READ_FIELD_LONG(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readFieldLong", "(Ljava/lang/Object;JLjava/lang/String;Ljava/lang/String;II)V", 8),
+	WRITE_FIELD_LONG(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeFieldLong", "(Ljava/lang/Object;JLjava/lang/String;Ljava/lang/String;II)V", 8),
+	READ_STATIC_FIELD_LONG(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readStaticFieldLong", "(JLjava/lang/String;Ljava/lang/String;Ljava/lang/String;II)V", 8),
+	WRITE_STATIC_FIELD_LONG(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeStaticFieldLong", "(JLjava/lang/String;Ljava/lang/String;Ljava/lang/String;II)V", 8),
+	READ_LOCAL_VAR_FLOAT(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readLocalVarFloat", "(FLjava/lang/String;Ljava/lang/String;IIIII)V", 9),
+	WRITE_LOCAL_VAR_FLOAT(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeLocalVarFloat", "(FLjava/lang/String;Ljava/lang/String;IIIII)V", 9),
+	READ_FIELD_FLOAT(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readFieldFloat", "(Ljava/lang/Object;FLjava/lang/String;Ljava/lang/String;II)V", 7),
+	WRITE_FIELD_FLOAT(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeFieldFloat", "(Ljava/lang/Object;FLjava/lang/String;Ljava/lang/String;II)V", 7),
+	READ_STATIC_FIELD_FLOAT(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readStaticFieldFloat", "(FLjava/lang/String;Ljava/lang/String;Ljava/lang/String;II)V", 7),
+	WRITE_STATIC_FIELD_FLOAT(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeStaticFieldFloat", "(FLjava/lang/String;Ljava/lang/String;Ljava/lang/String;II)V", 7),
+	READ_LOCAL_VAR_DOUBLE(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readLocalVarDouble", "(DLjava/lang/String;Ljava/lang/String;IIIII)V", 10),
+	WRITE_LOCAL_VAR_DOUBLE(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeLocalVarDouble", "(DLjava/lang/String;Ljava/lang/String;IIIII)V", 10),
+	READ_FIELD_DOUBLE(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readFieldDouble", "(Ljava/lang/Object;DLjava/lang/String;Ljava/lang/String;II)V", 8),
+	WRITE_FIELD_DOUBLE(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeFieldDouble", "(Ljava/lang/Object;DLjava/lang/String;Ljava/lang/String;II)V", 8),
+	READ_STATIC_FIELD_DOUBLE(true, "microbat/instrumentation/runtime/IExecutionTracer", "_readStaticFieldDouble", "(DLjava/lang/String;Ljava/lang/String;Ljava/lang/String;II)V", 8),
+	WRITE_STATIC_FIELD_DOUBLE(true, "microbat/instrumentation/runtime/IExecutionTracer", "_writeStaticFieldDouble", "(DLjava/lang/String;Ljava/lang/String;Ljava/lang/String;II)V", 8),
 
 	;
 	private boolean interfaceMethod;
@@ -0,0 +1,336 @@
+package microbat.instrumentation.output;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.value.VarValue;
+
+/**
+ * A random-access trace file, which is memory-mapped so that opening it does not read its steps.
+ * <br>
+ * The file is laid out as:
+ * <pre>
+ * [header]  magic, version
+ * per trace:
+ *   [blocks] for each step: its variable block ({@link VarValueCodec} of its read and written variables),
+ *            followed by its detail block (bytecode, invocation children, control dominatees, loop children)
+ *   [index]  a fixed-width record of {@link #STEP_RECORD_SIZE} bytes for each step, see {@link StepRecord}
+ * [table]   program message, expected/collected steps, and for each trace: its thread, filter and executed
+ *           location information, its number of steps and the offset of its step index
+ * [footer]  offset of the table, magic
+ * </pre>
+ * Steps are referred by their order (starting from 1), {@link #NO_STEP} meaning no step.
+ *
+ * @author Yun Lin
+ *
+ */
+public class MappedTraceFile {
+	public static final int MAGIC = 0x4D425452; // "MBTR"
+	public static final int VERSION = 1;
+	public static final int NO_STEP = 0;
+	public static final int STEP_RECORD_SIZE = 64;
+	public static final int FLAG_EXCEPTION = 1;
+	static final byte[] RECORD_PADDING = new byte[7];
+	private static final int FOOTER_SIZE = 12;
+
+	/* offsets of the fields in a step record */
+	private static final int LOCATION = 0;
+	private static final int CONTROL_DOMINATOR = 4;
+	private static final int STEP_IN_NEXT = 8;
+	private static final int STEP_IN_PREVIOUS = 12;
+	private static final int STEP_OVER_NEXT = 16;
+	private static final int STEP_OVER_PREVIOUS = 20;
+	private static final int INVOCATION_PARENT = 24;
+	private static final int LOOP_PARENT = 28;
+	private static final int TIMESTAMP = 32;
+	private static final int BLOCK_OFFSET = 40;
+	private static final int VAR_BLOCK_LENGTH = 48;
+	private static final int DETAIL_BLOCK_LENGTH = 52;
+	private static final int FLAGS = 56;
+
+	/* a mapped region cannot exceed Integer.MAX_VALUE bytes, so the file is mapped in segments */
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+	private String filePath;
+	private MappedByteBuffer[] segments;
+	private long fileSize;
+
+	private String programMsg;
+	private int expectedSteps;
+	private int collectedSteps;
+	private List<TraceEntry> traceEntries;
+
+	public MappedTraceFile(String filePath) {
+		this.filePath = filePath;
+	}
+
+	/**
+	 * maps the file and reads its trace table. The file is closed once it is mapped, as a mapping does not
+	 * depend on the channel it is created from, the mapping itself is released when the file is closed and
+	 * its segments are collected.
+	 */
+	public void open() throws IOException {
+		File traceFile = new File(filePath);
+		try (RandomAccessFile file = new RandomAccessFile(traceFile, "r"); FileChannel channel = file.getChannel()) {
+			fileSize = channel.size();
+			if (fileSize < 8 + FOOTER_SIZE) {
+				throw new IOException("Invalid trace file: " + filePath);
+			}
+			int segmentNum = (int) ((fileSize + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+			segments = new MappedByteBuffer[segmentNum];
+			for (int i = 0; i < segmentNum; i++) {
+				long position = (long) i << SEGMENT_SHIFT;
+				segments[i] = channel.map(MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, fileSize - position));
+			}
+		}
+		if (getInt(0) != MAGIC || getInt(fileSize - 4) != MAGIC) {
+			throw new IOException("Invalid trace file: " + filePath);
+		}
+		int version = getInt(4);
+		if (version > VERSION) {
+			throw new IOException("Unsupported trace file version: " + version);
+		}
+		long tableOffset = getLong(fileSize - FOOTER_SIZE);
+		readTable(tableOffset, (int) (fileSize - FOOTER_SIZE - tableOffset), traceFile.getParent());
+	}
+
+	private void readTable(long tableOffset, int tableSize, String traceExecFolder) throws IOException {
+		byte[] bytes = getBytes(tableOffset, tableSize);
+		TraceOutputReader reader = new TraceOutputReader(new ByteArrayInputStream(bytes), traceExecFolder);
+		programMsg = toString(reader.readByteArray());
+		expectedSteps = reader.readInt();
+		collectedSteps = reader.readInt();
+		int traceNum = reader.readVarInt();
+		traceEntries = new ArrayList<>(traceNum);
+		for (int i = 0; i < traceNum; i++) {
+			Trace trace = new Trace(null);
+			List<BreakPoint> locations = reader.readTraceInfo(trace);
+			int stepNum = reader.readVarInt();
+			long indexOffset = reader.readLong();
+			traceEntries.add(new TraceEntry(trace, locations, stepNum, indexOffset));
+		}
+	}
+
+	public StepRecord getStepRecord(TraceEntry entry, int order) {
+		if (order < 1 || order > entry.stepNum) {
+			throw new IndexOutOfBoundsException("Step " + order + " of " + entry.stepNum);
+		}
+		return new StepRecord(entry, entry.indexOffset + (long) (order - 1) * STEP_RECORD_SIZE);
+	}
+
+	/**
+	 * drops the mapped segments, the steps cannot be read afterwards.
+	 */
+	public void close() {
+		segments = null;
+	}
+
+	int getInt(long pos) {
+		int idx = (int) (pos >>> SEGMENT_SHIFT);
+		int offset = (int) (pos & (SEGMENT_SIZE - 1));
+		if (offset + 4 <= segments[idx].limit()) {
+			return segments[idx].getInt(offset);
+		}
+		return ByteBuffer.wrap(getBytes(pos, 4)).getInt();
+	}
+
+	long getLong(long pos) {
+		int idx = (int) (pos >>> SEGMENT_SHIFT);
+		int offset = (int) (pos & (SEGMENT_SIZE - 1));
+		if (offset + 8 <= segments[idx].limit()) {
+			return segments[idx].getLong(offset);
+		}
+		return ByteBuffer.wrap(getBytes(pos, 8)).getLong();
+	}
+
+	byte getByte(long pos) {
+		return segments[(int) (pos >>> SEGMENT_SHIFT)].get((int) (pos & (SEGMENT_SIZE - 1)));
+	}
+
+	byte[] getBytes(long pos, int length) {
+		byte[] bytes = new byte[length];
+		int copied = 0;
+		while (copied < length) {
+			long current = pos + copied;
+			/* duplicate so that the shared segment position is not touched by concurrent readers */
+			ByteBuffer segment = segments[(int) (current >>> SEGMENT_SHIFT)].duplicate();
+			segment.position((int) (current & (SEGMENT_SIZE - 1)));
+			int len = Math.min(length - copied, segment.remaining());
+			segment.get(bytes, copied, len);
+			copied += len;
+		}
+		return bytes;
+	}
+
+	private static String toString(byte[] bytes) throws IOException {
+		return bytes == null ? null : new String(bytes, "UTF-8");
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	public String getProgramMsg() {
+		return programMsg;
+	}
+
+	public int getExpectedSteps() {
+		return expectedSteps;
+	}
+
+	public int getCollectedSteps() {
+		return collectedSteps;
+	}
+
+	public List<TraceEntry> getTraceEntries() {
+		return traceEntries;
+	}
+
+	/**
+	 * A trace of the file, whose thread, filter and location information is loaded when the file is opened.
+	 */
+	public static class TraceEntry {
+		private Trace trace;
+		private List<BreakPoint> locations;
+		private int stepNum;
+		private long indexOffset;
+
+		TraceEntry(Trace trace, List<BreakPoint> locations, int stepNum, long indexOffset) {
+			this.trace = trace;
+			this.locations = locations;
+			this.stepNum = stepNum;
+			this.indexOffset = indexOffset;
+		}
+
+		public Trace getTrace() {
+			return trace;
+		}
+
+		public int getStepNum() {
+			return stepNum;
+		}
+
+		public BreakPoint getLocation(int idx) {
+			return locations.get(idx);
+		}
+	}
+
+	/**
+	 * The fixed-width index record of a step. Relations to other steps are given by order, {@link #NO_STEP}
+	 * if there is no such step.
+	 */
+	public class StepRecord {
+		private TraceEntry entry;
+		private long pos;
+
+		StepRecord(TraceEntry entry, long pos) {
+			this.entry = entry;
+			this.pos = pos;
+		}
+
+		public BreakPoint getLocation() {
+			return entry.getLocation(getInt(pos + LOCATION));
+		}
+
+		public int getControlDominator() {
+			return getInt(pos + CONTROL_DOMINATOR);
+		}
+
+		public int getStepInNext() {
+			return getInt(pos + STEP_IN_NEXT);
+		}
+
+		public int getStepInPrevious() {
+			return getInt(pos + STEP_IN_PREVIOUS);
+		}
+
+		public int getStepOverNext() {
+			return getInt(pos + STEP_OVER_NEXT);
+		}
+
+		public int getStepOverPrevious() {
+			return getInt(pos + STEP_OVER_PREVIOUS);
+		}
+
+		public int getInvocationParent() {
+			return getInt(pos + INVOCATION_PARENT);
+		}
+
+		public int getLoopParent() {
+			return getInt(pos + LOOP_PARENT);
+		}
+
+		public long getTimestamp() {
+			return getLong(pos + TIMESTAMP);
+		}
+
+		public boolean isException() {
+			return (getByte(pos + FLAGS) & FLAG_EXCEPTION) != 0;
+		}
+
+		/**
+		 * @return the read variables (at index 0) and written variables (at index 1) of the step.
+		 */
+		public List<List<VarValue>> readVariables() throws IOException {
+			return VarValueCodec.decode(getBytes(getLong(pos + BLOCK_OFFSET), getInt(pos + VAR_BLOCK_LENGTH)));
+		}
+
+		public StepDetail readDetail() throws IOException {
+			long detailOffset = getLong(pos + BLOCK_OFFSET) + getInt(pos + VAR_BLOCK_LENGTH);
+			byte[] bytes = getBytes(detailOffset, getInt(pos + DETAIL_BLOCK_LENGTH));
+			OutputReader reader = new OutputReader(new ByteArrayInputStream(bytes));
+			StepDetail detail = new StepDetail();
+			detail.bytecode = MappedTraceFile.toString(reader.readByteArray());
+			detail.invocationChildren = readOrders(reader);
+			detail.controlDominatees = readOrders(reader);
+			detail.loopChildren = readOrders(reader);
+			return detail;
+		}
+
+		private int[] readOrders(OutputReader reader) throws IOException {
+			int size = reader.readVarInt();
+			int[] orders = new int[size];
+			for (int i = 0; i < size; i++) {
+				orders[i] = reader.readVarInt();
+			}
+			return orders;
+		}
+	}
+
+	/**
+	 * The less frequently used information of a step, which is kept out of the step index.
+	 */
+	public static class StepDetail {
+		private String bytecode;
+		private int[] invocationChildren;
+		private int[] controlDominatees;
+		private int[] loopChildren;
+
+		public String getBytecode() {
+			return bytecode;
+		}
+
+		public int[] getInvocationChildren() {
+			return invocationChildren;
+		}
+
+		public int[] getControlDominatees() {
+			return controlDominatees;
+		}
+
+		public int[] getLoopChildren() {
+			return loopChildren;
+		}
+	}
+}
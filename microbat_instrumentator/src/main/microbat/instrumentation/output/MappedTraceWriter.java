@@ -0,0 +1,169 @@
+package microbat.instrumentation.output;
+
+import static microbat.instrumentation.output.MappedTraceFile.*;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import microbat.model.value.VarValue;
+
+/**
+ * Write traces in the random-access layout read by {@link MappedTraceFile}. For each trace, the
+ * variable and detail blocks of its steps are written first, followed by its fixed-width step index.
+ * The trace table (thread info, filter info and executed locations of each trace) and the footer
+ * are written at the end of the file.
+ *
+ * @author Yun Lin
+ *
+ */
+public class MappedTraceWriter {
+	private String filePath;
+
+	public MappedTraceWriter(String filePath) {
+		this.filePath = filePath;
+	}
+
+	public void write(String programMsg, List<Trace> traceList, int expectedSteps, int collectedSteps)
+			throws IOException {
+		File file = new File(filePath);
+		String fileName = file.getName();
+		int extIdx = fileName.lastIndexOf(".");
+		String filterFilePrefix = extIdx > 0 ? fileName.substring(0, extIdx) : fileName;
+
+		ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+		TraceOutputWriter tableWriter = new TraceOutputWriter(tableBytes, file.getParent(), filterFilePrefix);
+		tableWriter.writeByteArr(toBytes(programMsg));
+		tableWriter.writeInt(expectedSteps);
+		tableWriter.writeInt(collectedSteps);
+		tableWriter.writeVarInt(traceList.size());
+
+		CountingOutputStream counter = new CountingOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)));
+		OutputWriter out = new OutputWriter(counter);
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			for (Trace trace : traceList) {
+				Map<String, Integer> locIdIdxMap = tableWriter.writeTraceInfo(trace);
+				List<TraceNode> steps = trace.getExecutionList();
+				long indexOffset = writeSteps(out, counter, steps, locIdIdxMap);
+				tableWriter.writeVarInt(steps.size());
+				tableWriter.writeLong(indexOffset);
+			}
+			tableWriter.flush();
+			long tableOffset = counter.getCount();
+			out.write(tableBytes.toByteArray());
+			out.writeLong(tableOffset);
+			out.writeInt(MAGIC);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * @return the offset of the step index of the given steps.
+	 */
+	private long writeSteps(OutputWriter out, CountingOutputStream counter, List<TraceNode> steps,
+			Map<String, Integer> locIdIdxMap) throws IOException {
+		int size = steps.size();
+		long[] blockOffsets = new long[size];
+		int[] varBlockLengths = new int[size];
+		int[] detailBlockLengths = new int[size];
+		for (int i = 0; i < size; i++) {
+			TraceNode node = steps.get(i);
+			List<Collection<VarValue>> vars = new ArrayList<>(2);
+			vars.add(node.getReadVariables());
+			vars.add(node.getWrittenVariables());
+			byte[] varBlock = VarValueCodec.encode(vars);
+			node.releaseVariables();
+			byte[] detailBlock = toDetailBlock(node);
+
+			blockOffsets[i] = counter.getCount();
+			varBlockLengths[i] = varBlock.length;
+			detailBlockLengths[i] = detailBlock.length;
+			out.write(varBlock);
+			out.write(detailBlock);
+		}
+
+		long indexOffset = counter.getCount();
+		for (int i = 0; i < size; i++) {
+			TraceNode node = steps.get(i);
+			out.writeInt(locIdIdxMap.get(node.getBreakPoint().getId()));
+			out.writeInt(getOrder(node.getControlDominator()));
+			out.writeInt(getOrder(node.getStepInNext()));
+			out.writeInt(getOrder(node.getStepInPrevious()));
+			out.writeInt(getOrder(node.getStepOverNext()));
+			out.writeInt(getOrder(node.getStepOverPrevious()));
+			out.writeInt(getOrder(node.getInvocationParent()));
+			out.writeInt(getOrder(node.getLoopParent()));
+			out.writeLong(node.getTimestamp());
+			out.writeLong(blockOffsets[i]);
+			out.writeInt(varBlockLengths[i]);
+			out.writeInt(detailBlockLengths[i]);
+			out.writeByte(node.isException() ? FLAG_EXCEPTION : 0);
+			out.write(RECORD_PADDING);
+		}
+		return indexOffset;
+	}
+
+	private byte[] toDetailBlock(TraceNode node) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		OutputWriter out = new OutputWriter(bos);
+		out.writeByteArr(toBytes(node.getBytecode()));
+		writeOrders(out, node.getInvocationChildren());
+		writeOrders(out, node.getControlDominatees());
+		writeOrders(out, node.getLoopChildren());
+		out.flush();
+		return bos.toByteArray();
+	}
+
+	private void writeOrders(OutputWriter out, List<TraceNode> nodes) throws IOException {
+		out.writeVarInt(nodes.size());
+		for (TraceNode node : nodes) {
+			out.writeVarInt(node.getOrder());
+		}
+	}
+
+	private static int getOrder(TraceNode node) {
+		return node == null ? NO_STEP : node.getOrder();
+	}
+
+	private static byte[] toBytes(String str) throws IOException {
+		return str == null ? null : str.getBytes("UTF-8");
+	}
+
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long count;
+
+		public CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		public long getCount() {
+			return count;
+		}
+	}
+}
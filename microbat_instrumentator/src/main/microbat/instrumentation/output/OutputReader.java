@@ -4,11 +4,13 @@ import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class OutputReader extends DataInputStream {
+	private int formatVersion = OutputWriter.CURRENT_FORMAT_VERSION;
 
 	public OutputReader(InputStream in) {
 		super(in);
@@ -48,6 +50,14 @@ public class OutputReader extends DataInputStream {
 		return (value & 0x7F) | (readVarInt() << 7);
 	}
 	
+	public long readVarLong() throws IOException {
+		final long value = 0xFF & readByte();
+		if ((value & 0x80) == 0) {
+			return value;
+		}
+		return (value & 0x7F) | (readVarLong() << 7);
+	}
+	
 	public List<Integer> readListInt() throws IOException {
 		int size = readVarInt();
 		if (size == -1) {
@@ -60,6 +70,18 @@ public class OutputReader extends DataInputStream {
 		return list;
 	}
 	
+	public BitSet readBitSet() throws IOException {
+		int size = readVarInt();
+		if (size == -1) {
+			return null;
+		}
+		long[] words = new long[size];
+		for (int i = 0; i < size; i++) {
+			words[i] = readVarLong();
+		}
+		return BitSet.valueOf(words);
+	}
+	
 	public List<String> readListString() throws IOException {
 		int size = readVarInt();
 		if (size == -1) {
@@ -125,4 +147,12 @@ public class OutputReader extends DataInputStream {
 		}
 		return map;
 	}
+	
+	public int getFormatVersion() {
+		return formatVersion;
+	}
+
+	public void setFormatVersion(int formatVersion) {
+		this.formatVersion = formatVersion;
+	}
 }
@@ -5,11 +5,23 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 public class OutputWriter extends DataOutputStream {
+	/**
+	 * read/written variables of steps are written by java serialization.
+	 */
+	public static final int FORMAT_JAVA_SERIALIZATION = 1;
+	/**
+	 * read/written variables of steps are written by {@link VarValueCodec}.
+	 */
+	public static final int FORMAT_COMPACT_VAR_VALUE = 2;
+	public static final int CURRENT_FORMAT_VERSION = FORMAT_COMPACT_VAR_VALUE;
+	
+	private int formatVersion = CURRENT_FORMAT_VERSION;
 
 	public OutputWriter(OutputStream out) {
 		super(out);
@@ -35,6 +47,15 @@ public class OutputWriter extends DataOutputStream {
 		}
 	}
 	
+	public void writeVarLong(final long value) throws IOException {
+		if ((value & 0xFFFFFFFFFFFFFF80L) == 0) {
+			writeByte((int) value);
+		} else {
+			writeByte(0x80 | ((int) value & 0x7F));
+			writeVarLong(value >>> 7);
+		}
+	}
+	
 	public <K extends Serializable, V> void writeSerializableMap(Map<K, V> map)
 			throws IOException {
 		if (map == null || map.isEmpty()) {
@@ -84,6 +105,21 @@ public class OutputWriter extends DataOutputStream {
 		}
 	}
 	
+	/**
+	 * written as the var-long words of the bitset, so a set of small indexes takes a few bytes.
+	 */
+	public void writeBitSet(BitSet bitSet) throws IOException {
+		if (bitSet == null) {
+			writeVarInt(-1);
+		} else {
+			long[] words = bitSet.toLongArray();
+			writeVarInt(words.length);
+			for (long word : words) {
+				writeVarLong(word);
+			}
+		}
+	}
+	
 	public void writeListString(List<String> list) throws IOException {
 		if (list == null) {
 			writeVarInt(-1);
@@ -107,4 +143,12 @@ public class OutputWriter extends DataOutputStream {
 			writeVarInt(col.size());
 		}
 	}
+
+	public int getFormatVersion() {
+		return formatVersion;
+	}
+
+	public void setFormatVersion(int formatVersion) {
+		this.formatVersion = formatVersion;
+	}
 }
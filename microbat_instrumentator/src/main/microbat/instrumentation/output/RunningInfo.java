@@ -20,6 +20,11 @@ import sav.common.core.SavRtException;
  */
 public class RunningInfo {
 	private static final String HEADER = "TracingResult";
+	/**
+	 * header of the files written since the format version was introduced, followed by the format version
+	 * (see {@link OutputWriter#CURRENT_FORMAT_VERSION}).
+	 */
+	private static final String VERSIONED_HEADER = "TracingResult_v";
 	private List<Trace> traceList;
 	private String programMsg;
 	private int expectedSteps;
@@ -46,11 +51,18 @@ public class RunningInfo {
 			String programMsg;
 			int expectedSteps = 0;
 			int collectedSteps = 0;
-			if (HEADER.equals(header)) {
+			if (VERSIONED_HEADER.equals(header)) {
+				reader.setFormatVersion(reader.readVarInt());
+				programMsg = reader.readString();
+				expectedSteps = reader.readInt();
+				collectedSteps = reader.readInt();
+			} else if (HEADER.equals(header)) {
+				reader.setFormatVersion(OutputWriter.FORMAT_JAVA_SERIALIZATION);
 				programMsg = reader.readString();
 				expectedSteps = reader.readInt();
 				collectedSteps = reader.readInt();
 			} else {
+				reader.setFormatVersion(OutputWriter.FORMAT_JAVA_SERIALIZATION);
 				programMsg = header; // for compatible reason with old version. TO BE REMOVED.
 			}
 			List<Trace> traceList = reader.readTrace();
@@ -90,7 +102,8 @@ public class RunningInfo {
 		try {
 			outputWriter = new TraceOutputWriter(bufferedStream, traceExecFolder,
 					file.getName().substring(0, file.getName().lastIndexOf(".")));
-			outputWriter.writeString(HEADER);
+			outputWriter.writeString(VERSIONED_HEADER);
+			outputWriter.writeVarInt(outputWriter.getFormatVersion());
 			outputWriter.writeString(programMsg);
 			outputWriter.writeInt(expectedSteps);
 			outputWriter.writeInt(collectedSteps);
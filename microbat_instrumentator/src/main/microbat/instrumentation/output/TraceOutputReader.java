@@ -39,12 +39,7 @@ public class TraceOutputReader extends OutputReader {
 			readString(); // projectVersion
 			readString(); // launchClass
 			readString(); // launchMethod
-			trace.setMain(readBoolean());
-			trace.setThreadName(readString());
-			trace.setThreadId(Long.parseLong(readString()));
-			trace.setIncludedLibraryClasses(readFilterInfo());
-			trace.setExcludedLibraryClasses(readFilterInfo());
-			List<BreakPoint> locationList = readLocations();
+			List<BreakPoint> locationList = readTraceInfo(trace);
 			trace.setExecutionList(readSteps(trace, locationList));
 			readStepVariableRelation(trace);
 			
@@ -54,6 +49,20 @@ public class TraceOutputReader extends OutputReader {
 		return traceList;
 	}
 
+	/**
+	 * read the thread, filter and executed location information of the trace.
+	 * 
+	 * @return the executed locations, indexed as they are written.
+	 */
+	List<BreakPoint> readTraceInfo(Trace trace) throws IOException {
+		trace.setMain(readBoolean());
+		trace.setThreadName(readString());
+		trace.setThreadId(Long.parseLong(readString()));
+		trace.setIncludedLibraryClasses(readFilterInfo());
+		trace.setExcludedLibraryClasses(readFilterInfo());
+		return readLocations();
+	}
+
 	private List<String> readFilterInfo() throws IOException {
 		boolean inFile = readBoolean();
 		if (inFile) {
@@ -141,7 +150,7 @@ public class TraceOutputReader extends OutputReader {
 	private void readRWVarValues(List<TraceNode> allSteps, boolean isWrittenVar) throws IOException {
 		int i = 0;
 		while (i < allSteps.size()) {
-			List<List<VarValue>> varsCol = readSerializableList();
+			List<List<VarValue>> varsCol = readVarValueBatch();
 			for (List<VarValue> vars : varsCol) {
 				if (isWrittenVar) {
 					allSteps.get(i++).setWrittenVariables(vars);
@@ -152,6 +161,21 @@ public class TraceOutputReader extends OutputReader {
 		}
 	}
 
+	private List<List<VarValue>> readVarValueBatch() throws IOException {
+		if (getFormatVersion() < OutputWriter.FORMAT_COMPACT_VAR_VALUE) {
+			return readSerializableList();
+		}
+		int size = readVarInt();
+		if (size == 0) {
+			return new ArrayList<>(0);
+		}
+		byte[] bytes = readByteArray();
+		if (bytes == null || bytes.length == 0) {
+			return new ArrayList<>(0);
+		}
+		return VarValueCodec.decode(bytes);
+	}
+
 	private TraceNode readNode(List<TraceNode> allSteps) throws IOException {
 		int nodeOrder = readVarInt();
 		if (nodeOrder <= 0) {
@@ -52,14 +52,23 @@ public class TraceOutputWriter extends OutputWriter {
 		writeString(projectVersion);
 		writeString(launchClass);
 		writeString(launchMethod);
+		Map<String, Integer> locIdIdxMap = writeTraceInfo(trace);
+		writeSteps(trace.getExecutionList(), locIdIdxMap);
+		writeStepVariableRelation(trace);
+	}
+	
+	/**
+	 * write the thread, filter and executed location information of the trace.
+	 * 
+	 * @return the index of each executed location, by location id.
+	 */
+	Map<String, Integer> writeTraceInfo(Trace trace) throws IOException {
 		writeBoolean(trace.isMain());
 		writeString(trace.getThreadName());
 		writeString(String.valueOf(trace.getThreadId()));
 		writeFilterInfo(trace.getIncludedLibraryClasses(), true);
 		writeFilterInfo(trace.getExcludedLibraryClasses(), false);
-		Map<String, Integer> locIdIdxMap = writeLocations(trace);
-		writeSteps(trace.getExecutionList(), locIdIdxMap);
-		writeStepVariableRelation(trace);
+		return writeLocations(trace);
 	}
 	
 	private void writeFilterInfo(List<String> libClasses, boolean isInclusive) throws IOException {
@@ -125,8 +134,6 @@ public class TraceOutputWriter extends OutputWriter {
 	private void writeSteps(List<TraceNode> exectionList, Map<String, Integer> locIdIdxMap)
 			throws IOException {
 		writeVarInt(exectionList.size());
-		List<Collection<VarValue>> allReadVars = new ArrayList<>(exectionList.size());
-		List<Collection<VarValue>> allWrittenVars = new ArrayList<>(exectionList.size());
 		for (int i = 0; i < exectionList.size(); i++) {
 			TraceNode node = exectionList.get(i);
 			writeVarInt(locIdIdxMap.get(node.getBreakPoint().getId()));
@@ -136,22 +143,27 @@ public class TraceOutputWriter extends OutputWriter {
 			writeNodeOrder(node.getStepOverNext());
 			writeNodeOrder(node.getInvocationParent());
 			writeNodeOrder(node.getLoopParent());
-			allReadVars.add(node.getReadVariables());
-			allWrittenVars.add(node.getWrittenVariables());
 			writeBoolean(node.isException());
 			writeString(node.getBytecode());
 		}
-		writeVarValues(allReadVars);
-		writeVarValues(allWrittenVars);
+		writeVarValues(exectionList, READ);
+		writeVarValues(exectionList, WRITE);
 	}
 	
-	private void writeVarValues(List<Collection<VarValue>> list) throws IOException {
+	/**
+	 * the variables are collected chunk by chunk, so that the spilled steps of a streaming trace are loaded
+	 * back (and released afterwards) one chunk at a time.
+	 */
+	private void writeVarValues(List<TraceNode> exectionList, int rw) throws IOException {
 		int idx = 0;
-		while (idx < list.size()) {
+		while (idx < exectionList.size()) {
 			int limitSize = 0;
+			List<TraceNode> nodes = new ArrayList<>();
 			List<Collection<VarValue>> subList = new ArrayList<>();
-			while (limitSize < 4000 && (idx < list.size())) {
-				Collection<VarValue> vars = list.get(idx++);
+			while (limitSize < 4000 && (idx < exectionList.size())) {
+				TraceNode node = exectionList.get(idx++);
+				Collection<VarValue> vars = (rw == READ) ? node.getReadVariables() : node.getWrittenVariables();
+				nodes.add(node);
 				subList.add(vars);
 				limitSize = subList.size();
 			}
@@ -159,9 +171,17 @@ public class TraceOutputWriter extends OutputWriter {
 				writeVarInt(0);
 			} else {
 				writeVarInt(subList.size());
-				byte[] bytes = ByteConverter.convertToBytes(subList);
+				byte[] bytes;
+				if (getFormatVersion() >= FORMAT_COMPACT_VAR_VALUE) {
+					bytes = VarValueCodec.encode(subList);
+				} else {
+					bytes = ByteConverter.convertToBytes(subList);
+				}
 				writeByteArr(bytes);
 			}
+			for (TraceNode node : nodes) {
+				node.releaseVariables();
+			}
 		}
 	}
 	
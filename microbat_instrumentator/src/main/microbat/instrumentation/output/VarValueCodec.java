@@ -0,0 +1,368 @@
+package microbat.instrumentation.output;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import microbat.model.value.ArrayValue;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.ReferenceValue;
+import microbat.model.value.StringValue;
+import microbat.model.value.VarValue;
+import microbat.model.value.VirtualValue;
+import microbat.model.variable.ArrayElementVar;
+import microbat.model.variable.ConstantVar;
+import microbat.model.variable.FieldVar;
+import microbat.model.variable.LocalVar;
+import microbat.model.variable.Variable;
+import microbat.model.variable.VirtualVar;
+
+/**
+ * A compact binary codec for the read/written {@link VarValue}s of a batch of steps, used since
+ * {@link OutputWriter#FORMAT_COMPACT_VAR_VALUE} instead of java serialization.
+ * <br>
+ * A batch is encoded as:
+ * <pre>
+ * [values] number of values, then for each value: value kind, variable, string value, isRoot, kind specific fields
+ * [links]  for each value: its children and parents, as indexes of values
+ * [steps]  for each step: its variables, as indexes of values
+ * </pre>
+ * All the strings (var IDs, types, names, values) are interned in a string table which is built on the fly,
+ * i.e., a string is written in full only at its first occurrence, and referred by its index afterwards.
+ * All the numbers are varint-encoded.
+ *
+ * @author Yun Lin
+ *
+ */
+public class VarValueCodec {
+	private static final int PRIMITIVE_VALUE = 1;
+	private static final int STRING_VALUE = 2;
+	private static final int REFERENCE_VALUE = 3;
+	private static final int ARRAY_VALUE = 4;
+	private static final int VIRTUAL_VALUE = 5;
+
+	private static final int LOCAL_VAR = 1;
+	private static final int FIELD_VAR = 2;
+	private static final int ARRAY_ELEMENT_VAR = 3;
+	private static final int CONSTANT_VAR = 4;
+	private static final int VIRTUAL_VAR = 5;
+
+	/* string reference: null, a new string, or index + STRING_IDX_OFFSET in the string table */
+	private static final int NULL_STRING = 0;
+	private static final int NEW_STRING = 1;
+	private static final int STRING_IDX_OFFSET = 2;
+
+	private static final int NULL_LIST = 0;
+
+	public static byte[] encode(List<? extends Collection<VarValue>> stepVars) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		OutputWriter out = new OutputWriter(bos);
+		new Encoder(out).encode(stepVars);
+		out.flush();
+		return bos.toByteArray();
+	}
+
+	public static List<List<VarValue>> decode(byte[] bytes) throws IOException {
+		OutputReader in = new OutputReader(new ByteArrayInputStream(bytes));
+		return new Decoder(in).decode();
+	}
+
+	private static class Encoder {
+		private OutputWriter out;
+		private Map<String, Integer> stringTable = new HashMap<>();
+		private Map<VarValue, Integer> valueIdxMap = new IdentityHashMap<>();
+		private List<VarValue> values = new ArrayList<>();
+
+		Encoder(OutputWriter out) {
+			this.out = out;
+		}
+
+		void encode(List<? extends Collection<VarValue>> stepVars) throws IOException {
+			/* collect all values reachable from the step variables */
+			for (Collection<VarValue> vars : stepVars) {
+				for (VarValue var : vars) {
+					collect(var);
+				}
+			}
+			for (int i = 0; i < values.size(); i++) {
+				VarValue value = values.get(i);
+				collect(value.getChildren());
+				collect(value.getParents());
+			}
+
+			out.writeVarInt(values.size());
+			for (VarValue value : values) {
+				writeValue(value);
+			}
+			for (VarValue value : values) {
+				writeValueList(value.getChildren());
+				writeValueList(value.getParents());
+			}
+			out.writeVarInt(stepVars.size());
+			for (Collection<VarValue> vars : stepVars) {
+				writeValueList(vars);
+			}
+		}
+
+		private void collect(Collection<VarValue> vars) {
+			for (VarValue var : vars) {
+				collect(var);
+			}
+		}
+
+		private void collect(VarValue value) {
+			if (value != null && !valueIdxMap.containsKey(value)) {
+				valueIdxMap.put(value, values.size());
+				values.add(value);
+			}
+		}
+
+		private void writeValue(VarValue value) throws IOException {
+			/* StringValue is a PrimitiveValue, and ArrayValue is a ReferenceValue */
+			if (value instanceof StringValue) {
+				out.writeVarInt(STRING_VALUE);
+			} else if (value instanceof PrimitiveValue) {
+				out.writeVarInt(PRIMITIVE_VALUE);
+			} else if (value instanceof ArrayValue) {
+				out.writeVarInt(ARRAY_VALUE);
+			} else if (value instanceof ReferenceValue) {
+				out.writeVarInt(REFERENCE_VALUE);
+			} else if (value instanceof VirtualValue) {
+				out.writeVarInt(VIRTUAL_VALUE);
+			} else {
+				throw new IOException("Unsupported value type: " + value.getClass().getName());
+			}
+			writeVariable(value.getVariable());
+			writeString(value.getRawStringValue());
+			out.writeBoolean(value.isRoot());
+			if (value instanceof ReferenceValue) {
+				ReferenceValue refValue = (ReferenceValue) value;
+				out.writeBoolean(refValue.isNull());
+				out.writeVarLong(refValue.getUniqueID());
+				if (value instanceof ArrayValue) {
+					writeString(((ArrayValue) value).getComponentType());
+				}
+			}
+		}
+
+		private void writeVariable(Variable var) throws IOException {
+			if (var instanceof LocalVar) {
+				LocalVar localVar = (LocalVar) var;
+				out.writeVarInt(LOCAL_VAR);
+				writeString(localVar.getLocationClass());
+				out.writeVarInt(localVar.getLineNumber());
+				out.writeVarInt(localVar.getByteCodeIndex());
+				out.writeBoolean(localVar.isParameter());
+			} else if (var instanceof FieldVar) {
+				FieldVar fieldVar = (FieldVar) var;
+				out.writeVarInt(FIELD_VAR);
+				out.writeBoolean(fieldVar.isStatic());
+				writeString(fieldVar.getDeclaringType());
+			} else if (var instanceof ArrayElementVar) {
+				out.writeVarInt(ARRAY_ELEMENT_VAR);
+			} else if (var instanceof ConstantVar) {
+				out.writeVarInt(CONSTANT_VAR);
+				writeString(((ConstantVar) var).getValue());
+			} else if (var instanceof VirtualVar) {
+				out.writeVarInt(VIRTUAL_VAR);
+			} else {
+				throw new IOException("Unsupported variable type: " + var.getClass().getName());
+			}
+			writeString(var.getName());
+			writeString(var.getType());
+			writeString(var.getRuntimeType());
+			writeString(var.getVarID());
+			writeString(var.getAliasVarID());
+		}
+
+		private void writeValueList(Collection<VarValue> vars) throws IOException {
+			if (vars == null) {
+				out.writeVarInt(NULL_LIST);
+				return;
+			}
+			out.writeVarInt(vars.size() + 1);
+			for (VarValue var : vars) {
+				out.writeVarInt(valueIdxMap.get(var));
+			}
+		}
+
+		private void writeString(String str) throws IOException {
+			if (str == null) {
+				out.writeVarInt(NULL_STRING);
+				return;
+			}
+			Integer idx = stringTable.get(str);
+			if (idx != null) {
+				out.writeVarInt(idx + STRING_IDX_OFFSET);
+			} else {
+				stringTable.put(str, stringTable.size());
+				out.writeVarInt(NEW_STRING);
+				out.writeByteArr(str.getBytes("UTF-8"));
+			}
+		}
+	}
+
+	private static class Decoder {
+		private OutputReader in;
+		private List<String> stringTable = new ArrayList<>();
+
+		Decoder(OutputReader in) {
+			this.in = in;
+		}
+
+		List<List<VarValue>> decode() throws IOException {
+			int size = in.readVarInt();
+			VarValue[] values = new VarValue[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = readValue();
+			}
+			for (int i = 0; i < size; i++) {
+				values[i].setChildren(readValueList(values));
+				values[i].setParents(readValueList(values));
+			}
+			int stepSize = in.readVarInt();
+			List<List<VarValue>> stepVars = new ArrayList<>(stepSize);
+			for (int i = 0; i < stepSize; i++) {
+				List<VarValue> vars = readValueList(values);
+				stepVars.add(vars == null ? new ArrayList<VarValue>(0) : vars);
+			}
+			return stepVars;
+		}
+
+		private VarValue readValue() throws IOException {
+			int kind = in.readVarInt();
+			Variable var = readVariable();
+			String stringValue = readString();
+			boolean isRoot = in.readBoolean();
+			VarValue value;
+			switch (kind) {
+			case PRIMITIVE_VALUE:
+				value = new PrimitiveValue(stringValue, isRoot, var);
+				break;
+			case STRING_VALUE:
+				value = new StringValue(stringValue, isRoot, var);
+				break;
+			case REFERENCE_VALUE:
+			case ARRAY_VALUE:
+				boolean isNull = in.readBoolean();
+				long uniqueID = in.readVarLong();
+				ReferenceValue refValue;
+				if (kind == ARRAY_VALUE) {
+					ArrayValue arrValue = new ArrayValue(isNull, isRoot, var);
+					arrValue.setComponentType(readString());
+					refValue = arrValue;
+				} else {
+					refValue = new ReferenceValue(isNull, isRoot, var);
+				}
+				refValue.setNull(isNull);
+				refValue.setUniqueID(uniqueID);
+				value = refValue;
+				break;
+			case VIRTUAL_VALUE:
+				value = new VirtualValue(isRoot, var);
+				break;
+			default:
+				throw new IOException("Unknown value kind: " + kind);
+			}
+			value.setStringValue(stringValue);
+			return value;
+		}
+
+		private Variable readVariable() throws IOException {
+			int kind = in.readVarInt();
+			String locationClass = null;
+			int lineNumber = 0;
+			int byteCodeIndex = 0;
+			boolean isParameter = false;
+			boolean isStatic = false;
+			String declaringType = null;
+			String constantValue = null;
+			switch (kind) {
+			case LOCAL_VAR:
+				locationClass = readString();
+				lineNumber = in.readVarInt();
+				byteCodeIndex = in.readVarInt();
+				isParameter = in.readBoolean();
+				break;
+			case FIELD_VAR:
+				isStatic = in.readBoolean();
+				declaringType = readString();
+				break;
+			case CONSTANT_VAR:
+				constantValue = readString();
+				break;
+			case ARRAY_ELEMENT_VAR:
+			case VIRTUAL_VAR:
+				break;
+			default:
+				throw new IOException("Unknown variable kind: " + kind);
+			}
+			String name = readString();
+			String type = readString();
+			String rtType = readString();
+			String varID = readString();
+			String aliasVarID = readString();
+
+			Variable var;
+			switch (kind) {
+			case LOCAL_VAR:
+				LocalVar localVar = new LocalVar(name, type, locationClass, lineNumber);
+				localVar.setByteCodeIndex(byteCodeIndex);
+				localVar.setParameter(isParameter);
+				var = localVar;
+				break;
+			case FIELD_VAR:
+				var = new FieldVar(isStatic, name, type, declaringType);
+				break;
+			case ARRAY_ELEMENT_VAR:
+				var = new ArrayElementVar(name, type, varID);
+				break;
+			case CONSTANT_VAR:
+				ConstantVar constVar = new ConstantVar(name, type);
+				constVar.setValue(constantValue);
+				var = constVar;
+				break;
+			default:
+				var = new VirtualVar(name, type);
+				break;
+			}
+			var.setRtType(rtType);
+			var.setVarID(varID);
+			var.setAliasVarID(aliasVarID);
+			return var;
+		}
+
+		private List<VarValue> readValueList(VarValue[] values) throws IOException {
+			int size = in.readVarInt();
+			if (size == NULL_LIST) {
+				return null;
+			}
+			size--;
+			List<VarValue> list = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				list.add(values[in.readVarInt()]);
+			}
+			return list;
+		}
+
+		private String readString() throws IOException {
+			int ref = in.readVarInt();
+			if (ref == NULL_STRING) {
+				return null;
+			}
+			if (ref == NEW_STRING) {
+				byte[] bytes = in.readByteArray();
+				String str = new String(bytes, "UTF-8");
+				stringTable.add(str);
+				return str;
+			}
+			return stringTable.get(ref - STRING_IDX_OFFSET);
+		}
+	}
+}
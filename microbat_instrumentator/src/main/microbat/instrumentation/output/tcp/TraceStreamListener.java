@@ -0,0 +1,23 @@
+package microbat.instrumentation.output.tcp;
+
+import java.util.List;
+
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+
+/**
+ * Receives the steps streamed by {@link TraceStreamWriter} while the program is running.
+ *
+ * @author LLT
+ *
+ */
+public interface TraceStreamListener {
+
+	/**
+	 * @param trace
+	 *            the preview trace of the thread, which the new steps have been appended to.
+	 * @param newSteps
+	 *            the new steps, they only have their locations, timestamps and invocation parents.
+	 */
+	void onSteps(Trace trace, List<TraceNode> newSteps);
+}
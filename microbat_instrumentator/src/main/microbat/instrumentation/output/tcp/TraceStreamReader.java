@@ -0,0 +1,146 @@
+package microbat.instrumentation.output.tcp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import microbat.instrumentation.output.TraceOutputReader;
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+
+/**
+ * Reads the frames sent by {@link TraceStreamWriter}. The streamed steps are appended to a preview trace
+ * per thread, which is replaced by the complete traces at the end of the stream.
+ *
+ * @author LLT
+ *
+ */
+public class TraceStreamReader {
+	private ReadableByteChannel channel;
+	private ByteBuffer header = ByteBuffer.allocate(TraceStreamWriter.FRAME_HEADER_SIZE);
+	private ByteBuffer payload = ByteBuffer.allocate(8192);
+	private Map<Long, Trace> previewTraces = new LinkedHashMap<>();
+	private String programMsg;
+	private List<Trace> traces;
+
+	public TraceStreamReader(ReadableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * reads the stream until its end, the streamed steps are passed to the listener as they arrive.
+	 *
+	 * @return false if the connection is closed before the end of the stream.
+	 */
+	public boolean read(TraceStreamListener listener) throws IOException {
+		while (true) {
+			int type = readFrame();
+			if (type < 0) {
+				return false;
+			}
+			TraceOutputReader reader = new TraceOutputReader(
+					new ByteArrayInputStream(payload.array(), 0, payload.limit()));
+			switch (type) {
+			case TraceStreamWriter.FRAME_STEPS:
+				readSteps(reader, listener);
+				break;
+			case TraceStreamWriter.FRAME_TRACE:
+				programMsg = reader.readString();
+				traces = reader.readTrace();
+				break;
+			case TraceStreamWriter.FRAME_END:
+				return true;
+			default:
+				throw new IOException("Unknown frame type: " + type);
+			}
+		}
+	}
+
+	/**
+	 * reads a frame into the payload buffer.
+	 *
+	 * @return the type of the frame, or -1 if the connection is closed.
+	 */
+	private int readFrame() throws IOException {
+		header.clear();
+		if (!readFully(header)) {
+			return -1;
+		}
+		int type = header.get(0);
+		int length = header.getInt(1);
+		if (payload.capacity() < length) {
+			payload = ByteBuffer.allocate(Math.max(length, payload.capacity() * 2));
+		}
+		payload.clear();
+		payload.limit(length);
+		if (!readFully(payload)) {
+			return -1;
+		}
+		return type;
+	}
+
+	private boolean readFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void readSteps(TraceOutputReader reader, TraceStreamListener listener) throws IOException {
+		long threadId = reader.readVarLong();
+		String threadName = reader.readString();
+		Trace trace = previewTraces.get(threadId);
+		if (trace == null) {
+			trace = new Trace(null);
+			trace.setThreadId(threadId);
+			trace.setThreadName(threadName);
+			trace.setMain("main".equals(threadName));
+			previewTraces.put(threadId, trace);
+		}
+		int size = reader.readVarInt();
+		List<TraceNode> newSteps = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			int order = reader.readVarInt();
+			String className = reader.readString();
+			String methodSign = reader.readString();
+			int line = reader.readVarInt();
+			int parentOrder = reader.readVarInt();
+			long timestamp = reader.readVarLong();
+			TraceNode node = new TraceNode(new BreakPoint(className, methodSign, line), null, order, trace, null);
+			node.setTimestamp(timestamp);
+			if (parentOrder > 0) {
+				TraceNode parent = trace.getTraceNode(parentOrder);
+				parent.addInvocationChild(node);
+				node.setInvocationParent(parent);
+			}
+			trace.addTraceNode(node);
+			newSteps.add(node);
+		}
+		if (listener != null) {
+			listener.onSteps(trace, newSteps);
+		}
+	}
+
+	public String getProgramMsg() {
+		return programMsg;
+	}
+
+	/**
+	 * @return the complete traces, or null if the end of the stream has not been reached.
+	 */
+	public List<Trace> getTraces() {
+		return traces;
+	}
+
+	public List<Trace> getPreviewTraces() {
+		return new ArrayList<>(previewTraces.values());
+	}
+}
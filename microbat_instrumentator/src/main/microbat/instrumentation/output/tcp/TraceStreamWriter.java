@@ -0,0 +1,226 @@
+package microbat.instrumentation.output.tcp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import microbat.instrumentation.AgentLogger;
+import microbat.instrumentation.output.OutputWriter;
+import microbat.instrumentation.output.TraceOutputWriter;
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+
+/**
+ * Streams a trace to the runner over a {@link SocketChannel} while the program is running. The steps
+ * recorded by the tracers are queued per thread, and pushed in batches by a background thread, so that
+ * the runner can show the early part of a long execution before the trace is complete. Once the program
+ * stops, the complete traces are sent, followed by the end of the stream.
+ * <br>
+ * A frame: its type (a byte), the length of its payload (an int), then the payload encoded by
+ * {@link OutputWriter}.
+ * <br>
+ * {@link #FRAME_STEPS}: thread id, thread name, number of steps, then for each step: order, class name,
+ * method signature, line number, order of the invocation parent (-1 if none), timestamp.
+ * <br>
+ * {@link #FRAME_TRACE}: program message, then the traces written by
+ * {@link TraceOutputWriter#writeTrace(List)}.
+ * <br>
+ * {@link #FRAME_END}: no payload.
+ *
+ * @author LLT
+ *
+ */
+public class TraceStreamWriter {
+	public static final byte FRAME_END = 0;
+	public static final byte FRAME_STEPS = 1;
+	public static final byte FRAME_TRACE = 2;
+	static final int FRAME_HEADER_SIZE = 5;
+	private static final long FLUSH_INTERVAL = 100l;
+	private static final int MAX_BATCH_SIZE = 2000;
+	private static TraceStreamWriter instance;
+
+	private SocketChannel channel;
+	private ConcurrentHashMap<Long, StepQueue> stepQueues = new ConcurrentHashMap<>();
+	private FrameBuffer frame = new FrameBuffer();
+	private OutputWriter frameWriter = new OutputWriter(frame);
+	private ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+	private Thread flushThread;
+	private volatile boolean finished;
+
+	private TraceStreamWriter(SocketChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * connects to the runner at the given port, and starts pushing the queued steps.
+	 */
+	public static synchronized TraceStreamWriter connect(int tcpPort) throws IOException {
+		SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", tcpPort));
+		channel.socket().setTcpNoDelay(true);
+		instance = new TraceStreamWriter(channel);
+		instance.startFlushing();
+		return instance;
+	}
+
+	/**
+	 * @return the stream of the current run, or null if the trace is not streamed.
+	 */
+	public static synchronized TraceStreamWriter getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @return the queue where the tracer of the given thread adds its steps.
+	 */
+	public Queue<TraceNode> getStepQueue(long threadId, String threadName) {
+		StepQueue queue = stepQueues.get(threadId);
+		if (queue == null) {
+			queue = new StepQueue(threadId, threadName);
+			StepQueue existing = stepQueues.putIfAbsent(threadId, queue);
+			if (existing != null) {
+				queue = existing;
+			}
+		}
+		return queue.steps;
+	}
+
+	private void startFlushing() {
+		flushThread = new Thread("microbat-trace-stream") {
+			@Override
+			public void run() {
+				while (!finished) {
+					try {
+						Thread.sleep(FLUSH_INTERVAL);
+						flushSteps();
+					} catch (InterruptedException e) {
+						return;
+					} catch (IOException e) {
+						/* the runner stops listening, the trace is still sent at the end if possible */
+						AgentLogger.error(e);
+						return;
+					}
+				}
+			}
+		};
+		flushThread.setDaemon(true);
+		flushThread.start();
+	}
+
+	private synchronized void flushSteps() throws IOException {
+		for (StepQueue queue : stepQueues.values()) {
+			int batchSize;
+			do {
+				batchSize = writeSteps(queue);
+			} while (batchSize == MAX_BATCH_SIZE);
+		}
+	}
+
+	/**
+	 * @return the number of written steps.
+	 */
+	private int writeSteps(StepQueue queue) throws IOException {
+		List<TraceNode> batch = new ArrayList<>();
+		TraceNode node;
+		while (batch.size() < MAX_BATCH_SIZE && (node = queue.steps.poll()) != null) {
+			batch.add(node);
+		}
+		if (batch.isEmpty()) {
+			return 0;
+		}
+		frame.reset();
+		frameWriter.writeVarLong(queue.threadId);
+		frameWriter.writeString(queue.threadName);
+		frameWriter.writeVarInt(batch.size());
+		for (TraceNode step : batch) {
+			BreakPoint point = step.getBreakPoint();
+			frameWriter.writeVarInt(step.getOrder());
+			frameWriter.writeString(point.getClassCanonicalName());
+			frameWriter.writeString(point.getMethodSign());
+			frameWriter.writeVarInt(point.getLineNumber());
+			TraceNode invocationParent = step.getInvocationParent();
+			frameWriter.writeVarInt(invocationParent == null ? -1 : invocationParent.getOrder());
+			frameWriter.writeVarLong(step.getTimestamp());
+		}
+		writeFrame(FRAME_STEPS);
+		return batch.size();
+	}
+
+	/**
+	 * sends the remaining steps, the complete traces and the end of the stream, then closes the connection.
+	 */
+	public synchronized void finish(String programMsg, List<Trace> traceList) throws IOException {
+		finished = true;
+		flushThread.interrupt();
+		try {
+			flushSteps();
+			frame.reset();
+			TraceOutputWriter traceWriter = new TraceOutputWriter(frame);
+			traceWriter.writeString(programMsg);
+			traceWriter.writeTrace(traceList);
+			traceWriter.flush();
+			writeFrame(FRAME_TRACE);
+			frame.reset();
+			writeFrame(FRAME_END);
+		} finally {
+			close();
+		}
+	}
+
+	public synchronized void close() {
+		finished = true;
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// ignore
+		}
+		synchronized (TraceStreamWriter.class) {
+			if (instance == this) {
+				instance = null;
+			}
+		}
+	}
+
+	/**
+	 * writes the header and the payload of a frame with one gathering write, the payload is not copied.
+	 */
+	private void writeFrame(byte type) throws IOException {
+		frameWriter.flush();
+		header.clear();
+		header.put(type).putInt(frame.size());
+		header.flip();
+		ByteBuffer[] buffers = new ByteBuffer[] { header, frame.toByteBuffer() };
+		while (buffers[1].hasRemaining() || header.hasRemaining()) {
+			channel.write(buffers);
+		}
+	}
+
+	private static class StepQueue {
+		private long threadId;
+		private String threadName;
+		private Queue<TraceNode> steps = new ConcurrentLinkedQueue<>();
+
+		public StepQueue(long threadId, String threadName) {
+			this.threadId = threadId;
+			this.threadName = threadName;
+		}
+	}
+
+	private static class FrameBuffer extends ByteArrayOutputStream {
+
+		public FrameBuffer() {
+			super(8192);
+		}
+
+		public ByteBuffer toByteBuffer() {
+			return ByteBuffer.wrap(buf, 0, count);
+		}
+	}
+}
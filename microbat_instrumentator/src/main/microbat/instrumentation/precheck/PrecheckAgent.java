@@ -68,6 +68,14 @@ public class PrecheckAgent extends Agent{
 		// do nothing, not used.
 	}
 
+	/**
+	 * a precheck reports the classes loaded by the run, which needs a new jvm.
+	 */
+	@Override
+	public void startHostRun0() {
+		throw new UnsupportedOperationException("precheck does not support host mode!");
+	}
+
 	@Override
 	public boolean isInstrumentationActive0() {
 		return true;
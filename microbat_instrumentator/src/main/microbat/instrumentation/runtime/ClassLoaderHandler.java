@@ -7,9 +7,9 @@ public class ClassLoaderHandler extends EmptyExecutionTracer {
 	private boolean tracerLockPreserve;
 
 	@Override
-	public void _hitLine(int line, String className, String methodSignature, int numOfReadVars, int numOfWrittenVars, String bytecode) {
+	public void _hitLine(int line, int methodId, int numOfReadVars, int numOfWrittenVars, String bytecode) {
 		if (line == ClassLoaderInstrumenter.ENTER_MARKER) {
-			System.out.println("gLock: " + className);
+			System.out.println("gLock: " + MethodRegistry.getClassName(methodId));
 //			tracerLockPreserve = ExecutionTracer.glock();
 		} else if (line == ClassLoaderInstrumenter.EXIT_MARKER) {
 //			ExecutionTracer.gUnlock(tracerLockPreserve);
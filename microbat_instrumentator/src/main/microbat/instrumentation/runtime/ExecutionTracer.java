@@ -9,6 +9,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 
 import org.apache.bcel.Repository;
@@ -24,9 +25,12 @@ import microbat.instrumentation.Agent;
 import microbat.instrumentation.AgentConstants;
 import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.filter.GlobalFilterChecker;
+import microbat.instrumentation.instr.TraceInstrumenter;
+import microbat.instrumentation.output.tcp.TraceStreamWriter;
 import microbat.model.BreakPoint;
 import microbat.model.trace.Trace;
 import microbat.model.trace.TraceNode;
+import microbat.model.trace.TraceSegmentStore;
 import microbat.model.trace.VariableDefinitions;
 import microbat.model.value.ArrayValue;
 import microbat.model.value.PrimitiveValue;
@@ -57,9 +61,21 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	public static int expectedSteps = Integer.MAX_VALUE;
 //	private static int tolerantExpectedSteps = expectedSteps;
 	public static boolean avoidProxyToString = false;
+	/* whether the run has been stopped at the step limit */
+	private static volatile boolean overLong = false;
+	/**
+	 * the number of latest steps kept in the heap in streaming mode, the variables of older steps are
+	 * spilled into a segment file under {@link #segmentFolder}. Non-positive means streaming mode is off.
+	 */
+	private static int spillingWindow = AgentConstants.UNSPECIFIED_INT_VALUE;
+	private static String segmentFolder;
+	/* the stream where the steps are pushed while the program is running, null if the trace is not streamed */
+	private static TraceStreamWriter stepStream;
 	private long threadId;
 
 	private Trace trace;
+	/* the class id of the latest step, see MethodRegistry */
+	private int latestClassId = MethodRegistry.UNKNOWN_ID;
 
 	private MethodCallStack methodCallStack;
 	
@@ -67,6 +83,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	 * indicate whether the execution of the thread should be recorded 
 	 */
 	private TrackingDelegate trackingDelegate;
+	private Queue<TraceNode> streamedSteps;
 
 	public static void setExpectedSteps(int expectedSteps) {
 		if (expectedSteps != AgentConstants.UNSPECIFIED_INT_VALUE) {
@@ -81,11 +98,20 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		}
 	}
 
+	public static void setSpillingWindow(int spillingWindow, String segmentFolder) {
+		ExecutionTracer.spillingWindow = spillingWindow;
+		ExecutionTracer.segmentFolder = segmentFolder;
+	}
+
 	public ExecutionTracer(long threadId) {
 		this.threadId = threadId;
 		trackingDelegate = new TrackingDelegate(threadId);
 		methodCallStack = new MethodCallStack();
 		trace = new Trace(appJavaClassPath);
+		if (spillingWindow > 0 && segmentFolder != null) {
+			trace.enableSpilling(new TraceSegmentStore(segmentFolder, "microbat_trace_" + threadId + "_"),
+					spillingWindow);
+		}
 	}
 
 	// private void buildDataRelation(TraceNode currentNode, VarValue value, String
@@ -297,9 +323,11 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	 * Methods with prefix "_" are called in instrument code.
 	 * =================================================================
 	 */
-	public void enterMethod(String className, String methodSignature, int methodStartLine, int methodEndLine,
+	public void enterMethod(int methodId, int methodStartLine, int methodEndLine,
 			String paramTypeSignsCode, String paramNamesCode, Object[] params) {
 		trackingDelegate.untrack();
+		String className = MethodRegistry.getClassName(methodId);
+		String methodSignature = MethodRegistry.getMethodSignature(methodId);
 		TraceNode caller = trace.getLatestNode();
 		if (caller != null && caller.getMethodSign().contains("<clinit>")) {
 			caller = caller.getInvocationParent();
@@ -338,12 +366,12 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 			}
 		}
 
-		boolean exclusive = GlobalFilterChecker.isExclusive(className, methodSignature);
+		boolean exclusive = MethodRegistry.isExclusive(methodId);
 		if (!exclusive) {
 			if (caller != null) {
 				methodCallStack.push(caller);
 			}
-			hitLine(methodStartLine, className, methodSignature);
+			hitLine(methodStartLine, methodId);
 		} else {
 			trackingDelegate.track();
 			return;
@@ -386,9 +414,9 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		return start;
 	}
 
-	public void exitMethod(int line, String className, String methodSignature) {
+	public void exitMethod(int line, int methodId) {
 		trackingDelegate.untrack();
-		boolean exclusive = GlobalFilterChecker.isExclusive(className, methodSignature);
+		boolean exclusive = MethodRegistry.isExclusive(methodId);
 		if (!exclusive) {
 			methodCallStack.safePop();
 		}
@@ -397,16 +425,15 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 
 	@Override
 	public void _hitInvoke(Object invokeObj, String invokeTypeSign, String methodSig, Object[] params,
-			String paramTypeSignsCode, String returnTypeSign, int line, String residingClassName,
-			String residingMethodSignature) {
+			String paramTypeSignsCode, String returnTypeSign, int line, int methodId) {
 		trackingDelegate.untrack();
 		try {
-			hitLine(line, residingClassName, residingMethodSignature);
+			hitLine(line, methodId);
 			TraceNode latestNode = trace.getLatestNode();
 			if (latestNode != null) {
 				latestNode.setInvokingMethod(methodSig);
-				initInvokingDetail(invokeObj, invokeTypeSign, methodSig, params, paramTypeSignsCode, residingClassName,
-						latestNode);
+				initInvokingDetail(invokeObj, invokeTypeSign, methodSig, params, paramTypeSignsCode,
+						MethodRegistry.getClassName(methodId), latestNode);
 
 				if (methodSig.contains("clone()")) {
 
@@ -485,10 +512,10 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 
 	@Override
 	public void _hitInvokeStatic(String invokeTypeSign, String methodSig, Object[] params, String paramTypeSignsCode,
-			String returnTypeSign, int line, String className, String residingMethodSignature) {
+			String returnTypeSign, int line, int methodId) {
 		trackingDelegate.untrack();
 		try {
-			hitLine(line, className, residingMethodSignature);
+			hitLine(line, methodId);
 
 			if (methodSig.equals("java.lang.System#arraycopy(Ljava/lang/Object;ILjava/lang/Object;II)V")) {
 				Object sourceArray = params[0];
@@ -504,7 +531,8 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 			TraceNode latestNode = trace.getLatestNode();
 			if (latestNode != null) {
 				latestNode.setInvokingMethod(methodSig);
-				initInvokingDetail(null, invokeTypeSign, methodSig, params, paramTypeSignsCode, className, latestNode);
+				initInvokingDetail(null, invokeTypeSign, methodSig, params, paramTypeSignsCode,
+						MethodRegistry.getClassName(methodId), latestNode);
 			}
 		} catch (Throwable t) {
 			handleException(t);
@@ -513,10 +541,10 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	}
 
 	@Override
-	public void _hitMethodEnd(int line, String className, String methodSignature) {
+	public void _hitMethodEnd(int line, int methodId) {
 		trackingDelegate.untrack();
 		try {
-			exitMethod(line, className, methodSignature);
+			exitMethod(line, methodId);
 		} catch (Throwable t) {
 			handleException(t);
 		}
@@ -528,12 +556,12 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	 */
 	@Override
 	public void _afterInvoke(Object returnedValue, Object invokeObj, String invokeMethodSig, int line,
-			String residingClassName, String residingMethodSignature, boolean needRevisiting) {
+			int methodId, boolean needRevisiting) {
 		trackingDelegate.untrack();
 		try {
-			boolean exclusive = GlobalFilterChecker.isExclusive(residingClassName, residingMethodSignature);
+			boolean exclusive = MethodRegistry.isExclusive(methodId);
 			if (!exclusive) {
-				hitLine(line, residingClassName, residingMethodSignature);
+				hitLine(line, methodId);
 				TraceNode latestNode = trace.getLatestNode();
 				if (latestNode != null) {
 					latestNode.setInvokingDetail(null);
@@ -599,11 +627,11 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	 *                              of object type, not specific name
 	 */
 	@Override
-	public void _hitReturn(Object returnObj, String returnGeneralTypeSign, int line, String className,
-			String methodSignature) {
+	public void _hitReturn(Object returnObj, String returnGeneralTypeSign, int line, int methodId) {
 		trackingDelegate.untrack();
 		try {
-			hitLine(line, className, methodSignature);
+			hitLine(line, methodId);
+			String methodSignature = MethodRegistry.getMethodSignature(methodId);
 			String returnGeneralType = SignatureUtils.signatureToName(returnGeneralTypeSign);
 			Variable returnVar = new VirtualVar(methodSignature, returnGeneralType);
 
@@ -632,6 +660,9 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	}
 
 	private void handleException(Throwable t) {
+		if (t instanceof Agent.ProgramExit) {
+			throw (Agent.ProgramExit) t;
+		}
 		if (t.getMessage() != null) {
 			AgentLogger.info("ExecutionTracer error: " + t.getMessage());
 		}
@@ -639,30 +670,31 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	}
 
 	@Override
-	public void _hitVoidReturn(int line, String className, String methodSignature) {
+	public void _hitVoidReturn(int line, int methodId) {
 		try {
-			hitLine(line, className, methodSignature);
+			hitLine(line, methodId);
 		} catch (Throwable t) {
 			handleException(t);
 		}
 	}
 
-	public void hitLine(int line, String className, String methodSignature) {
-		_hitLine(line, className, methodSignature, -1, -1, null);
+	public void hitLine(int line, int methodId) {
+		_hitLine(line, methodId, -1, -1, null);
 	}
 
 	@Override
-	public void _hitLine(int line, String className, String methodSignature, int numOfReadVars, int numOfWrittenVars, String bytecode) {
+	public void _hitLine(int line, int methodId, int numOfReadVars, int numOfWrittenVars, String bytecode) {
 		boolean isLocked = trackingDelegate.isUntrack();
 		trackingDelegate.untrack();
 		try {
-			boolean exclusive = GlobalFilterChecker.isExclusive(className, methodSignature);
+			boolean exclusive = MethodRegistry.isExclusive(methodId);
 			if (exclusive) {
 				trackingDelegate.track(isLocked);
 				return;
 			}
 			TraceNode latestNode = trace.getLatestNode();
-			if (latestNode != null && latestNode.getBreakPoint().getClassCanonicalName().equals(className)
+			int classId = MethodRegistry.getClassId(methodId);
+			if (latestNode != null && latestClassId == classId
 					&& latestNode.getBreakPoint().getLineNumber() == line) {
 				trackingDelegate.track(isLocked);
 				return;
@@ -670,6 +702,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 
 			int order = trace.size() + 1;
 			if (order > stepLimit) {
+				overLong = true;
 				shutdown();
 				Agent._exitProgram("fail;Trace is over long!");
 			}
@@ -678,17 +711,23 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 //				Agent._exitProgram("fail;Trace size exceeds expected_steps!");
 //			}
 
-			BreakPoint bkp = new BreakPoint(className, methodSignature, line);
+			BreakPoint bkp = new BreakPoint(MethodRegistry.getClassName(methodId),
+					MethodRegistry.getMethodSignature(methodId), line);
 			long timestamp = System.currentTimeMillis();
 			TraceNode currentNode = new TraceNode(bkp, null, order, trace, numOfReadVars, numOfWrittenVars, timestamp, bytecode);
 
 			trace.addTraceNode(currentNode);
+			latestClassId = classId;
+			trace.spillCompletedSteps();
 			AgentLogger.printProgress(order);
 			if (!methodCallStack.isEmpty()) {
 				TraceNode caller = methodCallStack.peek();
 				caller.addInvocationChild(currentNode);
 				currentNode.setInvocationParent(caller);
 			}
+			if (stepStream != null) {
+				getStreamedSteps().add(currentNode);
+			}
 		} catch (Throwable t) {
 			handleException(t);
 		}
@@ -697,14 +736,15 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	}
 
 	@Override
-	public void _hitExeptionTarget(int line, String className, String methodSignature) {
+	public void _hitExeptionTarget(int line, int methodId) {
 		trackingDelegate.untrack();
 		try {
-			hitLine(line, className, methodSignature);
+			hitLine(line, methodId);
 			TraceNode latestNode = trace.getLatestNode();
 			if(latestNode == null) return;
 			latestNode.setException(true);
-			boolean invocationLayerChanged = this.methodCallStack.popForException(methodSignature, appJavaClassPath);
+			boolean invocationLayerChanged = this.methodCallStack.popForException(
+					MethodRegistry.getMethodSignature(methodId), appJavaClassPath);
 
 			if (invocationLayerChanged) {
 				TraceNode caller = null;
@@ -732,11 +772,11 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	 */
 	@Override
 	public void _writeField(Object refValue, Object fieldValue, String fieldName, String fieldType, int line,
-			String className, String methodSignature) {
+			int methodId) {
 		trackingDelegate.untrack();
 		try {
-			hitLine(line, className, methodSignature);
-			boolean exclusive = GlobalFilterChecker.isExclusive(className, methodSignature);
+			hitLine(line, methodId);
+			boolean exclusive = MethodRegistry.isExclusive(methodId);
 			TraceNode latestNode = trace.getLatestNode();
 			if (exclusive) {
 				if (latestNode != null && latestNode.getInvokingDetail() != null) {
@@ -815,14 +855,14 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	 */
 	@Override
 	public void _writeStaticField(Object fieldValue, String refType, String fieldName, String fieldType, int line,
-			String className, String methodSignature) {
+			int methodId) {
 		trackingDelegate.untrack();
 		try {
 			// boolean exclusive = FilterChecker.isExclusive(className, methodSignature);
 			// if (exclusive) {
 			// return;
 			// }
-			hitLine(line, className, methodSignature);
+			hitLine(line, methodId);
 			Variable var = new FieldVar(false, fieldName, fieldType, refType);
 			var.setVarID(Variable.concanateFieldVarID(refType, fieldName));
 			if (!PrimitiveUtils.isPrimitive(fieldType)) {
@@ -845,10 +885,10 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	 */
 	@Override
 	public void _readField(Object refValue, Object fieldValue, String fieldName, String fieldType, int line,
-			String className, String methodSignature) {
+			int methodId) {
 		trackingDelegate.untrack();
 		try {
-			boolean exclusive = GlobalFilterChecker.isExclusive(className, methodSignature);
+			boolean exclusive = MethodRegistry.isExclusive(methodId);
 			if (exclusive) {
 				TraceNode latestNode = trace.getLatestNode();
 				boolean relevant = false;
@@ -861,7 +901,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 					return;
 				}
 			}
-			hitLine(line, className, methodSignature);
+			hitLine(line, methodId);
 			String parentVarId = TraceUtils.getObjectVarId(refValue, refValue.getClass().getName());
 			String fieldVarId = TraceUtils.getFieldVarId(parentVarId, fieldName, fieldType, fieldValue);
 			// invokeTrack.updateRelevant(parentVarId, fieldVarId);
@@ -890,7 +930,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 
 	@Override
 	public void _readStaticField(Object fieldValue, String refType, String fieldName, String fieldType, int line,
-			String className, String methodSignature) {
+			int methodId) {
 		trackingDelegate.untrack();
 		try {
 			// boolean exclusive = FilterChecker.isExclusive(className, methodSignature);
@@ -898,7 +938,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 			// locker.unLock();
 			// return;
 			// }
-			hitLine(line, className, methodSignature);
+			hitLine(line, methodId);
 			Variable var = new FieldVar(true, fieldName, fieldType, refType);
 			var.setVarID(Variable.concanateFieldVarID(refType, fieldName));
 
@@ -921,7 +961,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	 */
 	@Override
 	public void _writeLocalVar(Object varValue, String varName, String varType, int line, int bcLocalVarIdx,
-			int varScopeStartLine, int varScopeEndLine, String className, String methodSignature) {
+			int varScopeStartLine, int varScopeEndLine, int methodId) {
 		trackingDelegate.untrack();
 		try {
 			// boolean exclusive = FilterChecker.isExclusive(className, methodSignature);
@@ -929,7 +969,8 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 			// locker.unLock();
 			// return;
 			// }
-			hitLine(line, className, methodSignature);
+			hitLine(line, methodId);
+			String className = MethodRegistry.getClassName(methodId);
 			Variable var = new LocalVar(varName, varType, className, line);
 
 			TraceNode latestNode = trace.getLatestNode();
@@ -954,7 +995,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	 */
 	@Override
 	public void _readLocalVar(Object varValue, String varName, String varType, int line, int bcLocalVarIdx,
-			int varScopeStartLine, int varScopeEndLine, String className, String methodSignature) {
+			int varScopeStartLine, int varScopeEndLine, int methodId) {
 		trackingDelegate.untrack();
 		try {
 			// boolean exclusive = FilterChecker.isExclusive(className, methodSignature);
@@ -962,8 +1003,9 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 			// locker.unLock();
 			// return;
 			// }
-			hitLine(line, className, methodSignature);
+			hitLine(line, methodId);
 			TraceNode latestNode = trace.getLatestNode();
+			String className = MethodRegistry.getClassName(methodId);
 			Variable var = new LocalVar(varName, varType, className, line);
 
 			String varID = Variable.concanateLocalVarID(className, varName, varScopeStartLine, varScopeEndLine,
@@ -1041,12 +1083,249 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		return false;
 	}
 
+	@Override
+	public void _writeLocalVarInt(int varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId) {
+		rwLocalVar(RawPrimitiveValue.INT, varValue, true, varName, varType, line, varScopeStartLine, varScopeEndLine, methodId);
+	}
+
+	@Override
+	public void _readLocalVarInt(int varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId) {
+		rwLocalVar(RawPrimitiveValue.INT, varValue, false, varName, varType, line, varScopeStartLine, varScopeEndLine, methodId);
+	}
+
+	@Override
+	public void _writeFieldInt(Object refValue, int fieldValue, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwField(refValue, RawPrimitiveValue.getIntKind(fieldType), fieldValue, true, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _readFieldInt(Object refValue, int fieldValue, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwField(refValue, RawPrimitiveValue.getIntKind(fieldType), fieldValue, false, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _writeStaticFieldInt(int fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwStaticField(RawPrimitiveValue.getIntKind(fieldType), fieldValue, true, refType, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _readStaticFieldInt(int fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwStaticField(RawPrimitiveValue.getIntKind(fieldType), fieldValue, false, refType, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _writeLocalVarLong(long varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId) {
+		rwLocalVar(RawPrimitiveValue.LONG, varValue, true, varName, varType, line, varScopeStartLine, varScopeEndLine, methodId);
+	}
+
+	@Override
+	public void _readLocalVarLong(long varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId) {
+		rwLocalVar(RawPrimitiveValue.LONG, varValue, false, varName, varType, line, varScopeStartLine, varScopeEndLine, methodId);
+	}
+
+	@Override
+	public void _writeFieldLong(Object refValue, long fieldValue, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwField(refValue, RawPrimitiveValue.LONG, fieldValue, true, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _readFieldLong(Object refValue, long fieldValue, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwField(refValue, RawPrimitiveValue.LONG, fieldValue, false, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _writeStaticFieldLong(long fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwStaticField(RawPrimitiveValue.LONG, fieldValue, true, refType, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _readStaticFieldLong(long fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwStaticField(RawPrimitiveValue.LONG, fieldValue, false, refType, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _writeLocalVarFloat(float varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId) {
+		rwLocalVar(RawPrimitiveValue.FLOAT, Float.floatToRawIntBits(varValue), true, varName, varType, line, varScopeStartLine, varScopeEndLine, methodId);
+	}
+
+	@Override
+	public void _readLocalVarFloat(float varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId) {
+		rwLocalVar(RawPrimitiveValue.FLOAT, Float.floatToRawIntBits(varValue), false, varName, varType, line, varScopeStartLine, varScopeEndLine, methodId);
+	}
+
+	@Override
+	public void _writeFieldFloat(Object refValue, float fieldValue, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwField(refValue, RawPrimitiveValue.FLOAT, Float.floatToRawIntBits(fieldValue), true, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _readFieldFloat(Object refValue, float fieldValue, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwField(refValue, RawPrimitiveValue.FLOAT, Float.floatToRawIntBits(fieldValue), false, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _writeStaticFieldFloat(float fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwStaticField(RawPrimitiveValue.FLOAT, Float.floatToRawIntBits(fieldValue), true, refType, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _readStaticFieldFloat(float fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwStaticField(RawPrimitiveValue.FLOAT, Float.floatToRawIntBits(fieldValue), false, refType, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _writeLocalVarDouble(double varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId) {
+		rwLocalVar(RawPrimitiveValue.DOUBLE, Double.doubleToRawLongBits(varValue), true, varName, varType, line, varScopeStartLine, varScopeEndLine, methodId);
+	}
+
+	@Override
+	public void _readLocalVarDouble(double varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId) {
+		rwLocalVar(RawPrimitiveValue.DOUBLE, Double.doubleToRawLongBits(varValue), false, varName, varType, line, varScopeStartLine, varScopeEndLine, methodId);
+	}
+
+	@Override
+	public void _writeFieldDouble(Object refValue, double fieldValue, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwField(refValue, RawPrimitiveValue.DOUBLE, Double.doubleToRawLongBits(fieldValue), true, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _readFieldDouble(Object refValue, double fieldValue, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwField(refValue, RawPrimitiveValue.DOUBLE, Double.doubleToRawLongBits(fieldValue), false, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _writeStaticFieldDouble(double fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwStaticField(RawPrimitiveValue.DOUBLE, Double.doubleToRawLongBits(fieldValue), true, refType, fieldName, fieldType, line, methodId);
+	}
+
+	@Override
+	public void _readStaticFieldDouble(double fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId) {
+		rwStaticField(RawPrimitiveValue.DOUBLE, Double.doubleToRawLongBits(fieldValue), false, refType, fieldName, fieldType, line, methodId);
+	}
+
+	/**
+	 * the same as {@link #appendVarValue(Object, Variable, VarValue)} for a root primitive value, but the 
+	 * value is neither boxed nor formatted here.
+	 */
+	private VarValue appendRawValue(char kind, long bits, Variable var) {
+		RawPrimitiveValue value = new RawPrimitiveValue(kind, bits, true, var);
+		if (!PrimitiveUtils.isPrimitive(var.getType())) {
+			return appendVarValue(value.box(), var, null);
+		}
+		if (variableLayer <= 0) {
+			return null;
+		}
+		return value;
+	}
+
+	/**
+	 * Primitive-typed variant of {@link #_writeLocalVar} and {@link #_readLocalVar}. A primitive value 
+	 * is not aliased by other variables, so its alias ID is not set.
+	 */
+	private void rwLocalVar(char kind, long bits, boolean isWritten, String varName, String varType, int line,
+			int varScopeStartLine, int varScopeEndLine, int methodId) {
+		trackingDelegate.untrack();
+		try {
+			hitLine(line, methodId);
+			TraceNode latestNode = trace.getLatestNode();
+			String className = MethodRegistry.getClassName(methodId);
+			Variable var = new LocalVar(varName, varType, className, line);
+			String varID = Variable.concanateLocalVarID(className, varName, varScopeStartLine, varScopeEndLine,
+					latestNode.getInvocationLevel());
+			var.setVarID(varID);
+			VarValue value = appendRawValue(kind, bits, var);
+			addRWriteValue(latestNode, value, isWritten);
+		} catch (Throwable t) {
+			handleException(t);
+		}
+		trackingDelegate.track();
+	}
+
+	/**
+	 * Primitive-typed variant of {@link #_writeField} and {@link #_readField}.
+	 */
+	private void rwField(Object refValue, char kind, long bits, boolean isWritten, String fieldName, String fieldType,
+			int line, int methodId) {
+		if (MethodRegistry.isExclusive(methodId)) {
+			/* the value is needed to check if it is relevant to the invoking detail */
+			Object fieldValue = new RawPrimitiveValue(kind, bits, true, null).box();
+			if (isWritten) {
+				_writeField(refValue, fieldValue, fieldName, fieldType, line, methodId);
+			} else {
+				_readField(refValue, fieldValue, fieldName, fieldType, line, methodId);
+			}
+			return;
+		}
+		trackingDelegate.untrack();
+		try {
+			hitLine(line, methodId);
+			String parentVarId = TraceUtils.getObjectVarId(refValue, refValue.getClass().getName());
+			String fieldVarId = TraceUtils.getFieldVarId(parentVarId, fieldName, fieldType, null);
+			Variable var = new FieldVar(false, fieldName, fieldType, refValue.getClass().getName());
+			var.setVarID(fieldVarId);
+
+			VarValue value = appendRawValue(kind, bits, var);
+
+			Variable parentVariable = new FieldVar(false, "unknown", refValue.getClass().getName(), "unknown");
+			parentVariable.setVarID(parentVarId);
+			ReferenceValue parentValue = new ReferenceValue(false, false, parentVariable);
+			value.addParent(parentValue);
+
+			addRWriteValue(trace.getLatestNode(), value, isWritten);
+		} catch (Throwable t) {
+			handleException(t);
+		}
+		trackingDelegate.track();
+	}
+
+	/**
+	 * Primitive-typed variant of {@link #_writeStaticField} and {@link #_readStaticField}.
+	 */
+	private void rwStaticField(char kind, long bits, boolean isWritten, String refType, String fieldName,
+			String fieldType, int line, int methodId) {
+		trackingDelegate.untrack();
+		try {
+			hitLine(line, methodId);
+			Variable var = new FieldVar(!isWritten, fieldName, fieldType, refType);
+			var.setVarID(Variable.concanateFieldVarID(refType, fieldName));
+			VarValue value = appendRawValue(kind, bits, var);
+			addRWriteValue(trace.getLatestNode(), value, isWritten);
+		} catch (Throwable t) {
+			handleException(t);
+		}
+		trackingDelegate.track();
+	}
+
 	/**
 	 * Instrument for: Application Classes only.
 	 */
 	@Override
 	public void _iincLocalVar(Object varValue, Object varValueAfter, String varName, String varType, int line,
-			int bcLocalVarIdx, int varScopeStartLine, int varScopeEndLine, String className, String methodSignature) {
+			int bcLocalVarIdx, int varScopeStartLine, int varScopeEndLine, int methodId) {
 		trackingDelegate.untrack();
 		try {
 			// boolean exclusive = FilterChecker.isExclusive(className, methodSignature);
@@ -1054,9 +1333,10 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 			// locker.unLock();
 			// return;
 			// }
-			hitLine(line, className, methodSignature);
+			hitLine(line, methodId);
 
 			TraceNode latestNode = trace.getLatestNode();
+			String className = MethodRegistry.getClassName(methodId);
 			Variable var = new LocalVar(varName, varType, className, line);
 			String varID = Variable.concanateLocalVarID(className, varName, varScopeStartLine, varScopeEndLine,
 					latestNode.getInvocationLevel());
@@ -1086,10 +1366,10 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	 */
 	@Override
 	public void _readArrayElementVar(Object arrayRef, int index, Object eleValue, String elementType, int line,
-			String className, String methodSignature) {
+			int methodId) {
 		trackingDelegate.untrack();
 		try {
-			boolean exclusive = GlobalFilterChecker.isExclusive(className, methodSignature);
+			boolean exclusive = MethodRegistry.isExclusive(methodId);
 			if (exclusive) {
 				TraceNode latestNode = trace.getLatestNode();
 				boolean relevant = false;
@@ -1102,7 +1382,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 					return;
 				}
 			}
-			hitLine(line, className, methodSignature);
+			hitLine(line, methodId);
 			VarValue value = addArrayElementVarValue(arrayRef, index, eleValue, elementType, line);
 
 			Variable parentVariable = new FieldVar(false, "unknown", arrayRef.getClass().getName(), "unknown");
@@ -1179,10 +1459,10 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	 */
 	@Override
 	public void _writeArrayElementVar(Object arrayRef, int index, Object eleValue, String elementType, int line,
-			String className, String methodSignature) {
+			int methodId) {
 		trackingDelegate.untrack();
 		try {
-			boolean exclusive = GlobalFilterChecker.isExclusive(className, methodSignature);
+			boolean exclusive = MethodRegistry.isExclusive(methodId);
 			if (exclusive) {
 				TraceNode latestNode = trace.getLatestNode();
 				boolean relevant = false;
@@ -1195,7 +1475,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 					return;
 				}
 			}
-			hitLine(line, className, methodSignature);
+			hitLine(line, methodId);
 			VarValue value = addArrayElementVarValue(arrayRef, index, eleValue, elementType, line);
 
 			Variable parentVariable = new FieldVar(false, "unknown", arrayRef.getClass().getName(), "unknown");
@@ -1234,12 +1514,11 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	 * Thread.currentThread().getId() is exceptional used) IF NEED TO USE A LIST,MAP
 	 * -> USE AN ARRAY INSTEAD!
 	 */
-	public synchronized static IExecutionTracer _getTracer(boolean isAppClass, String className, String methodSig,
+	public static IExecutionTracer _getTracer(boolean isAppClass, int methodId,
 			int methodStartLine, int methodEndLine, String paramNamesCode, String paramTypeSignsCode, Object[] params) {
 		try {
 			if (state == TracingState.TEST_STARTED && isAppClass) {
-				state = TracingState.RECORDING;
-				rtStore.setMainThreadId(Thread.currentThread().getId());
+				startRecording();
 			}
 			if (state != TracingState.RECORDING) {
 				return EmptyExecutionTracer.getInstance();
@@ -1260,7 +1539,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 				// lockedThreads.remove(threadId);
 				// return EmptyExecutionTracer.getInstance();
 			}
-			tracer.enterMethod(className, methodSig, methodStartLine, methodEndLine, paramTypeSignsCode, paramNamesCode,
+			tracer.enterMethod(methodId, methodStartLine, methodEndLine, paramTypeSignsCode, paramNamesCode,
 					params);
 			lockedThreads.track(threadId);
 			return tracer;
@@ -1270,6 +1549,16 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		}
 	}
 
+	/**
+	 * the first thread entering an app method after the test starts is the main thread.
+	 */
+	private static synchronized void startRecording() {
+		if (state == TracingState.TEST_STARTED) {
+			state = TracingState.RECORDING;
+			rtStore.setMainThreadId(Thread.currentThread().getId());
+		}
+	}
+
 	public static IExecutionTracer getMainThreadStore() {
 		return rtStore.getMainThreadTracer();
 	}
@@ -1278,21 +1567,19 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		return rtStore.getAllThreadTracer();
 	}
 
-	public static synchronized IExecutionTracer getCurrentThreadStore() {
-		synchronized (rtStore) {
-			long threadId = Thread.currentThread().getId();
-			// String threadName = Thread.currentThread().getName();
-			if (lockedThreads.isUntracking(threadId)) {
-				return EmptyExecutionTracer.getInstance();
-			}
-			IExecutionTracer tracer = rtStore.get(threadId);
-			// store.setThreadName(threadName);
+	public static IExecutionTracer getCurrentThreadStore() {
+		long threadId = Thread.currentThread().getId();
+		// String threadName = Thread.currentThread().getName();
+		if (lockedThreads.isUntracking(threadId)) {
+			return EmptyExecutionTracer.getInstance();
+		}
+		IExecutionTracer tracer = rtStore.get(threadId);
+		// store.setThreadName(threadName);
 
-			if (tracer == null) {
-				tracer = EmptyExecutionTracer.getInstance();
-			}
-			return tracer;
+		if (tracer == null) {
+			tracer = EmptyExecutionTracer.getInstance();
 		}
+		return tracer;
 	}
 	
 	public static List<Long> stoppedThreads = new ArrayList<Long>();
@@ -1305,7 +1592,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		}
 	}
 
-	private static TracingState state = TracingState.INIT;
+	private static volatile TracingState state = TracingState.INIT;
 
 	public static void shutdown() {
 		state = TracingState.SHUTDOWN;
@@ -1317,6 +1604,26 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		HeuristicIgnoringFieldRule.clearCache();
 	}
 
+	/**
+	 * clears the state of the last run, so that a new run can be traced in the same jvm. The ids of
+	 * {@link MethodRegistry} are kept, as they are in the bytecode of the classes instrumented so far.
+	 */
+	public static synchronized void reset() {
+		rtStore = new ExecutionTracerStore();
+		stoppedThreads = new ArrayList<Long>();
+		adjustVarMap = new HashMap<>();
+		lockedThreads = new LockedThreads();
+		HeuristicIgnoringFieldRule.clearCache();
+		if (stepStream != null) {
+			/* the stream of the last run is closed once its trace is sent, unless the run failed */
+			stepStream.close();
+			stepStream = null;
+		}
+		overLong = false;
+		state = TracingState.INIT;
+		TraceInstrumenter.clearDetectedOverlongMethods();
+	}
+
 	public static void _start() {
 		state = TracingState.TEST_STARTED;
 	}
@@ -1325,6 +1632,21 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		return state == TracingState.SHUTDOWN;
 	}
 
+	public static boolean isOverLong() {
+		return overLong;
+	}
+
+	public static void setStepStream(TraceStreamWriter stepStream) {
+		ExecutionTracer.stepStream = stepStream;
+	}
+
+	private Queue<TraceNode> getStreamedSteps() {
+		if (streamedSteps == null) {
+			streamedSteps = stepStream.getStepQueue(threadId, Thread.currentThread().getName());
+		}
+		return streamedSteps;
+	}
+
 	public Trace getTrace() {
 		return trace;
 	}
@@ -3,44 +3,116 @@ package microbat.instrumentation.runtime;
 public interface IExecutionTracer {
 
 	public void _hitInvoke(Object invokeObj, String invokeTypeSign, String methodName, Object[] params,
-			String paramTypeSignsCode, String returnTypeSign, int line, String className, String methodSignature);
+			String paramTypeSignsCode, String returnTypeSign, int line, int methodId);
 
 	public void _hitInvokeStatic(String invokeTypeSign, String methodName, Object[] params, String paramTypeSignsCode,
-			String returnTypeSign, int line, String className, String methodSignature);
+			String returnTypeSign, int line, int methodId);
 
-	public void _hitReturn(Object returnObj, String returnGeneralType, int line, String className, String methodSignature);
+	public void _hitReturn(Object returnObj, String returnGeneralType, int line, int methodId);
 
-	public void _hitVoidReturn(int line, String className, String methodSignature);
+	public void _hitVoidReturn(int line, int methodId);
 
-	public void _hitLine(int line, String className, String methodSignature, int numOfReadVars, int numOfWrittenVars, String bytecode);
+	public void _hitLine(int line, int methodId, int numOfReadVars, int numOfWrittenVars, String bytecode);
 	
-	public void _hitExeptionTarget(int line, String className, String methodSignature);
+	public void _hitExeptionTarget(int line, int methodId);
 
-	public void _writeField(Object refValue, Object fieldValue, String fieldName, String fieldTypeSign, int line, String className, String methodSignature);
+	public void _writeField(Object refValue, Object fieldValue, String fieldName, String fieldTypeSign, int line, int methodId);
 
-	public void _writeStaticField(Object fieldValue, String refType, String fieldName, String fieldType, int line, String className, String methodSignature);
+	public void _writeStaticField(Object fieldValue, String refType, String fieldName, String fieldType, int line, int methodId);
 
-	public void _readField(Object refValue, Object fieldValue, String fieldName, String fieldType, int line, String className, String methodSignature);
+	public void _readField(Object refValue, Object fieldValue, String fieldName, String fieldType, int line, int methodId);
 
-	public void _readStaticField(Object fieldValue, String refType, String fieldName, String fieldTypeSign, int line, String className, String methodSignature);
+	public void _readStaticField(Object fieldValue, String refType, String fieldName, String fieldTypeSign, int line, int methodId);
 
 	public void _writeLocalVar(Object varValue, String varName, String varType, int line, int bcLocalVarIdx,
-			int varScopeStartLine, int varScopeEndLine, String className, String methodSignature);
+			int varScopeStartLine, int varScopeEndLine, int methodId);
 
 	public void _readLocalVar(Object varValue, String varName, String varType, int line, int bcLocalVarIdx,
-			int varScopeStartLine, int varScopeEndLine, String className, String methodSignature);
+			int varScopeStartLine, int varScopeEndLine, int methodId);
 	
 	public void _iincLocalVar(Object varValue, Object varValueAfter, String varName, String varType, int line,
-			int bcLocalVarIdx, int varScopeStartLine, int varScopeEndLine, String className, String methodSignature);
+			int bcLocalVarIdx, int varScopeStartLine, int varScopeEndLine, int methodId);
 
-	public void _readArrayElementVar(Object arrayRef, int index, Object eleValue, String elementType, int line, String className, String methodSignature);
+	public void _readArrayElementVar(Object arrayRef, int index, Object eleValue, String elementType, int line, int methodId);
 
-	public void _writeArrayElementVar(Object arrayRef, int index, Object eleValue, String elementType, int line, String className, String methodSignature);
+	public void _writeArrayElementVar(Object arrayRef, int index, Object eleValue, String elementType, int line, int methodId);
 
-	void _afterInvoke(Object returnedValue, Object invokeObj, String invokeMethodSig, int line, String residingClassName,
-			String residingMethodSignature, boolean needRevisiting);
+	/* primitive-typed variants of the methods above, which take the raw value instead of the boxed value */
+	public void _writeLocalVarInt(int varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId);
 
-	public void _hitMethodEnd(int line, String className, String methodSignature);
+	public void _readLocalVarInt(int varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId);
+
+	public void _writeFieldInt(Object refValue, int fieldValue, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _readFieldInt(Object refValue, int fieldValue, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _writeStaticFieldInt(int fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _readStaticFieldInt(int fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _writeLocalVarLong(long varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId);
+
+	public void _readLocalVarLong(long varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId);
+
+	public void _writeFieldLong(Object refValue, long fieldValue, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _readFieldLong(Object refValue, long fieldValue, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _writeStaticFieldLong(long fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _readStaticFieldLong(long fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _writeLocalVarFloat(float varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId);
+
+	public void _readLocalVarFloat(float varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId);
+
+	public void _writeFieldFloat(Object refValue, float fieldValue, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _readFieldFloat(Object refValue, float fieldValue, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _writeStaticFieldFloat(float fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _readStaticFieldFloat(float fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _writeLocalVarDouble(double varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId);
+
+	public void _readLocalVarDouble(double varValue, String varName, String varType, int line, int bcLocalVarIdx,
+			int varScopeStartLine, int varScopeEndLine, int methodId);
+
+	public void _writeFieldDouble(Object refValue, double fieldValue, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _readFieldDouble(Object refValue, double fieldValue, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _writeStaticFieldDouble(double fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId);
+
+	public void _readStaticFieldDouble(double fieldValue, String refType, String fieldName, String fieldType, int line,
+			int methodId);
+
+	void _afterInvoke(Object returnedValue, Object invokeObj, String invokeMethodSig, int line, int methodId, boolean needRevisiting);
+
+	public void _hitMethodEnd(int line, int methodId);
 	
 	/**
 	 * 
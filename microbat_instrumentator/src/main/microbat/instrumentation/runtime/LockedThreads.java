@@ -30,9 +30,10 @@ public class LockedThreads {
 	}
 
 	public boolean isUntracking(long threadId) {
-		for (int i = 0; i < lockedThreadIds.length; i++) {
-			if (lockedThreadIds[i][0] == threadId) {
-				return lockedThreadIds[i][1] == UNTRACKING;
+		long[][] threadIds = lockedThreadIds;
+		for (int i = 0; i < threadIds.length; i++) {
+			if (threadIds[i][0] == threadId) {
+				return threadIds[i][1] == UNTRACKING;
 			}
 		}
 		
@@ -40,11 +41,31 @@ public class LockedThreads {
 	}
 
 	public void track(long threadId) {
+		setState(threadId, TRACKING);
+	}
+	
+	/**
+	 * A thread only updates the state of its own slot, so that updating the state of an existing slot
+	 * does not need any lock. Only the first update of a thread (i.e., claiming a slot) is synchronized.
+	 */
+	private void setState(long threadId, long state) {
+		long[][] threadIds = lockedThreadIds;
+		for (int i = 0; i < threadIds.length; i++) {
+			if (threadIds[i][0] == threadId) {
+				threadIds[i][1] = state;
+				return;
+			}
+		}
+		
+		claimSlot(threadId, state);
+	}
+	
+	private synchronized void claimSlot(long threadId, long state) {
 		int i = 0;
 		int firstSlotIndex = -1;
 		for (; i < lockedThreadIds.length; i++) {
 			if (lockedThreadIds[i][0] == threadId) {
-				lockedThreadIds[i][1] = TRACKING;
+				lockedThreadIds[i][1] = state;
 				return;
 			}
 			
@@ -65,8 +86,8 @@ public class LockedThreads {
 		else {
 			i = firstSlotIndex;			
 		}
+		lockedThreadIds[i][1] = state;
 		lockedThreadIds[i][0] = threadId;
-		lockedThreadIds[i][1] = TRACKING;
 	}
 	
 	 private void increaseSize() {
@@ -92,33 +113,7 @@ public class LockedThreads {
 //	}
 	
 	public void untrack(long threadId) {
-		int i = 0;
-		int firstSlotIndex = -1;
-		for (; i < lockedThreadIds.length; i++) {
-			if (lockedThreadIds[i][0] == threadId) {
-				lockedThreadIds[i][1] = UNTRACKING;
-				return;
-			}
-			
-			if(firstSlotIndex == -1 && lockedThreadIds[i][0] == -1) {
-				firstSlotIndex = i;
-			}
-		}
-		
-		/**
-		 * all the slots are not -1
-		 */
-		if(firstSlotIndex == -1) {
-			increaseSize();
-		}
-		/**
-		 * fill in an empty slot
-		 */
-		else {
-			i = firstSlotIndex;			
-		}
-		lockedThreadIds[i][0] = threadId;
-		lockedThreadIds[i][1] = UNTRACKING;
+		setState(threadId, UNTRACKING);
 	}
 	
 }
@@ -0,0 +1,195 @@
+package microbat.instrumentation.runtime;
+
+import microbat.instrumentation.filter.GlobalFilterChecker;
+
+/**
+ * Assigns dense int ids to the instrumented classes and methods, so that the instrumented code passes the id
+ * of its method to the tracer instead of its class name and method signature, and the tracer checks the
+ * filter of a step without hashing or building any string.
+ * <br>
+ * The methods are registered by {@link microbat.instrumentation.instr.TraceInstrumenter} when they are
+ * instrumented, and the id of a method is looked up once per invocation, on entering the method, see
+ * {@link #_getMethodId(String, String)}. It is not stored in the instrumented code, as the instrumented
+ * classes can be cached across runs, in which the classes are loaded in a different order. A method which is
+ * not registered yet, e.g. the one of a cached class, is registered on its first lookup.
+ * <br>
+ * Same as {@link LockedThreads}, the lookup only uses arrays, TO AVOID RECURSIVE LOOP IN GET_TRACER!!
+ *
+ * @author Yun Lin
+ *
+ */
+public class MethodRegistry {
+	public static final int UNKNOWN_ID = -1;
+
+	/* open addressing on the method signature */
+	private static volatile MethodInfo[] methodTable = new MethodInfo[1024];
+	/* indexed by method id */
+	private static volatile MethodInfo[] methods = new MethodInfo[512];
+	private static int methodCount;
+	private static ClassInfo[] classTable = new ClassInfo[256];
+	private static int classCount;
+
+	/**
+	 * instrumented code: called on entering a method.
+	 */
+	public static int _getMethodId(String className, String methodSignature) {
+		MethodInfo[] table = methodTable;
+		int mask = table.length - 1;
+		for (int i = methodSignature.hashCode() & mask;; i = (i + 1) & mask) {
+			MethodInfo method = table[i];
+			if (method == null) {
+				/* not registered yet, or it is being registered by another thread */
+				return register(className, methodSignature);
+			}
+			if (method.methodSignature == methodSignature || method.methodSignature.equals(methodSignature)) {
+				return method.id;
+			}
+		}
+	}
+
+	/**
+	 * @param methodSignature
+	 *            in the form of className#methodName(desc).
+	 * @return the id of the method, it is the same one if the method is registered again.
+	 */
+	public static synchronized int register(String className, String methodSignature) {
+		MethodInfo[] table = methodTable;
+		int mask = table.length - 1;
+		int i = methodSignature.hashCode() & mask;
+		for (; table[i] != null; i = (i + 1) & mask) {
+			if (table[i].methodSignature.equals(methodSignature)) {
+				return table[i].id;
+			}
+		}
+		MethodInfo method = new MethodInfo(methodCount, methodSignature, getClassInfo(className));
+		if (methodCount == methods.length) {
+			MethodInfo[] newMethods = new MethodInfo[methods.length * 2];
+			System.arraycopy(methods, 0, newMethods, 0, methods.length);
+			methods = newMethods;
+		}
+		methods[methodCount++] = method;
+		if (methodCount * 2 > table.length) {
+			methodTable = rehash(table);
+		} else {
+			table[i] = method;
+		}
+		return method.id;
+	}
+
+	private static MethodInfo[] rehash(MethodInfo[] table) {
+		MethodInfo[] newTable = new MethodInfo[table.length * 2];
+		int mask = newTable.length - 1;
+		for (int id = 0; id < methodCount; id++) {
+			MethodInfo method = methods[id];
+			int i = method.methodSignature.hashCode() & mask;
+			while (newTable[i] != null) {
+				i = (i + 1) & mask;
+			}
+			newTable[i] = method;
+		}
+		return newTable;
+	}
+
+	private static ClassInfo getClassInfo(String className) {
+		int mask = classTable.length - 1;
+		int i = className.hashCode() & mask;
+		for (; classTable[i] != null; i = (i + 1) & mask) {
+			if (classTable[i].className.equals(className)) {
+				return classTable[i];
+			}
+		}
+		ClassInfo classInfo = new ClassInfo(classCount++, className);
+		classTable[i] = classInfo;
+		if (classCount * 2 > classTable.length) {
+			ClassInfo[] oldTable = classTable;
+			classTable = new ClassInfo[oldTable.length * 2];
+			mask = classTable.length - 1;
+			for (ClassInfo info : oldTable) {
+				if (info != null) {
+					int j = info.className.hashCode() & mask;
+					while (classTable[j] != null) {
+						j = (j + 1) & mask;
+					}
+					classTable[j] = info;
+				}
+			}
+		}
+		return classInfo;
+	}
+
+	private static MethodInfo getMethod(int methodId) {
+		MethodInfo[] methodArray = methods;
+		MethodInfo method = (methodId < methodArray.length) ? methodArray[methodId] : null;
+		if (method == null) {
+			/* registered by another thread, and not visible to this one yet */
+			synchronized (MethodRegistry.class) {
+				method = methods[methodId];
+			}
+		}
+		return method;
+	}
+
+	public static String getClassName(int methodId) {
+		return getMethod(methodId).classInfo.className;
+	}
+
+	public static int getClassId(int methodId) {
+		return getMethod(methodId).classInfo.id;
+	}
+
+	public static String getMethodSignature(int methodId) {
+		return getMethod(methodId).methodSignature;
+	}
+
+	/**
+	 * same as {@link GlobalFilterChecker#isExclusive(String, String)} on the class of the method, the result
+	 * is checked once per class, as a class is included or not on being transformed, which is before any of
+	 * its methods is run.
+	 */
+	public static boolean isExclusive(int methodId) {
+		ClassInfo classInfo = getMethod(methodId).classInfo;
+		int filterState = classInfo.filterState;
+		if (filterState == ClassInfo.UNCHECKED) {
+			filterState = GlobalFilterChecker.isExclusive(classInfo.className, null) ? ClassInfo.EXCLUSIVE
+					: ClassInfo.INCLUSIVE;
+			classInfo.filterState = filterState;
+		}
+		return filterState == ClassInfo.EXCLUSIVE;
+	}
+
+	public static synchronized int getMethodCount() {
+		return methodCount;
+	}
+
+	public static synchronized int getClassCount() {
+		return classCount;
+	}
+
+	private static class MethodInfo {
+		private final int id;
+		private final String methodSignature;
+		private final ClassInfo classInfo;
+
+		public MethodInfo(int id, String methodSignature, ClassInfo classInfo) {
+			this.id = id;
+			this.methodSignature = methodSignature;
+			this.classInfo = classInfo;
+		}
+	}
+
+	private static class ClassInfo {
+		private static final int UNCHECKED = 0;
+		private static final int INCLUSIVE = 1;
+		private static final int EXCLUSIVE = 2;
+
+		private final int id;
+		private final String className;
+		/* the same state is computed by every thread, so it is not synchronized */
+		private int filterState = UNCHECKED;
+
+		public ClassInfo(int id, String className) {
+			this.id = id;
+			this.className = className;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package microbat.instrumentation.runtime;
+
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.VarValue;
+import microbat.model.variable.Variable;
+
+/**
+ * A primitive value recorded by a primitive-typed tracer method (e.g.,
+ * {@link IExecutionTracer#_readLocalVarInt}). It keeps the raw value, and formats it the same way as the
+ * boxed value would be formatted, only when its string value is requested (i.e., when the trace is
+ * serialized).
+ *
+ * @author LLT
+ *
+ */
+public class RawPrimitiveValue extends PrimitiveValue {
+	private static final long serialVersionUID = -1853437010937047815L;
+	/* the kinds of raw values, the same as the descriptors of primitive types */
+	public static final char INT = 'I';
+	public static final char LONG = 'J';
+	public static final char FLOAT = 'F';
+	public static final char DOUBLE = 'D';
+	public static final char BOOLEAN = 'Z';
+	public static final char CHAR = 'C';
+	public static final char BYTE = 'B';
+	public static final char SHORT = 'S';
+
+	private char kind;
+	/* the value, or the raw bits of a float/double value */
+	private long bits;
+
+	public RawPrimitiveValue(char kind, long bits, boolean isRoot, Variable variable) {
+		super(null, isRoot, variable);
+		this.kind = kind;
+		this.bits = bits;
+	}
+
+	/**
+	 * @return the kind of an int value of the given type, which is pushed to the operand stack as an int.
+	 */
+	public static char getIntKind(String type) {
+		if ("boolean".equals(type)) {
+			return BOOLEAN;
+		} else if ("char".equals(type)) {
+			return CHAR;
+		} else if ("byte".equals(type)) {
+			return BYTE;
+		} else if ("short".equals(type)) {
+			return SHORT;
+		}
+		return INT;
+	}
+
+	private void format() {
+		if (stringValue != null) {
+			return;
+		}
+		switch (kind) {
+		case LONG:
+			stringValue = String.valueOf(bits);
+			break;
+		case FLOAT:
+			stringValue = String.valueOf(Float.intBitsToFloat((int) bits));
+			break;
+		case DOUBLE:
+			stringValue = String.valueOf(Double.longBitsToDouble(bits));
+			break;
+		case BOOLEAN:
+			stringValue = String.valueOf(bits != 0);
+			break;
+		case CHAR:
+			stringValue = String.valueOf((char) bits);
+			break;
+		default:
+			stringValue = String.valueOf((int) bits);
+		}
+	}
+
+	/**
+	 * @return the boxed value, as it would be passed to the tracer methods taking an object value.
+	 */
+	public Object box() {
+		switch (kind) {
+		case LONG:
+			return Long.valueOf(bits);
+		case FLOAT:
+			return Float.valueOf(Float.intBitsToFloat((int) bits));
+		case DOUBLE:
+			return Double.valueOf(Double.longBitsToDouble(bits));
+		case BOOLEAN:
+			return Boolean.valueOf(bits != 0);
+		case CHAR:
+			return Character.valueOf((char) bits);
+		case BYTE:
+			return Byte.valueOf((byte) bits);
+		case SHORT:
+			return Short.valueOf((short) bits);
+		default:
+			return Integer.valueOf((int) bits);
+		}
+	}
+
+	@Override
+	public String getStringValue() {
+		format();
+		return super.getStringValue();
+	}
+
+	@Override
+	public String getRawStringValue() {
+		format();
+		return super.getRawStringValue();
+	}
+
+	@Override
+	public String getManifestationValue() {
+		format();
+		return super.getManifestationValue();
+	}
+
+	@Override
+	public boolean isDefinedToStringMethod() {
+		format();
+		return super.isDefinedToStringMethod();
+	}
+
+	@Override
+	public String toString() {
+		format();
+		return super.toString();
+	}
+
+	@Override
+	public VarValue clone() {
+		format();
+		return super.clone();
+	}
+
+	/**
+	 * written as a {@link PrimitiveValue}, so that the serialized trace can be read without this class.
+	 */
+	private Object writeReplace() {
+		format();
+		PrimitiveValue value = new PrimitiveValue(stringValue, isRoot, variable);
+		value.setParents(getParents());
+		value.setChildren(getChildren());
+		return value;
+	}
+}
@@ -1,50 +1,59 @@
 package microbat.instrumentation.runtime;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * @author LLT
  * This class is supposed to keep at very basic, NOT use or trigger ANY other liberay function even in jdk,
  * only Array is allowed.
  * [TO AVOID RECURSIVE LOOP IN GET_TRACER!!]
+ *
+ * The tracers are kept in an open-addressing table keyed by thread id. The table is copy-on-write:
+ * a lookup only reads the current (volatile) table without any lock, while registering the tracer of a
+ * new thread is synchronized and publishes a new table. Therefore, looking up the tracer of a thread which
+ * has been registered never blocks other threads.
  */
 public abstract class TracerStore<T extends ExecutionTracer> {
 	public static final int INVALID_THREAD_ID = -1;
-	private Map<Long, T> rtStore = new HashMap<>();
-//	protected ITracer[] rtStore = new ITracer[10];
+	private static final int INIT_CAPACITY = 16;
+
+	private volatile Table rtStore = new Table(INIT_CAPACITY);
 	protected long mainThreadId = INVALID_THREAD_ID;
-	protected transient int lastUsedIdx = INVALID_THREAD_ID;
-	
+
 	/* threadId must be valid */
 	@SuppressWarnings("unchecked")
-	public synchronized T get(long threadId) {
+	public T get(long threadId) {
 		// FIXME -mutithread LINYUN [2]
 		// LLT: this is where we disable recording other threads not the main one
 //		if (threadId != mainThreadId) {
 //			return null; // for now, only recording trace for main thread.
 //		}
-		
-//		int i = 0;
-//		while(i <= lastUsedIdx) {
-//			ITracer tracer = rtStore[i];
-//			if (tracer.getThreadId() == threadId) {
-//				return (T) tracer;
-//			}
-//			i++;
-//		}
-//		T tracer = initTracer(threadId);
-//		rtStore[++lastUsedIdx] = tracer;
-		if (rtStore.containsKey(threadId)) {
-			return rtStore.get(threadId);
+		ExecutionTracer tracer = rtStore.find(threadId);
+		if (tracer != null) {
+			return (T) tracer;
 		}
-		T tracer = initTracer(threadId);
-		rtStore.put(threadId, tracer);
-		return tracer;
+		return register(threadId);
 	}
-	
+
+	@SuppressWarnings("unchecked")
+	private synchronized T register(long threadId) {
+		Table table = rtStore;
+		ExecutionTracer tracer = table.find(threadId);
+		if (tracer != null) {
+			return (T) tracer;
+		}
+		T newTracer = initTracer(threadId);
+		if ((table.size + 1) * 2 > table.threadIds.length) {
+			table = table.copy(table.threadIds.length * 2);
+		} else {
+			table = table.copy(table.threadIds.length);
+		}
+		table.put(threadId, newTracer);
+		rtStore = table;
+		return newTracer;
+	}
+
 	protected abstract T initTracer(long threadId);
 
 	public void setMainThreadId(long mainThreadId) {
@@ -54,20 +63,72 @@ public abstract class TracerStore<T extends ExecutionTracer> {
 	public T getMainThreadTracer() {
 		return get(mainThreadId);
 	}
-	
+
 	public long getMainThreadId() {
 		return mainThreadId;
 	}
-	
+
 	public List<IExecutionTracer> getAllThreadTracer() {
-		return new ArrayList<IExecutionTracer>(rtStore.values());
-//		List<IExecutionTracer> traces = new ArrayList<>();
-//		for(int i=0; i<rtStore.length; i++) {
-//			if(rtStore[i] != null) {
-//				traces.add((IExecutionTracer) rtStore[i]);
-//			}
-//		}
-//		
-//		return traces;
+		Table table = rtStore;
+		List<IExecutionTracer> traces = new ArrayList<>();
+		for (int i = 0; i < table.tracers.length; i++) {
+			if (table.tracers[i] != null) {
+				traces.add(table.tracers[i]);
+			}
+		}
+		return traces;
+	}
+
+	/**
+	 * An immutable-after-publish open-addressing table (linear probing), the capacity is always
+	 * a power of 2.
+	 */
+	private static class Table {
+		private long[] threadIds;
+		private ExecutionTracer[] tracers;
+		private int size;
+
+		Table(int capacity) {
+			threadIds = new long[capacity];
+			tracers = new ExecutionTracer[capacity];
+		}
+
+		ExecutionTracer find(long threadId) {
+			int mask = threadIds.length - 1;
+			int idx = hash(threadId) & mask;
+			while (tracers[idx] != null) {
+				if (threadIds[idx] == threadId) {
+					return tracers[idx];
+				}
+				idx = (idx + 1) & mask;
+			}
+			return null;
+		}
+
+		void put(long threadId, ExecutionTracer tracer) {
+			int mask = threadIds.length - 1;
+			int idx = hash(threadId) & mask;
+			while (tracers[idx] != null) {
+				idx = (idx + 1) & mask;
+			}
+			threadIds[idx] = threadId;
+			tracers[idx] = tracer;
+			size++;
+		}
+
+		Table copy(int capacity) {
+			Table table = new Table(capacity);
+			for (int i = 0; i < tracers.length; i++) {
+				if (tracers[i] != null) {
+					table.put(threadIds[i], tracers[i]);
+				}
+			}
+			return table;
+		}
+
+		private static int hash(long threadId) {
+			int h = (int) (threadId ^ (threadId >>> 32));
+			return h ^ (h >>> 16);
+		}
 	}
 }
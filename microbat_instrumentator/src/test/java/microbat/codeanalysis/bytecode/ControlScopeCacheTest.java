@@ -0,0 +1,170 @@
+package microbat.codeanalysis.bytecode;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import microbat.codeanalysis.bytecode.ControlScopeCache.ClassScopes;
+import microbat.codeanalysis.bytecode.ControlScopeCache.LineScope;
+import microbat.model.BreakPoint;
+import microbat.model.ControlScope;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import microbat.instrumentation.trace.testdata.Sample;
+import sav.strategies.dto.AppJavaClassPath;
+
+/**
+ * The control scopes filled in from {@link ControlScopeCache}, either from memory or from the store folder,
+ * must be the same as the ones parsed from the CFGs of the class.
+ */
+public class ControlScopeCacheTest {
+	private static final String CLASS_NAME = Sample.class.getName();
+	private static final String TEST_ARR = CLASS_NAME + "#testArr()V";
+	private static final String TEST_ARRAY_LIST = CLASS_NAME + "#testArrayList()V";
+	/* the lines of the methods of Sample, with the loops */
+	private static final int[] TEST_ARR_LINES = { 18, 19, 20, 21, 22, 20, 21, 22, 20, 24 };
+	private static final int[] TEST_ARRAY_LIST_LINES = { 27, 28, 29, 30, 31, 32, 33, 34, 31, 36 };
+
+	private ControlScopeCache cache = ControlScopeCache.getInstance();
+	private AppJavaClassPath appClassPath = new AppJavaClassPath();
+	private File folder;
+
+	@Before
+	public void setup() throws Exception {
+		folder = File.createTempFile("controlScopes", "");
+		folder.delete();
+		cache.clear();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		cache.setStoreFolder(null);
+		cache.clear();
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void testMemoryHit() {
+		Trace parsed = constructTrace();
+		ClassScopes scopes = cache.get(CLASS_NAME, getClassBytes());
+		assertCached(scopes);
+
+		Trace cached = constructTrace();
+		assertSameScopes(parsed, cached);
+	}
+
+	@Test
+	public void testStoreHit() {
+		cache.setStoreFolder(folder.getAbsolutePath());
+		Trace parsed = constructTrace();
+		assertEquals(1, folder.list().length);
+
+		/* another run, which starts with an empty memory */
+		ControlScopeCache otherRun = new ControlScopeCache(10);
+		otherRun.setStoreFolder(folder.getAbsolutePath());
+		ClassScopes stored = otherRun.get(CLASS_NAME, getClassBytes());
+		assertCached(stored);
+		ClassScopes inMemory = cache.get(CLASS_NAME, getClassBytes());
+		for (int line : TEST_ARR_LINES) {
+			assertSameLineScope(inMemory.get(TEST_ARR, line), stored.get(TEST_ARR, line));
+		}
+		for (int line : TEST_ARRAY_LIST_LINES) {
+			assertSameLineScope(inMemory.get(TEST_ARRAY_LIST, line), stored.get(TEST_ARRAY_LIST, line));
+		}
+
+		cache.clear();
+		Trace loaded = constructTrace();
+		assertSameScopes(parsed, loaded);
+	}
+
+	@Test
+	public void testChangedClassMisses() {
+		cache.setStoreFolder(folder.getAbsolutePath());
+		constructTrace();
+		byte[] changed = getClassBytes();
+		changed = Arrays.copyOf(changed, changed.length + 1);
+		ClassScopes scopes = cache.get(CLASS_NAME, changed);
+		for (int line : TEST_ARR_LINES) {
+			assertNull(scopes.get(TEST_ARR, line));
+		}
+		ControlScopeCache otherRun = new ControlScopeCache(10);
+		otherRun.setStoreFolder(folder.getAbsolutePath());
+		assertNull(otherRun.get(CLASS_NAME, changed).get(TEST_ARR, TEST_ARR_LINES[0]));
+	}
+
+	private void assertCached(ClassScopes scopes) {
+		for (int line : TEST_ARR_LINES) {
+			assertNotNull("line " + line, scopes.get(TEST_ARR, line));
+		}
+		for (int line : TEST_ARRAY_LIST_LINES) {
+			assertNotNull("line " + line, scopes.get(TEST_ARRAY_LIST, line));
+		}
+	}
+
+	private void assertSameLineScope(LineScope expected, LineScope actual) {
+		assertEquals(expected.isConditional(), actual.isConditional());
+		assertEquals(expected.isBranch(), actual.isBranch());
+		assertArrayEquals(expected.getControlledLines(), actual.getControlledLines());
+	}
+
+	private void assertSameScopes(Trace expected, Trace actual) {
+		assertEquals(expected.size(), actual.size());
+		int conditions = 0;
+		for (int i = 0; i < expected.size(); i++) {
+			TraceNode e = expected.getExecutionList().get(i);
+			TraceNode a = actual.getExecutionList().get(i);
+			String msg = "step " + e.getOrder();
+			ControlScope eScope = (ControlScope) e.getControlScope();
+			ControlScope aScope = (ControlScope) a.getControlScope();
+			assertEquals(msg, eScope.getRangeList(), aScope.getRangeList());
+			assertEquals(msg, eScope.isCondition(), aScope.isCondition());
+			assertEquals(msg, eScope.isBranch(), aScope.isBranch());
+			assertEquals(msg, e.getBreakPoint().isConditional(), a.getBreakPoint().isConditional());
+			assertEquals(msg, e.getBreakPoint().isBranch(), a.getBreakPoint().isBranch());
+			assertEquals(msg, getOrder(e.getControlDominator()), getOrder(a.getControlDominator()));
+			if (eScope.isCondition()) {
+				conditions++;
+			}
+		}
+		/* the steps on the loop conditions of both methods */
+		assertEquals(5, conditions);
+	}
+
+	private int getOrder(TraceNode node) {
+		return node == null ? 0 : node.getOrder();
+	}
+
+	private Trace constructTrace() {
+		Trace trace = new Trace(appClassPath);
+		List<TraceNode> nodes = new ArrayList<>();
+		addSteps(trace, nodes, TEST_ARR, TEST_ARR_LINES);
+		addSteps(trace, nodes, TEST_ARRAY_LIST, TEST_ARRAY_LIST_LINES);
+		trace.constructControlDomianceRelation();
+		return trace;
+	}
+
+	private void addSteps(Trace trace, List<TraceNode> nodes, String methodSign, int[] lines) {
+		for (int line : lines) {
+			BreakPoint location = new BreakPoint(CLASS_NAME, methodSign, line);
+			TraceNode node = new TraceNode(location, null, trace.size() + 1, trace, null);
+			trace.addTraceNode(node);
+			nodes.add(node);
+		}
+	}
+
+	private byte[] getClassBytes() {
+		ClassPath0 classPath = ByteCodeParser.createClassPath(appClassPath);
+		return ByteCodeParser.getClassBytes(classPath, CLASS_NAME);
+	}
+}
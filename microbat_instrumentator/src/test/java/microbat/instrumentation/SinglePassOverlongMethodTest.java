@@ -0,0 +1,152 @@
+package microbat.instrumentation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+import org.apache.bcel.generic.ALOAD;
+import org.apache.bcel.generic.ArrayType;
+import org.apache.bcel.generic.ClassGen;
+import org.apache.bcel.generic.ConstantPoolGen;
+import org.apache.bcel.generic.IALOAD;
+import org.apache.bcel.generic.ICONST;
+import org.apache.bcel.generic.InstructionHandle;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.MethodGen;
+import org.apache.bcel.generic.POP;
+import org.apache.bcel.generic.RETURN;
+import org.apache.bcel.generic.Type;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import microbat.instrumentation.instr.TraceTransformer;
+import microbat.instrumentation.precheck.PrecheckInfo;
+import microbat.model.trace.Trace;
+
+/**
+ * In single pass mode, a method which exceeds the bytecode limit once instrumented is filtered while its class
+ * is transformed, and reported in the precheck info stored by the agent, even if the class is taken from the
+ * cache of instrumented classes.
+ */
+public class SinglePassOverlongMethodTest {
+	private static final String CLASS_NAME = "com.overlong.Sample";
+	private static final String OVERLONG_METHOD = CLASS_NAME + "#read([I)V";
+	/* the array reads of a line are instrumented with far more bytes than the line itself */
+	private static final int LINES = 1500;
+	private File folder;
+
+	@Before
+	public void setup() throws Exception {
+		folder = File.createTempFile("singlePass", "");
+		folder.delete();
+		folder.mkdirs();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void testOverlongMethodFilteredAndReported() throws Exception {
+		byte[] classBytes = generateClass();
+		TraceAgent agent = newAgent("precheck1.info");
+		byte[] instrumented = agent.getTransformer0().instrument(CLASS_NAME.replace(".", "/"), classBytes);
+		/* the method is instrumented again without its array reads in the same transform */
+		assertNotNull(instrumented);
+		assertTrue(getCodeLength(instrumented, "read") > getCodeLength(classBytes, "read"));
+		assertTrue(getCodeLength(instrumented, "read") < 65534);
+		assertReported(agent, "precheck1.info");
+
+		/* another run, which takes the class from the cache */
+		TraceAgent nextAgent = newAgent("precheck2.info");
+		assertTrue(!nextAgent.getAgentParams().getOverlongMethods().contains(OVERLONG_METHOD));
+		byte[] cached = nextAgent.getTransformer0().instrument(CLASS_NAME.replace(".", "/"), classBytes);
+		assertArrayEquals(instrumented, cached);
+		assertTrue(nextAgent.getAgentParams().getOverlongMethods().contains(OVERLONG_METHOD));
+		assertReported(nextAgent, "precheck2.info");
+	}
+
+	/**
+	 * the methods detected by the agent of an earlier run are not reported by the next agent, which does not
+	 * transform the class.
+	 */
+	@Test
+	public void testDetectedMethodsClearedOnStartup() throws Exception {
+		TraceAgent agent = newAgent("precheck1.info");
+		agent.getTransformer0().instrument(CLASS_NAME.replace(".", "/"), generateClass());
+		assertReported(agent, "precheck1.info");
+
+		TraceAgent nextAgent = newAgent("precheck2.info");
+		nextAgent.savePrecheckInfo(new ArrayList<Trace>());
+		PrecheckInfo info = PrecheckInfo.readFromFile(new File(folder, "precheck2.info").getAbsolutePath());
+		assertTrue(info.getExceedingLimitMethods().isEmpty());
+	}
+
+	private void assertReported(TraceAgent agent, String precheckFile) {
+		agent.savePrecheckInfo(new ArrayList<Trace>());
+		PrecheckInfo info = PrecheckInfo.readFromFile(new File(folder, precheckFile).getAbsolutePath());
+		assertEquals(1, info.getExceedingLimitMethods().size());
+		assertEquals(OVERLONG_METHOD, info.getExceedingLimitMethods().get(0));
+	}
+
+	private TraceAgent newAgent(String precheckFile) {
+		StringBuilder args = new StringBuilder();
+		args.append(AgentParams.OPT_SINGLE_PASS).append("=true,")
+			.append(AgentParams.OPT_WORKING_DIR).append("=").append(folder.getAbsolutePath()).append(",")
+			.append(AgentParams.OPT_INSTRUMENTATION_CACHE).append("=")
+			.append(new File(folder, "instr_cache").getAbsolutePath()).append(",")
+			.append(AgentParams.OPT_PRECHECK_DUMP_FILE).append("=")
+			.append(new File(folder, precheckFile).getAbsolutePath());
+		TraceAgent agent = new TraceAgent(CommandLine.parse(args.toString()));
+		agent.startup0(0, 0);
+		return agent;
+	}
+
+	/**
+	 * a class whose method {@code read(int[])} reads the array on each of its lines.
+	 */
+	private byte[] generateClass() {
+		ClassGen classGen = new ClassGen(CLASS_NAME, "java.lang.Object", "Sample.java",
+				Const.ACC_PUBLIC | Const.ACC_SUPER, null);
+		ConstantPoolGen constPool = classGen.getConstantPool();
+		classGen.addEmptyConstructor(Const.ACC_PUBLIC);
+		InstructionList insnList = new InstructionList();
+		MethodGen methodGen = new MethodGen(Const.ACC_PUBLIC | Const.ACC_STATIC, Type.VOID,
+				new Type[] { new ArrayType(Type.INT, 1) }, new String[] { "a" }, "read", CLASS_NAME, insnList,
+				constPool);
+		for (int line = 1; line <= LINES; line++) {
+			InstructionHandle lineStart = insnList.append(new ALOAD(0));
+			insnList.append(new ICONST(0));
+			insnList.append(new IALOAD());
+			insnList.append(new POP());
+			methodGen.addLineNumber(lineStart, line);
+		}
+		insnList.append(new RETURN());
+		methodGen.setMaxStack();
+		methodGen.setMaxLocals();
+		classGen.addMethod(methodGen.getMethod());
+		return classGen.getJavaClass().getBytes();
+	}
+
+	private int getCodeLength(byte[] classBytes, String methodName) throws Exception {
+		JavaClass jc = new ClassParser(new ByteArrayInputStream(classBytes), CLASS_NAME).parse();
+		for (Method method : jc.getMethods()) {
+			if (method.getName().equals(methodName)) {
+				return method.getCode().getCode().length;
+			}
+		}
+		throw new AssertionError("no method " + methodName);
+	}
+}
@@ -0,0 +1,63 @@
+package microbat.instrumentation.cfgcoverage.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode.Type;
+
+public class CoverageSFlowGraphTest {
+
+	@Test
+	public void testAddCoverageInfoWithSharedTestcases() {
+		CoverageSFlowGraph graph = newGraph("test.Foo.testA", "test.Foo.testB");
+		graph.getNodeList().get(0).addCoveredTestcase(0);
+		graph.getNodeList().get(0).markCoveredBranch(graph.getNodeList().get(1), 0);
+		graph.getNodeList().get(1).addCoveredTestcase(0);
+		graph.getNodeList().get(2).addCoveredTestcase(1);
+
+		/* testB is covered in both graphs, testC only in the other one */
+		CoverageSFlowGraph otherGraph = newGraph("test.Foo.testC", "test.Foo.testB");
+		otherGraph.getNodeList().get(0).addCoveredTestcase(1);
+		otherGraph.getNodeList().get(0).markCoveredBranch(otherGraph.getNodeList().get(2), 1);
+		otherGraph.getNodeList().get(2).addCoveredTestcase(0);
+		otherGraph.getNodeList().get(2).addCoveredTestcase(1);
+
+		graph.addCoverageInfo(otherGraph);
+		assertEquals(Arrays.asList("test.Foo.testA", "test.Foo.testB", "test.Foo.testC"),
+				graph.getCoveredTestcases());
+		List<CoverageSFNode> nodes = graph.getNodeList();
+		assertEquals(Arrays.asList("test.Foo.testA", "test.Foo.testB"), nodes.get(0).getCoveredTestcases());
+		assertEquals(Arrays.asList("test.Foo.testA"), nodes.get(1).getCoveredTestcases());
+		assertEquals(Arrays.asList("test.Foo.testB", "test.Foo.testC"), nodes.get(2).getCoveredTestcases());
+		assertEquals(Arrays.asList("test.Foo.testA"),
+				nodes.get(0).getCoveredTestcasesOnBranches().get(nodes.get(1)));
+		assertEquals(Arrays.asList("test.Foo.testB"),
+				nodes.get(0).getCoveredTestcasesOnBranches().get(nodes.get(2)));
+	}
+
+	private CoverageSFlowGraph newGraph(String... testcases) {
+		CoverageSFlowGraph graph = new CoverageSFlowGraph(3);
+		List<CoverageSFNode> nodes = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			CoverageSFNode node = new CoverageSFNode(i, graph);
+			node.setType(Type.BLOCK_NODE);
+			node.setContent(new ArrayList<>(Arrays.asList(i)));
+			node.setBlockScope();
+			nodes.add(node);
+		}
+		nodes.get(0).setType(Type.CONDITION_NODE);
+		nodes.get(0).addBranch(nodes.get(1));
+		nodes.get(0).addBranch(nodes.get(2));
+		graph.setNodeList(nodes);
+		graph.setStartNode(nodes.get(0));
+		for (String testcase : testcases) {
+			graph.addCoveredTestcase(testcase);
+		}
+		return graph;
+	}
+}
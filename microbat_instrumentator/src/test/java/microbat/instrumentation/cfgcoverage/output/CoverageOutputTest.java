@@ -0,0 +1,96 @@
+package microbat.instrumentation.cfgcoverage.output;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import microbat.instrumentation.cfgcoverage.graph.CoveragePath;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode.Type;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
+
+public class CoverageOutputTest {
+
+	@Test
+	public void testWriteReadCfgCoverage() throws Exception {
+		CoverageSFlowGraph graph = new CoverageSFlowGraph(4);
+		List<CoverageSFNode> nodes = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			CoverageSFNode node = new CoverageSFNode(i, graph);
+			node.setType(Type.BLOCK_NODE);
+			node.setContent(new ArrayList<>(Arrays.asList(i)));
+			node.setBlockScope();
+			nodes.add(node);
+		}
+		nodes.get(0).setType(Type.CONDITION_NODE);
+		nodes.get(0).addBranch(nodes.get(1));
+		nodes.get(0).addBranch(nodes.get(2));
+		nodes.get(1).addBranch(nodes.get(0));
+		graph.setNodeList(nodes);
+		graph.setStartNode(nodes.get(0));
+		for (int i = 0; i < 200; i++) {
+			graph.addCoveredTestcase("test.Foo.test" + i);
+		}
+		/* test0 loops over 0 -> 1 for 50 times, then exits by 2, test150 goes to 2 directly */
+		for (int tc : new int[] { 0, 150 }) {
+			nodes.get(0).addCoveredTestcase(tc);
+			nodes.get(2).addCoveredTestcase(tc);
+			nodes.get(0).markCoveredBranch(nodes.get(2), tc);
+		}
+		nodes.get(1).addCoveredTestcase(0);
+		nodes.get(0).markCoveredBranch(nodes.get(1), 0);
+		nodes.get(1).markCoveredBranch(nodes.get(0), 0);
+		List<CoverageSFNode> loopPath = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			loopPath.add(nodes.get(0));
+			loopPath.add(nodes.get(1));
+		}
+		loopPath.add(nodes.get(0));
+		loopPath.add(nodes.get(2));
+		CoveragePath path = new CoveragePath();
+		path.setCoveredTcs(Arrays.asList(0));
+		path.setPath(loopPath);
+		CoveragePath directPath = new CoveragePath();
+		directPath.setCoveredTcs(Arrays.asList(150));
+		directPath.setPath(Arrays.asList(nodes.get(0), nodes.get(2)));
+		graph.setCoveragePaths(Arrays.asList(path, directPath));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CoverageOutputWriter writer = new CoverageOutputWriter(bytes);
+		writer.writeCfgCoverage(graph);
+		writer.flush();
+
+		CoverageOutputReader reader = new CoverageOutputReader(new ByteArrayInputStream(bytes.toByteArray()));
+		CoverageSFlowGraph readGraph = reader.readCfgCoverage();
+		assertEquals(graph.getCoveredTestcases(), readGraph.getCoveredTestcases());
+		for (int i = 0; i < nodes.size(); i++) {
+			CoverageSFNode node = nodes.get(i);
+			CoverageSFNode readNode = readGraph.getNodeList().get(i);
+			assertEquals(node.getType(), readNode.getType());
+			assertEquals(node.getCoveredTestcases(), readNode.getCoveredTestcases());
+			assertEquals(node.getCoveredTcIdxies(), readNode.getCoveredTcIdxies());
+			assertEquals(node.getCoveredBranches().size(), readNode.getCoveredBranches().size());
+			for (CoverageSFNode branch : node.getCoveredBranches()) {
+				CoverageSFNode readBranch = readGraph.getNodeList().get(branch.getCvgIdx());
+				assertEquals(node.getCoveredTcIdxiesOnBranches().get(branch),
+						readNode.getCoveredTcIdxiesOnBranches().get(readBranch));
+			}
+		}
+		assertEquals(Arrays.asList("test.Foo.test0", "test.Foo.test150"),
+				readGraph.getNodeList().get(2).getCoveredTestcases());
+		assertEquals(Collections.singletonList("test.Foo.test0"),
+				readGraph.getNodeList().get(0).getCoveredTestcasesOnBranches().get(readGraph.getNodeList().get(1)));
+		List<CoveragePath> readPaths = readGraph.getCoveragePaths();
+		assertEquals(2, readPaths.size());
+		assertEquals(path.getIdPath(), readPaths.get(0).getIdPath());
+		assertEquals(path.getCoveredTcs(), readPaths.get(0).getCoveredTcs());
+		assertEquals(directPath.getIdPath(), readPaths.get(1).getIdPath());
+	}
+}
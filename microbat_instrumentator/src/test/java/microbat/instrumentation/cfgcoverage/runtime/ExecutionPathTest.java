@@ -0,0 +1,94 @@
+package microbat.instrumentation.cfgcoverage.runtime;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ExecutionPathTest {
+
+	@Test
+	public void testLoop() {
+		/* 0 -> (1 -> 2 -> 3) x 100 -> 1 -> 4 */
+		int[] nodes = new int[1 + 300 + 2];
+		int n = 0;
+		nodes[n++] = 0;
+		for (int i = 0; i < 100; i++) {
+			nodes[n++] = 1;
+			nodes[n++] = 2;
+			nodes[n++] = 3;
+		}
+		nodes[n++] = 1;
+		nodes[n++] = 4;
+		ExecutionPath path = toPath(nodes);
+		assertArrayEquals(new int[] { 0, 1, 2, 3, -3, 99, 1, 4 }, path.getEncoded());
+		assertArrayEquals(nodes, path.toArray());
+	}
+
+	@Test
+	public void testPendingLoop() {
+		ExecutionPath path = toPath(new int[] { 5, 5, 5, 6, 7, 6, 7, 6 });
+		assertArrayEquals(new int[] { 5, -1, 2, 6, 7, -2, 1, 6 }, path.getEncoded());
+		assertArrayEquals(new int[] { 5, 5, 5, 6, 7, 6, 7, 6 }, path.toArray());
+	}
+
+	@Test
+	public void testRandomPaths() throws Exception {
+		Random random = new Random(17);
+		for (int k = 0; k < 200; k++) {
+			int[] nodes = new int[random.nextInt(500)];
+			int n = 0;
+			while (n < nodes.length) {
+				/* a loop body of a few nodes, repeated several times */
+				int bodySize = 1 + random.nextInt(6);
+				int repeats = 1 + random.nextInt(5);
+				int[] body = new int[bodySize];
+				for (int i = 0; i < bodySize; i++) {
+					body[i] = random.nextInt(10);
+				}
+				for (int r = 0; r < repeats; r++) {
+					for (int i = 0; i < bodySize && n < nodes.length; i++) {
+						nodes[n++] = body[i];
+					}
+				}
+			}
+			ExecutionPath path = toPath(nodes);
+			assertArrayEquals(nodes, path.toArray());
+			assertArrayEquals(nodes, ExecutionPath.fromEncoded(path.getEncoded()).toArray());
+			assertArrayEquals(nodes, serializeAndBack(path).toArray());
+		}
+	}
+
+	@Test
+	public void testEquals() {
+		int[] nodes = new int[] { 0, 1, 2, 1, 2, 1, 2, 3 };
+		assertEquals(toPath(nodes), toPath(nodes));
+		assertEquals(toPath(nodes).hashCode(), toPath(nodes).hashCode());
+		assertNotEquals(toPath(nodes), toPath(new int[] { 0, 1, 2, 1, 2, 3 }));
+	}
+
+	private ExecutionPath toPath(int[] nodes) {
+		ExecutionPath path = new ExecutionPath();
+		for (int node : nodes) {
+			path.append(node);
+		}
+		return path;
+	}
+
+	private ExecutionPath serializeAndBack(ExecutionPath path) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(path);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return (ExecutionPath) in.readObject();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package microbat.instrumentation.instr;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import microbat.instrumentation.AgentParams;
+import microbat.instrumentation.CommandLine;
+import microbat.instrumentation.instr.InstrumentedClassCache.CachedClass;
+
+public class InstrumentedClassCacheTest {
+	private static final String CLASS_NAME = "com/Main";
+	private File folder;
+
+	@Before
+	public void setup() throws Exception {
+		folder = File.createTempFile("instrCache", "");
+		folder.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void testPutAndGet() {
+		InstrumentedClassCache cache = newCache("varLayer=2");
+		String key = cache.getKey(CLASS_NAME, true, new byte[] { 1, 2, 3 });
+		assertNull(cache.get(key));
+		cache.put(key, new byte[] { 4, 5 }, Arrays.asList("com.Main#main([Ljava/lang/String:)V"));
+		/* shared with another run of the same params */
+		InstrumentedClassCache otherRun = newCache("varLayer=2");
+		assertEquals(key, otherRun.getKey(CLASS_NAME, true, new byte[] { 1, 2, 3 }));
+		CachedClass cachedClass = otherRun.get(key);
+		assertArrayEquals(new byte[] { 4, 5 }, cachedClass.getData());
+		assertEquals(Arrays.asList("com.Main#main([Ljava/lang/String:)V"), cachedClass.getOverlongMethods());
+	}
+
+	@Test
+	public void testKey() {
+		InstrumentedClassCache cache = newCache("varLayer=2");
+		String key = cache.getKey(CLASS_NAME, true, new byte[] { 1, 2, 3 });
+		assertNotEquals(key, cache.getKey(CLASS_NAME, true, new byte[] { 1, 2, 4 }));
+		assertNotEquals(key, cache.getKey(CLASS_NAME, false, new byte[] { 1, 2, 3 }));
+		assertNotEquals(key, cache.getKey("com/Other", true, new byte[] { 1, 2, 3 }));
+		assertNotEquals(key, newCache("varLayer=3").getKey(CLASS_NAME, true, new byte[] { 1, 2, 3 }));
+		assertNotEquals(key, newCache("varLayer=2,excludes=com.*").getKey(CLASS_NAME, true, new byte[] { 1, 2, 3 }));
+		assertNotEquals(key,
+				newCache("varLayer=2,overlong_methods=com.Main#main").getKey(CLASS_NAME, true, new byte[] { 1, 2, 3 }));
+	}
+
+	@Test
+	public void testBrokenFile() throws Exception {
+		InstrumentedClassCache cache = newCache("varLayer=2");
+		String key = cache.getKey(CLASS_NAME, true, new byte[] { 1, 2, 3 });
+		cache.put(key, new byte[] { 4, 5 }, Collections.<String>emptyList());
+		/* a partly written file */
+		FileOutputStream out = new FileOutputStream(new File(folder, key));
+		out.write(new byte[] { 0, 0, 0, 1, 0, 0 });
+		out.close();
+		assertNull(cache.get(key));
+	}
+
+	private InstrumentedClassCache newCache(String agentArgs) {
+		AgentParams params = AgentParams.initFrom(CommandLine.parse(agentArgs));
+		return new InstrumentedClassCache(folder.getAbsolutePath(), params);
+	}
+}
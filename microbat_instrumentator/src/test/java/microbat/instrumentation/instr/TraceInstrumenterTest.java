@@ -0,0 +1,208 @@
+package microbat.instrumentation.instr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.generic.ClassGen;
+import org.apache.bcel.generic.ConstantPoolGen;
+import org.apache.bcel.generic.INVOKESTATIC;
+import org.apache.bcel.generic.Instruction;
+import org.apache.bcel.generic.InstructionHandle;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.LDC;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import microbat.instrumentation.AgentParams;
+import microbat.instrumentation.CommandLine;
+import microbat.instrumentation.filter.GlobalFilterChecker;
+import microbat.instrumentation.instr.instruction.info.EntryPoint;
+import microbat.instrumentation.runtime.ExecutionTracer;
+import microbat.instrumentation.runtime.RawPrimitiveValue;
+import microbat.instrumentation.trace.testdata.EntrySample;
+import microbat.instrumentation.trace.testdata.PrimitiveSample;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import microbat.model.value.VarValue;
+import sav.strategies.dto.AppJavaClassPath;
+
+public class TraceInstrumenterTest {
+	private static final String CLASS_NAME = EntrySample.class.getName();
+	private static final String MAIN_SIGNATURE = CLASS_NAME + "#main([Ljava/lang/String;)V";
+
+	@Test
+	public void testExitOfEntryMethod() throws Exception {
+		byte[] instrumented = instrument(CLASS_NAME);
+		JavaClass jc = new ClassParser(new ByteArrayInputStream(instrumented), CLASS_NAME).parse();
+		ConstantPoolGen constPool = new ConstantPoolGen(jc.getConstantPool());
+		int exitCalls = 0;
+		for (org.apache.bcel.classfile.Method method : jc.getMethods()) {
+			if (!method.getName().equals("main")) {
+				continue;
+			}
+			for (InstructionHandle insnHandle : new InstructionList(method.getCode().getCode())) {
+				Instruction insn = insnHandle.getInstruction();
+				if (insn instanceof INVOKESTATIC
+						&& "_exitProgram".equals(((INVOKESTATIC) insn).getMethodName(constPool))) {
+					exitCalls++;
+					/* the program message is the signature of the entry method */
+					Instruction prev = insnHandle.getPrev().getInstruction();
+					assertTrue(prev instanceof LDC);
+					assertEquals(MAIN_SIGNATURE, ((LDC) prev).getValue(constPool));
+				}
+			}
+		}
+		assertEquals(1, exitCalls);
+	}
+
+	@Test
+	public void testRunEntryMethod() throws Exception {
+		Class<?> clazz = loadInstrumentedClass(CLASS_NAME);
+		runMain(clazz, "ab", "cde");
+		assertEquals(5, clazz.getField("result").getInt(null));
+	}
+
+	/**
+	 * the primitive values of locals, fields and static fields are recorded by the primitive-typed tracer
+	 * methods, and formatted the same as their boxed values.
+	 */
+	@Test
+	public void testRecordPrimitiveValues() throws Exception {
+		/* the steps of a class are recorded if it is transformed from an app bin folder */
+		String binFolder = new File(PrimitiveSample.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+				.getAbsolutePath();
+		AppJavaClassPath appPath = new AppJavaClassPath();
+		appPath.setWorkingDirectory(binFolder);
+		appPath.addClasspath(binFolder);
+		GlobalFilterChecker.setup(appPath, null, null);
+		assertTrue(GlobalFilterChecker.isTransformable(PrimitiveSample.class.getName().replace(".", "/"), binFolder,
+				false));
+		ExecutionTracer.reset();
+		ExecutionTracer._start();
+		try {
+			Class<?> clazz = loadInstrumentedClass(PrimitiveSample.class.getName());
+			clazz.getField("target").set(null, clazz.newInstance());
+			runMain(clazz, "ab", "cde");
+		} finally {
+			ExecutionTracer.shutdown();
+		}
+		Trace trace = ((ExecutionTracer) ExecutionTracer.getMainThreadStore()).getTrace();
+		/* the local variables are named by their lines without a local variable table, so compare the values */
+		List<String> writtenValues = new ArrayList<>();
+		List<String> readValues = new ArrayList<>();
+		for (TraceNode step : trace.getExecutionList()) {
+			collectPrimitiveValues(step.getWrittenVariables(), writtenValues);
+			collectPrimitiveValues(step.getReadVariables(), readValues);
+		}
+		assertEquals(Arrays.asList("2", "1099511627776", "1.5", "-0.25", "true", "3", "-0.5", "y",
+				"1099511627779", "3.0"), writtenValues);
+		assertEquals(Arrays.asList("2", "2", "-0.25", "true", "3", "1099511627776", "1.5"), readValues);
+	}
+
+	private void collectPrimitiveValues(Collection<VarValue> values, List<String> primitiveValues) {
+		for (VarValue value : values) {
+			if (value instanceof RawPrimitiveValue) {
+				primitiveValues.add(value.getStringValue());
+			}
+		}
+	}
+
+	private Class<?> loadInstrumentedClass(final String className) throws Exception {
+		final byte[] instrumented = toVerifiableClass(className, instrument(className));
+		ClassLoader loader = new ClassLoader(getClass().getClassLoader()) {
+
+			@Override
+			protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+				if (!className.equals(name)) {
+					return super.loadClass(name, resolve);
+				}
+				synchronized (getClassLoadingLock(name)) {
+					Class<?> clazz = findLoadedClass(name);
+					if (clazz == null) {
+						clazz = defineClass(name, instrumented, 0, instrumented.length);
+					}
+					return clazz;
+				}
+			}
+		};
+		/* the class is verified on being linked, which fails on a mismatched argument of an injected call in main() */
+		return Class.forName(className, true, loader);
+	}
+
+	private void runMain(Class<?> clazz, final String... args) throws Exception {
+		final Method main = clazz.getMethod("main", String[].class);
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		/* not run in the main thread, in which _exitProgram waits for the other traced threads to stop */
+		Thread thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					main.invoke(null, (Object) args);
+				} catch (Throwable t) {
+					error.set(t);
+				}
+			}
+		}, "entry");
+		thread.start();
+		thread.join();
+		if (error.get() != null) {
+			throw new AssertionError(error.get());
+		}
+	}
+
+	/**
+	 * traced programs are run with -noverify, for the class to be verified here:
+	 * <ul>
+	 * <li>the original constructor is kept, as the instrumented one passes the uninitialized this to the
+	 * tracer.</li>
+	 * <li>the class version is lowered to 49, as the stack map frames are not updated on instrumenting, so that
+	 * the class is verified by type inference.</li>
+	 * </ul>
+	 */
+	private byte[] toVerifiableClass(String className, byte[] instrumented) throws Exception {
+		JavaClass jc = new ClassParser(new ByteArrayInputStream(instrumented), className).parse();
+		JavaClass originalJc = new ClassParser(new ByteArrayInputStream(readClass(className)), className).parse();
+		ClassGen classGen = new ClassGen(jc);
+		for (org.apache.bcel.classfile.Method method : originalJc.getMethods()) {
+			if (method.getName().equals("<init>")) {
+				/* the constants of the original class keep their indexes in the instrumented one */
+				classGen.replaceMethod(classGen.containsMethod(method.getName(), method.getSignature()), method);
+			}
+		}
+		classGen.setMajor(49);
+		classGen.setMinor(0);
+		return classGen.getJavaClass().getBytes();
+	}
+
+	private byte[] readClass(String className) throws Exception {
+		try (InputStream in = getClass().getResourceAsStream("/" + className.replace(".", "/") + ".class")) {
+			return IOUtils.toByteArray(in);
+		}
+	}
+
+	/**
+	 * instruments the given class with its main method as the entry point, so that it is an app class.
+	 */
+	private byte[] instrument(String className) throws Exception {
+		AgentParams params = new AgentParams(new CommandLine());
+		params.setEntryPoint(new EntryPoint(className, "main"));
+		TraceInstrumenter instrumenter = new TraceInstrumenter(params);
+		byte[] instrumented = instrumenter.instrument(className.replace(".", "/"), readClass(className));
+		assertNotNull(instrumented);
+		return instrumented;
+	}
+}
@@ -0,0 +1,115 @@
+package microbat.instrumentation.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import microbat.instrumentation.output.MappedTraceFile.StepDetail;
+import microbat.instrumentation.output.MappedTraceFile.StepRecord;
+import microbat.instrumentation.output.MappedTraceFile.TraceEntry;
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.variable.LocalVar;
+
+public class MappedTraceFileTest {
+
+	@Test
+	public void testWriteAndOpen() throws Exception {
+		Trace trace = new Trace(null);
+		trace.setMain(true);
+		trace.setThreadName("main");
+		trace.setThreadId(1);
+		trace.setIncludedLibraryClasses(new ArrayList<String>());
+		trace.setExcludedLibraryClasses(Arrays.asList("java.*"));
+		int stepNum = 100;
+		TraceNode root = null;
+		TraceNode prev = null;
+		for (int i = 1; i <= stepNum; i++) {
+			TraceNode node = new TraceNode(new BreakPoint("com.Main", "main()V", i % 7 + 1), null, i, trace, -1, -1,
+					i * 10L, "bc" + i);
+			trace.addTraceNode(node);
+			LocalVar var = new LocalVar("x", "int", "com.Main", i);
+			var.setVarID("x:" + i);
+			node.addWrittenVariable(new PrimitiveValue(String.valueOf(i), true, var));
+			if (prev != null) {
+				prev.setStepInNext(node);
+				node.setStepInPrevious(prev);
+			}
+			if (root == null) {
+				root = node;
+			} else {
+				node.setInvocationParent(root);
+				root.addInvocationChild(node);
+			}
+			prev = node;
+		}
+
+		File file = File.createTempFile("trace", ".exec");
+		file.deleteOnExit();
+		new MappedTraceWriter(file.getPath()).write("msg", Collections.singletonList(trace), stepNum, stepNum);
+
+		MappedTraceFile mappedFile = new MappedTraceFile(file.getPath());
+		mappedFile.open();
+		try {
+			/* the file is not kept open by its mapping */
+			assertEquals(0, countOpenDescriptors(file));
+			assertEquals("msg", mappedFile.getProgramMsg());
+			assertEquals(1, mappedFile.getTraceEntries().size());
+			TraceEntry entry = mappedFile.getTraceEntries().get(0);
+			assertEquals(stepNum, entry.getStepNum());
+			assertTrue(entry.getTrace().isMain());
+			assertEquals("java.*", entry.getTrace().getExcludedLibraryClasses().get(0));
+
+			StepRecord record = mappedFile.getStepRecord(entry, 50);
+			assertEquals(50 % 7 + 1, record.getLocation().getLineNumber());
+			assertEquals(51, record.getStepInNext());
+			assertEquals(49, record.getStepInPrevious());
+			assertEquals(1, record.getInvocationParent());
+			assertEquals(MappedTraceFile.NO_STEP, record.getLoopParent());
+			assertEquals(500L, record.getTimestamp());
+			assertFalse(record.isException());
+			assertTrue(record.readVariables().get(0).isEmpty());
+			assertEquals("x:50", record.readVariables().get(1).get(0).getVarID());
+			assertEquals("bc50", record.readDetail().getBytecode());
+
+			StepDetail rootDetail = mappedFile.getStepRecord(entry, 1).readDetail();
+			assertEquals(stepNum - 1, rootDetail.getInvocationChildren().length);
+			assertEquals(2, rootDetail.getInvocationChildren()[0]);
+		} finally {
+			mappedFile.close();
+		}
+	}
+
+	/**
+	 * @return the descriptors of this process which refer to the file, or 0 if they cannot be listed.
+	 */
+	private int countOpenDescriptors(File file) throws IOException {
+		File[] fds = new File("/proc/self/fd").listFiles();
+		if (fds == null) {
+			return 0;
+		}
+		String path = file.getCanonicalPath();
+		int count = 0;
+		for (File fd : fds) {
+			try {
+				if (path.equals(Files.readSymbolicLink(fd.toPath()).toString())) {
+					count++;
+				}
+			} catch (IOException e) {
+				// closed in the meantime
+			}
+		}
+		return count;
+	}
+}
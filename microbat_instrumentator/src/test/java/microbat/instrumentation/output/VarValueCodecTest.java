@@ -0,0 +1,81 @@
+package microbat.instrumentation.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import microbat.model.value.ArrayValue;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.ReferenceValue;
+import microbat.model.value.StringValue;
+import microbat.model.value.VarValue;
+import microbat.model.variable.ArrayElementVar;
+import microbat.model.variable.FieldVar;
+import microbat.model.variable.LocalVar;
+import microbat.model.variable.VirtualVar;
+
+public class VarValueCodecTest {
+
+	@Test
+	public void testEncodeDecode() throws Exception {
+		LocalVar localVar = new LocalVar("list", "java.util.List", "com.Main", 12);
+		localVar.setVarID("com/Main{12,21}list-1:3");
+		localVar.setAliasVarID("1001");
+		localVar.setRtType("java.util.ArrayList");
+		localVar.setParameter(true);
+		ReferenceValue ref = new ReferenceValue(false, true, localVar);
+		ref.setUniqueID(1001);
+		ref.setStringValue("[1, 2]");
+
+		FieldVar fieldVar = new FieldVar(false, "size", "int", "java.util.ArrayList");
+		fieldVar.setVarID("1001.size");
+		PrimitiveValue size = new PrimitiveValue("2", false, fieldVar);
+		ref.addChild(size);
+		size.addParent(ref);
+
+		ArrayValue arr = new ArrayValue(true, true, new LocalVar("arr", "int[]", "com.Main", 13));
+		arr.setNull(true);
+		arr.setComponentType("int");
+		PrimitiveValue element = new PrimitiveValue(null, true, new ArrayElementVar("arr[0]", "int", "77[0]"));
+		StringValue str = new StringValue("h\u00e9llo", true, new VirtualVar("str", "java.lang.String"));
+
+		List<Collection<VarValue>> steps = new ArrayList<>();
+		steps.add(Arrays.<VarValue>asList(ref, arr));
+		steps.add(new ArrayList<VarValue>());
+		steps.add(Arrays.<VarValue>asList(ref, element, str));
+
+		List<List<VarValue>> decoded = VarValueCodec.decode(VarValueCodec.encode(steps));
+		assertEquals(3, decoded.size());
+		assertEquals(0, decoded.get(1).size());
+
+		ReferenceValue decodedRef = (ReferenceValue) decoded.get(0).get(0);
+		assertSame(decodedRef, decoded.get(2).get(0));
+		assertEquals("com/Main{12,21}list-1:3", decodedRef.getVarID());
+		assertEquals("1001", decodedRef.getAliasVarID());
+		assertEquals("java.util.ArrayList", decodedRef.getRuntimeType());
+		assertEquals(1001, decodedRef.getUniqueID());
+		assertEquals("[1, 2]", decodedRef.getRawStringValue());
+		assertTrue(((LocalVar) decodedRef.getVariable()).isParameter());
+
+		VarValue decodedSize = decodedRef.getChildren().get(0);
+		assertEquals("1001.size", decodedSize.getVarID());
+		assertSame(decodedRef, decodedSize.getParents().get(0));
+
+		ArrayValue decodedArr = (ArrayValue) decoded.get(0).get(1);
+		assertTrue(decodedArr.isNull());
+		assertEquals("int", decodedArr.getComponentType());
+
+		assertNull(decoded.get(2).get(1).getRawStringValue());
+		assertEquals("77[0]", decoded.get(2).get(1).getVarID());
+		assertTrue(decoded.get(2).get(2) instanceof StringValue);
+		assertEquals("h\u00e9llo", decoded.get(2).get(2).getStringValue());
+	}
+}
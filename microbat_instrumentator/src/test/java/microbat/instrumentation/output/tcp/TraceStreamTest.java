@@ -0,0 +1,114 @@
+package microbat.instrumentation.output.tcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+
+import org.junit.Test;
+
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+
+public class TraceStreamTest {
+
+	@Test
+	public void testStreamSteps() throws Exception {
+		Trace trace = new Trace(null);
+		trace.setMain(true);
+		trace.setThreadName("main");
+		trace.setThreadId(1);
+		trace.setIncludedLibraryClasses(new ArrayList<String>());
+		trace.setExcludedLibraryClasses(Arrays.asList("java.*"));
+		int stepNum = 5000;
+
+		try (ServerSocketChannel server = ServerSocketChannel.open()) {
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			TraceStreamWriter writer = TraceStreamWriter.connect(server.socket().getLocalPort());
+			assertSame(writer, TraceStreamWriter.getInstance());
+			try (SocketChannel channel = server.accept()) {
+				/* the steps are recorded while the stream is read */
+				Thread program = record(writer, trace, stepNum);
+				final List<TraceNode> streamedSteps = new ArrayList<>();
+				TraceStreamReader reader = new TraceStreamReader(channel);
+				assertTrue(reader.read(new TraceStreamListener() {
+
+					@Override
+					public void onSteps(Trace trace, List<TraceNode> newSteps) {
+						assertTrue(trace.isMain());
+						streamedSteps.addAll(newSteps);
+					}
+				}));
+				program.join();
+				assertNull(TraceStreamWriter.getInstance());
+				assertEquals(stepNum, streamedSteps.size());
+				TraceNode step = streamedSteps.get(49);
+				assertEquals(50, step.getOrder());
+				assertEquals(50 % 7 + 1, step.getBreakPoint().getLineNumber());
+				assertEquals("main()V", step.getBreakPoint().getMethodSign());
+				assertEquals(500L, step.getTimestamp());
+				assertSame(streamedSteps.get(0), step.getInvocationParent());
+				assertEquals(stepNum - 1, streamedSteps.get(0).getInvocationChildren().size());
+
+				assertEquals("msg", reader.getProgramMsg());
+				assertEquals(1, reader.getTraces().size());
+				assertEquals(stepNum, reader.getTraces().get(0).size());
+				assertEquals(stepNum, reader.getPreviewTraces().get(0).size());
+			}
+		}
+	}
+
+	private Thread record(final TraceStreamWriter writer, final Trace trace, final int stepNum) {
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				Queue<TraceNode> steps = writer.getStepQueue(1, "main");
+				TraceNode root = null;
+				for (int i = 1; i <= stepNum; i++) {
+					TraceNode node = new TraceNode(new BreakPoint("com.Main", "main()V", i % 7 + 1), null, i, trace,
+							-1, -1, i * 10L, null);
+					trace.addTraceNode(node);
+					if (root == null) {
+						root = node;
+					} else {
+						node.setInvocationParent(root);
+						root.addInvocationChild(node);
+					}
+					steps.add(node);
+				}
+				try {
+					writer.finish("msg", Collections.singletonList(trace));
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		};
+		thread.start();
+		return thread;
+	}
+
+	@Test
+	public void testConnectionClosed() throws Exception {
+		try (ServerSocketChannel server = ServerSocketChannel.open()) {
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			TraceStreamWriter writer = TraceStreamWriter.connect(server.socket().getLocalPort());
+			try (SocketChannel channel = server.accept()) {
+				writer.close();
+				assertFalse(new TraceStreamReader(channel).read(null));
+			}
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package microbat.instrumentation.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class MethodRegistryTest {
+
+	@Test
+	public void testRegister() {
+		int fooId = MethodRegistry.register("test.registry.A", "test.registry.A#foo()V");
+		int barId = MethodRegistry.register("test.registry.A", "test.registry.A#bar(I)I");
+		int otherId = MethodRegistry.register("test.registry.B", "test.registry.B#foo()V");
+		assertNotEquals(fooId, barId);
+		assertEquals(fooId, MethodRegistry.register("test.registry.A", "test.registry.A#foo()V"));
+		/* a new string instance of the same signature */
+		assertEquals(barId, MethodRegistry._getMethodId("test.registry.A", new String("test.registry.A#bar(I)I")));
+
+		assertEquals("test.registry.A", MethodRegistry.getClassName(barId));
+		assertEquals("test.registry.A#bar(I)I", MethodRegistry.getMethodSignature(barId));
+		assertEquals(MethodRegistry.getClassId(fooId), MethodRegistry.getClassId(barId));
+		assertNotEquals(MethodRegistry.getClassId(fooId), MethodRegistry.getClassId(otherId));
+	}
+
+	@Test
+	public void testGetMethodIdConcurrently() throws Exception {
+		final int methodNum = 5000;
+		int threadNum = 8;
+		final int[][] ids = new int[threadNum][methodNum];
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[threadNum];
+		for (int i = 0; i < threadNum; i++) {
+			final int[] threadIds = ids[i];
+			threads[i] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int j = 0; j < methodNum; j++) {
+						String className = "test.concurrent.C" + (j % 100);
+						threadIds[j] = MethodRegistry._getMethodId(className, className + "#m" + j + "()V");
+					}
+				}
+			});
+			threads[i].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (int j = 0; j < methodNum; j++) {
+			for (int i = 1; i < threadNum; i++) {
+				assertEquals(ids[0][j], ids[i][j]);
+			}
+			String className = "test.concurrent.C" + (j % 100);
+			assertEquals(className, MethodRegistry.getClassName(ids[0][j]));
+			assertEquals(className + "#m" + j + "()V", MethodRegistry.getMethodSignature(ids[0][j]));
+		}
+	}
+}
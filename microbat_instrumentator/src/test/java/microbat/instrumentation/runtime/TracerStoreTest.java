@@ -0,0 +1,91 @@
+package microbat.instrumentation.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class TracerStoreTest {
+
+	@Test
+	public void testGetTracerConcurrently() throws Exception {
+		final ExecutionTracerStore store = new ExecutionTracerStore();
+		int threadNum = 40;
+		final ExecutionTracer[] tracers = new ExecutionTracer[threadNum];
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[threadNum];
+		for (int i = 0; i < threadNum; i++) {
+			final int idx = i;
+			threads[i] = new Thread(new Runnable() {
+				
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					long threadId = Thread.currentThread().getId();
+					ExecutionTracer tracer = store.get(threadId);
+					for (int j = 0; j < 10000; j++) {
+						if (store.get(threadId) != tracer) {
+							return;
+						}
+					}
+					tracers[idx] = tracer;
+				}
+			});
+			threads[i].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		
+		Map<ExecutionTracer, Boolean> distinct = new IdentityHashMap<>();
+		for (int i = 0; i < threadNum; i++) {
+			assertSame(tracers[i], store.get(threads[i].getId()));
+			assertEquals(threads[i].getId(), tracers[i].getThreadId());
+			distinct.put(tracers[i], true);
+		}
+		assertEquals(threadNum, distinct.size());
+		List<IExecutionTracer> allTracers = store.getAllThreadTracer();
+		assertEquals(threadNum, allTracers.size());
+	}
+	
+	@Test
+	public void testLockedThreads() throws Exception {
+		final LockedThreads lockedThreads = new LockedThreads();
+		int threadNum = 30;
+		final boolean[] results = new boolean[threadNum];
+		Thread[] threads = new Thread[threadNum];
+		for (int i = 0; i < threadNum; i++) {
+			final int idx = i;
+			threads[i] = new Thread(new Runnable() {
+				
+				@Override
+				public void run() {
+					long threadId = Thread.currentThread().getId();
+					boolean correct = true;
+					for (int j = 0; j < 1000; j++) {
+						lockedThreads.untrack(threadId);
+						correct &= lockedThreads.isUntracking(threadId);
+						lockedThreads.track(threadId);
+						correct &= !lockedThreads.isUntracking(threadId);
+					}
+					results[idx] = correct;
+				}
+			});
+			threads[i].start();
+		}
+		for (int i = 0; i < threadNum; i++) {
+			threads[i].join();
+			assertEquals(true, results[i]);
+		}
+	}
+}
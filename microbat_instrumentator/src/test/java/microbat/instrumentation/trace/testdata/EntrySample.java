@@ -0,0 +1,13 @@
+package microbat.instrumentation.trace.testdata;
+
+public class EntrySample {
+	public static int result;
+
+	public static void main(String[] args) {
+		int sum = 0;
+		for (int i = 0; i < args.length; i++) {
+			sum += args[i].length();
+		}
+		result = sum;
+	}
+}
@@ -5,6 +5,7 @@ import java.util.List;
 
 import microbat.instrumentation.runtime.ExecutionTracer;
 import microbat.instrumentation.runtime.IExecutionTracer;
+import microbat.instrumentation.runtime.MethodRegistry;
 
 public class InvokeSample {
 	
@@ -17,10 +18,11 @@ public class InvokeSample {
       }
   }
 
-  private void run() { IExecutionTracer tracer = ExecutionTracer._getTracer(true, "InvokeSample", "run", 19, 22, "", 
+  private void run() { int methodId = MethodRegistry._getMethodId("InvokeSample", "InvokeSample#run()V");
+      IExecutionTracer tracer = ExecutionTracer._getTracer(true, methodId, 19, 22, "", 
 		  "", new Object[1]);
       List<String> ls = new ArrayList<>();
-      ls.add("Good Day");  tracer._hitInvoke(null, null, "methodname", null, "paramTypeSignsCode", "returnTypeSign", 17, "", "");
+      ls.add("Good Day");  tracer._hitInvoke(null, null, "methodname", null, "paramTypeSignsCode", "returnTypeSign", 17, methodId);
 
       ArrayList<String> als = new ArrayList<>();
       als.add("Dydh Da");
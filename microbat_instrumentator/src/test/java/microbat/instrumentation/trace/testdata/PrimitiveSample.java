@@ -0,0 +1,26 @@
+package microbat.instrumentation.trace.testdata;
+
+public class PrimitiveSample {
+	/* created before main() is run, as an instrumented constructor call is not verifiable */
+	public static PrimitiveSample target;
+	public static long total;
+	public static float scale;
+	public static boolean flag;
+	public int count;
+	public double ratio;
+	public char mark;
+
+	public static void main(String[] args) {
+		int n = args.length;
+		long big = 1L << 40;
+		float f = 1.5f;
+		double d = -0.25;
+		flag = n > 1;
+		PrimitiveSample sample = target;
+		sample.count = n + 1;
+		sample.ratio = d * 2;
+		sample.mark = flag ? 'y' : 'n';
+		total = big + sample.count;
+		scale = f * 2;
+	}
+}
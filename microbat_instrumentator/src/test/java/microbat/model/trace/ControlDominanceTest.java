@@ -0,0 +1,162 @@
+package microbat.model.trace;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import microbat.model.BreakPoint;
+import microbat.model.ClassLocation;
+import microbat.model.ControlScope;
+import microbat.model.Scope;
+
+/**
+ * Compare {@link Trace#constructControlDomianceRelation(List)} with the former implementation, which
+ * collects and checks all the invocation parents of a step against every scope on the dominator chain.
+ */
+public class ControlDominanceTest {
+	private static final String[] CLASSES = { "com.A", "com.B", "com.C" };
+	private static final int LINES = 30;
+
+	@Test
+	public void testRandomTraces() {
+		for (long seed = 0; seed < 200; seed++) {
+			assertSameDominance(seed, 500, 0.1, 0.1);
+		}
+	}
+
+	@Test
+	public void testDeepInvocations() {
+		assertSameDominance(7, 20000, 0.3, 0.2);
+	}
+
+	private void assertSameDominance(long seed, int steps, double callRate, double returnRate) {
+		List<TraceNode> expected = generate(seed, steps, callRate, returnRate);
+		constructByFormerImplementation(expected);
+		List<TraceNode> actual = generate(seed, steps, callRate, returnRate);
+		new Trace(null).constructControlDomianceRelation(actual);
+		for (int i = 0; i < expected.size(); i++) {
+			TraceNode e = expected.get(i);
+			TraceNode a = actual.get(i);
+			assertEquals("seed " + seed + ", step " + e.getOrder(), getOrder(e.getControlDominator()),
+					getOrder(a.getControlDominator()));
+			assertEquals("seed " + seed + ", step " + e.getOrder(), getOrders(e.getControlDominatees()),
+					getOrders(a.getControlDominatees()));
+		}
+	}
+
+	/**
+	 * a random execution over a few classes, where a step continues in the current method, invokes a
+	 * method (possibly itself) or returns. Some of the locations are branches whose scope covers random
+	 * lines of their own class and, less often, of the other classes.
+	 */
+	private List<TraceNode> generate(long seed, int steps, double callRate, double returnRate) {
+		Random random = new Random(seed);
+		Map<String, BreakPoint> locations = new HashMap<>();
+		for (String className : CLASSES) {
+			for (int line = 1; line <= LINES; line++) {
+				BreakPoint bkp = new BreakPoint(className, className + "#m()V", line);
+				if (random.nextInt(4) == 0) {
+					List<ClassLocation> range = new ArrayList<>();
+					for (int i = random.nextInt(8); i >= 0; i--) {
+						String scopeClass = random.nextInt(5) == 0 ? CLASSES[random.nextInt(CLASSES.length)]
+								: className;
+						range.add(new ClassLocation(scopeClass, null, 1 + random.nextInt(LINES)));
+					}
+					ControlScope scope = new ControlScope(range, true, random.nextBoolean());
+					bkp.setControlScope(scope);
+					bkp.setBranch(true);
+				}
+				locations.put(className + ":" + line, bkp);
+			}
+		}
+		Trace trace = new Trace(null);
+		List<TraceNode> executionList = new ArrayList<>(steps);
+		List<TraceNode> callStack = new ArrayList<>();
+		String currentClass = CLASSES[0];
+		List<String> classStack = new ArrayList<>();
+		TraceNode previous = null;
+		for (int order = 1; order <= steps; order++) {
+			double action = random.nextDouble();
+			if (previous != null && action < callRate) {
+				callStack.add(previous);
+				classStack.add(currentClass);
+				currentClass = CLASSES[random.nextInt(CLASSES.length)];
+			} else if (!callStack.isEmpty() && action < callRate + returnRate) {
+				callStack.remove(callStack.size() - 1);
+				currentClass = classStack.remove(classStack.size() - 1);
+			}
+			BreakPoint bkp = locations.get(currentClass + ":" + (1 + random.nextInt(LINES)));
+			TraceNode node = new TraceNode(bkp, null, order, trace, null);
+			if (!callStack.isEmpty()) {
+				TraceNode invocationParent = callStack.get(callStack.size() - 1);
+				node.setInvocationParent(invocationParent);
+				invocationParent.addInvocationChild(node);
+			}
+			executionList.add(node);
+			previous = node;
+		}
+		return executionList;
+	}
+
+	private void constructByFormerImplementation(List<TraceNode> executionList) {
+		TraceNode controlDominator = null;
+		for (TraceNode node : executionList) {
+			if (controlDominator != null) {
+				if (isContainedInScope(node, controlDominator.getControlScope())) {
+					controlDominator.addControlDominatee(node);
+					node.setControlDominator(controlDominator);
+				} else {
+					TraceNode superControlDominator = controlDominator.getControlDominator();
+					controlDominator = null;
+					while (superControlDominator != null) {
+						if (isContainedInScope(node, superControlDominator.getControlScope())) {
+							controlDominator = superControlDominator;
+							break;
+						}
+						superControlDominator = superControlDominator.getControlDominator();
+					}
+					if (controlDominator != null) {
+						controlDominator.addControlDominatee(node);
+						node.setControlDominator(controlDominator);
+					}
+				}
+			}
+			if (node.isBranch()) {
+				controlDominator = node;
+			}
+		}
+	}
+
+	private boolean isContainedInScope(TraceNode node, Scope conditionScope) {
+		if (conditionScope == null) {
+			return false;
+		}
+		List<TraceNode> testingSet = new ArrayList<>();
+		testingSet.add(node);
+		testingSet.addAll(node.findAllInvocationParents());
+		for (TraceNode n : testingSet) {
+			if (conditionScope.containsNodeScope(n)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Integer getOrder(TraceNode node) {
+		return node == null ? null : node.getOrder();
+	}
+
+	private List<Integer> getOrders(List<TraceNode> nodes) {
+		List<Integer> orders = new ArrayList<>();
+		for (TraceNode node : nodes) {
+			orders.add(node.getOrder());
+		}
+		return orders;
+	}
+}
@@ -0,0 +1,92 @@
+package microbat.model.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import microbat.model.BreakPoint;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.VarValue;
+import microbat.model.variable.LocalVar;
+
+public class TraceSegmentStoreTest {
+	private static final int STEPS = 100;
+	private static final int SPILLING_WINDOW = 10;
+
+	@Test
+	public void testSpillAndReload() throws Exception {
+		File folder = Files.createTempDirectory("segmentTest").toFile();
+		/* the traces of the same thread id in two jvms sharing the folder */
+		Trace trace = new Trace(null);
+		trace.enableSpilling(new TraceSegmentStore(folder.getPath(), "microbat_trace_1_"), SPILLING_WINDOW);
+		Trace otherTrace = new Trace(null);
+		otherTrace.enableSpilling(new TraceSegmentStore(folder.getPath(), "microbat_trace_1_"), SPILLING_WINDOW);
+		assertNull(trace.getSegmentStore().getFilePath());
+		record(trace, "x");
+		record(otherTrace, "y");
+
+		String filePath = trace.getSegmentStore().getFilePath();
+		String otherFilePath = otherTrace.getSegmentStore().getFilePath();
+		assertNotEquals(filePath, otherFilePath);
+		assertTrue(new File(filePath).exists());
+		assertTrue(new File(otherFilePath).exists());
+
+		TraceNode spilled = trace.getTraceNode(1);
+		assertTrue(spilled.isVariableSpilled());
+		assertFalse(trace.getTraceNode(STEPS).isVariableSpilled());
+		/* a variable added after spilling is merged with the reloaded ones */
+		spilled.addWrittenVariable(newVar("z", 1, 0));
+		for (int order = 1; order <= STEPS; order++) {
+			assertEquals(String.valueOf(order), getValues(trace.getTraceNode(order).getReadVariables()).get("x:" + order));
+			assertEquals(String.valueOf(-order),
+					getValues(otherTrace.getTraceNode(order).getReadVariables()).get("y:" + order));
+		}
+		assertEquals("0", getValues(spilled.getWrittenVariables()).get("z:1"));
+		assertEquals(2, spilled.getWrittenVariables().size());
+
+		/* a modified step is stored again when it is released */
+		spilled.releaseVariables();
+		assertTrue(spilled.isVariableSpilled());
+		assertEquals("0", getValues(spilled.getWrittenVariables()).get("z:1"));
+
+		trace.disposeSegmentStore();
+		otherTrace.disposeSegmentStore();
+		assertFalse(new File(filePath).exists());
+		assertFalse(new File(otherFilePath).exists());
+		folder.delete();
+	}
+
+	private void record(Trace trace, String varName) {
+		int sign = "x".equals(varName) ? 1 : -1;
+		for (int order = 1; order <= STEPS; order++) {
+			TraceNode node = new TraceNode(new BreakPoint("com.A", "com.A#m()V", order), null, order, trace, null);
+			node.addReadVariable(newVar(varName, order, sign * order));
+			node.addWrittenVariable(newVar("w", order, order));
+			trace.addTraceNode(node);
+			trace.spillCompletedSteps();
+		}
+	}
+
+	private VarValue newVar(String name, int order, int value) {
+		LocalVar var = new LocalVar(name, "int", "com.A", order);
+		var.setVarID(name + ":" + order);
+		return new PrimitiveValue(String.valueOf(value), true, var);
+	}
+
+	private Map<String, String> getValues(Iterable<VarValue> vars) {
+		Map<String, String> values = new HashMap<>();
+		for (VarValue var : vars) {
+			values.put(var.getVarID(), var.getStringValue());
+		}
+		return values;
+	}
+}
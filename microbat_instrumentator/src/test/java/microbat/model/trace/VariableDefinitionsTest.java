@@ -0,0 +1,106 @@
+package microbat.model.trace;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import microbat.model.BreakPoint;
+
+public class VariableDefinitionsTest {
+	private static final String VAR = "com.A{10,20}i";
+	private Trace trace = new Trace(null);
+	private BreakPoint location = new BreakPoint("com.A", "com.A#run()V", 10);
+
+	@Test
+	public void testLastDefinitionAtBoundaries() {
+		VariableDefinitions defs = new VariableDefinitions();
+		defs.put(VAR, step(5));
+		defs.put(VAR, step(10));
+		defs.put(VAR, step(20));
+
+		/* before the first definition */
+		assertEquals(0, defs.get(VAR, step(1), VariableDefinitions.USE_LAST));
+		/* at the first definition, a step does not define what it reads */
+		assertEquals(0, defs.get(VAR, step(5), VariableDefinitions.USE_LAST));
+		assertEquals(5, defs.get(VAR, step(6), VariableDefinitions.USE_LAST));
+		/* exactly at a definition */
+		assertEquals(5, defs.get(VAR, step(10), VariableDefinitions.USE_LAST));
+		assertEquals(10, defs.get(VAR, step(11), VariableDefinitions.USE_LAST));
+		assertEquals(10, defs.get(VAR, step(20), VariableDefinitions.USE_LAST));
+		/* after the last definition */
+		assertEquals(20, defs.get(VAR, step(21), VariableDefinitions.USE_LAST));
+		assertEquals(20, defs.get(VAR, step(1000), VariableDefinitions.USE_LAST));
+	}
+
+	@Test
+	public void testFirstDefinition() {
+		VariableDefinitions defs = new VariableDefinitions();
+		defs.put(VAR, step(7));
+		defs.put(VAR, step(3));
+		assertEquals(3, defs.get(VAR, step(1), VariableDefinitions.USE_FIRST));
+		assertEquals(3, defs.get(VAR, step(100), VariableDefinitions.USE_FIRST));
+	}
+
+	@Test
+	public void testOutOfOrderAndRepeatedDefinitions() {
+		VariableDefinitions defs = new VariableDefinitions();
+		int[] orders = { 8, 2, 15, 8, 4, 30, 2, 12, 1, 9 };
+		for (int order : orders) {
+			defs.put(VAR, step(order));
+		}
+		/* 1, 2, 4, 8, 9, 12, 15, 30 */
+		assertEquals(0, defs.get(VAR, step(1), VariableDefinitions.USE_LAST));
+		assertEquals(1, defs.get(VAR, step(2), VariableDefinitions.USE_LAST));
+		assertEquals(4, defs.get(VAR, step(5), VariableDefinitions.USE_LAST));
+		assertEquals(8, defs.get(VAR, step(9), VariableDefinitions.USE_LAST));
+		assertEquals(15, defs.get(VAR, step(30), VariableDefinitions.USE_LAST));
+		assertEquals(30, defs.get(VAR, step(31), VariableDefinitions.USE_LAST));
+		assertEquals(1, defs.get(VAR, step(31), VariableDefinitions.USE_FIRST));
+	}
+
+	/**
+	 * a loop-heavy trace, where a few loop variables are read and written by every step while the other
+	 * variables are only defined once in a while.
+	 */
+	@Test
+	public void testLoopVariables() {
+		VariableDefinitions defs = new VariableDefinitions();
+		String[] loopVarIDs = { "com.A{10,20}i", "com.A{10,20}j", "com.A{10,20}k" };
+		Map<String, Integer> firstDefinitions = new HashMap<>();
+		for (int order = 1; order <= 5000; order++) {
+			TraceNode node = step(order);
+			for (String varID : loopVarIDs) {
+				assertEquals(order - 1, defs.get(varID, node, VariableDefinitions.USE_LAST));
+				defs.put(varID, node);
+			}
+			if (order % 100 == 0) {
+				String varID = "obj" + (order % 1000) + ".field";
+				defs.put(varID, node);
+				if (!firstDefinitions.containsKey(varID)) {
+					firstDefinitions.put(varID, order);
+				}
+				assertEquals(firstDefinitions.get(varID).intValue(),
+						defs.get(varID, node, VariableDefinitions.USE_FIRST));
+				assertEquals(order > 1000 ? order - 1000 : 0, defs.get(varID, node, VariableDefinitions.USE_LAST));
+			}
+		}
+		assertEquals(5000, defs.get(VAR, step(5001), VariableDefinitions.USE_LAST));
+		assertEquals(2500, defs.get(VAR, step(2501), VariableDefinitions.USE_LAST));
+	}
+
+	@Test
+	public void testUndefinedVariable() {
+		VariableDefinitions defs = new VariableDefinitions();
+		defs.put(VAR, step(3));
+		assertEquals(0, defs.get("com.A{10,20}j", step(10), VariableDefinitions.USE_LAST));
+		assertEquals(0, defs.get("com.A{10,20}j", step(10), VariableDefinitions.USE_FIRST));
+		assertEquals(0, defs.get(null, step(10), VariableDefinitions.USE_LAST));
+	}
+
+	private TraceNode step(int order) {
+		return new TraceNode(location, null, order, trace, null);
+	}
+}
@@ -0,0 +1,143 @@
+package microbat.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+
+public class SqliteRecorderTest {
+	private static final String RUN_ID = "run1";
+	/* more than a batch of steps */
+	private static final int STEPS = 2500;
+	private File dbFile;
+
+	@Before
+	public void setup() throws Exception {
+		dbFile = File.createTempFile("microbat", ".db");
+	}
+
+	@After
+	public void tearDown() {
+		dbFile.delete();
+		new File(dbFile.getPath() + "-wal").delete();
+		new File(dbFile.getPath() + "-shm").delete();
+	}
+
+	@Test
+	public void testStoreTrace() throws Exception {
+		createTables(true);
+		Trace trace = newTrace(STEPS);
+		new SqliteRecorder(dbFile.getAbsolutePath(), RUN_ID).store(Arrays.asList(trace));
+
+		try (Connection conn = connect(); Statement stmt = conn.createStatement()) {
+			assertEquals(1, count(stmt, "SELECT count(*) FROM Run WHERE run_id='" + RUN_ID + "'"));
+			assertEquals(1, count(stmt, "SELECT count(*) FROM Trace WHERE run_id='" + RUN_ID + "'"));
+			assertEquals(10, count(stmt, "SELECT count(*) FROM Location"));
+			List<Integer> orders = new ArrayList<>();
+			List<Integer> stepOvers = new ArrayList<>();
+			try (ResultSet rs = stmt.executeQuery("SELECT step_order, step_over FROM Step ORDER BY step_order")) {
+				while (rs.next()) {
+					orders.add(rs.getInt(1));
+					stepOvers.add((Integer) rs.getObject(2));
+				}
+			}
+			assertEquals(STEPS, orders.size());
+			for (int i = 0; i < STEPS; i++) {
+				assertEquals(i + 1, orders.get(i).intValue());
+				assertEquals((i + 1 < STEPS) ? Integer.valueOf(i + 2) : null, stepOvers.get(i));
+			}
+		}
+		assertFalse(isWriterAlive());
+	}
+
+	/**
+	 * the rows are rolled back when the writer fails, and the writer thread ends.
+	 */
+	@Test
+	public void testWriterFailure() throws Exception {
+		/* no Step table */
+		createTables(false);
+		new SqliteRecorder(dbFile.getAbsolutePath(), RUN_ID).store(Arrays.asList(newTrace(STEPS)));
+
+		try (Connection conn = connect(); Statement stmt = conn.createStatement()) {
+			assertEquals(0, count(stmt, "SELECT count(*) FROM Run"));
+			assertEquals(0, count(stmt, "SELECT count(*) FROM Trace"));
+		}
+		assertFalse(isWriterAlive());
+	}
+
+	private Trace newTrace(int steps) {
+		Trace trace = new Trace(null, steps);
+		trace.setThreadName("main");
+		TraceNode prev = null;
+		for (int order = 1; order <= steps; order++) {
+			BreakPoint location = new BreakPoint("com.Sample", "com.Sample#run()V", 10 + order % 10);
+			TraceNode node = new TraceNode(location, null, order, trace, null);
+			trace.addTraceNode(node);
+			if (prev != null) {
+				prev.setStepOverNext(node);
+				prev.setStepInNext(node);
+				node.setStepOverPrevious(prev);
+				node.setStepInPrevious(prev);
+			}
+			prev = node;
+		}
+		return trace;
+	}
+
+	private void createTables(boolean withStep) throws SQLException {
+		try (Connection conn = connect(); Statement stmt = conn.createStatement()) {
+			stmt.execute("CREATE TABLE Run (run_id VARCHAR(255) NOT NULL, project_name VARCHAR(50), "
+					+ "project_version VARCHAR(50), launch_method TEXT, thread_status INTEGER, launch_class TEXT, "
+					+ "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (run_id))");
+			stmt.execute("CREATE TABLE Trace (trace_id TEXT NOT NULL, run_id VARCHAR(100) NOT NULL, "
+					+ "thread_id VARCHAR(255), thread_name VARCHAR(255), "
+					+ "generated_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP, isMain BOOL, PRIMARY KEY (trace_id))");
+			stmt.execute("CREATE TABLE Location (location_id integer NOT NULL, trace_id TEXT NOT NULL, "
+					+ "class_name varchar(255), line_number integer, is_conditional integer, is_return integer)");
+			if (withStep) {
+				stmt.execute("CREATE TABLE Step (trace_id TEXT NOT NULL, step_order INTEGER NOT NULL, "
+						+ "control_dominator INTEGER, step_in INTEGER, step_over INTEGER, invocation_parent INTEGER, "
+						+ "loop_parent INTEGER, location_id INTEGER, read_vars TEXT, written_vars TEXT, "
+						+ "time TIMESTAMP NOT NULL, PRIMARY KEY (trace_id, step_order))");
+			}
+		}
+	}
+
+	private Connection connect() throws SQLException {
+		return DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+	}
+
+	private int count(Statement stmt, String sql) throws SQLException {
+		try (ResultSet rs = stmt.executeQuery(sql)) {
+			assertTrue(rs.next());
+			return rs.getInt(1);
+		}
+	}
+
+	private boolean isWriterAlive() {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if ("microbat-db-writer".equals(thread.getName()) && thread.isAlive()) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -1,9 +1,14 @@
 package microbat.mutation.trace;
 
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.List;
 
 import microbat.model.trace.Trace;
 import microbat.mutation.trace.dto.BackupClassFiles;
+import sav.common.core.utils.StringUtils;
 import sav.strategies.dto.AppJavaClassPath;
 import sav.strategies.dto.SystemPreferences;
 
@@ -35,6 +40,46 @@ public class AppJavaClassPathWrapper extends AppJavaClassPath {
 			}
 		});
 	}
+	
+	/**
+	 * @return a class path of the given one, where the classes of the overlay folder, i.e., the compiled
+	 *         mutated class, hide the ones of the same names in the output folder of the project. Nothing is
+	 *         overwritten in the project, so that mutants of the same project can run at the same time.
+	 */
+	public static AppJavaClassPath withOverlay(AppJavaClassPath appJavaClassPath, final String overlayFolder) {
+		return new AppJavaClassPathWrapper(appJavaClassPath) {
+			private ClassLoader classLoader;
+			
+			@Override
+			public List<String> getClasspaths() {
+				List<String> classpaths = super.getClasspaths();
+				classpaths.add(0, overlayFolder);
+				return classpaths;
+			}
+			
+			@Override
+			public String getClasspathStr() {
+				return StringUtils.join(getClasspaths(), File.pathSeparator);
+			}
+			
+			@Override
+			public synchronized ClassLoader getClassLoader() {
+				if (classLoader == null) {
+					try {
+						List<String> classpaths = getClasspaths();
+						URL[] urls = new URL[classpaths.size()];
+						for (int i = 0; i < urls.length; i++) {
+							urls[i] = new File(classpaths.get(i)).toURI().toURL();
+						}
+						classLoader = new URLClassLoader(urls, AppJavaClassPath.class.getClassLoader());
+					} catch (MalformedURLException e) {
+						e.printStackTrace();
+					}
+				}
+				return classLoader;
+			}
+		};
+	}
 
 	public String getJavaHome() {
 		return appJavaClassPath.getJavaHome();
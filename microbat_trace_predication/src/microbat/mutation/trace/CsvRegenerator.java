@@ -3,7 +3,6 @@ package microbat.mutation.trace;
 import microbat.model.trace.Trace;
 import microbat.model.trace.TraceNode;
 import microbat.mutation.trace.dto.AnalysisTestcaseParams;
-import microbat.mutation.trace.dto.BackupClassFiles;
 import microbat.mutation.trace.dto.MutationCase;
 import microbat.mutation.trace.dto.MutationExecutionResult;
 import microbat.mutation.trace.dto.SingleMutation;
@@ -37,14 +36,12 @@ public class CsvRegenerator extends MutationEvaluator {
 		
 		TraceExecutionInfo mutationTraceInfo = restoreTrace(mutationCase.getBugTraceExec(),
 				mutationCase.getBugPrecheckPath(), mutationCase.getTestcaseParams().getProjectName(),
-				MuRegressionUtils.createProjectClassPath(params), true);
+				MuRegressionUtils.createMutationClassPath(MuRegressionUtils.createProjectClassPath(params), mutation), true);
 		Trace mutationTrace = mutationTraceInfo.getTrace();
 		MuRegressionUtils.fillMuBkpJavaFilePath(mutationTrace, mutation.getMutationJavaFile(),
 				mutation.getMutatedClass());
 		result.setBugTrace(mutationTrace);
 
-		AppJavaClassPathWrapper.wrapAppClassPath(mutationTrace, correctTrace, params.getBkClassFiles());
-		
 		MuDiffMatcher diffMatcher = RunSingleMutationHandler.initDiffMatcher(mutationCase);
 		PairList pairList = RunSingleMutationHandler.buildPairList(correctTrace, mutationTrace, diffMatcher);
 		try {
@@ -58,7 +55,7 @@ public class CsvRegenerator extends MutationEvaluator {
 				generator.runSimulator(mutation, params, mutationTrace, correctTrace, diffMatcher, pairList);
 			}
 		} catch (Exception e) {
-			params.recoverOrgMutatedClassFile();
+			e.printStackTrace();
 		}
 	}
 	
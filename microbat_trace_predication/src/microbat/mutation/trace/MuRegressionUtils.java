@@ -10,6 +10,7 @@ import microbat.model.BreakPoint;
 import microbat.model.trace.Trace;
 import microbat.model.trace.TraceNode;
 import microbat.mutation.trace.dto.AnalysisTestcaseParams;
+import microbat.mutation.trace.dto.SingleMutation;
 import microbat.util.IResourceUtils;
 import microbat.util.JavaUtil;
 import microbat.util.MicroBatUtil;
@@ -62,6 +63,31 @@ public class MuRegressionUtils {
 		return classPath;
 	}
 	
+	/**
+	 * @return the folder which the mutated class of the given mutation is compiled into.
+	 */
+	public static String getMutationClassFolder(SingleMutation mutation) {
+		return FileUtils.getFilePath(mutation.getMutationOutputFolder(), "classes");
+	}
+	
+	/**
+	 * @return the class path of the project where the mutated class of the given mutation is loaded
+	 *         instead of the original one.
+	 */
+	public static AppJavaClassPath createMutationClassPath(AppJavaClassPath projectClassPath, SingleMutation mutation) {
+		String classFolder = getMutationClassFolder(mutation);
+		String classFilePath = ClassUtils.getClassFilePath(classFolder, mutation.getMutatedClass());
+		if (!new File(classFilePath).exists()) {
+			/* mutation cases generated before only keep a copy of the mutated class file in the mutation folder */
+			String bkMutatedClassFilePath = ClassUtils.getClassFilePath(mutation.getMutationOutputFolder(),
+					ClassUtils.getSimpleName(mutation.getMutatedClass()));
+			if (new File(bkMutatedClassFilePath).exists()) {
+				FileUtils.copyFile(bkMutatedClassFilePath, classFilePath, true);
+			}
+		}
+		return AppJavaClassPathWrapper.withOverlay(projectClassPath, classFolder);
+	}
+	
 	public static String getSourceFolder(String cName, String projectName) {
 		ICompilationUnit unit = JavaUtil.findICompilationUnitInProject(cName, projectName);
 		IPath uri = unit.getResource().getFullPath();
@@ -5,6 +5,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.bcel.Repository;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -15,7 +17,6 @@ import microbat.codeanalysis.runtime.PreCheckInformation;
 import microbat.model.trace.Trace;
 import microbat.model.trace.TraceNode;
 import microbat.mutation.trace.dto.AnalysisTestcaseParams;
-import microbat.mutation.trace.dto.BackupClassFiles;
 import microbat.mutation.trace.dto.MutationCase;
 import microbat.mutation.trace.dto.MutationExecutionResult;
 import microbat.mutation.trace.dto.SingleMutation;
@@ -40,7 +41,13 @@ import tregression.separatesnapshots.DiffMatcher;
 import tregression.tracematch.ControlPathBasedTraceMatcher;
 
 public class MutationEvaluator {
-	protected ExecTraceFileReader execTraceReader = new ExecTraceFileReader();
+	/*
+	 * the source of a class is looked up by its name, so the mutated source file temporarily replaces the
+	 * original one while the dead end data are exported, under the write lock. The analysis of a mutant, which
+	 * looks up sources and compilation units by class name, holds the read lock, so that it never reads a
+	 * swapped file or loses a cached unit in the middle.
+	 */
+	static final ReadWriteLock SOURCE_LOCK = new ReentrantReadWriteLock();
 	
 	public MutationExecutionResult runSingleMutationTrial(MutationCase mutationCase, IMutationExperimentMonitor monitor) {
 		System.out.println("Start Mutation case: " + mutationCase.getMutation().getMutationBugId());
@@ -51,88 +58,104 @@ public class MutationEvaluator {
 		SingleMutation mutation = mutationCase.getMutation();
 		AnalysisTestcaseParams params = mutationCase.getTestcaseParams();
 		MutationExecutionResult result = new MutationExecutionResult();
+		EmpiricalTrial exportedTrial = null;
+		String orgFilePath = null;
+		String mutationFilePath = null;
 
-		TraceExecutionInfo correctTrace = restoreTrace(mutationCase.getCorrectTraceExec(),
-				mutationCase.getCorrectPrecheckPath(), mutationCase.getTestcaseParams().getProjectName(),
-				MuRegressionUtils.createProjectClassPath(params), false);
-		result.setCorrectTrace(correctTrace.getTrace());
+		SOURCE_LOCK.readLock().lock();
+		try {
+			TraceExecutionInfo correctTrace = restoreTrace(mutationCase.getCorrectTraceExec(),
+					mutationCase.getCorrectPrecheckPath(), mutationCase.getTestcaseParams().getProjectName(),
+					MuRegressionUtils.createProjectClassPath(params), false);
+			result.setCorrectTrace(correctTrace.getTrace());
 		
-		TraceExecutionInfo mutationTrace = restoreTrace(mutationCase.getBugTraceExec(),
-				mutationCase.getBugPrecheckPath(), mutationCase.getTestcaseParams().getProjectName(),
-				MuRegressionUtils.createProjectClassPath(params), true);
-		MuRegressionUtils.fillMuBkpJavaFilePath(mutationTrace.getTrace(), mutation.getMutationJavaFile(),
-				mutation.getMutatedClass());
-		result.setBugTrace(mutationTrace.getTrace());
+			TraceExecutionInfo mutationTrace = restoreTrace(mutationCase.getBugTraceExec(),
+					mutationCase.getBugPrecheckPath(), mutationCase.getTestcaseParams().getProjectName(),
+					MuRegressionUtils.createMutationClassPath(MuRegressionUtils.createProjectClassPath(params), mutation), true);
+			MuRegressionUtils.fillMuBkpJavaFilePath(mutationTrace.getTrace(), mutation.getMutationJavaFile(),
+					mutation.getMutatedClass());
+			result.setBugTrace(mutationTrace.getTrace());
 
-		AppJavaClassPathWrapper.wrapAppClassPath(mutationTrace.getTrace(), correctTrace.getTrace(), params.getBkClassFiles());
-		List<EmpiricalTrial> trials = Collections.emptyList();
-		try {
-			ICompilationUnit iunit = JavaUtil.findNonCacheICompilationUnitInProject(mutation.getMutatedClass(),
-					params.getProjectName());
-			String orgFilePath = IResourceUtils.getAbsolutePathOsStr(iunit.getPath());
-			String mutationFilePath = mutation.getFile().getAbsolutePath();
+			List<EmpiricalTrial> trials = Collections.emptyList();
+			try {
+				ICompilationUnit iunit = JavaUtil.findNonCacheICompilationUnitInProject(mutation.getMutatedClass(),
+						params.getProjectName());
+				orgFilePath = IResourceUtils.getAbsolutePathOsStr(iunit.getPath());
+				mutationFilePath = mutation.getFile().getAbsolutePath();
 			
-			CheckResult checkResult = checkRootCause(mutation, orgFilePath, mutationFilePath, mutationTrace, correctTrace,
-					params, monitor);
-			if(checkResult==null){
-				return null;
-			}
+				CheckResult checkResult = checkRootCause(mutation, orgFilePath, mutationFilePath, mutationTrace, correctTrace,
+						params, monitor);
+				if(checkResult==null){
+					return null;
+				}
 			
-			trials = checkResult.trials;
-			boolean foundRootCause = checkResult.foundRootCause;
-			System.out.println("foundRootCause:" + foundRootCause);
-			if(!trials.isEmpty()){
-				EmpiricalTrial trial = trials.get(0);
-				result.setTrial(trial);	
+				trials = checkResult.trials;
+				boolean foundRootCause = checkResult.foundRootCause;
+				System.out.println("foundRootCause:" + foundRootCause);
+				if(!trials.isEmpty()){
+					EmpiricalTrial trial = trials.get(0);
+					result.setTrial(trial);	
 				
-				if (foundRootCause) {
-					String backupJFile = orgFilePath.replace(".java", "_bk.java");
-					FileUtils.copyFile(orgFilePath, backupJFile, true);
-					try {
-						FileUtils.copyFile(mutationFilePath, orgFilePath, true);
-						Settings.iCompilationUnitMap.remove(mutation.getMutatedClass());
-						Settings.compilationUnitMap.remove(mutation.getMutatedClass());
-						if(!trial.getDeadEndRecordList().isEmpty()){
-							Repository.clearCache();
-							DeadEndRecord record = trial.getDeadEndRecordList().get(0);
-							String muBugId = mutation.getMutationBugId();
-							DED datas = record.getTransformedData(trial.getBuggyTrace());
-//							DED datas = new TrainingDataTransfer().transfer(record, trial.getBuggyTrace());
-							setTestCase(datas, trial.getTestcase());						
-//							new DeadEndReporter().export(datas.getAllData(), params.getProjectName(), muBugId);
-							new DeadEndCSVWriter(params.getProjectOutputFolder()).export(datas.getAllData(), params.getProjectName(), muBugId);
-						}
-					} catch (Throwable e) {
-						e.printStackTrace();
-					} finally {
-						FileUtils.copyFile(backupJFile, orgFilePath, true);
-						Settings.iCompilationUnitMap.remove(mutation.getMutatedClass());
-						Settings.compilationUnitMap.remove(mutation.getMutatedClass());
-						new File(backupJFile).delete();
-						recoverOrgClassFile(params);
+					if (foundRootCause) {
+						exportedTrial = trial;
+					} else {
+						System.out.println("bug Not found!");
 					}
-				} else {
-					System.out.println("bug Not found!");
-				}
 				
-				result.setValid(foundRootCause);
-			}
+					result.setValid(foundRootCause);
+				}
 			
 			
 			
 			
-		} catch (Throwable e) {
-			System.err.println("test case has exception when generating trace:");
-			e.printStackTrace();
+			} catch (Throwable e) {
+				System.err.println("test case has exception when generating trace:");
+				e.printStackTrace();
+			}
 		} finally {
+			SOURCE_LOCK.readLock().unlock();
+		}
+		
+		if (exportedTrial != null) {
+			/* the read lock cannot be upgraded, it is released before the files are swapped */
+			SOURCE_LOCK.writeLock().lock();
 			try {
-				recoverOrgClassFile(params);
-			} catch (Throwable e1) {
+				exportDeadEndData(mutation, params, exportedTrial, orgFilePath, mutationFilePath);
+			} finally {
+				SOURCE_LOCK.writeLock().unlock();
 			}
 		}
 		return result;
 	}
 	
+	private void exportDeadEndData(SingleMutation mutation, AnalysisTestcaseParams params, EmpiricalTrial trial,
+			String orgFilePath, String mutationFilePath) {
+		String backupJFile = orgFilePath.replace(".java", "_bk.java");
+		FileUtils.copyFile(orgFilePath, backupJFile, true);
+		try {
+			FileUtils.copyFile(mutationFilePath, orgFilePath, true);
+			Settings.iCompilationUnitMap.remove(mutation.getMutatedClass());
+			Settings.compilationUnitMap.remove(mutation.getMutatedClass());
+			if(!trial.getDeadEndRecordList().isEmpty()){
+				Repository.clearCache();
+				DeadEndRecord record = trial.getDeadEndRecordList().get(0);
+				String muBugId = mutation.getMutationBugId();
+				DED datas = record.getTransformedData(trial.getBuggyTrace());
+//				DED datas = new TrainingDataTransfer().transfer(record, trial.getBuggyTrace());
+				setTestCase(datas, trial.getTestcase());						
+//				new DeadEndReporter().export(datas.getAllData(), params.getProjectName(), muBugId);
+				new DeadEndCSVWriter(params.getProjectOutputFolder()).export(datas.getAllData(), params.getProjectName(), muBugId);
+			}
+		} catch (Throwable e) {
+			e.printStackTrace();
+		} finally {
+			FileUtils.copyFile(backupJFile, orgFilePath, true);
+			Settings.iCompilationUnitMap.remove(mutation.getMutatedClass());
+			Settings.compilationUnitMap.remove(mutation.getMutatedClass());
+			new File(backupJFile).delete();
+		}
+	}
+	
 	private CheckResult checkRootCause(SingleMutation mutation, String orgFilePath, String mutationFilePath, 
 			TraceExecutionInfo mutationTraceInfo, TraceExecutionInfo correctTraceInfo, AnalysisTestcaseParams params, 
 			 IMutationExperimentMonitor monitor) throws SimulationFailException {
@@ -142,8 +165,6 @@ public class MutationEvaluator {
 		DiffMatcher diffMatcher = new MuDiffMatcher(mutation.getSourceFolder(), orgFilePath, mutationFilePath);
 		diffMatcher.matchCode();
 		
-		AppJavaClassPathWrapper.wrapAppClassPath(killingMutatantTrace, correctTrace, params.getBkClassFiles());
-		
 		long start = System.currentTimeMillis();
 		ControlPathBasedTraceMatcher traceMatcher = new ControlPathBasedTraceMatcher();
 		PairList pairList = traceMatcher.matchTraceNodePair(killingMutatantTrace, correctTrace, diffMatcher); 
@@ -215,15 +236,9 @@ public class MutationEvaluator {
 		}
 	}
 	
-	private void recoverOrgClassFile(AnalysisTestcaseParams params) {
-		BackupClassFiles bkClassFiles = params.getBkClassFiles();
-		if (bkClassFiles != null) {
-			FileUtils.copyFile(bkClassFiles.getOrgClassFilePath(), bkClassFiles.getClassFilePath(), true);
-		}
-	}
-
 	protected TraceExecutionInfo restoreTrace(String execPath, String precheckPath, String projectName,
 			AppJavaClassPath appJavaClassPath, boolean isMutationTrace) {
+		ExecTraceFileReader execTraceReader = new ExecTraceFileReader();
 		Trace trace = execTraceReader.read(execPath);
 		PreCheckInformation precheckInfo = execTraceReader.readPrecheck(precheckPath);
 		trace.setAppJavaClassPath(appJavaClassPath);
@@ -7,6 +7,9 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdi.TimeoutException;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -16,6 +19,7 @@ import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 
+import microbat.agent.ExecTraceFileReader;
 import microbat.codeanalysis.bytecode.ByteCodeParser;
 import microbat.codeanalysis.runtime.InstrumentationExecutor;
 import microbat.codeanalysis.runtime.PreCheckInformation;
@@ -27,10 +31,10 @@ import microbat.mutation.mutation.MutationType;
 import microbat.mutation.mutation.TraceMutationVisitor;
 import microbat.mutation.trace.dto.AnalysisParams;
 import microbat.mutation.trace.dto.AnalysisTestcaseParams;
-import microbat.mutation.trace.dto.BackupClassFiles;
 import microbat.mutation.trace.dto.MutationTrace;
 import microbat.mutation.trace.dto.SingleMutation;
 import microbat.mutation.trace.dto.TraceExecutionInfo;
+import microbat.mutation.trace.report.DeadEndExports;
 import microbat.mutation.trace.report.IMutationCaseChecker;
 import microbat.mutation.trace.report.IMutationExperimentMonitor;
 import microbat.preference.AnalysisScopePreference;
@@ -112,7 +116,6 @@ public class MutationGenerator {
 						runSingleTestcase(correctTrace, tcParams, monitor);
 					} catch (Throwable e) {
 						e.printStackTrace();
-						tcParams.recoverOrgMutatedClassFile();
 					}
 				}
 			}
@@ -138,6 +141,8 @@ public class MutationGenerator {
 		InstrumentationExecutor executor = new InstrumentationExecutor(testcaseConfig, traceExecPath,
 				includedClassNames, excludedClassNames);
 		executor.setTimeout(params.getAnalysisParams().getExecutionTimeout());
+		executor.setInstrumentationCacheFolder(getInstrumentationCacheFolder(params.getAnalysisParams()));
+		executor.setControlScopeCacheFolder(getControlScopeCacheFolder(params.getAnalysisParams()));
 		PreCheckInformation precheckInfo = executor.runPrecheck(precheckPath, params.getAnalysisParams().getStepLimit());
 
 		if (!precheckInfo.isPassTest() || precheckInfo.isOverLong()) {
@@ -173,40 +178,103 @@ public class MutationGenerator {
 		}
 		System.out.println("Start executing mutants for  " + testCaseName);
 		System.out.println("===========the mutation is start=================");
+		List<SingleMutation> acceptedMutations = new ArrayList<>();
 		for (SingleMutation mutation : mutations) {
-			if (monitor.isCanceled()) {
-				return false;
-			}
 			if (!checker.accept(mutation.getMutationBugId(), MutationType.valueOf(mutation.getMutationType()))) {
 				continue;
 			}
 			try {
-				MutationTrace muTrace = generateMutationTrace(correctTrace.getTrace().getAppJavaClassPath(), params, mutation);
-				ICompilationUnit iunit = JavaUtil.findNonCacheICompilationUnitInProject(mutation.getMutatedClass(),
-						params.getProjectName());
-				String orgFilePath = IResourceUtils.getAbsolutePathOsStr(iunit.getPath());
-				String mutationFilePath = mutation.getFile().getAbsolutePath();
-				if (muTrace != null && muTrace.isValid()) {
-					checkRootCause(mutation, orgFilePath, mutationFilePath, muTrace.getTraceExecInfo(), correctTrace, params, monitor);
-				}
-				monitor.reportMutationCase(params, correctTrace, muTrace, mutation);
+				prepareMutation(params, mutation);
+				acceptedMutations.add(mutation);
 			} catch (Exception e) {
 				e.printStackTrace();
-			} finally {
-				params.recoverOrgMutatedClassFile();
 			}
 		}
 		
+		/* each mutant is compiled into its own class folder, so mutants are traced and evaluated in parallel */
+		int threads = Math.max(1, Math.min(params.getAnalysisParams().getMutationThreads(), acceptedMutations.size()));
+		ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		for (final SingleMutation mutation : acceptedMutations) {
+			executorService.submit(new Runnable() {
+				
+				@Override
+				public void run() {
+					if (monitor.isCanceled()) {
+						return;
+					}
+					runSingleMutation(correctTrace, params, mutation, monitor);
+				}
+			});
+		}
+		executorService.shutdown();
+		try {
+			executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			executorService.shutdownNow();
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		
 		System.out.println("===========all mutation is done==================");
 		return false;
 	}
 	
+	private void runSingleMutation(TraceExecutionInfo orgCorrectTrace, AnalysisTestcaseParams params,
+			SingleMutation mutation, IMutationExperimentMonitor monitor) {
+		/* sources are looked up by class name, see MutationEvaluator.SOURCE_LOCK */
+		MutationEvaluator.SOURCE_LOCK.readLock().lock();
+		try {
+			TraceExecutionInfo correctTrace = copyTrace(orgCorrectTrace);
+			MutationTrace muTrace = generateMutationTrace(correctTrace.getTrace().getAppJavaClassPath(), params, mutation);
+			ICompilationUnit iunit = JavaUtil.findNonCacheICompilationUnitInProject(mutation.getMutatedClass(),
+					params.getProjectName());
+			String orgFilePath = IResourceUtils.getAbsolutePathOsStr(iunit.getPath());
+			String mutationFilePath = mutation.getFile().getAbsolutePath();
+			if (muTrace != null && muTrace.isValid()) {
+				checkRootCause(mutation, orgFilePath, mutationFilePath, muTrace.getTraceExecInfo(), correctTrace, params, monitor);
+			}
+			monitor.reportMutationCase(params, correctTrace, muTrace, mutation);
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			MutationEvaluator.SOURCE_LOCK.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * the compilation units of the mutated classes are shared by all mutants, hence, they are loaded before the
+	 * mutants are executed. The original class file is kept in the analysis folder as before.
+	 */
+	private void prepareMutation(AnalysisTestcaseParams params, SingleMutation mutation) throws JavaModelException {
+		ICompilationUnit iunit = JavaUtil.findNonCacheICompilationUnitInProject(mutation.getMutatedClass(), params.getProjectName());
+		CompilationUnit unit = JavaUtil.convertICompilationUnitToASTNode(iunit);
+		Settings.iCompilationUnitMap.put(mutation.getMutatedClass(), iunit);
+		Settings.compilationUnitMap.put(mutation.getMutatedClass(), unit);
+		
+		String targetFolder = IResourceUtils.getAbsolutePathOsStr(iunit.getJavaProject().getOutputLocation());
+		String classFilePath = ClassUtils.getClassFilePath(targetFolder, mutation.getMutatedClass());
+		String bkOrgClassFilePath = ClassUtils.getClassFilePath(params.getAnalysisOutputFolder(),
+				ClassUtils.getSimpleName(mutation.getMutatedClass()));
+		FileUtils.copyFile(classFilePath, bkOrgClassFilePath, true);
+	}
+	
+	/**
+	 * @return a new trace read from the exec file of the given trace, as the analysis of a mutant modifies
+	 *         the correct trace.
+	 */
+	private TraceExecutionInfo copyTrace(TraceExecutionInfo traceInfo) {
+		AppJavaClassPath appClassPath = traceInfo.getTrace().getAppJavaClassPath();
+		Trace trace = new ExecTraceFileReader().read(traceInfo.getExecPath());
+		trace.setAppJavaClassPath(appClassPath);
+		Regression.fillMissingInfo(trace, appClassPath);
+		return new TraceExecutionInfo(traceInfo.getPrecheckInfo(), trace, traceInfo.getExecPath(),
+				traceInfo.getPrecheckInfoPath());
+	}
+	
 	private void checkRootCause(SingleMutation mutation, String orgFilePath, String mutationFilePath,
 			TraceExecutionInfo mutationTraceInfo, TraceExecutionInfo correctTraceInfo, AnalysisTestcaseParams params,
 			IMutationExperimentMonitor monitor) throws SimulationFailException {
 		AppJavaClassPath testCaseConfig = correctTraceInfo.getTrace().getAppJavaClassPath();
-		AppJavaClassPathWrapper.wrapAppClassPath(mutationTraceInfo.getTrace(), correctTraceInfo.getTrace(),
-				params.getBkClassFiles());
 		
 		List<String> includedClassNames = AnalysisScopePreference.getIncludedLibList();
 		List<String> excludedClassNames = AnalysisScopePreference.getExcludedLibList();
@@ -260,10 +328,12 @@ public class MutationGenerator {
 				break;
 			} else {
 				/* !foundRootCause */
-				killingMutatantTrace = generateMutatedTrace(params, mutation, testCaseConfig, buggyPrecheck,
+				killingMutatantTrace = generateMutatedTrace(params, mutation, mutationTraceInfo.getTrace()
+						.getAppJavaClassPath(), buggyPrecheck, includedClassNames, excludedClassNames);
+				correctTrace = generateCorrectTrace(params, mutation, testCaseConfig, correctPrecheck,
 						includedClassNames, excludedClassNames);
-				correctTrace = generateCorrectTrace(params, testCaseConfig, correctPrecheck, includedClassNames,
-						excludedClassNames);
+				correctTraceInfo.setExecPath(InstrumentationExecutor
+						.generateTraceFilePath(mutation.getMutationOutputFolder(), "fix"));
 				killingMutatantTrace.setAppJavaClassPath(mutationTraceInfo.getTrace().getAppJavaClassPath());
 				correctTrace.setAppJavaClassPath(correctTraceInfo.getTrace().getAppJavaClassPath());
 			}
@@ -297,9 +367,15 @@ public class MutationGenerator {
 		if(!trials.isEmpty()) {
 			EmpiricalTrial t = trials.get(0);
 			for(DeadEndRecord record: t.getDeadEndRecordList()) {
-				DED datas = record.getTransformedData(t.getBuggyTrace());
+				final DED datas = record.getTransformedData(t.getBuggyTrace());
 				try {
-					new DeadEndCSVWriter("_mutation", null).export(datas.getAllData(), params.getProjectName(), mutation.getMutationBugId());
+					DeadEndExports.export(new DeadEndExports.Export() {
+						@Override
+						public void run() throws IOException {
+							new DeadEndCSVWriter("_mutation", null).export(datas.getAllData(), params.getProjectName(),
+									mutation.getMutationBugId());
+						}
+					});
 				} catch (IOException e) {
 					e.printStackTrace();
 				}
@@ -310,21 +386,25 @@ public class MutationGenerator {
 	private Trace generateMutatedTrace(AnalysisTestcaseParams params, SingleMutation mutation, AppJavaClassPath testcaseConfig,
 			PreCheckInformation buggyPrecheck, List<String> includedClassNames, List<String> excludedClassNames) {
 		String traceDir = mutation.getMutationOutputFolder();
-		params.getBkClassFiles().restoreMutatedClassFile();
 		InstrumentationExecutor executor = new InstrumentationExecutor(testcaseConfig, traceDir, "bug",
 				includedClassNames, excludedClassNames);
 		executor.setTimeout(params.getAnalysisParams().getExecutionTimeout());
+		executor.setInstrumentationCacheFolder(getInstrumentationCacheFolder(params.getAnalysisParams()));
+		executor.setControlScopeCacheFolder(getControlScopeCacheFolder(params.getAnalysisParams()));
 		RunningInfo runningInfo = executor.execute(buggyPrecheck);
 		return runningInfo.getTraceList().get(0);
 	}
 	
-	private Trace generateCorrectTrace(AnalysisTestcaseParams params, AppJavaClassPath testcaseConfig,
-			PreCheckInformation correctPrecheck, List<String> includedClassNames, List<String> excludedClassNames) {
-		String outputFolder = params.getAnalysisOutputFolder();
-		params.getBkClassFiles().restoreOrgClassFile();
-		InstrumentationExecutor executor = new InstrumentationExecutor(testcaseConfig, outputFolder, "fix",
+	private Trace generateCorrectTrace(AnalysisTestcaseParams params, SingleMutation mutation,
+			AppJavaClassPath testcaseConfig, PreCheckInformation correctPrecheck, List<String> includedClassNames,
+			List<String> excludedClassNames) {
+		/* the correct trace of the test case is shared by its mutants, the one of a larger scope is kept with the mutant */
+		String traceDir = mutation.getMutationOutputFolder();
+		InstrumentationExecutor executor = new InstrumentationExecutor(testcaseConfig, traceDir, "fix",
 				includedClassNames, excludedClassNames);
 		executor.setTimeout(params.getAnalysisParams().getExecutionTimeout());
+		executor.setInstrumentationCacheFolder(getInstrumentationCacheFolder(params.getAnalysisParams()));
+		executor.setControlScopeCacheFolder(getControlScopeCacheFolder(params.getAnalysisParams()));
 		RunningInfo info = executor.execute(correctPrecheck);
 		return info.getTraceList().get(0);
 	}
@@ -368,6 +448,21 @@ public class MutationGenerator {
 		return locs;
 	}
 
+	/**
+	 * the instrumented classes are shared by all traces of the mutation output space, the mutated classes are
+	 * keyed by their own bytes.
+	 */
+	private String getInstrumentationCacheFolder(AnalysisParams analysisParams) {
+		return FileUtils.getFilePath(analysisParams.getMutationOutputSpace(), "instr_cache");
+	}
+	
+	/**
+	 * the control scopes are keyed by the bytes of the classes, so they are shared like the instrumented classes.
+	 */
+	private String getControlScopeCacheFolder(AnalysisParams analysisParams) {
+		return FileUtils.getFilePath(analysisParams.getMutationOutputSpace(), "control_scope_cache");
+	}
+	
 	private MutationTrace executeTestcaseWithMutation(AppJavaClassPath testcaseConfig, AnalysisParams analysisParams,
 			SingleMutation mutation) {
 		MutationTrace muTrace = new MutationTrace();
@@ -380,6 +475,8 @@ public class MutationGenerator {
 			InstrumentationExecutor executor = new InstrumentationExecutor(testcaseConfig, traceExecPath,
 					includedClassNames, excludedClassNames);
 			executor.setTimeout(analysisParams.getExecutionTimeout());
+			executor.setInstrumentationCacheFolder(getInstrumentationCacheFolder(analysisParams));
+			executor.setControlScopeCacheFolder(getControlScopeCacheFolder(analysisParams));
 			PreCheckInformation precheck = executor.runPrecheck(precheckPath, analysisParams.getStepLimit());
 			
 			muTrace.setTimeOut(precheck.isTimeout());
@@ -423,39 +520,25 @@ public class MutationGenerator {
 	
 	private MutationTrace generateMutationTrace(AppJavaClassPath testcaseConfig, AnalysisTestcaseParams params,
 			SingleMutation mutation) throws Exception {
-		ICompilationUnit iunit = JavaUtil.findNonCacheICompilationUnitInProject(mutation.getMutatedClass(), params.getProjectName());
-		CompilationUnit unit = JavaUtil.convertICompilationUnitToASTNode(iunit);
-		Settings.iCompilationUnitMap.put(mutation.getMutatedClass(), iunit);
-		Settings.compilationUnitMap.put(mutation.getMutatedClass(), unit);
-		
-		/* compile mutation file */
-		// backup original .class file
-		String targetFolder = IResourceUtils.getAbsolutePathOsStr(iunit.getJavaProject().getOutputLocation());
-		String classFilePath = ClassUtils.getClassFilePath(targetFolder, mutation.getMutatedClass());
-		String mutatedClassSimpleName = ClassUtils.getSimpleName(mutation.getMutatedClass());
-		String bkOrgClassFilePath = ClassUtils.getClassFilePath(params.getAnalysisOutputFolder(),
-				mutatedClassSimpleName);
-		FileUtils.copyFile(classFilePath, bkOrgClassFilePath, true);
-		String bkMutatedClassFilePath = null;
+		/* compile mutation file into the class folder of the mutation, which hides the original class */
+		String classFolder = MuRegressionUtils.getMutationClassFolder(mutation);
+		FileUtils.createFolder(classFolder);
+		AppJavaClassPath mutationConfig = AppJavaClassPathWrapper.withOverlay(testcaseConfig, classFolder);
 		try {
+			/* the class folder is empty before compiling, the compiler of the project class path is reused */
 			JavaCompiler javaCompiler = new JavaCompiler(new VMConfiguration(testcaseConfig));
-			javaCompiler.compile(targetFolder, mutation.getFile());
+			javaCompiler.compile(classFolder, mutation.getFile());
+			// keep a copy of the mutated .class file next to the mutation file as before
+			String mutatedClassSimpleName = ClassUtils.getSimpleName(mutation.getMutatedClass());
+			FileUtils.copyFile(ClassUtils.getClassFilePath(classFolder, mutation.getMutatedClass()),
+					ClassUtils.getClassFilePath(mutation.getMutationOutputFolder(), mutatedClassSimpleName), true);
 
 			/* generate trace */
-			MutationTrace mutateInfo = executeTestcaseWithMutation(testcaseConfig, params.getAnalysisParams(), mutation);
-			bkMutatedClassFilePath = ClassUtils.getClassFilePath(mutation.getMutationOutputFolder(), mutatedClassSimpleName);
-			FileUtils.copyFile(classFilePath, bkMutatedClassFilePath, true);
+			MutationTrace mutateInfo = executeTestcaseWithMutation(mutationConfig, params.getAnalysisParams(), mutation);
 			return mutateInfo;
 		} catch (SavException e) {
 			System.out.println("Compilation error: " + e.getMessage());
 			System.out.println();
-		} finally {
-			if (bkMutatedClassFilePath != null) {
-				params.setBkClassFiles(new BackupClassFiles(classFilePath, bkOrgClassFilePath, bkMutatedClassFilePath));
-			}
-			/* revert */
-			FileUtils.copyFile(bkOrgClassFilePath, classFilePath, true);
-			
 		}
 		return null;
 	}
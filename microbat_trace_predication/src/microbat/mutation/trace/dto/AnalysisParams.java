@@ -21,6 +21,8 @@ public class AnalysisParams {
 	private final int stepLimit = 10000;
 	private final long executionTimeout = 30000l;
 	private String mutationOutputSpace;
+	/* the number of mutants which are traced and evaluated at the same time */
+	private int mutationThreads = Runtime.getRuntime().availableProcessors();
 	
 	public AnalysisParams(MutationRegressionSettings mutationSettings) {
 		this.mutationTypes = mutationSettings.getMutationTypes();
@@ -118,4 +120,12 @@ public class AnalysisParams {
 	public String getMutationOutputSpace() {
 		return mutationOutputSpace;
 	}
+
+	public int getMutationThreads() {
+		return mutationThreads;
+	}
+
+	public void setMutationThreads(int mutationThreads) {
+		this.mutationThreads = mutationThreads;
+	}
 }
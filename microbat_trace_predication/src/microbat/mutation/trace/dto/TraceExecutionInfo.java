@@ -24,6 +24,10 @@ public class TraceExecutionInfo {
 	public String getExecPath() {
 		return execPath;
 	}
+	
+	public void setExecPath(String execPath) {
+		this.execPath = execPath;
+	}
 
 	public PreCheckInformation getPrecheckInfo() {
 		return precheckInfo;
@@ -2,6 +2,9 @@ package microbat.mutation.trace.handlers;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
@@ -51,26 +54,41 @@ public class EvaluateMutationRegressionHandler extends AbstractHandler {
 		return null;
 	}
 
-	private void evaluateMutations(String targetProject, MutationRegressionSettings mutationSettings,
-			IProgressMonitor monitor) throws IOException {
+	private void evaluateMutations(final String targetProject, final MutationRegressionSettings mutationSettings,
+			final IProgressMonitor monitor) throws IOException {
 		List<String> allBugIds = MutationCase.loadAllMutationBugIds(targetProject,
 				mutationSettings.getMutationOutputSpace());
-		MutationEvaluator mutationEvaluator = new MutationEvaluator();
-		AnalysisParams analysisParams = new AnalysisParams(mutationSettings);
-		MutationExperimentMonitor mutationMonitor = new MutationExperimentMonitor(monitor, targetProject, analysisParams);
-		String projectFolder = IProjectUtils.getProjectFolder(JavaUtil.getSpecificJavaProjectInWorkspace(targetProject));
-		for (String bugId : allBugIds) {
-			try {
-				MutationCase mutationCase = MutationCase.load(targetProject, bugId,
-						mutationSettings.getMutationOutputSpace(), analysisParams, projectFolder);
-				mutationCase.getTestcaseParams().setAnalysisParams(analysisParams);
-				mutationEvaluator.runSingleMutationTrial(mutationCase, mutationMonitor);
-				if (monitor.isCanceled()) {
-					return;
+		final MutationEvaluator mutationEvaluator = new MutationEvaluator();
+		final AnalysisParams analysisParams = new AnalysisParams(mutationSettings);
+		final MutationExperimentMonitor mutationMonitor = new MutationExperimentMonitor(monitor, targetProject, analysisParams);
+		final String projectFolder = IProjectUtils.getProjectFolder(JavaUtil.getSpecificJavaProjectInWorkspace(targetProject));
+		/* mutants are loaded from their own class folders, hence, they can be evaluated at the same time */
+		ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, analysisParams.getMutationThreads()));
+		for (final String bugId : allBugIds) {
+			executorService.submit(new Runnable() {
+				
+				@Override
+				public void run() {
+					if (monitor.isCanceled()) {
+						return;
+					}
+					try {
+						MutationCase mutationCase = MutationCase.load(targetProject, bugId,
+								mutationSettings.getMutationOutputSpace(), analysisParams, projectFolder);
+						mutationCase.getTestcaseParams().setAnalysisParams(analysisParams);
+						mutationEvaluator.runSingleMutationTrial(mutationCase, mutationMonitor);
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
 				}
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
+			});
+		}
+		executorService.shutdown();
+		try {
+			executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			executorService.shutdownNow();
+			Thread.currentThread().interrupt();
 		}
 	}
 }
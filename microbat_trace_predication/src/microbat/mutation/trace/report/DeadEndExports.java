@@ -0,0 +1,25 @@
+package microbat.mutation.trace.report;
+
+import java.io.IOException;
+
+/**
+ * The dead-end data of the mutants simulated in parallel are appended to the same csv files, so that their
+ * exports are run one at a time. The mutation workers hold the read lock of
+ * {@code MutationEvaluator.SOURCE_LOCK} while simulating, which cannot be upgraded to its write lock.
+ */
+public class DeadEndExports {
+	private static final Object EXPORT_LOCK = new Object();
+	
+	public interface Export {
+		void run() throws IOException;
+	}
+	
+	private DeadEndExports() {
+	}
+	
+	public static void export(Export export) throws IOException {
+		synchronized (EXPORT_LOCK) {
+			export.run();
+		}
+	}
+}
@@ -32,7 +32,7 @@ public class MutationExperimentMonitor extends BasicMutationExperimentMonitor im
 	}
 
 	@Override
-	public void reportTrial(AnalysisTestcaseParams params, TraceExecutionInfo correctTrace,
+	public synchronized void reportTrial(AnalysisTestcaseParams params, TraceExecutionInfo correctTrace,
 			TraceExecutionInfo killingMutatantTrace, SingleMutation mutation, boolean foundRootCause) {
 		Trial trial = new Trial();
 		trial.setTestCaseName(params.getTestcaseName());
@@ -47,7 +47,7 @@ public class MutationExperimentMonitor extends BasicMutationExperimentMonitor im
 	}
 	
 	@Override
-	public void reportMutationCase(AnalysisTestcaseParams params, TraceExecutionInfo correctTrace,
+	public synchronized void reportMutationCase(AnalysisTestcaseParams params, TraceExecutionInfo correctTrace,
 			MutationTrace mutationTrace, SingleMutation mutation) {
 		MutationCase mutationCase = new MutationCase(params, mutation);
 		mutationCase.setMutationTrace(mutationTrace);
@@ -56,7 +56,7 @@ public class MutationExperimentMonitor extends BasicMutationExperimentMonitor im
 	}
 
 	@Override
-	public void reportEmpiralTrial(String fileName, List<EmpiricalTrial> trials0, AnalysisTestcaseParams params, SingleMutation mutation)
+	public synchronized void reportEmpiralTrial(String fileName, List<EmpiricalTrial> trials0, AnalysisTestcaseParams params, SingleMutation mutation)
 			throws IOException {
 		MutationTrialRecorder recorder = null;
 		if (fileName == null) {
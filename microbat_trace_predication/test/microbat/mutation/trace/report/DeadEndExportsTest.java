@@ -0,0 +1,130 @@
+package microbat.mutation.trace.report;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The exports are run from the workers of a pool, the same as the mutants simulated by
+ * {@code MutationGenerator}, and append their rows to the same file.
+ */
+public class DeadEndExportsTest {
+	private static final int WORKERS = 8;
+	private static final int MUTANTS = 400;
+	private static final int ROWS = 5;
+	private File csvFile;
+
+	@Before
+	public void setup() throws IOException {
+		csvFile = File.createTempFile("deadend", ".csv");
+	}
+
+	@After
+	public void tearDown() {
+		csvFile.delete();
+	}
+
+	@Test
+	public void testConcurrentExports() throws Exception {
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(WORKERS);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < MUTANTS; i++) {
+			final String mutationBugId = "mutant" + i;
+			futures.add(pool.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					DeadEndExports.export(new DeadEndExports.Export() {
+						@Override
+						public void run() throws IOException {
+							maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+							try {
+								appendRows(mutationBugId);
+							} finally {
+								running.decrementAndGet();
+							}
+						}
+					});
+					return null;
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		pool.shutdown();
+
+		assertEquals(1, maxRunning.get());
+		List<String> lines = Files.readAllLines(csvFile.toPath());
+		assertEquals(MUTANTS * ROWS, lines.size());
+		/* the rows of a mutant are not interleaved with those of another one */
+		for (int i = 0; i < lines.size(); i += ROWS) {
+			String mutationBugId = lines.get(i).split(",")[0];
+			for (int row = 0; row < ROWS; row++) {
+				assertEquals(mutationBugId + "," + row, lines.get(i + row));
+			}
+		}
+	}
+
+	@Test
+	public void testFailedExport() throws Exception {
+		try {
+			DeadEndExports.export(new DeadEndExports.Export() {
+				@Override
+				public void run() throws IOException {
+					throw new IOException("disk full");
+				}
+			});
+			fail();
+		} catch (IOException e) {
+			assertEquals("disk full", e.getMessage());
+		}
+		/* the lock is released for the exports of the other workers */
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		Future<?> future = pool.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				DeadEndExports.export(new DeadEndExports.Export() {
+					@Override
+					public void run() throws IOException {
+						appendRows("next");
+					}
+				});
+				return null;
+			}
+		});
+		future.get(10, TimeUnit.SECONDS);
+		pool.shutdown();
+		assertEquals(ROWS, Files.readAllLines(csvFile.toPath()).size());
+	}
+
+	/**
+	 * appends the rows one by one, like a csv writer reopening the file for each record.
+	 */
+	private void appendRows(String mutationBugId) throws IOException {
+		for (int row = 0; row < ROWS; row++) {
+			try (Writer writer = new FileWriter(csvFile, true)) {
+				writer.write(mutationBugId + "," + row + "\n");
+			}
+			Thread.yield();
+		}
+	}
+}
@@ -87,6 +87,13 @@ public class AgentVmRunner extends VMRunner {
 		agentParams.put(opt, String.valueOf(value));
 	}
 	
+	/**
+	 * @return the agent params by their options.
+	 */
+	public Map<String, String> getAgentParamsMap() {
+		return agentParams;
+	}
+	
 	public List<String> getProgramArgs() {
 		return programArgs;
 	}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2013 by SUTD (Singapore)
+ * All rights reserved.
+ *
+ * 	Author: SUTD
+ *  Version:  $Revision: 1 $
+ */
+
+package sav.strategies.vm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import sav.common.core.SavException;
+
+/**
+ * Compiles java files with the system java compiler of the running jvm, instead of starting a javac
+ * process for each compilation. The file manager of each classpath is kept between compilations, so
+ * the indexes of the jars on the classpath are only built once. A file manager is not thread-safe,
+ * hence, compilations on the same classpath are serialized, and ones on different classpaths run in
+ * parallel.
+ *
+ * @author LLT
+ *
+ */
+public class InProcessJavaCompiler {
+	private static final int MAX_FILE_MANAGERS = 8;
+	private static final List<String> OPTIONS = Arrays.asList("-g", "-nowarn");
+	private static final Map<String, StandardJavaFileManager> fileManagers = new LinkedHashMap<String, StandardJavaFileManager>(
+			16, 0.75f, true);
+
+	private javax.tools.JavaCompiler compiler;
+
+	public InProcessJavaCompiler() {
+		compiler = ToolProvider.getSystemJavaCompiler();
+	}
+
+	/**
+	 * @return whether classes compiled for the given configuration in the running jvm are the same as the
+	 *         ones of the javac of its java home, i.e., a jdk is running and its java home is the one of the
+	 *         configuration.
+	 */
+	public boolean isAvailable(VMConfiguration vmConfig) {
+		if (compiler == null) {
+			return false;
+		}
+		String javaHome = vmConfig.getJavaHome();
+		if (javaHome == null) {
+			return true;
+		}
+		try {
+			File runningJavaHome = new File(System.getProperty("java.home")).getCanonicalFile();
+			File targetJavaHome = new File(javaHome).getCanonicalFile();
+			/* java.home of a jdk 8 is its jre folder */
+			return targetJavaHome.equals(runningJavaHome) || targetJavaHome.equals(runningJavaHome.getParentFile());
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	public void compile(VMConfiguration vmConfig, String targetFolder, Collection<File> javaFiles)
+			throws SavException {
+		StandardJavaFileManager fileManager = getFileManager(vmConfig.getClasspaths());
+		synchronized (fileManager) {
+			try {
+				fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(new File(targetFolder)));
+			} catch (IOException e) {
+				throw new SavException(e);
+			}
+			doCompile(fileManager, fileManager, javaFiles);
+		}
+	}
+
+	/**
+	 * @return the bytecode of the compiled classes, including the inner ones, by their binary names.
+	 */
+	public Map<String, byte[]> compileToMemory(VMConfiguration vmConfig, Collection<File> javaFiles)
+			throws SavException {
+		StandardJavaFileManager fileManager = getFileManager(vmConfig.getClasspaths());
+		synchronized (fileManager) {
+			MemoryFileManager memoryFileManager = new MemoryFileManager(fileManager);
+			doCompile(fileManager, memoryFileManager, javaFiles);
+			return memoryFileManager.getClassBytes();
+		}
+	}
+
+	private void doCompile(StandardJavaFileManager fileManager, JavaFileManager outputFileManager,
+			Collection<File> javaFiles) throws SavException {
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(javaFiles);
+		boolean success = compiler.getTask(null, outputFileManager, diagnostics, OPTIONS, null, units).call();
+		if (!success) {
+			throw new SavException("compilation error: " + toString(diagnostics));
+		}
+	}
+
+	private String toString(DiagnosticCollector<JavaFileObject> diagnostics) {
+		StringBuilder sb = new StringBuilder();
+		for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+			if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+				sb.append(diagnostic.toString()).append("\n");
+			}
+		}
+		return sb.toString();
+	}
+
+	private StandardJavaFileManager getFileManager(List<String> classpaths) throws SavException {
+		String key = classpaths.toString();
+		synchronized (fileManagers) {
+			StandardJavaFileManager fileManager = fileManagers.get(key);
+			if (fileManager == null) {
+				fileManager = compiler.getStandardFileManager(null, Locale.getDefault(), null);
+				List<File> files = new ArrayList<File>(classpaths.size());
+				for (String classpath : classpaths) {
+					files.add(new File(classpath));
+				}
+				try {
+					fileManager.setLocation(StandardLocation.CLASS_PATH, files);
+				} catch (IOException e) {
+					throw new SavException(e);
+				}
+				fileManagers.put(key, fileManager);
+				evictFileManagers();
+			}
+			return fileManager;
+		}
+	}
+
+	private void evictFileManagers() {
+		Iterator<StandardJavaFileManager> it = fileManagers.values().iterator();
+		while (fileManagers.size() > MAX_FILE_MANAGERS && it.hasNext()) {
+			StandardJavaFileManager fileManager = it.next();
+			it.remove();
+			synchronized (fileManager) {
+				try {
+					fileManager.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	private static class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+		private Map<String, ByteArrayOutputStream> classBytes = new HashMap<String, ByteArrayOutputStream>();
+
+		public MemoryFileManager(StandardJavaFileManager fileManager) {
+			super(fileManager);
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, final String className, Kind kind,
+				FileObject sibling) throws IOException {
+			if (kind != Kind.CLASS) {
+				return super.getJavaFileForOutput(location, className, kind, sibling);
+			}
+			URI uri = URI.create("mem:///" + className.replace('.', '/') + kind.extension);
+			return new SimpleJavaFileObject(uri, kind) {
+				@Override
+				public OutputStream openOutputStream() throws IOException {
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					classBytes.put(className, out);
+					return out;
+				}
+			};
+		}
+
+		@Override
+		public void close() throws IOException {
+			// the underlying file manager is kept for the next compilations
+		}
+
+		public Map<String, byte[]> getClassBytes() {
+			Map<String, byte[]> result = new HashMap<String, byte[]>();
+			for (Map.Entry<String, ByteArrayOutputStream> entry : classBytes.entrySet()) {
+				result.put(entry.getKey(), entry.getValue().toByteArray());
+			}
+			return Collections.unmodifiableMap(result);
+		}
+	}
+}
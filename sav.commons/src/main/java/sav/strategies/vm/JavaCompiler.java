@@ -13,6 +13,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,12 +23,17 @@ import sav.common.core.utils.CollectionBuilder;
 import sav.common.core.utils.StringUtils;
 
 /**
+ * Compiles java files in the running jvm when it is a jdk of the configured java home, otherwise, or when
+ * {@link #setInProcess(boolean)} is disabled, in a separate javac process.
+ * 
  * @author LLT
  * 
  */
 public class JavaCompiler {
+	private static InProcessJavaCompiler inProcessCompiler;
 	private Logger log = LoggerFactory.getLogger(JavaCompiler.class);
 	private VMConfiguration vmConfig;
+	private boolean inProcess = true;
 
 	public JavaCompiler(VMConfiguration vmConfig) {
 		setVmConfig(vmConfig);
@@ -40,6 +46,27 @@ public class JavaCompiler {
 
 	public boolean compile(String targetFolder, Collection<File> javaFiles)
 			throws SavException {
+		if (inProcess && getInProcessCompiler().isAvailable(vmConfig)) {
+			getInProcessCompiler().compile(vmConfig, targetFolder, javaFiles);
+			return true;
+		}
+		return compileInVm(targetFolder, javaFiles);
+	}
+	
+	/**
+	 * compile the given files without writing any class file.
+	 * 
+	 * @return the bytecode of the compiled classes by their binary names.
+	 */
+	public Map<String, byte[]> compileToMemory(File... javaFiles) throws SavException {
+		if (!getInProcessCompiler().isAvailable(vmConfig)) {
+			throw new SavException("no system java compiler for java home " + vmConfig.getJavaHome());
+		}
+		return getInProcessCompiler().compileToMemory(vmConfig, Arrays.asList(javaFiles));
+	}
+
+	private boolean compileInVm(String targetFolder, Collection<File> javaFiles)
+			throws SavException {
 		CollectionBuilder<String, List<String>> builder = new CollectionBuilder<String, List<String>>(
 				new ArrayList<String>())
 				.append(VmRunnerUtils.buildJavaCPrefix(vmConfig))
@@ -68,5 +95,16 @@ public class JavaCompiler {
 	public void setVmConfig(VMConfiguration vmConfig) {
 		this.vmConfig = vmConfig;
 	}
+	
+	public void setInProcess(boolean inProcess) {
+		this.inProcess = inProcess;
+	}
+
+	private static synchronized InProcessJavaCompiler getInProcessCompiler() {
+		if (inProcessCompiler == null) {
+			inProcessCompiler = new InProcessJavaCompiler();
+		}
+		return inProcessCompiler;
+	}
 
 }
@@ -282,6 +282,10 @@ public class VMRunner {
 		this.timeout = timeout;
 	}
 	
+	public long getTimeout() {
+		return timeout;
+	}
+	
 	public static boolean start(VMConfiguration config) throws SavException {
 		VMRunner vmRunner = new VMRunner();
 		return vmRunner.startVm(config);
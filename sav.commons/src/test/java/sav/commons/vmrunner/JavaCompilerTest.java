@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2013 by SUTD (Singapore)
+ * All rights reserved.
+ *
+ * 	Author: SUTD
+ *  Version:  $Revision: 1 $
+ */
+
+package sav.commons.vmrunner;
+
+import java.io.File;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import sav.common.core.SavException;
+import sav.strategies.vm.JavaCompiler;
+import sav.strategies.vm.VMConfiguration;
+
+/**
+ * @author LLT
+ *
+ */
+public class JavaCompilerTest {
+	private File workingFolder;
+	private File javaFile;
+	private VMConfiguration vmConfig;
+
+	@Before
+	public void setup() throws Exception {
+		workingFolder = File.createTempFile("javaCompilerTest", "");
+		workingFolder.delete();
+		workingFolder.mkdirs();
+		javaFile = new File(workingFolder, "sample/Sample.java");
+		FileUtils.writeStringToFile(javaFile, "package sample;\n"
+				+ "public class Sample {\n"
+				+ "	public int run() { return new Inner().value(); }\n"
+				+ "	static class Inner { int value() { return 1; } }\n"
+				+ "}\n");
+		vmConfig = new VMConfiguration();
+		vmConfig.setJavaHome(System.getProperty("java.home"));
+		vmConfig.addClasspath(workingFolder.getAbsolutePath());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteDirectory(workingFolder);
+	}
+
+	@Test
+	public void testCompileInProcess() throws Exception {
+		File targetFolder = new File(workingFolder, "classes");
+		targetFolder.mkdirs();
+		JavaCompiler compiler = new JavaCompiler(vmConfig);
+		Assert.assertTrue(compiler.compile(targetFolder.getAbsolutePath(), javaFile));
+		Assert.assertTrue(new File(targetFolder, "sample/Sample.class").exists());
+		Assert.assertTrue(new File(targetFolder, "sample/Sample$Inner.class").exists());
+	}
+
+	@Test
+	public void testCompileToMemory() throws Exception {
+		JavaCompiler compiler = new JavaCompiler(vmConfig);
+		Map<String, byte[]> classes = compiler.compileToMemory(javaFile);
+		Assert.assertEquals(2, classes.size());
+		Assert.assertTrue(classes.get("sample.Sample").length > 0);
+		Assert.assertTrue(classes.get("sample.Sample$Inner").length > 0);
+		Assert.assertFalse(new File(workingFolder, "sample/Sample.class").exists());
+	}
+
+	@Test
+	public void testCompileInProcessSameAsInVm() throws Exception {
+		File inProcessFolder = new File(workingFolder, "inProcess");
+		File inVmFolder = new File(workingFolder, "inVm");
+		inProcessFolder.mkdirs();
+		inVmFolder.mkdirs();
+		JavaCompiler compiler = new JavaCompiler(vmConfig);
+		compiler.compile(inProcessFolder.getAbsolutePath(), javaFile);
+		compiler.setInProcess(false);
+		compiler.compile(inVmFolder.getAbsolutePath(), javaFile);
+		Assert.assertArrayEquals(FileUtils.readFileToByteArray(new File(inVmFolder, "sample/Sample.class")),
+				FileUtils.readFileToByteArray(new File(inProcessFolder, "sample/Sample.class")));
+	}
+
+	@Test(expected = SavException.class)
+	public void testCompilationError() throws Exception {
+		FileUtils.writeStringToFile(javaFile, "package sample;\npublic class Sample { int run() { return; } }\n");
+		new JavaCompiler(vmConfig).compile(workingFolder.getAbsolutePath(), javaFile);
+	}
+}